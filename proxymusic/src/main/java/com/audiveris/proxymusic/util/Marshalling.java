@@ -11,11 +11,17 @@
 // </editor-fold>
 package com.audiveris.proxymusic.util;
 
+import com.audiveris.proxymusic.Credit;
+import com.audiveris.proxymusic.Defaults;
 import com.audiveris.proxymusic.Encoding;
 import com.audiveris.proxymusic.Identification;
 import com.audiveris.proxymusic.ObjectFactory;
+import com.audiveris.proxymusic.PartList;
 import com.audiveris.proxymusic.ProgramId;
+import com.audiveris.proxymusic.ScorePart;
 import com.audiveris.proxymusic.ScorePartwise;
+import com.audiveris.proxymusic.ScorePartwise.Part.Measure;
+import com.audiveris.proxymusic.Work;
 import com.audiveris.proxymusic.opus.Opus;
 
 import org.slf4j.Logger;
@@ -30,10 +36,10 @@ import java.io.Writer;
 import java.lang.String; // Don't remove this line!
 import java.util.Arrays;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -71,6 +77,8 @@ import javax.xml.stream.util.StreamReaderDelegate;
  * The method {@link #getContext(Class)} is publicly visible so as to allow an asynchronous
  * elaboration of the JAXB context, which can be an expensive operation because of the large number
  * of Java classes in the ScorePartwise hierarchy.
+ * <p>
+ * Large scores can be written measure by measure, using a {@link PartwiseWriter}.
  *
  * @author Hervé Bitteur
  */
@@ -82,7 +90,14 @@ public abstract class Marshalling
             Marshalling.class);
 
     /** JAXB contexts. */
-    private static final Map<Class, JAXBContext> jaxbContextMap = new HashMap<Class, JAXBContext>();
+    private static final Map<Class, JAXBContext> jaxbContextMap = new ConcurrentHashMap<Class, JAXBContext>();
+
+    /** ScorePartwise marshallers, one per thread, since a marshaller is not thread-safe. */
+    private static final ThreadLocal<Marshaller> partwiseMarshallers =
+            new ThreadLocal<Marshaller>();
+
+    /** Factory for XML stream writers, shared by all marshalling operations. */
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
 
     /** The XML document statement. */
     private static final String XML_LINE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
@@ -172,16 +187,13 @@ public abstract class Marshalling
             // Inject version & signature
             annotate(scorePartwise, injectSignature);
 
-            Marshaller marshaller = getContext(ScorePartwise.class).createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+            Marshaller marshaller = getPartwiseMarshaller();
 
             Writer out = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
             out.write(XML_LINE);
             out.write("\n");
             out.write(PARTWISE_DOCTYPE_LINE);
 
-            XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
             XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out);
             // Use our custom XmlStreamWriter for name-space, formatting and comment line
             writer = new MyStreamWriter(writer, indentation);
@@ -219,7 +231,6 @@ public abstract class Marshalling
             out.write("\n");
             out.write(OPUS_DOCTYPE_LINE);
 
-            XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
             XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out);
 
             // Our custom XmlStreamWriter for name-space, formatting and comment line
@@ -254,8 +265,7 @@ public abstract class Marshalling
         try {
             annotate(scorePartwise, injectSignature);
 
-            Marshaller marshaller = getContext(ScorePartwise.class).createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            Marshaller marshaller = getPartwiseMarshaller();
             marshaller.marshal(scorePartwise, node);
         } catch (Exception ex) {
             throw new MarshallingException(ex);
@@ -277,51 +287,27 @@ public abstract class Marshalling
     public static Object unmarshal (final InputStream is)
             throws UnmarshallingException
     {
-        try {
-            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-
-            // Do not try to resolve DTDs (especially on the network!)
-            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-
-            // Make the input reader non namespace aware
-            // (attributes xlink:href and the like will be manually handled on the fly)
-            inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false); // OK
-
-            XMLStreamReader xsr = inputFactory.createXMLStreamReader(is);
-            // Use our specific stream reader
-            xsr = new MyStreamReader(xsr);
-
-            XMLEventReader reader = inputFactory.createXMLEventReader(xsr);
-
-            while (reader.hasNext()) {
-                // Peek root element, to decide between ScorePartwise or Opus un-marshalling
-                XMLEvent event = reader.peek();
-
-                if (event.isStartElement()) {
-                    StartElement rootStart = event.asStartElement();
-                    QName qName = rootStart.getName();
-                    String name = qName.getLocalPart();
-
-                    if (name.equals("opus")) {
-                        Unmarshaller um = getContext(Opus.class).createUnmarshaller();
-
-                        return um.unmarshal(reader, Opus.class).getValue();
-                    } else if (name.equals("score-partwise")) {
-                        Unmarshaller um = getContext(ScorePartwise.class).createUnmarshaller();
-
-                        return um.unmarshal(reader, ScorePartwise.class).getValue();
-                    } else {
-                        reader.next();
-                    }
-                } else {
-                    reader.next();
-                }
-            }
+        return unmarshal(is, false);
+    }
 
-            return null;
-        } catch (Exception ex) {
-            throw new UnmarshallingException(ex);
-        }
+    //-------------------//
+    // unmarshalSkeleton //
+    //-------------------//
+    /**
+     * Un-marshal the skeleton of a <b>ScorePartwise</b> instance from an InputStream, that is
+     * the whole header but only the first measure of each part.
+     * <p>
+     * The other measures are skipped at StAX level, without being un-marshalled, which is much
+     * cheaper than un-marshalling the whole instance when only its header is needed.
+     *
+     * @param is the input stream
+     * @return the ScorePartwise skeleton
+     * @throws UnmarshallingException global exception (use getCause() for original exception)
+     */
+    public static ScorePartwise unmarshalSkeleton (final InputStream is)
+            throws UnmarshallingException
+    {
+        return (ScorePartwise) unmarshal(is, true);
     }
 
     //----------//
@@ -409,6 +395,97 @@ public abstract class Marshalling
         }
     }
 
+    //-----------------------//
+    // getPartwiseMarshaller //
+    //-----------------------//
+    /**
+     * Report the ScorePartwise marshaller dedicated to the current thread, creating it if
+     * needed.
+     *
+     * @return the marshaller, set for fragment output in UTF-8
+     * @throws JAXBException if marshaller could not be created
+     */
+    private static Marshaller getPartwiseMarshaller ()
+            throws JAXBException
+    {
+        Marshaller marshaller = partwiseMarshallers.get();
+
+        if (marshaller == null) {
+            marshaller = getContext(ScorePartwise.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+            partwiseMarshallers.set(marshaller);
+        }
+
+        return marshaller;
+    }
+
+    //-----------//
+    // unmarshal //
+    //-----------//
+    /**
+     * Un-marshal a <b>ScorePartwise</b> instance or an <b>Opus</b> instance from an InputStream.
+     *
+     * @param is       the input stream
+     * @param skeleton true to keep only the first measure of each part
+     * @return the root element (either Opus or ScorePartwise object)
+     * @throws UnmarshallingException global exception (use getCause() for original exception)
+     */
+    private static Object unmarshal (final InputStream is,
+                                     final boolean skeleton)
+            throws UnmarshallingException
+    {
+        try {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+            // Do not try to resolve DTDs (especially on the network!)
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+            // Make the input reader non namespace aware
+            // (attributes xlink:href and the like will be manually handled on the fly)
+            inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false); // OK
+
+            XMLStreamReader xsr = inputFactory.createXMLStreamReader(is);
+            // Use our specific stream reader
+            xsr = new MyStreamReader(xsr);
+
+            if (skeleton) {
+                xsr = new SkeletonStreamReader(xsr);
+            }
+
+            XMLEventReader reader = inputFactory.createXMLEventReader(xsr);
+
+            while (reader.hasNext()) {
+                // Peek root element, to decide between ScorePartwise or Opus un-marshalling
+                XMLEvent event = reader.peek();
+
+                if (event.isStartElement()) {
+                    StartElement rootStart = event.asStartElement();
+                    QName qName = rootStart.getName();
+                    String name = qName.getLocalPart();
+
+                    if (name.equals("opus")) {
+                        Unmarshaller um = getContext(Opus.class).createUnmarshaller();
+
+                        return um.unmarshal(reader, Opus.class).getValue();
+                    } else if (name.equals("score-partwise")) {
+                        Unmarshaller um = getContext(ScorePartwise.class).createUnmarshaller();
+
+                        return um.unmarshal(reader, ScorePartwise.class).getValue();
+                    } else {
+                        reader.next();
+                    }
+                } else {
+                    reader.next();
+                }
+            }
+
+            return null;
+        } catch (Exception ex) {
+            throw new UnmarshallingException(ex);
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     /** Global exception for formatting. */
     public static class FormattingException
@@ -434,6 +511,184 @@ public abstract class Marshalling
         }
     }
 
+    //----------------//
+    // PartwiseWriter //
+    //----------------//
+    /**
+     * Class {@code PartwiseWriter} writes a <b>ScorePartwise</b> document to an OutputStream
+     * piece by piece, so that the whole ScorePartwise tree never needs to be kept in memory.
+     * <p>
+     * The expected sequence of calls is:
+     * <ol>
+     * <li>{@link #writeHeader} with a ScorePartwise instance which contains everything but the
+     * parts,</li>
+     * <li>for each part, {@link #startPart}, then {@link #writeMeasure} for each measure of the
+     * part, then {@link #endPart},</li>
+     * <li>{@link #finish}.</li>
+     * </ol>
+     * Output is identical to the one of {@link Marshalling#marshal(ScorePartwise, OutputStream,
+     * boolean, Integer)} on the complete tree.
+     */
+    public static class PartwiseWriter
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** The underlying XML writer. */
+        private final XMLStreamWriter writer;
+
+        /** The (per-thread) JAXB marshaller. */
+        private final Marshaller marshaller;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        /**
+         * Create a {@code PartwiseWriter} on the provided output stream.
+         *
+         * @param os          the output stream (not closed by this writer)
+         * @param indentation formatting indentation value, null for no formatting
+         * @throws MarshallingException global exception (use getCause() for original exception)
+         */
+        public PartwiseWriter (OutputStream os,
+                               Integer indentation)
+                throws MarshallingException
+        {
+            try {
+                marshaller = getPartwiseMarshaller();
+
+                Writer out = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
+                out.write(XML_LINE);
+                out.write("\n");
+                out.write(PARTWISE_DOCTYPE_LINE);
+
+                writer = new MyStreamWriter(outputFactory.createXMLStreamWriter(out), indentation);
+            } catch (Exception ex) {
+                throw new MarshallingException(ex);
+            }
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Close the current part element.
+         *
+         * @throws MarshallingException global exception (use getCause() for original exception)
+         */
+        public void endPart ()
+                throws MarshallingException
+        {
+            try {
+                writer.writeEndElement();
+            } catch (Exception ex) {
+                throw new MarshallingException(ex);
+            }
+        }
+
+        /**
+         * Close the document and flush the output stream.
+         *
+         * @throws MarshallingException global exception (use getCause() for original exception)
+         */
+        public void finish ()
+                throws MarshallingException
+        {
+            try {
+                writer.writeEndElement();
+                writer.flush();
+            } catch (Exception ex) {
+                throw new MarshallingException(ex);
+            }
+        }
+
+        /**
+         * Open a part element.
+         *
+         * @param scorePart the score-part, in part-list, this part relates to
+         * @throws MarshallingException global exception (use getCause() for original exception)
+         */
+        public void startPart (ScorePart scorePart)
+                throws MarshallingException
+        {
+            try {
+                writer.writeStartElement("part");
+                writer.writeAttribute("id", scorePart.getId());
+            } catch (Exception ex) {
+                throw new MarshallingException(ex);
+            }
+        }
+
+        /**
+         * Write the document header, that is the root element start and all the score-header
+         * elements (work, movement, identification, defaults, credits and part-list).
+         * Parts, if any, are ignored.
+         *
+         * @param header          the ScorePartwise instance which provides header data
+         * @param injectSignature false if ProxyMusic encoder must not be referenced
+         * @throws MarshallingException global exception (use getCause() for original exception)
+         */
+        public void writeHeader (ScorePartwise header,
+                                 boolean injectSignature)
+                throws MarshallingException
+        {
+            try {
+                // Inject version & signature
+                annotate(header, injectSignature);
+
+                writer.writeStartElement("score-partwise");
+                writer.writeAttribute("version", header.getVersion());
+
+                writeElement("work", Work.class, header.getWork());
+                writeText("movement-number", header.getMovementNumber());
+                writeText("movement-title", header.getMovementTitle());
+                writeElement("identification", Identification.class, header.getIdentification());
+                writeElement("defaults", Defaults.class, header.getDefaults());
+
+                for (Credit credit : header.getCredit()) {
+                    writeElement("credit", Credit.class, credit);
+                }
+
+                writeElement("part-list", PartList.class, header.getPartList());
+            } catch (Exception ex) {
+                throw new MarshallingException(ex);
+            }
+        }
+
+        /**
+         * Write a measure element within the current part.
+         * The measure can be discarded as soon as this method returns.
+         *
+         * @param measure the measure to write
+         * @throws MarshallingException global exception (use getCause() for original exception)
+         */
+        public void writeMeasure (Measure measure)
+                throws MarshallingException
+        {
+            try {
+                writeElement("measure", Measure.class, measure);
+            } catch (Exception ex) {
+                throw new MarshallingException(ex);
+            }
+        }
+
+        private <T> void writeElement (String name,
+                                       Class<T> classe,
+                                       T value)
+                throws JAXBException
+        {
+            if (value != null) {
+                marshaller.marshal(new JAXBElement<T>(new QName(name), classe, value), writer);
+            }
+        }
+
+        private void writeText (String name,
+                                String value)
+                throws XMLStreamException
+        {
+            if (value != null) {
+                writer.writeStartElement(name);
+                writer.writeCharacters(value);
+                writer.writeEndElement();
+            }
+        }
+    }
+
     /** Global exception for un-marshalling. */
     public static class UnmarshallingException
             extends Exception
@@ -1003,6 +1258,84 @@ public abstract class Marshalling
             }
         }
     }
+
+    //----------------------//
+    // SkeletonStreamReader //
+    //----------------------//
+    /**
+     * Class to skip on the fly all the measures of a part, except the first one, during
+     * unmarshal operation.
+     */
+    private static class SkeletonStreamReader
+            extends StreamReaderDelegate
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Number of measures met so far in the current part. */
+        private int measureCount;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public SkeletonStreamReader (XMLStreamReader reader)
+        {
+            super(reader);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public int next ()
+                throws XMLStreamException
+        {
+            int event = super.next();
+
+            while (event == START_ELEMENT) {
+                String name = getLocalName();
+
+                if (name.equals("part")) {
+                    measureCount = 0;
+
+                    break;
+                }
+
+                if (!name.equals("measure") || (measureCount++ == 0)) {
+                    break;
+                }
+
+                // Skip the whole measure element
+                for (int depth = 1; depth > 0;) {
+                    event = super.next();
+
+                    if (event == START_ELEMENT) {
+                        depth++;
+                    } else if (event == END_ELEMENT) {
+                        depth--;
+                    }
+                }
+
+                event = super.next();
+            }
+
+            return event;
+        }
+
+        @Override
+        public int nextTag ()
+                throws XMLStreamException
+        {
+            // Go through next(), so that measures get skipped
+            int event = next();
+
+            while (((event == CHARACTERS) && isWhiteSpace()) || (event == SPACE)
+                   || (event == COMMENT) || (event == PROCESSING_INSTRUCTION)) {
+                event = next();
+            }
+
+            if ((event != START_ELEMENT) && (event != END_ELEMENT)) {
+                throw new XMLStreamException("Expected start or end tag", getLocation());
+            }
+
+            return event;
+        }
+    }
 }
 //    //--------------//
 //    // prettyFormat //
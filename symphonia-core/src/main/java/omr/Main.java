@@ -11,6 +11,8 @@
 // </editor-fold>
 package omr;
 
+import omr.check.CheckStatistics;
+
 import omr.constant.Constant;
 import omr.constant.ConstantManager;
 import omr.constant.ConstantSet;
@@ -161,6 +163,14 @@ public class Main
             // So shutdown immediately the executors
             OmrExecutors.shutdown(true);
 
+            // Export check statistics for review?
+            if (CheckStatistics.isRecording()) {
+                CheckStatistics.export(
+                        new File(
+                        WellKnowns.TEMP_FOLDER,
+                        "check-statistics.csv"));
+            }
+
             // Store latest constant values on disk?
             if (constants.persistBatchCliConstants.getValue()) {
                 ConstantManager.getInstance()
@@ -185,7 +195,11 @@ public class Main
      */
     public static String getBenchPath ()
     {
-        return parameters.benchPath;
+        if (parameters == null) {
+            return null;
+        } else {
+            return parameters.benchPath;
+        }
     }
 
     //-----------------//
@@ -215,7 +229,11 @@ public class Main
      */
     public static String getExportPath ()
     {
-        return parameters.exportPath;
+        if (parameters == null) {
+            return null;
+        } else {
+            return parameters.exportPath;
+        }
     }
 
     //---------------//
@@ -312,7 +330,11 @@ public class Main
      */
     public static String getMidiPath ()
     {
-        return parameters.midiPath;
+        if (parameters == null) {
+            return null;
+        } else {
+            return parameters.midiPath;
+        }
     }
 
     //-------------//
@@ -325,7 +347,11 @@ public class Main
      */
     public static SortedSet<Integer> getPageIds ()
     {
-        return parameters.pages;
+        if (parameters == null) {
+            return null;
+        } else {
+            return parameters.pages;
+        }
     }
 
     //--------------//
@@ -338,7 +364,11 @@ public class Main
      */
     public static String getPrintPath ()
     {
-        return parameters.printPath;
+        if (parameters == null) {
+            return null;
+        } else {
+            return parameters.printPath;
+        }
     }
 
     //-----------------//
@@ -0,0 +1,556 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                             O m r E n g i n e                              //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.glyph.GlyphNetwork;
+import omr.glyph.ShapeDescription;
+
+import omr.score.Score;
+import omr.score.ScoreExporter;
+import omr.score.ui.SheetPdfOutput;
+
+import omr.sheet.Sheet;
+import omr.sheet.picture.PictureLoader;
+
+import omr.step.Step;
+import omr.step.StepException;
+import omr.step.StepListener;
+import omr.step.Stepping;
+
+import omr.ui.symbol.MusicFont;
+
+import omr.util.OmrExecutors;
+
+import com.audiveris.proxymusic.ScorePartwise;
+import com.audiveris.proxymusic.util.Marshalling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code OmrEngine} is the entry point for embedding the OMR
+ * processing within a long-lived host, such as a web server.
+ *
+ * <p>Unlike {@link Main#doMain(String[])}, which initializes the application
+ * for one batch run and shuts the executors down when done, the engine is
+ * initialized once and then keeps its costly resources warm (executors, glyph
+ * neural network, shape descriptors, JAXB context, music font) across
+ * successive scores.</p>
+ *
+ * <p>Several scores can be processed concurrently, the number of scores
+ * actually in progress being bounded by constant 'maxConcurrentScores'.
+ * A score holds a processing slot only while it is being processed, so that
+ * a score merely loaded, and perhaps waiting in some host queue, never
+ * prevents another one from being processed. Bounding the number of loaded
+ * scores is left to the host.
+ * Typical use is: <ol>
+ * <li>{@link #process} an image file or stream up to the desired step,</li>
+ * <li>{@link #export}, {@link #exportMxl} and/or {@link #print} the
+ * resulting score,</li>
+ * <li>{@link #close} the score.</li></ol></p>
+ *
+ * @author Hervé Bitteur
+ */
+public class OmrEngine
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            OmrEngine.class);
+
+    /** The single instance of this class */
+    private static volatile OmrEngine INSTANCE;
+
+    //~ Instance fields --------------------------------------------------------
+    /** Admission of scores being processed concurrently */
+    private final Semaphore slots;
+
+    /** Count of scores read from streams, to name them uniquely */
+    private final AtomicInteger streamCount = new AtomicInteger(0);
+
+    //~ Constructors -----------------------------------------------------------
+    //-----------//
+    // OmrEngine //
+    //-----------//
+    /**
+     * Private constructor, which initializes all shared resources.
+     */
+    private OmrEngine ()
+    {
+        // We need class WellKnowns to be elaborated first
+        WellKnowns.ensureLoaded();
+
+        // (re) Open the executor services
+        OmrExecutors.restart();
+
+        slots = new Semaphore(
+                Math.max(1, constants.maxConcurrentScores.getValue()),
+                true);
+
+        warmUp();
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the single instance of the engine, initializing it if
+     * needed.
+     *
+     * @return the engine instance
+     */
+    public static OmrEngine getInstance ()
+    {
+        if (INSTANCE == null) {
+            synchronized (OmrEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new OmrEngine();
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Release the provided score, with all its sheets.
+     *
+     * @param score the score to close (may be null)
+     */
+    public void close (Score score)
+    {
+        if (score != null) {
+            score.close();
+        }
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Export the provided score as MusicXML to the provided stream.
+     * Data is written measure by measure, as soon as it is available.
+     *
+     * @param score the processed score (SCORE step must have been done)
+     * @param os    the output stream (not closed by this method)
+     * @throws Exception if export failed
+     */
+    public void export (Score score,
+                        OutputStream os)
+            throws Exception
+    {
+        new ScoreExporter(score).exportStreamed(
+                os,
+                constants.injectSignature.getValue());
+    }
+
+    //-----------//
+    // exportMxl //
+    //-----------//
+    /**
+     * Export the provided score as compressed MusicXML (.mxl) to the
+     * provided stream.
+     *
+     * @param score the processed score (SCORE step must have been done)
+     * @param os    the output stream (closed by this method, since the
+     *              zip container must be completed)
+     * @throws Exception if export failed
+     */
+    public void exportMxl (Score score,
+                           OutputStream os)
+            throws Exception
+    {
+        new ScoreExporter(score).exportMxl(
+                os,
+                constants.injectSignature.getValue());
+    }
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Create a score whose pages are decoded from the provided stream,
+     * without processing them further than the LOAD step.
+     * No temporary file is used, the images are decoded directly from the
+     * stream, which must contain a format readable by ImageIO.
+     * The caller is responsible for closing the returned score, via
+     * {@link #close(Score)}.
+     *
+     * @param is    the input stream (not closed by this method)
+     * @param name  the name of the input image (used for score naming)
+     * @param pages specific set of page ids, or null for all pages
+     * @return the loaded score
+     * @throws StepException if no image could be loaded
+     */
+    public Score load (InputStream is,
+                       String name,
+                       SortedSet<Integer> pages)
+            throws StepException
+    {
+        // A virtual file, just to name the score in a unique way
+        File folder = new File(
+                WellKnowns.TEMP_FOLDER,
+                "stream-" + streamCount.incrementAndGet());
+        Score score = new Score(new File(folder, name));
+        boolean loaded = false;
+
+        try {
+            SortedMap<Integer, RenderedImage> images = PictureLoader.loadImages(
+                    is,
+                    name,
+                    pages);
+
+            if (images != null) {
+                score.createPagesFromImages(images);
+            }
+
+            if (score.getFirstPage() == null) {
+                throw new StepException("No image loaded from " + name);
+            }
+
+            loaded = true;
+
+            return score;
+        } finally {
+            if (!loaded) {
+                close(score);
+            }
+        }
+    }
+
+    //-------//
+    // print //
+    //-------//
+    /**
+     * Print the physical appearance of the provided score to a PDF file.
+     *
+     * @param score the processed score
+     * @param file  the target PDF file
+     * @throws Exception if printing failed
+     */
+    public void print (Score score,
+                       File file)
+            throws Exception
+    {
+        new SheetPdfOutput(score, file).write();
+    }
+
+    //-------//
+    // print //
+    //-------//
+    /**
+     * Print the physical appearance of the provided score to a PDF
+     * stream, page after page.
+     *
+     * @param score the processed score
+     * @param os    the output stream (not closed by this method)
+     * @throws Exception if printing failed
+     */
+    public void print (Score score,
+                       OutputStream os)
+            throws Exception
+    {
+        new SheetPdfOutput(score, os).write();
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Load the provided image file and process all its pages up to the
+     * target step.
+     * The caller is responsible for closing the returned score, via
+     * {@link #close(Score)}. If the target step cannot be reached, the score
+     * is closed by this method.
+     *
+     * @param imageFile the input image file
+     * @param pages     specific set of page ids, or null for all pages
+     * @param target    the step to reach
+     * @return the processed score
+     * @throws StepException if the target step could not be reached
+     */
+    public Score process (File imageFile,
+                          SortedSet<Integer> pages,
+                          Step target)
+            throws StepException
+    {
+        if (!imageFile.exists()) {
+            throw new StepException("Could not find file " + imageFile);
+        }
+
+        logger.info("Launching {} on {}", target, imageFile);
+
+        Score score = new Score(imageFile);
+        boolean processed = false;
+
+        try {
+            process(score, pages, target, null);
+            processed = true;
+
+            return score;
+        } finally {
+            if (!processed) {
+                close(score);
+            }
+        }
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Decode images from the provided stream and process all their pages
+     * up to the target step.
+     * The caller is responsible for closing the returned score, via
+     * {@link #close(Score)}. If the target step cannot be reached, the score
+     * is closed by this method.
+     *
+     * @param is     the input stream (not closed by this method)
+     * @param name   the name of the input image (used for score naming)
+     * @param pages  specific set of page ids, or null for all pages
+     * @param target the step to reach
+     * @return the processed score
+     * @throws StepException if the target step could not be reached
+     * @see #load(InputStream, String, SortedSet)
+     */
+    public Score process (InputStream is,
+                          String name,
+                          SortedSet<Integer> pages,
+                          Step target)
+            throws StepException
+    {
+        logger.info("Launching {} on stream {}", target, name);
+
+        Score score = load(is, name, pages);
+        boolean processed = false;
+
+        try {
+            process(score, null, target, null);
+            processed = true;
+
+            return score;
+        } finally {
+            if (!processed) {
+                close(score);
+            }
+        }
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process the pages of an already loaded score up to the target step.
+     * The score is left open, even if the target step cannot be reached:
+     * the caller remains its single owner, and must close it via
+     * {@link #close(Score)}.
+     *
+     * @param score    the loaded score
+     * @param target   the step to reach
+     * @param listener an optional listener on this score steps, or null
+     * @throws StepException if the target step could not be reached
+     * @see #load(InputStream, String, SortedSet)
+     */
+    public void process (Score score,
+                         Step target,
+                         StepListener listener)
+            throws StepException
+    {
+        process(score, null, target, listener);
+    }
+
+    //-------------//
+    // acquireSlot //
+    //-------------//
+    /**
+     * Wait until a processing slot is available.
+     *
+     * @throws StepException if interrupted while waiting
+     */
+    private void acquireSlot ()
+            throws StepException
+    {
+        try {
+            slots.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new StepException(ex);
+        }
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process the pages of the provided score up to the target step.
+     * The score is never closed here, this is up to its owner.
+     *
+     * @param score    the score to process
+     * @param pages    specific set of page ids, or null for all pages
+     * @param target   the step to reach
+     * @param listener an optional listener on this score steps, or null
+     * @throws StepException if the target step could not be reached
+     */
+    private void process (Score score,
+                          SortedSet<Integer> pages,
+                          Step target,
+                          StepListener listener)
+            throws StepException
+    {
+        StepListener scoreListener = null;
+
+        if (listener != null) {
+            scoreListener = new ScoreListener(score, listener);
+            Stepping.addListener(scoreListener);
+        }
+
+        try {
+            acquireSlot();
+
+            try {
+                Stepping.processScore(
+                        Collections.singleton(target),
+                        pages,
+                        score);
+            } finally {
+                slots.release();
+            }
+
+            if (score.getFirstPage() == null) {
+                throw new StepException("No image loaded for " + score);
+            }
+
+            Sheet sheet = score.getFirstPage()
+                    .getSheet();
+
+            if (!sheet.isDone(target)) {
+                throw new StepException(target + " not reached on " + score);
+            }
+        } finally {
+            if (scoreListener != null) {
+                Stepping.removeListener(scoreListener);
+            }
+        }
+    }
+
+    //--------//
+    // warmUp //
+    //--------//
+    /**
+     * Elaborate once for all the shared resources, so that the first
+     * processed score does not pay for them.
+     */
+    private void warmUp ()
+    {
+        long start = System.currentTimeMillis();
+
+        MusicFont.checkMusicFont();
+        ShapeDescription.length();
+        GlyphNetwork.getInstance();
+
+        try {
+            Marshalling.getContext(ScorePartwise.class);
+        } catch (Exception ex) {
+            logger.warn("Error preloading JaxbContext", ex);
+        }
+
+        logger.info(
+                "OmrEngine ready in {} ms",
+                System.currentTimeMillis() - start);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Integer maxConcurrentScores = new Constant.Integer(
+                "scores",
+                OmrExecutors.getNumberOfCpus(),
+                "Maximum number of scores processed concurrently by the engine");
+
+        Constant.Boolean injectSignature = new Constant.Boolean(
+                true,
+                "Should we inject our signature in the exported scores?");
+
+    }
+
+    //---------------//
+    // ScoreListener //
+    //---------------//
+    /**
+     * Forwards to a listener only the notifications that relate to
+     * a given score.
+     */
+    private static class ScoreListener
+            implements StepListener
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final Score score;
+
+        private final StepListener listener;
+
+        //~ Constructors -------------------------------------------------------
+        public ScoreListener (Score score,
+                              StepListener listener)
+        {
+            this.score = score;
+            this.listener = listener;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public void stepStarted (Sheet sheet,
+                                 Step step)
+        {
+            if (sheet.getScore() == score) {
+                listener.stepStarted(sheet, step);
+            }
+        }
+
+        @Override
+        public void stepStopped (Sheet sheet,
+                                 Step step)
+        {
+            if (sheet.getScore() == score) {
+                listener.stepStopped(sheet, step);
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       C h e c k S t a t i s t i c s                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.check;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class {@code CheckStatistics} gathers the statistics of one check
+ * within a check suite: number of evaluations, number of RED results and
+ * cumulated evaluation time.
+ *
+ * <p>Statistics are shared by all suites of the same name (for example all
+ * the stem suites of all systems), and they are recorded only when the
+ * related constant is set.
+ * They are used by {@link CheckSuite} to evaluate first the checks which
+ * reject candidates at the lowest cost, when adaptive order is set.
+ * They can be exported as a CSV file via {@link #export}.
+ *
+ * @author Hervé Bitteur
+ */
+public class CheckStatistics
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            CheckStatistics.class);
+
+    /** All statistics, per suite and check names. */
+    private static final ConcurrentMap<String, CheckStatistics> all =
+            new ConcurrentHashMap<>();
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Name of the suite. */
+    private final String suiteName;
+
+    /** Name of the check. */
+    private final String checkName;
+
+    /** Number of evaluations. */
+    private final AtomicLong evaluations = new AtomicLong();
+
+    /** Number of RED results. */
+    private final AtomicLong reds = new AtomicLong();
+
+    /** Cumulated evaluation time, in nanoseconds. */
+    private final AtomicLong nanos = new AtomicLong();
+
+    //~ Constructors -----------------------------------------------------------
+    //-----------------//
+    // CheckStatistics //
+    //-----------------//
+    private CheckStatistics (String suiteName,
+                             String checkName)
+    {
+        this.suiteName = suiteName;
+        this.checkName = checkName;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Write all statistics gathered so far into a CSV file.
+     * Suite and check names are quoted, as they may contain commas.
+     *
+     * @param file the target file
+     */
+    public static void export (File file)
+    {
+        PrintWriter out = null;
+
+        try {
+            out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+            out.println("suite,check,evaluations,reds,redRate,meanMicros");
+
+            for (CheckStatistics stat : new TreeMap<>(all).values()) {
+                out.println(
+                        String.format(
+                        Locale.US,
+                        "%s,%s,%d,%d,%.4f,%.3f",
+                        quote(stat.suiteName),
+                        quote(stat.checkName),
+                        stat.getEvaluations(),
+                        stat.reds.get(),
+                        stat.getRedRate(),
+                        stat.getMeanNanos() / 1000));
+            }
+
+            logger.info("Check statistics exported to {}", file);
+        } catch (IOException ex) {
+            logger.warn("IO error while writing file ''{}''", file);
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the statistics of a check within a suite.
+     *
+     * @param suiteName name of the suite
+     * @param checkName name of the check
+     * @return the (shared) statistics
+     */
+    public static CheckStatistics getInstance (String suiteName,
+                                               String checkName)
+    {
+        final String key = suiteName + "/" + checkName;
+        CheckStatistics stat = all.get(key);
+
+        if (stat == null) {
+            stat = new CheckStatistics(suiteName, checkName);
+
+            CheckStatistics prev = all.putIfAbsent(key, stat);
+
+            if (prev != null) {
+                stat = prev;
+            }
+        }
+
+        return stat;
+    }
+
+    //------------------//
+    // getRejectionCost //
+    //------------------//
+    /**
+     * Report the mean evaluation time spent per RED result, which is the
+     * criterion to order checks: the lower, the sooner.
+     *
+     * @return the mean cost of a rejection, 0 if not enough evaluations have
+     *         been recorded yet
+     */
+    public double getRejectionCost ()
+    {
+        if (getEvaluations() < constants.minEvaluations.getValue()) {
+            return 0; // So that this check gets evaluated
+        }
+
+        return getMeanNanos() / Math.max(getRedRate(), 1e-3);
+    }
+
+    //------------------//
+    // getReorderPeriod //
+    //------------------//
+    /**
+     * Report the number of suite passes between two computations of the
+     * evaluation order.
+     *
+     * @return the reorder period
+     */
+    public static int getReorderPeriod ()
+    {
+        return Math.max(1, constants.reorderPeriod.getValue());
+    }
+
+    //------------//
+    // isAdaptive //
+    //------------//
+    /**
+     * Report whether check suites should adapt their evaluation order.
+     *
+     * @return true for adaptive order
+     */
+    public static boolean isAdaptive ()
+    {
+        return constants.adaptiveOrder.isSet();
+    }
+
+    //-------------//
+    // isRecording //
+    //-------------//
+    /**
+     * Report whether statistics are being recorded.
+     * This is always the case in adaptive order.
+     *
+     * @return true if recording
+     */
+    public static boolean isRecording ()
+    {
+        return constants.recordStatistics.isSet()
+               || constants.adaptiveOrder.isSet();
+    }
+
+    //--------//
+    // record //
+    //--------//
+    /**
+     * Record one evaluation of the check.
+     *
+     * @param duration the evaluation time, in nanoseconds
+     * @param red      true if the result was RED
+     */
+    public void record (long duration,
+                        boolean red)
+    {
+        evaluations.incrementAndGet();
+        nanos.addAndGet(duration);
+
+        if (red) {
+            reds.incrementAndGet();
+        }
+    }
+
+    //-------//
+    // reset //
+    //-------//
+    /**
+     * Forget all statistics gathered so far.
+     */
+    public static void reset ()
+    {
+        all.clear();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return String.format(
+                Locale.US,
+                "{CheckStatistics %s/%s evals:%d reds:%.2f%% mean:%.3fus}",
+                suiteName,
+                checkName,
+                getEvaluations(),
+                100 * getRedRate(),
+                getMeanNanos() / 1000);
+    }
+
+    //----------------//
+    // getEvaluations //
+    //----------------//
+    private long getEvaluations ()
+    {
+        return evaluations.get();
+    }
+
+    //--------------//
+    // getMeanNanos //
+    //--------------//
+    private double getMeanNanos ()
+    {
+        long count = getEvaluations();
+
+        return (count == 0) ? 0 : ((double) nanos.get() / count);
+    }
+
+    //------------//
+    // getRedRate //
+    //------------//
+    private double getRedRate ()
+    {
+        long count = getEvaluations();
+
+        return (count == 0) ? 0 : ((double) reds.get() / count);
+    }
+
+    //-------//
+    // quote //
+    //-------//
+    /**
+     * Quote a CSV field, doubling any embedded double quote.
+     */
+    private static String quote (String field)
+    {
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Boolean recordStatistics = new Constant.Boolean(
+                false,
+                "Should we record statistics on checks evaluation?");
+
+        Constant.Boolean adaptiveOrder = new Constant.Boolean(
+                false,
+                "Should check suites run cheapest rejecting checks first?");
+
+        Constant.Integer minEvaluations = new Constant.Integer(
+                "Evaluations",
+                100,
+                "Minimum evaluations of a check before it can be reordered");
+
+        Constant.Integer reorderPeriod = new Constant.Integer(
+                "Passes",
+                1000,
+                "Number of suite passes between two check reorderings");
+
+    }
+}
@@ -15,7 +15,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -25,6 +28,17 @@ import java.util.List;
  * Every check in the suite is assigned a weight, to represent its relative
  * importance in the suite.
  *
+ * <p>Checks are passed in declaration order, unless adaptive order is set
+ * in {@link CheckStatistics}: checks are then passed by increasing cost of
+ * rejection, so that a candidate doomed to fail gets rejected as soon as
+ * possible. Results are not impacted by the evaluation order: when a check
+ * fails, the skipped checks declared before it are passed as well, so that
+ * the failure assigned to the candidate is the first one in declaration
+ * order.
+ *
+ * <p>Once populated, a suite may be passed concurrently by several threads.
+ * The evaluation order is then guarded by the suite monitor.
+ *
  * @param <C> the subtype of Checkable-compatible objects used in the
  *            homogeneous collection of checks in this suite
  *
@@ -53,6 +67,15 @@ public class CheckSuite<C extends Checkable>
     /** Total checks weight */
     private double totalWeight = 0.0d;
 
+    /** Statistics of each check, lazily allocated, parallel to checks */
+    private volatile CheckStatistics[] statistics;
+
+    /** Evaluation order, lazily computed. Guarded by this */
+    private int[] order;
+
+    /** Number of passes using current evaluation order. Guarded by this */
+    private int orderPasses;
+
     //~ Constructors -----------------------------------------------------------
     //------------//
     // CheckSuite //
@@ -86,6 +109,12 @@ public class CheckSuite<C extends Checkable>
         checks.add(check);
         weights.add(weight);
         totalWeight += weight;
+
+        statistics = null;
+
+        synchronized (this) {
+            order = null;
+        }
     }
 
     //--------//
@@ -219,7 +248,7 @@ public class CheckSuite<C extends Checkable>
     //------//
     /**
      * Pass sequentially the checks in the suite, stopping at the first
-     * test with red result.
+     * test with red result (in declaration order).
      *
      * @param object the object to be checked
      * @return the computed grade.
@@ -236,10 +265,27 @@ public class CheckSuite<C extends Checkable>
             sb.append(name).append(" ").append(object).append(" ");
         }
 
-        int index = 0;
-
-        for (Check<C> check : checks) {
-            check.pass(object, result, true);
+        // Keep declaration order when debugging, for readable traces
+        final boolean recording = CheckStatistics.isRecording();
+        final int[] sequence = (recording && CheckStatistics.isAdaptive()
+                                && !debug) ? getOrder() : null;
+        final int[] flags = new int[checks.size()];
+        final boolean[] passed = (sequence != null)
+                ? new boolean[flags.length] : null;
+
+        for (int i = 0; i < flags.length; i++) {
+            int index = (sequence != null) ? sequence[i] : i;
+            Check<C> check = checks.get(index);
+
+            if (recording) {
+                long start = System.nanoTime();
+                check.pass(object, result, true);
+                getStatistics()[index].record(
+                        System.nanoTime() - start,
+                        result.flag == Check.RED);
+            } else {
+                check.pass(object, result, true);
+            }
 
             if (debug) {
                 sb.append(
@@ -253,14 +299,24 @@ public class CheckSuite<C extends Checkable>
                     logger.info(sb.toString());
                 }
 
+                if (sequence != null) {
+                    passSkipped(object, index, passed, result);
+                }
+
                 return result.flag;
-            } else {
-                // Aggregate results
-                double weight = weights.get(index);
-                grade += (result.flag * weight);
             }
 
-            index++;
+            flags[index] = result.flag;
+
+            if (passed != null) {
+                passed[index] = true;
+            }
+        }
+
+        // Aggregate results, always in declaration order
+        for (int index = 0; index < flags.length; index++) {
+            double weight = weights.get(index);
+            grade += (flags[index] * weight);
         }
 
         // Final grade
@@ -348,4 +404,116 @@ public class CheckSuite<C extends Checkable>
     protected void dumpSpecific (StringBuilder sb)
     {
     }
+
+    //----------//
+    // getOrder //
+    //----------//
+    /**
+     * Report the current evaluation order, which is periodically
+     * recomputed from the checks statistics.
+     *
+     * @return the indices of checks, in evaluation order
+     */
+    private synchronized int[] getOrder ()
+    {
+        int[] current = order;
+
+        if ((current == null)
+            || (++orderPasses >= CheckStatistics.getReorderPeriod())) {
+            final CheckStatistics[] stats = getStatistics();
+            final double[] costs = new double[stats.length];
+            List<Integer> indices = new ArrayList<>(stats.length);
+
+            for (int index = 0; index < stats.length; index++) {
+                costs[index] = stats[index].getRejectionCost();
+                indices.add(index);
+            }
+
+            // Stable sort, so declaration order is kept for equal costs
+            Collections.sort(
+                    indices,
+                    new Comparator<Integer>()
+                    {
+                        @Override
+                        public int compare (Integer i1,
+                                            Integer i2)
+                        {
+                            return Double.compare(costs[i1], costs[i2]);
+                        }
+                    });
+
+            current = new int[indices.size()];
+
+            for (int i = 0; i < current.length; i++) {
+                current[i] = indices.get(i);
+            }
+
+            if (logger.isDebugEnabled() && !Arrays.equals(current, order)) {
+                logger.debug("{} check order: {}", name,
+                        Arrays.toString(current));
+            }
+
+            order = current;
+            orderPasses = 0;
+        }
+
+        return current;
+    }
+
+    //---------------//
+    // getStatistics //
+    //---------------//
+    /**
+     * Report the statistics of the checks, parallel to the checks list.
+     *
+     * @return the checks statistics
+     */
+    private CheckStatistics[] getStatistics ()
+    {
+        CheckStatistics[] stats = statistics;
+
+        if (stats == null) {
+            stats = new CheckStatistics[checks.size()];
+
+            for (int index = 0; index < stats.length; index++) {
+                stats[index] = CheckStatistics.getInstance(
+                        String.valueOf(name),
+                        checks.get(index).getName());
+            }
+
+            statistics = stats;
+        }
+
+        return stats;
+    }
+
+    //-------------//
+    // passSkipped //
+    //-------------//
+    /**
+     * Pass, in declaration order, the checks declared before the failed
+     * one but skipped by the adaptive order, stopping at the first red
+     * result, so that the failure assigned to the object is the same as
+     * in declaration order.
+     *
+     * @param object the object to be checked
+     * @param failed index of the failed check
+     * @param passed which checks have already been passed
+     * @param result output for the result
+     */
+    private void passSkipped (C object,
+                              int failed,
+                              boolean[] passed,
+                              CheckResult result)
+    {
+        for (int index = 0; index < failed; index++) {
+            if (!passed[index]) {
+                checks.get(index).pass(object, result, true);
+
+                if (result.flag == Check.RED) {
+                    return;
+                }
+            }
+        }
+    }
 }
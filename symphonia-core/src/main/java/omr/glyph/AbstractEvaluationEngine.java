@@ -33,6 +33,7 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -86,57 +87,34 @@ public abstract class AbstractEvaluationEngine
                                   EnumSet<ShapeEvaluator.Condition> conditions,
                                   Predicate<Shape> predicate)
     {
-        List<Evaluation> best = new ArrayList<>();
-        Evaluation[] evals = getRawEvaluations(glyph);
-
-        EvalsLoop:
-        for (Evaluation eval : evals) {
-            // Bounding test?
-            if ((best.size() >= count) || (eval.grade < minGrade)) {
-                break;
-            }
+        Evaluation[] evals = getRawEvaluations(
+                Collections.singletonList(glyph),
+                minGrade)[0];
 
-            // Predicate?
-            if ((predicate != null) && !predicate.check(eval.shape)) {
-                continue;
-            }
-
-            // Allowed?
-            if (conditions.contains(Condition.ALLOWED)
-                && glyph.isShapeForbidden(eval.shape)) {
-                continue;
-            }
-
-            // Successful checks?
-            if (conditions.contains(Condition.CHECKED)) {
-                Evaluation oldEval = new Evaluation(eval.shape, eval.grade);
-                double[] ins = ShapeDescription.features(glyph);
-                // This may change the eval shape...
-                glyphChecker.annotate(system, eval, glyph, ins);
-
-                if (eval.failure != null) {
-                    continue;
-                }
+        return select(glyph, evals, system, count, minGrade, conditions,
+                predicate);
+    }
 
-                // In case the specific checks have changed eval shape
-                // we have to retest against the glyph blacklist
-                if ((eval.shape != oldEval.shape)
-                    && conditions.contains(Condition.ALLOWED)
-                    && glyph.isShapeForbidden(eval.shape)) {
-                    continue;
-                }
-            }
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public Evaluation[][] evaluate (List<Glyph> glyphs,
+                                    SystemInfo system,
+                                    int count,
+                                    double minGrade,
+                                    EnumSet<Condition> conditions,
+                                    Predicate<Shape> predicate)
+    {
+        Evaluation[][] raws = getRawEvaluations(glyphs, minGrade);
+        Evaluation[][] results = new Evaluation[glyphs.size()][];
 
-            // Everything is OK, add the shape if not already in the list
-            for (Evaluation e : best) {
-                if (e.shape == eval.shape) {
-                    continue EvalsLoop;
-                }
-            }
-            best.add(eval);
+        for (int i = 0; i < results.length; i++) {
+            results[i] = select(glyphs.get(i), raws[i], system, count,
+                    minGrade, conditions, predicate);
         }
 
-        return best.toArray(new Evaluation[0]);
+        return results;
     }
 
     //-------------//
@@ -291,6 +269,34 @@ public abstract class AbstractEvaluationEngine
      */
     protected abstract Evaluation[] getRawEvaluations (Glyph glyph);
 
+    //-------------------//
+    // getRawEvaluations //
+    //-------------------//
+    /**
+     * Run the evaluator with the specified glyphs, and return for each
+     * glyph a sequence of interpretations (ordered from best to worst)
+     * with no additional check.
+     * Interpretations with a grade lower than minGrade may be omitted.
+     *
+     * <p>This default implementation evaluates the glyphs one after the
+     * other, a subclass may process them in one batch.
+     *
+     * @param glyphs   the glyphs to be examined
+     * @param minGrade the minimum grade of interest
+     * @return the ordered best evaluations, in the order of glyphs
+     */
+    protected Evaluation[][] getRawEvaluations (List<Glyph> glyphs,
+                                                double minGrade)
+    {
+        Evaluation[][] results = new Evaluation[glyphs.size()][];
+
+        for (int i = 0; i < results.length; i++) {
+            results[i] = getRawEvaluations(glyphs.get(i));
+        }
+
+        return results;
+    }
+
     //---------//
     // marshal //
     //---------//
@@ -442,6 +448,81 @@ public abstract class AbstractEvaluationEngine
         return null;
     }
 
+    //--------//
+    // select //
+    //--------//
+    /**
+     * Select the best evaluations of a glyph among its raw evaluations.
+     *
+     * @param glyph      the evaluated glyph
+     * @param evals      the raw evaluations, ordered from best to worst
+     * @param system     the system containing the glyph
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps empty
+     * @param predicate  filter for acceptable shapes, perhaps null
+     * @return the sequence of selected evaluations, perhaps empty
+     */
+    private Evaluation[] select (Glyph glyph,
+                                 Evaluation[] evals,
+                                 SystemInfo system,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Condition> conditions,
+                                 Predicate<Shape> predicate)
+    {
+        List<Evaluation> best = new ArrayList<>();
+
+        EvalsLoop:
+        for (Evaluation eval : evals) {
+            // Bounding test?
+            if ((best.size() >= count) || (eval.grade < minGrade)) {
+                break;
+            }
+
+            // Predicate?
+            if ((predicate != null) && !predicate.check(eval.shape)) {
+                continue;
+            }
+
+            // Allowed?
+            if (conditions.contains(Condition.ALLOWED)
+                && glyph.isShapeForbidden(eval.shape)) {
+                continue;
+            }
+
+            // Successful checks?
+            if (conditions.contains(Condition.CHECKED)) {
+                Evaluation oldEval = new Evaluation(eval.shape, eval.grade);
+                double[] ins = ShapeDescription.features(glyph);
+                // This may change the eval shape...
+                glyphChecker.annotate(system, eval, glyph, ins);
+
+                if (eval.failure != null) {
+                    continue;
+                }
+
+                // In case the specific checks have changed eval shape
+                // we have to retest against the glyph blacklist
+                if ((eval.shape != oldEval.shape)
+                    && conditions.contains(Condition.ALLOWED)
+                    && glyph.isShapeForbidden(eval.shape)) {
+                    continue;
+                }
+            }
+
+            // Everything is OK, add the shape if not already in the list
+            for (Evaluation e : best) {
+                if (e.shape == eval.shape) {
+                    continue EvalsLoop;
+                }
+            }
+            best.add(eval);
+        }
+
+        return best.toArray(new Evaluation[0]);
+    }
+
     //-----------//
     // Constants //
     //-----------//
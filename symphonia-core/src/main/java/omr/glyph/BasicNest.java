@@ -39,9 +39,11 @@ import static omr.selection.SelectionHint.*;
 import omr.selection.SelectionService;
 import omr.selection.UserEvent;
 
+import omr.sheet.Scale;
 import omr.sheet.Sheet;
 import omr.sheet.SystemInfo;
 
+import omr.util.GridIndex;
 import omr.util.VipUtil;
 
 import org.bushe.swing.event.EventSubscriber;
@@ -132,6 +134,12 @@ public class BasicNest
     /** Collection of virtual glyphs. (with no underlying sections) */
     private Set<Glyph> virtualGlyphs = new HashSet<>();
 
+    /**
+     * Spatial index of active glyphs, created on first lookup.
+     * It is kept in sync with activeMap and virtualGlyphs.
+     */
+    private volatile GridIndex<Glyph> glyphIndex;
+
     /** Global id to uniquely identify a glyph. */
     private final AtomicInteger globalGlyphId = new AtomicInteger(0);
 
@@ -347,7 +355,7 @@ public class BasicNest
     @Override
     public Set<Glyph> lookupGlyphs (Rectangle rect)
     {
-        return Glyphs.lookupGlyphs(getActiveGlyphs(), rect);
+        return Glyphs.lookupGlyphs(getCandidates(rect), rect);
     }
 
     //-------------------------//
@@ -356,7 +364,7 @@ public class BasicNest
     @Override
     public Set<Glyph> lookupIntersectedGlyphs (Rectangle rect)
     {
-        return Glyphs.lookupIntersectedGlyphs(getActiveGlyphs(), rect);
+        return Glyphs.lookupIntersectedGlyphs(getCandidates(rect), rect);
     }
 
     //--------------------//
@@ -387,14 +395,29 @@ public class BasicNest
     public synchronized void mapSection (Section section,
                                          Glyph glyph)
     {
+        final Glyph previous;
+
         if (glyph != null) {
-            activeMap.put(section, glyph);
+            previous = activeMap.put(section, glyph);
         } else {
-            activeMap.remove(section);
+            previous = activeMap.remove(section);
         }
 
         // Invalidate the collection of active glyphs
         activeGlyphs = null;
+
+        // Update the spatial index, if any
+        final GridIndex<Glyph> index = glyphIndex;
+
+        if (index != null) {
+            if (glyph != null) {
+                index.update(glyph);
+            }
+
+            if ((previous != null) && (previous != glyph)) {
+                index.update(previous);
+            }
+        }
     }
 
     //---------//
@@ -488,6 +511,12 @@ public class BasicNest
         // Special for virtual glyphs
         if (glyph.isVirtual()) {
             virtualGlyphs.add(glyph);
+
+            final GridIndex<Glyph> index = glyphIndex;
+
+            if (index != null) {
+                index.update(glyph);
+            }
         }
 
         return glyph;
@@ -503,6 +532,10 @@ public class BasicNest
         allGlyphs.remove(glyph.getId(), glyph);
         virtualGlyphs.remove(glyph);
         activeGlyphs = null;
+
+        if (glyphIndex != null) {
+            glyphIndex.remove(glyph);
+        }
     }
 
     //-------------//
@@ -609,6 +642,56 @@ public class BasicNest
         return globalGlyphId.incrementAndGet();
     }
 
+    //---------------//
+    // getCandidates //
+    //---------------//
+    /**
+     * Report the active glyphs whose bounds may intersect the provided
+     * rectangle, sorted by abscissa as the active glyphs are.
+     *
+     * @param rect the rectangle of interest
+     * @return the sorted candidates
+     */
+    private Set<Glyph> getCandidates (Rectangle rect)
+    {
+        return Glyphs.sortedSet(getGlyphIndex().lookup(rect));
+    }
+
+    //---------------//
+    // getGlyphIndex //
+    //---------------//
+    /**
+     * Report the spatial index of active glyphs, creating and
+     * populating it if not yet done.
+     * Cells are sized on the sheet interline, if known.
+     *
+     * @return the glyph index
+     */
+    private synchronized GridIndex<Glyph> getGlyphIndex ()
+    {
+        if (glyphIndex == null) {
+            final Scale scale = (sheet != null) ? sheet.getScale() : null;
+            final int cellSize = (scale != null)
+                                 ? scale.toPixels(constants.indexCellSize)
+                                 : constants.defaultIndexCellSize.getValue();
+
+            glyphIndex = new GridIndex<Glyph>(Math.max(1, cellSize))
+            {
+                @Override
+                protected Rectangle getBounds (Glyph glyph)
+                {
+                    return isActive(glyph) ? glyph.getBounds() : null;
+                }
+            };
+
+            for (Glyph glyph : getActiveGlyphs()) {
+                glyphIndex.update(glyph);
+            }
+        }
+
+        return glyphIndex;
+    }
+
     //-------------//
     // handleEvent //
     //-------------//
@@ -789,6 +872,32 @@ public class BasicNest
         publish(new GlyphEvent(this, hint, movement, getGlyph(id)));
     }
 
+    //----------//
+    // isActive //
+    //----------//
+    /**
+     * Check whether the provided glyph is currently active, that is
+     * virtual or pointed to by at least one of its sections.
+     * This must not take the nest lock, since it is called by the index.
+     *
+     * @param glyph the glyph to check
+     * @return true if active
+     */
+    private boolean isActive (Glyph glyph)
+    {
+        if (glyph.isVirtual()) {
+            return true;
+        }
+
+        for (Section section : glyph.getMembers()) {
+            if (activeMap.get(section) == glyph) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //-----------//
     // Constants //
@@ -802,6 +911,15 @@ public class BasicNest
                 "",
                 "(Debug) Comma-separated list of VIP glyphs");
 
+        Scale.Fraction indexCellSize = new Scale.Fraction(
+                4,
+                "Side of cells in the spatial index of glyphs");
+
+        Constant.Integer defaultIndexCellSize = new Constant.Integer(
+                "Pixels",
+                64,
+                "Side of index cells, when sheet scale is not known");
+
     }
 
     //------------//
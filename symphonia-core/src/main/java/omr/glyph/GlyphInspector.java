@@ -13,6 +13,7 @@ package omr.glyph;
 
 import omr.constant.ConstantSet;
 
+import static omr.glyph.ShapeEvaluator.Condition.*;
 import omr.glyph.facets.Glyph;
 
 import omr.sheet.Scale;
@@ -85,15 +86,27 @@ public class GlyphInspector
     public void evaluateGlyphs (double minGrade)
     {
         ShapeEvaluator evaluator = GlyphNetwork.getInstance();
+        List<Glyph> glyphs = new ArrayList<>();
 
         for (Glyph glyph : system.getGlyphs()) {
             if (glyph.getShape() == null) {
-                // Get vote
-                Evaluation vote = evaluator.vote(glyph, system, minGrade);
+                glyphs.add(glyph);
+            }
+        }
 
-                if (vote != null) {
-                    glyph.setEvaluation(vote);
-                }
+        // Get votes, all glyphs at once
+        Evaluation[][] votes = evaluator.evaluate(
+                glyphs,
+                system,
+                1,
+                minGrade,
+                EnumSet.of(ALLOWED, CHECKED),
+                null);
+
+        for (int i = 0; i < votes.length; i++) {
+            if (votes[i].length > 0) {
+                glyphs.get(i)
+                        .setEvaluation(votes[i][0]);
             }
         }
     }
@@ -73,11 +73,18 @@ public class GlyphNetwork
     /** Neural network file name. */
     private static final String FILE_NAME = "neural-network.xml";
 
+    /** All shapes, to avoid cloning the values array on each evaluation. */
+    private static final Shape[] shapes = Shape.values();
+
     //~ Instance fields --------------------------------------------------------
     //
     /** The underlying neural network. */
     private NeuralNetwork engine;
 
+    /** Cache of network outputs, to be cleared when network changes. */
+    private final SignatureCache<double[]> outputsCache = new SignatureCache<>(
+            constants.cacheSize.getValue());
+
     //~ Constructors -----------------------------------------------------------
     //
     //--------------//
@@ -261,6 +268,21 @@ public class GlyphNetwork
         return engine;
     }
 
+    //---------//
+    // restore //
+    //---------//
+    /**
+     * Restore the weights of the neural network from a previous backup,
+     * discarding the outputs cached for the former weights.
+     *
+     * @param backup a backup previously made on the neural network
+     */
+    public void restore (NeuralNetwork.Backup backup)
+    {
+        engine.restore(backup);
+        outputsCache.clear();
+    }
+
     //--------------//
     // setAmplitude //
     //--------------//
@@ -433,7 +455,11 @@ public class GlyphNetwork
         }
 
         // Train on the patterns
+        engine.setBatchSize(constants.batchSize.getValue());
         engine.train(inputs, desiredOutputs, monitor);
+
+        // Cached outputs come from the former network
+        outputsCache.clear();
     }
 
     //-------------//
@@ -458,12 +484,11 @@ public class GlyphNetwork
             double[] ins = ShapeDescription.features(glyph);
             double[] outs = new double[shapeCount];
             Evaluation[] evals = new Evaluation[shapeCount];
-            Shape[] values = Shape.values();
 
             engine.run(ins, null, outs);
 
             for (int s = 0; s < shapeCount; s++) {
-                Shape shape = values[s];
+                Shape shape = shapes[s];
                 // Use a grade in 0 .. 100 range
                 evals[s] = new Evaluation(shape, 100 * outs[s]);
             }
@@ -475,6 +500,77 @@ public class GlyphNetwork
         }
     }
 
+    //-------------------//
+    // getRawEvaluations //
+    //-------------------//
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The features of all glyphs are gathered in a single array, to
+     * run the neural network once on the whole batch.
+     * Network outputs are cached per glyph signature, so only the glyphs
+     * not found in cache are actually submitted to the network.
+     * Only the evaluations that reach minGrade are created and sorted.
+     */
+    @Override
+    protected Evaluation[][] getRawEvaluations (List<Glyph> glyphs,
+                                                double minGrade)
+    {
+        final NeuralNetwork network = engine;
+        final int inputSize = network.getInputSize();
+        final Evaluation[][] results = new Evaluation[glyphs.size()][];
+        final double[] ins = new double[glyphs.size() * inputSize];
+        final int[] indices = new int[glyphs.size()];
+        int count = 0;
+
+        for (int i = 0; i < results.length; i++) {
+            Glyph glyph = glyphs.get(i);
+
+            // If too small, it's just NOISE
+            if (!isBigEnough(glyph)) {
+                results[i] = noiseEvaluations;
+            } else {
+                double[] cached = outputsCache.get(glyph);
+
+                if (cached != null) {
+                    results[i] = getBestEvaluations(cached, 0, minGrade);
+
+                    continue;
+                }
+
+                System.arraycopy(
+                        ShapeDescription.features(glyph),
+                        0,
+                        ins,
+                        count * inputSize,
+                        inputSize);
+                indices[count++] = i;
+            }
+        }
+
+        if (count > 0) {
+            double[] outs = network.run(ins, count, null);
+
+            for (int k = 0; k < count; k++) {
+                int offset = k * shapeCount;
+                results[indices[k]] = getBestEvaluations(
+                        outs,
+                        offset,
+                        minGrade);
+                outputsCache.put(
+                        glyphs.get(indices[k]),
+                        Arrays.copyOfRange(outs, offset, offset + shapeCount));
+            }
+        }
+
+        logger.debug(
+                "features:{} outputs:{}",
+                ShapeDescription.getFeaturesCache(),
+                outputsCache);
+
+        return results;
+    }
+
     //---------//
     // marshal //
     //---------//
@@ -517,6 +613,40 @@ public class GlyphNetwork
         return nn;
     }
 
+    //--------------------//
+    // getBestEvaluations //
+    //--------------------//
+    /**
+     * Build the ordered evaluations whose grade reaches minGrade.
+     * The other evaluations are not even created, which spares a sort of
+     * all shapes.
+     *
+     * @param outs     network output values
+     * @param offset   index of first output value for the glyph at hand
+     * @param minGrade the minimum grade of interest
+     * @return the best evaluations, ordered from best to worst
+     */
+    private Evaluation[] getBestEvaluations (double[] outs,
+                                             int offset,
+                                             double minGrade)
+    {
+        List<Evaluation> evals = new ArrayList<>();
+
+        for (int s = 0; s < shapeCount; s++) {
+            // Use a grade in 0 .. 100 range
+            double grade = 100 * outs[offset + s];
+
+            if (grade >= minGrade) {
+                evals.add(new Evaluation(shapes[s], grade));
+            }
+        }
+
+        // Order the evals from best to worst
+        Collections.sort(evals);
+
+        return evals.toArray(new Evaluation[evals.size()]);
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     private static final class Constants
             extends ConstantSet
@@ -527,6 +657,16 @@ public class GlyphNetwork
                 0.5,
                 "Initial weight amplitude");
 
+        Constant.Integer batchSize = new Constant.Integer(
+                "Glyphs",
+                0,
+                "Number of glyphs per parallel training mini-batch (0 for none)");
+
+        Constant.Integer cacheSize = new Constant.Integer(
+                "Glyphs",
+                10000,
+                "Maximum number of glyphs whose network outputs are cached");
+
         Constant.Ratio learningRate = new Constant.Ratio(
                 0.2,
                 "Learning Rate");
@@ -27,6 +27,7 @@ import omr.ui.symbol.Symbols;
 
 import omr.util.BlackList;
 import omr.util.FileUtil;
+import omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,11 +41,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.RecursiveAction;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -72,6 +77,14 @@ import javax.xml.bind.Unmarshaller;
  * These bases are accessible respectively by {@link #getWholeBase} and
  * {@link #getCoreBase} methods.
  *
+ * <p> The glyphs of sheets and samples folders can also be imported into a
+ * binary {@link SampleDatabase}, which is then used to load them, unless the
+ * related XML file is more recent than the database.
+ * Each import writes a new database file, since a memory-mapped file cannot
+ * be replaced on some platforms; older database files are deleted once they
+ * are no longer used.
+ * Glyphs can be loaded in parallel via {@link #getGlyphs}.
+ *
  * @author Hervé Bitteur
  */
 public class GlyphRepository
@@ -106,6 +119,25 @@ public class GlyphRepository
             WellKnowns.TRAIN_FOLDER,
             "samples");
 
+    /** Name prefix for binary databases of sheet and sample glyphs */
+    private static final String DATABASE_PREFIX = "samples-";
+
+    /** Extension for binary databases */
+    private static final String DATABASE_EXTENSION = ".db";
+
+    /** Specific filter for binary database files */
+    private static final FileFilter databaseFilter = new FileFilter()
+    {
+        @Override
+        public boolean accept (File file)
+        {
+            String name = file.getName();
+
+            return file.isFile() && name.startsWith(DATABASE_PREFIX)
+                   && name.endsWith(DATABASE_EXTENSION);
+        }
+    };
+
     /** Specific filter for glyph files */
     private static final FileFilter glyphFilter = new FileFilter()
     {
@@ -152,6 +184,12 @@ public class GlyphRepository
     /** Inverse map */
     private final Map<Glyph, String> namesMap = new HashMap<>();
 
+    /** Binary database, if any */
+    private SampleDatabase database;
+
+    /** Has the database file been looked up? */
+    private boolean databaseChecked;
+
     //~ Constructors -----------------------------------------------------------
     /** Private singleton constructor */
     private GlyphRepository ()
@@ -207,6 +245,63 @@ public class GlyphRepository
         }
     }
 
+    //------------------//
+    // exportXmlFolders //
+    //------------------//
+    /**
+     * Write an XML file for each glyph of the binary database, into the
+     * train folder.
+     * The files are dated as the database, so that the database remains
+     * used for loading.
+     *
+     * @param monitor the monitor, if any, to be kept informed of progress
+     * @return the number of XML files written
+     */
+    public int exportXmlFolders (Monitor monitor)
+    {
+        SampleDatabase db = getDatabase();
+
+        if (db == null) {
+            logger.warn("No sample database in {}", WellKnowns.TRAIN_FOLDER);
+
+            return 0;
+        }
+
+        List<String> gNames = db.getNames();
+
+        if (monitor != null) {
+            monitor.setTotalGlyphs(gNames.size());
+        }
+
+        int count = 0;
+
+        for (String gName : gNames) {
+            File file = new File(WellKnowns.TRAIN_FOLDER, gName);
+            file.getParentFile()
+                    .mkdirs();
+
+            try (OutputStream os = new FileOutputStream(file)) {
+                jaxbMarshal(db.getGlyph(gName), os);
+                count++;
+            } catch (Exception ex) {
+                logger.warn("Error storing " + file, ex);
+            }
+
+            if (!file.setLastModified(db.getFile().lastModified())) {
+                logger.debug("Could not date {}", file);
+            }
+
+            if (monitor != null) {
+                monitor.loadedGlyph(gName);
+            }
+        }
+
+        refreshBases();
+        logger.info("{} glyphs exported from {}", count, db.getFile());
+
+        return count;
+    }
+
     //-------------//
     // getCoreBase //
     //-------------//
@@ -241,32 +336,19 @@ public class GlyphRepository
      * @param monitor the monitor, if any, to be kept informed of glyph loading
      * @return the glyph instance if found, null otherwise
      */
-    public synchronized Glyph getGlyph (String gName,
-                                        Monitor monitor)
+    public Glyph getGlyph (String gName,
+                           Monitor monitor)
     {
         // First, try the map of glyphs
-        Glyph glyph = glyphsMap.get(gName);
+        Glyph glyph;
 
-        if (glyph == null) {
-            // If failed, actually load the glyph from XML backup file.
-            if (isIcon(gName)) {
-                glyph = buildSymbolGlyph(gName);
-            } else {
-                File file = new File(WellKnowns.TRAIN_FOLDER, gName);
-
-                if (!file.exists()) {
-                    logger.warn("Unable to find file for glyph {}", gName);
-
-                    return null;
-                }
-
-                glyph = buildGlyph(gName, file);
-            }
+        synchronized (this) {
+            glyph = glyphsMap.get(gName);
+        }
 
-            if (glyph != null) {
-                glyphsMap.put(gName, glyph);
-                namesMap.put(glyph, gName);
-            }
+        if (glyph == null) {
+            // If failed, actually load the glyph from database or XML file
+            glyph = register(gName, loadGlyph(gName, getDatabase()));
 
             if (monitor != null) {
                 monitor.loadedGlyph(gName);
@@ -279,11 +361,30 @@ public class GlyphRepository
     //--------------//
     // getGlyphName //
     //--------------//
-    public String getGlyphName (Glyph glyph)
+    public synchronized String getGlyphName (Glyph glyph)
     {
         return namesMap.get(glyph);
     }
 
+    //-----------//
+    // getGlyphs //
+    //-----------//
+    /**
+     * Return the glyphs for the provided glyph names.
+     * The glyphs not yet loaded are loaded in parallel, and the monitor
+     * is informed from the calling thread.
+     *
+     * @param gNames  the full glyph names
+     * @param monitor the monitor, if any, to be kept informed of glyph loading
+     * @return the glyph instances, in the iteration order of names, with a
+     *         null value for any glyph not found
+     */
+    public List<Glyph> getGlyphs (Collection<String> gNames,
+                                  Monitor monitor)
+    {
+        return loadGlyphs(new ArrayList<>(gNames), getDatabase(), monitor);
+    }
+
     //-------------//
     // getGlyphsIn //
     //-------------//
@@ -400,6 +501,67 @@ public class GlyphRepository
         return wholeBase;
     }
 
+    //------------------//
+    // importXmlFolders //
+    //------------------//
+    /**
+     * Build the binary database out of the XML files of sheets and
+     * samples folders, and use it from now on.
+     *
+     * @param monitor the monitor, if any, to be kept informed of progress
+     * @return the number of glyphs stored in the database
+     */
+    public int importXmlFolders (Monitor monitor)
+    {
+        List<String> gNames = loadBase(
+                new File[]{sheetsFolder, samplesFolder},
+                monitor);
+
+        // Make sure glyphs are read from their XML files
+        List<Glyph> glyphs = loadGlyphs(gNames, null, monitor);
+        int count = 0;
+
+        // Write a new database file, the current one may still be mapped
+        File file = new File(
+                WellKnowns.TRAIN_FOLDER,
+                String.format(
+                "%s%013d%s",
+                DATABASE_PREFIX,
+                System.currentTimeMillis(),
+                DATABASE_EXTENSION));
+
+        try (SampleDatabase.Writer writer = new SampleDatabase.Writer(file)) {
+            for (int i = 0; i < glyphs.size(); i++) {
+                Glyph glyph = glyphs.get(i);
+
+                if ((glyph == null) || (glyph.getShape() == null)) {
+                    continue;
+                }
+
+                try {
+                    writer.add(gNames.get(i), glyph);
+                    count++;
+                } catch (RuntimeException ex) {
+                    logger.warn("Cannot store " + gNames.get(i), ex);
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not write " + file, ex);
+
+            return 0;
+        }
+
+        // Switch to the new database
+        synchronized (this) {
+            database = null;
+            databaseChecked = false;
+        }
+
+        refreshBases();
+
+        return count;
+    }
+
     //--------//
     // isIcon //
     //--------//
@@ -721,6 +883,27 @@ public class GlyphRepository
         return glyph;
     }
 
+    //-----------------//
+    // deleteDatabases //
+    //-----------------//
+    /**
+     * Delete the provided database files, which are no longer used.
+     * A file still mapped by a former database instance may not be deletable
+     * on some platforms, it will then be deleted on a later run.
+     *
+     * @param files the obsolete database files
+     */
+    private void deleteDatabases (List<File> files)
+    {
+        for (File file : files) {
+            if (file.delete()) {
+                logger.debug("Deleted {}", file);
+            } else {
+                logger.debug("Could not delete {} yet", file);
+            }
+        }
+    }
+
     //----------------//
     // deleteXmlFiles //
     //----------------//
@@ -737,15 +920,74 @@ public class GlyphRepository
         }
     }
 
+    //-------------//
+    // getDatabase //
+    //-------------//
+    /**
+     * Report the binary database, opening the most recent database file
+     * if not yet done.
+     *
+     * @return the database, or null if none
+     */
+    private synchronized SampleDatabase getDatabase ()
+    {
+        if (!databaseChecked) {
+            databaseChecked = true;
+
+            List<File> files = getDatabaseFiles();
+
+            if (!files.isEmpty()) {
+                File file = files.get(files.size() - 1);
+
+                try {
+                    database = new SampleDatabase(file);
+                    logger.info("Using {}", database);
+                } catch (IOException ex) {
+                    logger.warn("Cannot open " + file, ex);
+                }
+
+                deleteDatabases(files.subList(0, files.size() - 1));
+            }
+        }
+
+        return database;
+    }
+
+    //------------------//
+    // getDatabaseFiles //
+    //------------------//
+    /**
+     * Report the binary database files found in the train folder.
+     *
+     * @return the database files, from the oldest to the most recent
+     */
+    private List<File> getDatabaseFiles ()
+    {
+        File[] files = WellKnowns.TRAIN_FOLDER.listFiles(databaseFilter);
+
+        if (files == null) {
+            return new ArrayList<>();
+        }
+
+        // File names embed a fixed-width creation time
+        Arrays.sort(files);
+
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
     //----------------//
     // getJaxbContext //
     //----------------//
     private JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
+        // Lazy creation, glyphs may be loaded by several threads
         if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(GlyphValue.class);
+            synchronized (GlyphRepository.class) {
+                if (jaxbContext == null) {
+                    jaxbContext = JAXBContext.newInstance(GlyphValue.class);
+                }
+            }
         }
 
         return jaxbContext;
@@ -824,6 +1066,37 @@ public class GlyphRepository
         return isIconsFolder(folder);
     }
 
+    //--------------//
+    // isInDatabase //
+    //--------------//
+    /**
+     * Tell whether the provided glyph is to be read from the database.
+     * Where present, the XML tree prevails: the database copy is used if the
+     * XML file is not more recent, or if the whole XML folder is missing
+     * (database used without its XML tree).
+     * A missing XML file in an existing folder means a deleted glyph, notably
+     * when its sheet has been recorded again.
+     *
+     * @param gName the full glyph name
+     * @param db    the database to use, if any
+     * @return true if the database copy is to be used
+     */
+    private boolean isInDatabase (String gName,
+                                  SampleDatabase db)
+    {
+        if ((db == null) || !db.contains(gName)) {
+            return false;
+        }
+
+        File file = new File(WellKnowns.TRAIN_FOLDER, gName);
+
+        if (file.exists()) {
+            return file.lastModified() <= db.getFile().lastModified();
+        } else {
+            return !file.getParentFile().isDirectory();
+        }
+    }
+
     //-------------//
     // jaxbMarshal //
     //-------------//
@@ -938,6 +1211,111 @@ public class GlyphRepository
         }
     }
 
+    //-----------//
+    // loadGlyph //
+    //-----------//
+    /**
+     * Load a glyph from the database if possible, otherwise from its
+     * XML file.
+     * This method can be called concurrently.
+     *
+     * @param gName the full glyph name
+     * @param db    the database to use, if any
+     * @return the glyph built, or null if failed
+     */
+    private Glyph loadGlyph (String gName,
+                             SampleDatabase db)
+    {
+        if (isIcon(gName)) {
+            // Symbol drawing is not meant for concurrent use
+            synchronized (this) {
+                return buildSymbolGlyph(gName);
+            }
+        }
+
+        if (isInDatabase(gName, db)) {
+            Glyph glyph = db.getGlyph(gName);
+            double[] features = db.getFeatures(gName);
+
+            if (features != null) {
+                // Spare the features computation
+                ShapeDescription.getFeaturesCache()
+                        .put(glyph, features);
+            }
+
+            return glyph;
+        }
+
+        File file = new File(WellKnowns.TRAIN_FOLDER, gName);
+
+        if (!file.exists()) {
+            logger.warn("Unable to find file for glyph {}", gName);
+
+            return null;
+        }
+
+        return buildGlyph(gName, file);
+    }
+
+    //------------//
+    // loadGlyphs //
+    //------------//
+    /**
+     * Return the glyphs for the provided names, loading in parallel
+     * those not yet loaded.
+     *
+     * @param gNames  the full glyph names
+     * @param db      the database to use, if any
+     * @param monitor the monitor, if any
+     * @return the glyphs, in names order, with null for glyphs not found
+     */
+    private List<Glyph> loadGlyphs (final List<String> gNames,
+                                    final SampleDatabase db,
+                                    Monitor monitor)
+    {
+        final Glyph[] glyphs = new Glyph[gNames.size()];
+        final List<Integer> missings = new ArrayList<>();
+
+        synchronized (this) {
+            for (int i = 0; i < glyphs.length; i++) {
+                glyphs[i] = glyphsMap.get(gNames.get(i));
+
+                if (glyphs[i] == null) {
+                    missings.add(i);
+                }
+            }
+        }
+
+        List<RecursiveAction> tasks = new ArrayList<>(missings.size());
+
+        for (final int index : missings) {
+            tasks.add(
+                    new RecursiveAction()
+                    {
+                        @Override
+                        protected void compute ()
+                        {
+                            glyphs[index] = loadGlyph(gNames.get(index), db);
+                        }
+                    });
+        }
+
+        OmrExecutors.invokeAll(tasks);
+
+        for (int index : missings) {
+            String gName = gNames.get(index);
+            glyphs[index] = register(gName, glyphs[index]);
+
+            if (monitor != null) {
+                monitor.loadedGlyph(gName);
+            }
+        }
+
+        logger.debug("{} glyphs loaded", missings.size());
+
+        return Arrays.asList(glyphs);
+    }
+
     //---------------//
     // loadWholeBase //
     //---------------//
@@ -950,10 +1328,33 @@ public class GlyphRepository
      */
     private List<String> loadWholeBase (Monitor monitor)
     {
-        return loadBase(
+        List<String> base = loadBase(
                 new File[]{WellKnowns.SYMBOLS_FOLDER, sheetsFolder,
                            samplesFolder},
                 monitor);
+
+        // Add the database glyphs whose XML folder is missing (a deleted XML
+        // file in an existing folder, such as a sheet recorded again, means
+        // a deleted glyph)
+        SampleDatabase db = getDatabase();
+
+        if (db != null) {
+            Set<String> known = new HashSet<>(base);
+
+            for (String gName : db.getNames()) {
+                if (!known.contains(gName)
+                    && !new File(WellKnowns.TRAIN_FOLDER, gName).exists()
+                    && isInDatabase(gName, db)) {
+                    base.add(gName);
+                }
+            }
+
+            if (monitor != null) {
+                monitor.setTotalGlyphs(base.size());
+            }
+        }
+
+        return base;
     }
 
     //-------------//
@@ -1005,6 +1406,36 @@ public class GlyphRepository
         return 0;
     }
 
+    //----------//
+    // register //
+    //----------//
+    /**
+     * Register a loaded glyph in the maps, unless another instance got
+     * registered in the meantime.
+     *
+     * @param gName the full glyph name
+     * @param glyph the loaded glyph, perhaps null
+     * @return the registered glyph, perhaps null
+     */
+    private synchronized Glyph register (String gName,
+                                         Glyph glyph)
+    {
+        if (glyph == null) {
+            return null;
+        }
+
+        Glyph old = glyphsMap.get(gName);
+
+        if (old != null) {
+            return old;
+        }
+
+        glyphsMap.put(gName, glyph);
+        namesMap.put(glyph, gName);
+
+        return glyph;
+    }
+
     //---------//
     // shapeOf //
     //---------//
@@ -0,0 +1,598 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        S a m p l e D a t a b a s e                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.glyph;
+
+import omr.glyph.facets.BasicGlyph;
+import omr.glyph.facets.Glyph;
+import omr.glyph.facets.GlyphValue;
+
+import omr.lag.BasicSection;
+import omr.lag.Section;
+
+import omr.run.Orientation;
+import omr.run.Run;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Class {@code SampleDatabase} is a compact binary store of training
+ * samples, meant to be loaded much faster than the individual XML files
+ * of the train folder.
+ *
+ * <p>The database is one file, organized as follows: <ol>
+ * <li>A header, with the labels of the shape features.</li>
+ * <li>One record per sample, with the glyph data (interline, id, stem
+ * number, ledger, pitch position), the precomputed features and the
+ * run-length description of each member section.</li>
+ * <li>An index, giving the name, shape and record offset of each
+ * sample.</li>
+ * <li>A trailer, which is the offset of the index.</li></ol>
+ *
+ * <p>The file is memory-mapped, so that records can be read by several
+ * threads in parallel, without any lock.
+ * The precomputed features are used only if they were built with the
+ * same feature labels as the current {@link ShapeDescription}.
+ *
+ * <p>A database is written via a {@link Writer}, sample after sample.
+ *
+ * @author Hervé Bitteur
+ */
+public class SampleDatabase
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            SampleDatabase.class);
+
+    /** File signature */
+    private static final int MAGIC = 0x53594D53;
+
+    /** Current file format */
+    private static final int VERSION = 1;
+
+    /** Size of glyph data, at the beginning of each record */
+    private static final int GLYPH_DATA_SIZE = 21;
+
+    /** Encoding of strings */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** All orientations, indexed by ordinal */
+    private static final Orientation[] orientations = Orientation.values();
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Underlying file. */
+    private final File file;
+
+    /** Mapped file content, never repositioned. */
+    private final ByteBuffer buffer;
+
+    /** Index of samples, by glyph name. */
+    private final Map<String, Entry> entries;
+
+    /** Are the stored features compatible with current descriptor? */
+    private final boolean featuresValid;
+
+    //~ Constructors -----------------------------------------------------------
+    //----------------//
+    // SampleDatabase //
+    //----------------//
+    /**
+     * Open an existing database, reading its header and index.
+     *
+     * @param file the database file
+     * @throws IOException if the file cannot be mapped or is not a valid
+     *                     database
+     */
+    public SampleDatabase (File file)
+            throws IOException
+    {
+        this.file = file;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        ByteBuffer buf = buffer.duplicate();
+
+        // Header
+        if ((buf.getInt() != MAGIC) || (buf.getInt() != VERSION)) {
+            throw new IOException("Invalid sample database " + file);
+        }
+
+        String[] labels = new String[buf.getInt()];
+
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = getString(buf);
+        }
+
+        featuresValid = Arrays.equals(
+                labels,
+                ShapeDescription.getParameterLabels());
+
+        if (!featuresValid) {
+            logger.info("Features of {} will be recomputed", file);
+        }
+
+        // Index, whose offset is given by the trailer
+        buf.position((int) buf.getLong(buf.limit() - 8));
+
+        int count = buf.getInt();
+        Map<String, Entry> map = new LinkedHashMap<>(2 * count);
+
+        for (int i = 0; i < count; i++) {
+            String name = getString(buf);
+            String shapeName = getString(buf);
+            int offset = (int) buf.getLong();
+
+            try {
+                map.put(name, new Entry(Shape.valueOf(shapeName), offset));
+            } catch (IllegalArgumentException ex) {
+                // Shape renamed or removed since the database was written
+                logger.warn("Skipping {} with unknown shape {}", name,
+                        shapeName);
+            }
+        }
+
+        entries = Collections.unmodifiableMap(map);
+        logger.debug("Opened {} with {} samples", file, count);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Tell whether the database contains the provided sample.
+     *
+     * @param gName the full glyph name
+     * @return true if found
+     */
+    public boolean contains (String gName)
+    {
+        return entries.containsKey(gName);
+    }
+
+    //-------------//
+    // getFeatures //
+    //-------------//
+    /**
+     * Report the precomputed features of the provided sample.
+     *
+     * @param gName the full glyph name
+     * @return the features, or null if not available
+     */
+    public double[] getFeatures (String gName)
+    {
+        Entry entry = entries.get(gName);
+
+        if ((entry == null) || !featuresValid) {
+            return null;
+        }
+
+        ByteBuffer buf = buffer.duplicate();
+        buf.position(entry.offset + GLYPH_DATA_SIZE);
+
+        double[] features = new double[buf.getInt()];
+        buf.asDoubleBuffer()
+                .get(features);
+
+        return features;
+    }
+
+    //---------//
+    // getFile //
+    //---------//
+    /**
+     * Report the underlying file.
+     *
+     * @return the database file
+     */
+    public File getFile ()
+    {
+        return file;
+    }
+
+    //----------//
+    // getGlyph //
+    //----------//
+    /**
+     * Build the glyph of the provided sample.
+     * This method can be called concurrently.
+     *
+     * @param gName the full glyph name
+     * @return the glyph built, or null if not found
+     */
+    public Glyph getGlyph (String gName)
+    {
+        Entry entry = entries.get(gName);
+
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer buf = buffer.duplicate();
+        buf.position(entry.offset);
+
+        int interline = buf.getInt();
+        int id = buf.getInt();
+        int stemNumber = buf.getInt();
+        boolean withLedger = buf.get() != 0;
+        double pitchPosition = buf.getDouble();
+
+        // Skip features
+        int featureCount = buf.getInt();
+        buf.position(buf.position() + (8 * featureCount));
+
+        // Member sections
+        int sectionCount = buf.getInt();
+        SortedSet<Section> members = new TreeSet<>();
+
+        for (int i = 0; i < sectionCount; i++) {
+            int sectionId = buf.getInt();
+            BasicSection section = new BasicSection(orientations[buf.get()]);
+            section.setId(sectionId);
+            section.setFirstPos(buf.getInt());
+
+            int runCount = buf.getInt();
+
+            for (int j = 0; j < runCount; j++) {
+                int start = buf.getInt();
+                int length = buf.getInt();
+                int level = buf.getShort();
+                section.append(new Run(start, length, level));
+            }
+
+            members.add(section);
+        }
+
+        return new BasicGlyph(
+                new GlyphValue(
+                entry.shape,
+                interline,
+                id,
+                stemNumber,
+                withLedger,
+                pitchPosition,
+                members));
+    }
+
+    //----------//
+    // getNames //
+    //----------//
+    /**
+     * Report the names of all samples, in database order.
+     *
+     * @return a new list of full glyph names
+     */
+    public List<String> getNames ()
+    {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    //----------//
+    // getShape //
+    //----------//
+    /**
+     * Report the shape of the provided sample.
+     *
+     * @param gName the full glyph name
+     * @return the sample shape, or null if not found
+     */
+    public Shape getShape (String gName)
+    {
+        Entry entry = entries.get(gName);
+
+        return (entry != null) ? entry.shape : null;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of samples.
+     *
+     * @return the count of samples
+     */
+    public int size ()
+    {
+        return entries.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "{SampleDatabase " + file + " samples:" + entries.size() + "}";
+    }
+
+    //-----------//
+    // getString //
+    //-----------//
+    private static String getString (ByteBuffer buf)
+    {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+
+        return new String(bytes, UTF8);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //--------//
+    // Writer //
+    //--------//
+    /**
+     * Class {@code Writer} builds a database file, sample after sample.
+     * The content is written to a temporary file, which replaces the target
+     * file only when the writer is closed.
+     * The target file should not be the file of an open database, since a
+     * memory-mapped file cannot be replaced on some platforms (Windows).
+     */
+    public static class Writer
+            implements Closeable
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Target file. */
+        private final File file;
+
+        /** Temporary file being written. */
+        private final File tmpFile;
+
+        /** Output stream on temporary file. */
+        private final DataOutputStream out;
+
+        /** Index of samples written so far. */
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        /** Set when output got corrupted. */
+        private boolean failed;
+
+        //~ Constructors -------------------------------------------------------
+        //--------//
+        // Writer //
+        //--------//
+        /**
+         * Create a writer for the provided database file.
+         *
+         * @param file the target database file
+         * @throws IOException if the temporary file cannot be created
+         */
+        public Writer (File file)
+                throws IOException
+        {
+            this.file = file;
+            tmpFile = new File(file.getPath() + ".tmp");
+            out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)));
+
+            boolean ok = false;
+
+            try {
+                // Header
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                String[] labels = ShapeDescription.getParameterLabels();
+                out.writeInt(labels.length);
+
+                for (String label : labels) {
+                    putString(label);
+                }
+
+                ok = true;
+            } finally {
+                if (!ok) {
+                    out.close();
+                    deleteTmpFile();
+                }
+            }
+        }
+
+        //~ Methods ------------------------------------------------------------
+        //-----//
+        // add //
+        //-----//
+        /**
+         * Append a sample to the database.
+         * If the features of the sample cannot be computed, the related
+         * exception is thrown and nothing is written.
+         *
+         * @param gName the full glyph name
+         * @param glyph the sample glyph, whose shape must be defined
+         * @throws IOException if the sample cannot be written
+         */
+        public void add (String gName,
+                         Glyph glyph)
+                throws IOException
+        {
+            // Offsets are int values, as is DataOutputStream.size()
+            final int start = out.size();
+
+            if (start == Integer.MAX_VALUE) {
+                throw new IOException("Sample database too large " + file);
+            }
+
+            final double[] features = ShapeDescription.features(glyph);
+            boolean ok = false;
+
+            try {
+                out.writeInt(glyph.getInterline());
+                out.writeInt(glyph.getId());
+                out.writeInt(glyph.getStemNumber());
+                out.writeByte(glyph.isWithLedger() ? 1 : 0);
+                out.writeDouble(glyph.getPitchPosition());
+
+                out.writeInt(features.length);
+
+                for (double feature : features) {
+                    out.writeDouble(feature);
+                }
+
+                SortedSet<Section> members = glyph.getMembers();
+                out.writeInt(members.size());
+
+                for (Section section : members) {
+                    out.writeInt(section.getId());
+                    out.writeByte(section.getOrientation().ordinal());
+                    out.writeInt(section.getFirstPos());
+
+                    List<Run> runs = section.getRuns();
+                    out.writeInt(runs.size());
+
+                    for (Run run : runs) {
+                        out.writeInt(run.getStart());
+                        out.writeInt(run.getLength());
+                        out.writeShort(run.getLevel());
+                    }
+                }
+
+                ok = true;
+            } finally {
+                if (!ok) {
+                    failed = true;
+                }
+            }
+
+            entries.put(
+                    gName,
+                    new Entry(glyph.getShape().getPhysicalShape(), start));
+        }
+
+        //-------//
+        // close //
+        //-------//
+        /**
+         * Write the index and trailer, then replace the target file.
+         * If a previous {@link #add} failed to write, or if the index or the
+         * replacement fails, the temporary file is deleted and the target
+         * file is left unchanged.
+         *
+         * @throws IOException if writing or replacement failed
+         */
+        @Override
+        public void close ()
+                throws IOException
+        {
+            if (failed) {
+                out.close();
+                deleteTmpFile();
+
+                return;
+            }
+
+            final long indexOffset = out.size();
+            boolean moved = false;
+
+            try {
+                try {
+                    out.writeInt(entries.size());
+
+                    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                        putString(e.getKey());
+                        putString(e.getValue().shape.name());
+                        out.writeLong(e.getValue().offset);
+                    }
+
+                    out.writeLong(indexOffset);
+                } finally {
+                    out.close();
+                }
+
+                Files.move(
+                        tmpFile.toPath(),
+                        file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                moved = true;
+            } finally {
+                if (!moved) {
+                    deleteTmpFile();
+                }
+            }
+
+            logger.info("{} samples written to {}", entries.size(), file);
+        }
+
+        //---------------//
+        // deleteTmpFile //
+        //---------------//
+        private void deleteTmpFile ()
+        {
+            if (tmpFile.exists() && !tmpFile.delete()) {
+                logger.warn("Could not delete {}", tmpFile);
+            }
+        }
+
+        //-----------//
+        // putString //
+        //-----------//
+        private void putString (String str)
+                throws IOException
+        {
+            byte[] bytes = str.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * Index entry of a sample.
+     */
+    private static class Entry
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Sample shape */
+        final Shape shape;
+
+        /** Offset of sample record in file */
+        final int offset;
+
+        //~ Constructors -------------------------------------------------------
+        public Entry (Shape shape,
+                      int offset)
+        {
+            this.shape = shape;
+            this.offset = offset;
+        }
+    }
+}
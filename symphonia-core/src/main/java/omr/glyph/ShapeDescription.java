@@ -11,21 +11,35 @@
 // </editor-fold>
 package omr.glyph;
 
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
 import omr.glyph.facets.Glyph;
 
 /**
  * Class {@code ShapeDescription} builds the glyphs features to be used
  * by an evaluator.
  *
+ * <p>The features computed for a glyph are kept in a cache keyed by the
+ * glyph signature, so that evaluating the same physical glyph again does
+ * not recompute its moments.
+ *
  * @author Hervé Bitteur
  */
 public abstract class ShapeDescription
 {
     //~ Static fields/initializers ---------------------------------------------
 
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
     ///private static final Descriptor INSTANCE = new ShapeDescriptorGeo();
     private static final Descriptor INSTANCE = new ShapeDescriptorART();
 
+    /** Cache of glyph features */
+    private static final SignatureCache<double[]> cache = new SignatureCache<>(
+            constants.cacheSize.getValue());
+
     //~ Constructors -----------------------------------------------------------
     private ShapeDescription ()
     {
@@ -51,7 +65,30 @@ public abstract class ShapeDescription
      */
     public static double[] features (Glyph glyph)
     {
-        return INSTANCE.features(glyph);
+        double[] ins = cache.get(glyph);
+
+        if (ins == null) {
+            ins = INSTANCE.features(glyph);
+            cache.put(glyph, ins.clone());
+
+            return ins;
+        }
+
+        // Give the caller its own copy
+        return ins.clone();
+    }
+
+    //------------------//
+    // getFeaturesCache //
+    //------------------//
+    /**
+     * Report the cache of glyph features, for statistics.
+     *
+     * @return the features cache
+     */
+    public static SignatureCache<double[]> getFeaturesCache ()
+    {
+        return cache;
     }
 
     //-------------------//
@@ -134,4 +171,20 @@ public abstract class ShapeDescription
          */
         int length ();
     }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Integer cacheSize = new Constant.Integer(
+                "Glyphs",
+                10000,
+                "Maximum number of glyphs whose features are cached");
+
+    }
 }
@@ -18,6 +18,7 @@ import omr.sheet.SystemInfo;
 import omr.util.Predicate;
 
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * Interface {@code ShapeEvaluator} defines the features of a glyph
@@ -67,6 +68,27 @@ public interface ShapeEvaluator
                            EnumSet<Condition> conditions,
                            Predicate<Shape> predicate);
 
+    /**
+     * Report, for each of the provided glyphs, the sorted sequence of
+     * best evaluation(s) found by the evaluator.
+     * This allows the evaluator to process all the glyphs in one batch.
+     *
+     * @param glyphs     the glyphs to evaluate
+     * @param system     the system containing the glyphs to evaluate
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps empty
+     * @param predicate  filter for acceptable shapes, perhaps null
+     * @return the sequences of evaluations, in the order of the provided
+     *         glyphs, each perhaps empty
+     */
+    Evaluation[][] evaluate (List<Glyph> glyphs,
+                             SystemInfo system,
+                             int count,
+                             double minGrade,
+                             EnumSet<Condition> conditions,
+                             Predicate<Shape> predicate);
+
     /**
      * Report the name of this evaluator.
      *
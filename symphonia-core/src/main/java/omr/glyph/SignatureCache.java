@@ -0,0 +1,223 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        S i g n a t u r e C a c h e                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.glyph;
+
+import omr.glyph.facets.Glyph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class {@code SignatureCache} is a bounded cache of data computed
+ * on glyphs, keyed by the glyph {@link GlyphSignature}.
+ *
+ * <p>Since the signature is based only on physical properties, the data
+ * computed on a glyph can be reused for any other glyph with the same
+ * signature, for example a compound rebuilt from the same sections.
+ * The key also includes the glyph stem number, which is not physical but
+ * is part of the glyph shape features.
+ *
+ * <p>When the maximum size is reached, the least recently used entry is
+ * evicted.
+ * Counters of hits, misses and evictions are maintained, and reported by
+ * {@link #toString}.
+ *
+ * <p>All methods are synchronized, so that a cache can be shared by the
+ * threads processing the various systems of a sheet.
+ * Values are stored and returned as is, hence they must not be modified by
+ * the caller.
+ *
+ * @param <V> the type of cached values
+ * @author Hervé Bitteur
+ */
+public class SignatureCache<V>
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** Maximum number of entries. */
+    private final int maxSize;
+
+    /** Entries, from least to most recently used. */
+    private final Map<Key, V> map;
+
+    /** Number of successful lookups. */
+    private long hitCount;
+
+    /** Number of failed lookups. */
+    private long missCount;
+
+    /** Number of evicted entries. */
+    private long evictionCount;
+
+    //~ Constructors -----------------------------------------------------------
+    //----------------//
+    // SignatureCache //
+    //----------------//
+    /**
+     * Creates a new SignatureCache object.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public SignatureCache (int maxSize)
+    {
+        this.maxSize = Math.max(1, maxSize);
+
+        map = new LinkedHashMap<Key, V>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Key, V> eldest)
+            {
+                if (size() > SignatureCache.this.maxSize) {
+                    evictionCount++;
+
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all entries, typically because the data they were computed
+     * from is no longer valid.
+     * Counters are kept.
+     */
+    public synchronized void clear ()
+    {
+        map.clear();
+    }
+
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the value cached for the provided glyph.
+     *
+     * @param glyph the glyph at hand
+     * @return the cached value, or null if none
+     */
+    public V get (Glyph glyph)
+    {
+        Key key = new Key(glyph);
+
+        synchronized (this) {
+            V value = map.get(key);
+
+            if (value != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+
+            return value;
+        }
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Cache the value computed for the provided glyph.
+     *
+     * @param glyph the glyph at hand
+     * @param value the value computed for this glyph
+     */
+    public void put (Glyph glyph,
+                     V value)
+    {
+        Key key = new Key(glyph);
+
+        synchronized (this) {
+            map.put(key, value);
+        }
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the current number of entries.
+     *
+     * @return the count of entries
+     */
+    public synchronized int size ()
+    {
+        return map.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return "{SignatureCache size:" + map.size() + "/" + maxSize + " hits:"
+               + hitCount + " misses:" + missCount + " evictions:"
+               + evictionCount + "}";
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Cache key, made of glyph signature and stem number.
+     */
+    private static class Key
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final GlyphSignature signature;
+
+        private final int stemNumber;
+
+        //~ Constructors -------------------------------------------------------
+        public Key (Glyph glyph)
+        {
+            signature = glyph.getSignature();
+            stemNumber = glyph.getStemNumber();
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (obj == this) {
+                return true;
+            }
+
+            if (obj instanceof Key) {
+                Key that = (Key) obj;
+
+                return (stemNumber == that.stemNumber)
+                       && signature.equals(that.signature);
+            } else {
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            int hash = 5;
+            hash = (37 * hash) + signature.hashCode();
+            hash = (37 * hash) + stemNumber;
+
+            return hash;
+        }
+    }
+}
@@ -58,6 +58,9 @@ import java.util.Set;
  * Class {@code NestView} is a view that combines the display of
  * several lags to represent a nest of glyphs.
  *
+ * <p>The sections of the lags make the static layer of the view, while the
+ * additional items (such as selected glyphs) are rendered on top of them.
+ *
  * @author Hervé Bitteur
  */
 public class NestView
@@ -144,8 +147,8 @@ public class NestView
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
-        // Whatever the property change, we simply repaint the view
-        repaint();
+        // Whatever the property change, we simply redraw the view
+        invalidateTiles();
     }
 
     //---------//
@@ -154,36 +157,24 @@ public class NestView
     @Override
     public void refresh ()
     {
-        repaint();
+        invalidateTiles();
     }
 
     //--------//
     // render //
     //--------//
     /**
-     * Render the nest in the provided Graphics context, which may be
-     * already scaled.
+     * Render the nest items in the provided Graphics context, which
+     * may be already scaled.
      *
      * @param g the graphics context
      */
     @Override
     public void render (Graphics2D g)
     {
-        // Should we draw the section borders?
-        final boolean drawBorders = ViewParameters.getInstance().isSectionMode();
-
         // Stroke for borders
         final Stroke oldStroke = UIUtil.setAbsoluteStroke(g, 1f);
 
-        if (lags != null) {
-            for (Lag lag : lags) {
-                // Render all sections, using the colors they have been assigned
-                for (Section section : lag.getVertices()) {
-                    section.render(g, drawBorders);
-                }
-            }
-        }
-
         // Paint additional items, such as recognized items, etc...
         renderItems(g);
 
@@ -307,6 +298,36 @@ public class NestView
         }
     }
 
+    //--------------//
+    // renderStatic //
+    //--------------//
+    /**
+     * Render the sections of all lags, using the colors they have been
+     * assigned.
+     *
+     * @param g the graphics context
+     */
+    @Override
+    protected void renderStatic (Graphics2D g)
+    {
+        // Should we draw the section borders?
+        final boolean drawBorders = ViewParameters.getInstance().isSectionMode();
+
+        // Stroke for borders
+        final Stroke oldStroke = UIUtil.setAbsoluteStroke(g, 1f);
+
+        if (lags != null) {
+            for (Lag lag : lags) {
+                for (Section section : lag.getVertices()) {
+                    section.render(g, drawBorders);
+                }
+            }
+        }
+
+        // Restore stroke
+        g.setStroke(oldStroke);
+    }
+
     //-------------------------//
     // renderGlyphTranslations //
     //-------------------------//
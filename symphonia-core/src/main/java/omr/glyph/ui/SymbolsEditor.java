@@ -148,7 +148,7 @@ public class SymbolsEditor
             @Override
             public void actionPerformed (ActionEvent e)
             {
-                view.repaint();
+                view.refresh();
             }
         },
                 false);
@@ -246,7 +246,7 @@ public class SymbolsEditor
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
-        view.repaint();
+        view.refresh();
     }
 
     //---------//
@@ -296,11 +296,18 @@ public class SymbolsEditor
                     Arrays.asList(sheet.getHorizontalLag(), sheet.getVerticalLag()));
             setName("SymbolsEditor-MyView");
 
+            // Sections are rendered from cached tiles
+            setTiled(true);
+
             // Subscribe to all lags for SectionSet events
             for (Lag lag : lags) {
                 lag.getSectionService()
                         .subscribeStrongly(SectionSetEvent.class, this);
             }
+
+            // Subscribe to nest for modified glyphs
+            nest.getGlyphService()
+                    .subscribeStrongly(GlyphEvent.class, this);
         }
 
         //~ Methods ------------------------------------------------------------
@@ -447,6 +454,8 @@ public class SymbolsEditor
                     handleEvent((LocationEvent) event);
                 } else if (event instanceof SectionSetEvent) { // SectionSet => Compound
                     handleEvent((SectionSetEvent) event);
+                } else if (event instanceof GlyphEvent) { // Glyph => Tiles
+                    handleEvent((GlyphEvent) event);
                 }
             } catch (Exception ex) {
                 logger.warn(getClass().getName() + " onEvent error", ex);
@@ -459,33 +468,6 @@ public class SymbolsEditor
         @Override
         public void render (Graphics2D g)
         {
-            PaintingParameters painting = PaintingParameters.getInstance();
-
-            if (painting.isInputPainting()) {
-                // Should we draw the section borders?
-                final boolean drawBorders = ViewParameters.getInstance()
-                        .isSectionMode();
-
-                // Stroke for borders
-                final Stroke oldStroke = UIUtil.setAbsoluteStroke(g, 1f);
-
-                if (lags != null) {
-                    for (Lag lag : lags) {
-                        // Render all sections, using assigned colors
-                        for (Section section : lag.getVertices()) {
-                            Glyph glyph = section.getGlyph();
-
-                            if (focus.isDisplayed(glyph)) {
-                                section.render(g, drawBorders);
-                            }
-                        }
-                    }
-                }
-
-                // Restore stroke
-                g.setStroke(oldStroke);
-            }
-
             // Paint additional items, such as recognized items, etc...
             renderItems(g);
         }
@@ -537,6 +519,75 @@ public class SymbolsEditor
             }
         }
 
+        //--------------//
+        // renderStatic //
+        //--------------//
+        @Override
+        protected void renderStatic (Graphics2D g)
+        {
+            PaintingParameters painting = PaintingParameters.getInstance();
+
+            if (painting.isInputPainting()) {
+                // Should we draw the section borders?
+                final boolean drawBorders = ViewParameters.getInstance()
+                        .isSectionMode();
+
+                // Stroke for borders
+                final Stroke oldStroke = UIUtil.setAbsoluteStroke(g, 1f);
+
+                if (lags != null) {
+                    for (Lag lag : lags) {
+                        // Render all sections, using assigned colors
+                        for (Section section : lag.getVertices()) {
+                            Glyph glyph = section.getGlyph();
+
+                            if (focus.isDisplayed(glyph)) {
+                                section.render(g, drawBorders);
+                            }
+                        }
+                    }
+                }
+
+                // Restore stroke
+                g.setStroke(oldStroke);
+            }
+        }
+
+        //-------------//
+        // handleEvent //
+        //-------------//
+        /**
+         * Interest in GlyphEvent => glyph modification.
+         * The tiles that display the modified glyph, as well as the
+         * selected glyphs, must be rendered again.
+         *
+         * @param glyphEvent glyph event
+         */
+        private void handleEvent (GlyphEvent glyphEvent)
+        {
+            if (glyphEvent.hint != GLYPH_MODIFIED) {
+                return;
+            }
+
+            Glyph glyph = glyphEvent.getData();
+
+            if (glyph == null) {
+                invalidateTiles();
+
+                return;
+            }
+
+            invalidateTiles(glyph.getBounds());
+
+            Set<Glyph> selected = nest.getSelectedGlyphSet();
+
+            if (selected != null) {
+                for (Glyph g : selected) {
+                    invalidateTiles(g.getBounds());
+                }
+            }
+        }
+
         //-------------//
         // handleEvent //
         //-------------//
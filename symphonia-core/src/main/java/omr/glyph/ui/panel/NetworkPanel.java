@@ -469,8 +469,7 @@ class NetworkPanel
         public void actionPerformed (ActionEvent e)
         {
             GlyphNetwork glyphNetwork = (GlyphNetwork) engine;
-            NeuralNetwork network = glyphNetwork.getNetwork();
-            network.restore(bestSnap);
+            glyphNetwork.restore(bestSnap);
             logger.info("Network remaining error : {}", (float) bestMse);
             glyphNetwork.marshal();
 
@@ -509,8 +508,7 @@ class NetworkPanel
             }
 
             GlyphNetwork glyphNetwork = (GlyphNetwork) engine;
-            NeuralNetwork network = glyphNetwork.getNetwork();
-            network.restore(lastSnap);
+            glyphNetwork.restore(lastSnap);
             logger.info("Network remaining error : {}", (float) lastMse);
             glyphNetwork.marshal();
 
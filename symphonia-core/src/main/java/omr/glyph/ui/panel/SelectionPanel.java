@@ -94,6 +94,12 @@ class SelectionPanel
     /** To dump the current selection of glyphs used for training/validation */
     private DumpAction dumpAction = new DumpAction();
 
+    /** To write the XML files of the binary sample database */
+    private ExportAction exportAction = new ExportAction();
+
+    /** To build the binary sample database out of the XML files */
+    private ImportAction importAction = new ImportAction();
+
     /** To refresh the application wrt to the training material on disk */
     private RefreshAction refreshAction = new RefreshAction();
 
@@ -251,12 +257,16 @@ class SelectionPanel
         switch (task.getActivity()) {
         case INACTIVE:
             selectAction.setEnabled(true);
+            importAction.setEnabled(true);
+            exportAction.setEnabled(true);
 
             break;
 
         case SELECTING:
         case TRAINING:
             selectAction.setEnabled(false);
+            importAction.setEnabled(false);
+            exportAction.setEnabled(false);
 
             break;
         }
@@ -284,9 +294,7 @@ class SelectionPanel
         List<Glyph> glyphs = new ArrayList<>();
 
         // Actually load each glyph description, if not yet done
-        for (String gName : gNames) {
-            Glyph glyph = repository.getGlyph(gName, this);
-
+        for (Glyph glyph : repository.getGlyphs(gNames, this)) {
             if (glyph != null) {
                 glyphs.add(glyph);
             }
@@ -361,7 +369,7 @@ class SelectionPanel
     private void defineLayout (String standardWidth)
     {
         FormLayout layout = Panel.makeFormLayout(
-                3,
+                4,
                 4,
                 "",
                 standardWidth,
@@ -391,6 +399,10 @@ class SelectionPanel
 
         builder.add(nbLoadedFiles.getLabel(), cst.xy(13, r));
         builder.add(nbLoadedFiles.getField(), cst.xy(15, r));
+
+        r += 2; // ----------------------------
+        builder.add(new JButton(importAction), cst.xy(3, r));
+        builder.add(new JButton(exportAction), cst.xy(5, r));
     }
 
     //---------------//
@@ -520,6 +532,80 @@ class SelectionPanel
         }
     }
 
+    //--------------//
+    // ExportAction //
+    //--------------//
+    private class ExportAction
+            extends AbstractAction
+    {
+        //~ Constructors -------------------------------------------------------
+
+        public ExportAction ()
+        {
+            super("Export XML");
+            putValue(
+                    Action.SHORT_DESCRIPTION,
+                    "Write the XML files of the sample database");
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public void actionPerformed (ActionEvent e)
+        {
+            executor.execute(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    task.setActivity(SELECTING);
+
+                    nbLoaded = 0;
+                    repository.exportXmlFolders(SelectionPanel.this);
+
+                    task.setActivity(INACTIVE);
+                }
+            });
+        }
+    }
+
+    //--------------//
+    // ImportAction //
+    //--------------//
+    private class ImportAction
+            extends AbstractAction
+    {
+        //~ Constructors -------------------------------------------------------
+
+        public ImportAction ()
+        {
+            super("Import XML");
+            putValue(
+                    Action.SHORT_DESCRIPTION,
+                    "Build the sample database out of the XML files");
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public void actionPerformed (ActionEvent e)
+        {
+            executor.execute(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    task.setActivity(SELECTING);
+
+                    nbLoaded = 0;
+                    repository.importXmlFolders(SelectionPanel.this);
+
+                    task.setActivity(INACTIVE);
+                }
+            });
+        }
+    }
+
     //-------------//
     // ParamAction //
     //-------------//
@@ -391,9 +391,13 @@ class TrainingPanel
             progressBar.setMaximum(network.getListEpochs());
 
             List<Glyph> glyphs = new ArrayList<>();
+            Iterator<Glyph> loaded = repository.getGlyphs(
+                    gNames,
+                    selectionPanel)
+                    .iterator();
 
             for (String gName : gNames) {
-                Glyph glyph = repository.getGlyph(gName, selectionPanel);
+                Glyph glyph = loaded.next();
 
                 if (glyph != null) {
                     if (glyph.getShape() != null) {
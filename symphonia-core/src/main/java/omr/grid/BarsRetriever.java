@@ -155,7 +155,7 @@ public class BarsRetriever
      */
     public void buildLag (RunsTable vertTable)
     {
-        vLag = new BasicLag("vLag", VERTICAL);
+        vLag = new BasicLag("vLag", VERTICAL, sheet.getScale());
 
         SectionsBuilder sectionsBuilder = new SectionsBuilder(
                 vLag,
@@ -200,10 +200,10 @@ public class GridBuilder
             // We already have all foreground pixels as vertical runs
             RunsTable wholeVertTable = sheet.getWholeVerticalTable();
 
-            // Note: from that point on, we could simply discard the sheet picture
-            // and save memory, since wholeVertTable contains all foreground pixels.
-            // For the time being, it is kept alive for display purpose, and to
-            // allow the dewarping of the initial picture.
+            // Note: from that point on, the sheet picture is no longer needed,
+            // since wholeVertTable contains all foreground pixels.
+            // Once GRID is done, SheetMemory may evict it (and reload it from
+            // the image file if it is displayed or dewarped later).
 
             // View on the initial runs (just for information)
             if (showRuns) {
@@ -157,7 +157,7 @@ public class LinesRetriever
     public RunsTable buildLag (RunsTable wholeVertTable,
                                boolean showRuns)
     {
-        hLag = new BasicLag("hLag", Orientation.HORIZONTAL);
+        hLag = new BasicLag("hLag", Orientation.HORIZONTAL, scale);
 
         // Create filament factory
         try {
@@ -196,7 +196,7 @@ public class LinesRetriever
         // Build table of long horizontal runs
         RunsTable wholeHoriTable = new RunsTableFactory(
                 HORIZONTAL,
-                shortVertTable.getBuffer(),
+                shortVertTable.getBits(),
                 0).createTable("whole-hori");
 
         // To record the purged horizontal runs
@@ -14,6 +14,9 @@ package omr.lag;
 import omr.glyph.facets.Glyph;
 import omr.glyph.ui.ViewParameters;
 
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
 import omr.graph.BasicDigraph;
 
 import omr.run.Orientation;
@@ -32,6 +35,9 @@ import omr.selection.SelectionHint;
 import omr.selection.SelectionService;
 import omr.selection.UserEvent;
 
+import omr.sheet.Scale;
+
+import omr.util.GridIndex;
 import omr.util.Predicate;
 
 import org.bushe.swing.event.EventSubscriber;
@@ -42,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -59,6 +66,9 @@ public class BasicLag
 {
     //~ Static fields/initializers ---------------------------------------------
 
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
     /** Usual logger utility */
     private static final Logger logger = LoggerFactory.getLogger(BasicLag.class);
 
@@ -90,6 +100,12 @@ public class BasicLag
     /** Scene service */
     private SelectionService glyphService;
 
+    /** Sheet scale, if known, to size the cells of the spatial index */
+    private final Scale scale;
+
+    /** Spatial index of sections, created on first lookup */
+    private volatile GridIndex<Section> sectionIndex;
+
     //~ Constructors -----------------------------------------------------------
     //----------//
     // BasicLag //
@@ -103,7 +119,24 @@ public class BasicLag
     public BasicLag (String name,
                      Orientation orientation)
     {
-        this(name, BasicSection.class, orientation);
+        this(name, BasicSection.class, orientation, null);
+    }
+
+    //----------//
+    // BasicLag //
+    //----------//
+    /**
+     * Constructor with specified orientation and sheet scale
+     *
+     * @param name        the distinguished name for this instance
+     * @param orientation the desired orientation of the lag
+     * @param scale       the sheet scale, which drives the spatial index
+     */
+    public BasicLag (String name,
+                     Orientation orientation,
+                     Scale scale)
+    {
+        this(name, BasicSection.class, orientation, scale);
     }
 
     //----------//
@@ -118,9 +151,28 @@ public class BasicLag
     public BasicLag (String name,
                      Class<? extends Section> sectionClass,
                      Orientation orientation)
+    {
+        this(name, sectionClass, orientation, null);
+    }
+
+    //----------//
+    // BasicLag //
+    //----------//
+    /**
+     * Constructor with specified orientation, section class and sheet scale
+     *
+     * @param name        the distinguished name for this instance
+     * @param orientation the desired orientation of the lag
+     * @param scale       the sheet scale, or null if not known
+     */
+    public BasicLag (String name,
+                     Class<? extends Section> sectionClass,
+                     Orientation orientation,
+                     Scale scale)
     {
         super(name, sectionClass);
         this.orientation = orientation;
+        this.scale = scale;
         lagService = new SelectionService(name, Lag.eventsWritten);
     }
 
@@ -139,6 +191,16 @@ public class BasicLag
         }
     }
 
+    //-----------//
+    // addVertex //
+    //-----------//
+    @Override
+    public void addVertex (Section section)
+    {
+        super.addVertex(section);
+        updateSection(section);
+    }
+
     //---------------//
     // createSection //
     //---------------//
@@ -251,7 +313,7 @@ public class BasicLag
     @Override
     public Set<Section> lookupIntersectedSections (Rectangle rect)
     {
-        return Sections.lookupIntersectedSections(rect, getSections());
+        return Sections.lookupIntersectedSections(rect, getCandidates(rect));
     }
 
     //----------------//
@@ -260,7 +322,7 @@ public class BasicLag
     @Override
     public Set<Section> lookupSections (Rectangle rect)
     {
-        return Sections.lookupSections(rect, getSections());
+        return Sections.lookupSections(rect, getCandidates(rect));
     }
 
     //---------//
@@ -362,6 +424,31 @@ public class BasicLag
         return purges;
     }
 
+    //--------------//
+    // removeVertex //
+    //--------------//
+    @Override
+    public void removeVertex (Section section)
+    {
+        super.removeVertex(section);
+
+        GridIndex<Section> index = sectionIndex;
+
+        if (index != null) {
+            index.remove(section);
+        }
+    }
+
+    //---------------//
+    // restoreVertex //
+    //---------------//
+    @Override
+    public void restoreVertex (Section section)
+    {
+        super.restoreVertex(section);
+        updateSection(section);
+    }
+
     //---------//
     // setRuns //
     //---------//
@@ -400,6 +487,19 @@ public class BasicLag
         }
     }
 
+    //---------------//
+    // updateSection //
+    //---------------//
+    @Override
+    public void updateSection (Section section)
+    {
+        GridIndex<Section> index = sectionIndex;
+
+        if (index != null) {
+            index.update(section);
+        }
+    }
+
     //-------------//
     // cutServices //
     //-------------//
@@ -440,6 +540,64 @@ public class BasicLag
         return sb.toString();
     }
 
+    //---------------//
+    // getCandidates //
+    //---------------//
+    /**
+     * Report the sections whose bounds may intersect the provided
+     * rectangle, sorted by id, so that lookups do not depend on the hash
+     * order of the spatial index.
+     *
+     * @param rect the rectangle of interest
+     * @return the sorted candidates
+     */
+    private List<Section> getCandidates (Rectangle rect)
+    {
+        List<Section> candidates = new ArrayList<>(
+                getSectionIndex().lookup(rect));
+        Collections.sort(candidates, Section.idComparator);
+
+        return candidates;
+    }
+
+    //-----------------//
+    // getSectionIndex //
+    //-----------------//
+    /**
+     * Report the spatial index of sections, creating and populating it
+     * if not yet done.
+     * Sections created or modified before the index creation need no
+     * notification, since they are all indexed at creation time.
+     * Cells are sized on the sheet interline, if known.
+     *
+     * @return the section index
+     */
+    private synchronized GridIndex<Section> getSectionIndex ()
+    {
+        if (sectionIndex == null) {
+            final int cellSize = (scale != null)
+                                 ? scale.toPixels(constants.indexCellSize)
+                                 : constants.defaultIndexCellSize.getValue();
+
+            // Publish the index first, so that no modification gets lost
+            sectionIndex = new GridIndex<Section>(Math.max(1, cellSize))
+            {
+                @Override
+                protected Rectangle getBounds (Section section)
+                {
+                    return (section.getRunCount() > 0) ? section.getBounds()
+                            : null;
+                }
+            };
+
+            for (Section section : getSections()) {
+                sectionIndex.update(section);
+            }
+        }
+
+        return sectionIndex;
+    }
+
     //-------------//
     // handleEvent //
     //-------------//
@@ -613,4 +771,24 @@ public class BasicLag
             }
         }
     }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Scale.Fraction indexCellSize = new Scale.Fraction(
+                4,
+                "Side of cells in the spatial index of sections");
+
+        Constant.Integer defaultIndexCellSize = new Constant.Integer(
+                "Pixels",
+                64,
+                "Side of index cells, when sheet scale is not known");
+
+    }
 }
@@ -168,6 +168,19 @@ public class BasicSection
     {
     }
 
+    //--------------//
+    // BasicSection //
+    //--------------//
+    /**
+     * Creates a new BasicSection, not yet linked to any lag.
+     *
+     * @param orientation the section orientation
+     */
+    public BasicSection (Orientation orientation)
+    {
+        this.orientation = orientation;
+    }
+
     //~ Methods ----------------------------------------------------------------
     //---------------//
     // allocateTable //
@@ -1590,6 +1603,13 @@ public class BasicSection
         polygon = null;
         bounds = null;
         orientedLine = null;
+
+        // Keep the lag spatial index in sync
+        Lag lag = getGraph();
+
+        if (lag != null) {
+            lag.updateSection(this);
+        }
     }
 
     //--------//
@@ -185,4 +185,12 @@ public interface Lag
      */
     void setServices (SelectionService locationService,
                       SelectionService sceneService);
+
+    /**
+     * Notify the lag that the geometry of the provided section may
+     * have changed, so that its spatial index can be kept up to date.
+     *
+     * @param section the modified section
+     */
+    void updateSection (Section section);
 }
@@ -0,0 +1,275 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       H u n g a r i a n S o l v e r                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.math;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code HungarianSolver} solves the same injection problem as
+ * {@link InjectionSolver}, that is finding the mapping of a domain
+ * collection into a range collection which minimizes the global mapping
+ * distance, but in polynomial time.
+ *
+ * <p>It implements the Hungarian method, in its shortest augmenting path
+ * formulation with row and column potentials, which runs in
+ * O(n<sup>2</sup>.m) for n elements in the smaller collection and m
+ * elements in the larger one.
+ * Individual distances are read only once, through the same
+ * {@link InjectionSolver.Distance} interface.
+ *
+ * <p>The cost matrix may be rectangular. If the domain is larger than the
+ * range, no injection exists: the solver then maps as many domain elements
+ * as there are range elements, and the remaining domain elements are left
+ * unmapped.
+ *
+ * <p>When several mappings share the minimum global distance, the solver
+ * picks the same one as {@link InjectionSolver}, that is the first one in
+ * lexicographic order of the domain-to-range array.
+ * To do so, each cost is handled as a vector made of the distance followed
+ * by one tie-break component per domain element, holding the range index
+ * it is mapped to, and costs are compared lexicographically.
+ * This adds a factor of n to the complexity.
+ * There is no such guarantee for a domain larger than the range, a case
+ * which {@link InjectionSolver} does not handle.
+ *
+ * @author Hervé Bitteur
+ */
+public class HungarianSolver
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Value meaning that a domain element is not mapped. */
+    public static final int NO_MAPPING = -1;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final int domainSize;
+
+    private final int rangeSize;
+
+    private final InjectionSolver.Distance distance;
+
+    //~ Constructors -----------------------------------------------------------
+    //-----------------//
+    // HungarianSolver //
+    //-----------------//
+    /**
+     * Creates a new instance of HungarianSolver.
+     *
+     * @param domainSize size of the domain collection
+     * @param rangeSize  size of the range collection
+     * @param distance   the individual mapping distances
+     */
+    public HungarianSolver (int domainSize,
+                            int rangeSize,
+                            InjectionSolver.Distance distance)
+    {
+        this.domainSize = domainSize;
+        this.rangeSize = rangeSize;
+        this.distance = distance;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-------//
+    // solve //
+    //-------//
+    /**
+     * Report (one of) the mapping(s) for which the global distance is
+     * minimum.
+     *
+     * @return an array parallel to the domain collection, which for each
+     *         (domain) element gives the mapped range element, or
+     *         {@link #NO_MAPPING} if the range is too small
+     */
+    public int[] solve ()
+    {
+        final int[] result = new int[domainSize];
+        Arrays.fill(result, NO_MAPPING);
+
+        if ((domainSize == 0) || (rangeSize == 0)) {
+            return result;
+        }
+
+        // Rows must be the smaller side, so transpose if needed
+        final boolean transposed = domainSize > rangeSize;
+        final int rows = transposed ? rangeSize : domainSize;
+        final int cols = transposed ? domainSize : rangeSize;
+        final long[][] costs = new long[rows][cols];
+
+        for (int id = 0; id < domainSize; id++) {
+            for (int ir = 0; ir < rangeSize; ir++) {
+                int dist = distance.getDistance(id, ir);
+
+                if (transposed) {
+                    costs[ir][id] = dist;
+                } else {
+                    costs[id][ir] = dist;
+                }
+            }
+        }
+
+        // For each column, the row assigned to it (1-based, 0 for none)
+        final int[] rowOf = assign(costs, rows, cols, !transposed);
+
+        for (int col = 1; col <= cols; col++) {
+            final int row = rowOf[col];
+
+            if (row != 0) {
+                if (transposed) {
+                    result[col - 1] = row - 1;
+                } else {
+                    result[row - 1] = col - 1;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    //-----//
+    // add //
+    //-----//
+    private static void add (long[] target,
+                             long[] delta)
+    {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += delta[i];
+        }
+    }
+
+    //--------//
+    // assign //
+    //--------//
+    /**
+     * Assign each row to a distinct column, at minimum total cost.
+     * Index 0 is used as a virtual column, the other indices being 1-based.
+     *
+     * <p>All values are vectors compared lexicographically: component 0 is
+     * the cost, and if tie-break is on, component r holds the (0-based)
+     * column assigned to row r.
+     *
+     * @param costs    the cost matrix, with rows &lt;= cols
+     * @param rows     number of rows
+     * @param cols     number of columns
+     * @param tieBreak true to pick the lexicographically first assignment
+     *                 among those of minimum cost
+     * @return for each column (1-based), the assigned row (1-based) or 0
+     */
+    private static int[] assign (long[][] costs,
+                                 int rows,
+                                 int cols,
+                                 boolean tieBreak)
+    {
+        final int dim = tieBreak ? (rows + 1) : 1;
+        final long[][] rowPot = new long[rows + 1][dim];
+        final long[][] colPot = new long[cols + 1][dim];
+        final int[] rowOf = new int[cols + 1];
+        final int[] way = new int[cols + 1];
+        final long[][] minSlack = new long[cols + 1][dim];
+        final boolean[] reached = new boolean[cols + 1];
+        final boolean[] used = new boolean[cols + 1];
+        final long[] slack = new long[dim];
+        final long[] delta = new long[dim];
+
+        for (int row = 1; row <= rows; row++) {
+            // Look for a shortest augmenting path starting from this row
+            rowOf[0] = row;
+            Arrays.fill(reached, false);
+            Arrays.fill(used, false);
+
+            int col0 = 0;
+
+            do {
+                used[col0] = true;
+
+                final int row0 = rowOf[col0];
+                final long[] rowCosts = costs[row0 - 1];
+                int col1 = 0;
+
+                for (int col = 1; col <= cols; col++) {
+                    if (!used[col]) {
+                        for (int i = 0; i < dim; i++) {
+                            slack[i] = -rowPot[row0][i] - colPot[col][i];
+                        }
+
+                        slack[0] += rowCosts[col - 1];
+
+                        if (tieBreak) {
+                            slack[row0] += (col - 1);
+                        }
+
+                        if (!reached[col]
+                            || (compare(slack, minSlack[col]) < 0)) {
+                            System.arraycopy(slack, 0, minSlack[col], 0, dim);
+                            reached[col] = true;
+                            way[col] = col0;
+                        }
+
+                        if ((col1 == 0)
+                            || (compare(minSlack[col], minSlack[col1]) < 0)) {
+                            col1 = col;
+                        }
+                    }
+                }
+
+                // Update potentials
+                System.arraycopy(minSlack[col1], 0, delta, 0, dim);
+
+                for (int col = 0; col <= cols; col++) {
+                    if (used[col]) {
+                        add(rowPot[rowOf[col]], delta);
+                        subtract(colPot[col], delta);
+                    } else {
+                        subtract(minSlack[col], delta);
+                    }
+                }
+
+                col0 = col1;
+            } while (rowOf[col0] != 0);
+
+            // Flip the assignments along the augmenting path
+            do {
+                final int col1 = way[col0];
+                rowOf[col0] = rowOf[col1];
+                col0 = col1;
+            } while (col0 != 0);
+        }
+
+        return rowOf;
+    }
+
+    //---------//
+    // compare //
+    //---------//
+    private static int compare (long[] a,
+                                long[] b)
+    {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return (a[i] < b[i]) ? (-1) : 1;
+            }
+        }
+
+        return 0;
+    }
+
+    //----------//
+    // subtract //
+    //----------//
+    private static void subtract (long[] target,
+                                  long[] delta)
+    {
+        for (int i = 0; i < target.length; i++) {
+            target[i] -= delta[i];
+        }
+    }
+}
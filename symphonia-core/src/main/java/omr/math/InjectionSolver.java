@@ -21,7 +21,8 @@ import java.util.Arrays;
  * <p>It finds a mapping that minimizes the global mapping distance, given
  * the individual distance for each domain/range elements pair. This
  * implementation uses brute force, and thus should be used with small
- * sizes only.
+ * sizes only. See {@link HungarianSolver} for a polynomial-time solver of
+ * the same problem.
  *
  * @author Hervé Bitteur
  */
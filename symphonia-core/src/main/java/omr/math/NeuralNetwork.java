@@ -11,11 +11,17 @@
 // </editor-fold>
 package omr.math;
 
+import omr.util.OmrExecutors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -55,6 +61,9 @@ public class NeuralNetwork
     /** Un/marshalling context for use with JAXB */
     private static volatile JAXBContext jaxbContext;
 
+    /** Number of patterns processed together in a batch run */
+    private static final int BLOCK_SIZE = 16;
+
     //~ Instance fields --------------------------------------------------------
     //
     /** Size of input layer. */
@@ -104,6 +113,12 @@ public class NeuralNetwork
     /** Number of epochs when training. */
     private transient volatile int epochs = 1000;
 
+    /** Number of patterns per mini-batch when training, 0 for none. */
+    private transient volatile int batchSize = 0;
+
+    /** Flattened copy of weights for batch runs, lazily built. */
+    private transient volatile FlatWeights flatWeights;
+
     //~ Constructors -----------------------------------------------------------
     //---------------//
     // NeuralNetwork //
@@ -415,6 +430,7 @@ public class NeuralNetwork
         logger.debug("Network memory restore");
         this.hiddenWeights = cloneMatrix(backup.hiddenWeights);
         this.outputWeights = cloneMatrix(backup.outputWeights);
+        flatWeights = null;
     }
 
     //-----//
@@ -472,6 +488,92 @@ public class NeuralNetwork
         return outputs;
     }
 
+    //-----//
+    // run //
+    //-----//
+    /**
+     * Run the neural network on a batch of input patterns, and return
+     * the computed output values.
+     * Patterns are processed by blocks, so that each row of weights is
+     * applied to all the patterns of a block while it is still in cache.
+     * The results are identical to those of a run on each pattern.
+     *
+     * @param inputs  the input values of all patterns, pattern after pattern
+     *                (count * inputSize values)
+     * @param count   the number of patterns
+     * @param outputs preallocated array for the computed output values
+     *                (count * outputSize values), or null
+     * @return the computed output values, pattern after pattern
+     */
+    public double[] run (double[] inputs,
+                         int count,
+                         double[] outputs)
+    {
+        // Check size consistencies.
+        if (inputs.length < (count * inputSize)) {
+            throw new IllegalArgumentException(
+                    "Input size " + inputs.length + " too small for " + count
+                    + " patterns of " + inputSize + " values");
+        }
+
+        if (outputs == null) {
+            outputs = new double[count * outputSize];
+        } else if (outputs.length < (count * outputSize)) {
+            throw new IllegalArgumentException(
+                    "Output size " + outputs.length + " too small for "
+                    + count + " patterns of " + outputSize + " values");
+        }
+
+        final FlatWeights weights = getFlatWeights();
+        final double[] hiddens = new double[BLOCK_SIZE * hiddenSize];
+
+        for (int p = 0; p < count; p += BLOCK_SIZE) {
+            final int n = Math.min(BLOCK_SIZE, count - p);
+
+            // Compute the hidden values of the block
+            forward(
+                    inputs,
+                    p * inputSize,
+                    inputSize,
+                    weights.hidden,
+                    n,
+                    hiddens,
+                    0,
+                    hiddenSize);
+
+            // Then, compute the output values of the block
+            forward(
+                    hiddens,
+                    0,
+                    hiddenSize,
+                    weights.output,
+                    n,
+                    outputs,
+                    p * outputSize,
+                    outputSize);
+        }
+
+        return outputs;
+    }
+
+    //--------------//
+    // setBatchSize //
+    //--------------//
+    /**
+     * Set the number of patterns per mini-batch for training.
+     * A value of 0 or 1 means that weights are updated after each
+     * pattern.
+     * A larger value means that the gradients of all the patterns of a
+     * mini-batch are computed in parallel, then averaged for a single
+     * update of the weights.
+     *
+     * @param batchSize number of patterns per mini-batch
+     */
+    public void setBatchSize (int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
     //-----------//
     // setEpochs //
     //-----------//
@@ -546,7 +648,8 @@ public class NeuralNetwork
      * Train the neural network on a collection of input patterns,
      * so that it delivers the expected outputs within maxError.
      * This method is not optimized for absolute speed, but rather for being
-     * able to keep the best weights values.
+     * able to keep the best weights values, unless a batch size has been
+     * set (see {@link #setBatchSize}).
      *
      * @param inputs         the provided patterns of values for input cells
      * @param desiredOutputs the corresponding desired values for output cells
@@ -560,6 +663,7 @@ public class NeuralNetwork
     {
         logger.debug("Network being trained");
         stopping = false;
+        flatWeights = null;
 
         long startTime = System.currentTimeMillis();
 
@@ -574,6 +678,10 @@ public class NeuralNetwork
             throw new IllegalArgumentException("desiredOutputs array is null");
         }
 
+        if (batchSize > 1) {
+            return trainByBatches(inputs, desiredOutputs, monitor, startTime);
+        }
+
         // Allocate needed arrays
         double[] gottenOutputs = new double[outputSize];
         double[] hiddenGrads = new double[hiddenSize];
@@ -702,6 +810,9 @@ public class NeuralNetwork
             }
         } // for (int ie = 0; ie < epochs; ie++)
 
+        // Weights have changed
+        flatWeights = null;
+
         if (logger.isDebugEnabled()) {
             long stopTime = System.currentTimeMillis();
             logger.debug(
@@ -715,6 +826,45 @@ public class NeuralNetwork
         return mse;
     }
 
+    //----------------//
+    // applyGradients //
+    //----------------//
+    /**
+     * Update the weights with the gradients summed over a mini-batch.
+     *
+     * @param sums         the worker which holds the gradient sums
+     * @param count        the number of patterns in the mini-batch
+     * @param hiddenDeltas the previous deltas of hidden weights
+     * @param outputDeltas the previous deltas of output weights
+     */
+    private void applyGradients (Worker sums,
+                                 int count,
+                                 double[][] hiddenDeltas,
+                                 double[][] outputDeltas)
+    {
+        final double rate = learningRate / count;
+
+        // Output weights (and bias in column 0)
+        for (int o = outputSize - 1; o >= 0; o--) {
+            for (int h = hiddenSize; h >= 0; h--) {
+                double dw = (rate * sums.outputSums[o][h])
+                            + (momentum * outputDeltas[o][h]);
+                outputWeights[o][h] += dw;
+                outputDeltas[o][h] = dw;
+            }
+        }
+
+        // Hidden weights (and bias in column 0)
+        for (int h = hiddenSize - 1; h >= 0; h--) {
+            for (int i = inputSize; i >= 0; i--) {
+                double dw = (rate * sums.hiddenSums[h][i])
+                            + (momentum * hiddenDeltas[h][i]);
+                hiddenWeights[h][i] += dw;
+                hiddenDeltas[h][i] = dw;
+            }
+        }
+    }
+
     //-------------//
     // cloneMatrix //
     //-------------//
@@ -802,6 +952,71 @@ public class NeuralNetwork
         return sb.toString();
     }
 
+    //---------//
+    // flatten //
+    //---------//
+    /**
+     * Copy a matrix into a single array, row after row.
+     *
+     * @param matrix the matrix to flatten
+     * @return the flat copy
+     */
+    private static double[] flatten (double[][] matrix)
+    {
+        final int colNb = matrix[0].length;
+        final double[] flat = new double[matrix.length * colNb];
+
+        for (int row = matrix.length - 1; row >= 0; row--) {
+            System.arraycopy(matrix[row], 0, flat, row * colNb, colNb);
+        }
+
+        return flat;
+    }
+
+    //---------//
+    // forward //
+    //---------//
+    /**
+     * Re-entrant method, working on a block of patterns.
+     * The summation order is the same as for a single pattern.
+     *
+     * @param ins       input cells of all patterns
+     * @param inOffset  index of first input cell
+     * @param inSize    number of input cells per pattern
+     * @param weights   applied weights, flattened with (inSize + 1) columns
+     * @param count     number of patterns
+     * @param outs      output cells of all patterns
+     * @param outOffset index of first output cell
+     * @param outSize   number of output cells per pattern
+     */
+    private void forward (double[] ins,
+                          int inOffset,
+                          int inSize,
+                          double[] weights,
+                          int count,
+                          double[] outs,
+                          int outOffset,
+                          int outSize)
+    {
+        for (int o = outSize - 1; o >= 0; o--) {
+            final int row = o * (inSize + 1);
+
+            for (int p = 0; p < count; p++) {
+                final int base = inOffset + (p * inSize);
+                double sum = 0;
+
+                for (int i = inSize - 1; i >= 0; i--) {
+                    sum += (weights[row + i + 1] * ins[base + i]);
+                }
+
+                // Bias
+                sum += weights[row];
+
+                outs[outOffset + (p * outSize) + o] = sigmoid(sum);
+            }
+        }
+    }
+
     //---------//
     // forward //
     //---------//
@@ -834,6 +1049,27 @@ public class NeuralNetwork
         }
     }
 
+    //----------------//
+    // getFlatWeights //
+    //----------------//
+    /**
+     * Report the flattened weights, building them if needed.
+     *
+     * @return the current flat weights
+     */
+    private FlatWeights getFlatWeights ()
+    {
+        FlatWeights weights = flatWeights;
+
+        if (weights == null) {
+            flatWeights = weights = new FlatWeights(
+                    flatten(hiddenWeights),
+                    flatten(outputWeights));
+        }
+
+        return weights;
+    }
+
     //----------------//
     // getJaxbContext //
     //----------------//
@@ -848,6 +1084,84 @@ public class NeuralNetwork
         return jaxbContext;
     }
 
+    //--------//
+    // getMse //
+    //--------//
+    /**
+     * Compute in parallel the mean square error on all patterns.
+     *
+     * @param workers        the workers
+     * @param inputs         the input patterns
+     * @param desiredOutputs the corresponding desired outputs
+     * @return the current mean square error
+     */
+    private double getMse (Worker[] workers,
+                           double[][] inputs,
+                           double[][] desiredOutputs)
+    {
+        runWorkers(workers, inputs, desiredOutputs, 0, inputs.length, false);
+
+        double sse = 0;
+
+        for (Worker worker : workers) {
+            sse += worker.sse;
+        }
+
+        return Math.sqrt(sse / inputs.length);
+    }
+
+    //------------//
+    // runWorkers //
+    //------------//
+    /**
+     * Run the workers in parallel on a range of patterns, each worker
+     * processing its own slice of the range.
+     *
+     * @param workers        the workers
+     * @param inputs         the input patterns
+     * @param desiredOutputs the corresponding desired outputs
+     * @param start          index of first pattern in range
+     * @param stop           index after last pattern in range
+     * @param learning       true for computing gradients, false for errors
+     */
+    private void runWorkers (Worker[] workers,
+                             final double[][] inputs,
+                             final double[][] desiredOutputs,
+                             int start,
+                             int stop,
+                             final boolean learning)
+    {
+        final int sliceSize = ((stop - start) + workers.length - 1)
+                              / workers.length;
+        final List<RecursiveAction> tasks = new ArrayList<>();
+
+        for (int i = 0; i < workers.length; i++) {
+            final Worker worker = workers[i];
+            final int from = Math.min(stop, start + (i * sliceSize));
+            final int to = Math.min(stop, from + sliceSize);
+            worker.reset();
+
+            if (from < to) {
+                tasks.add(
+                        new RecursiveAction()
+                        {
+                            @Override
+                            protected void compute ()
+                            {
+                                worker.process(
+                                        inputs,
+                                        desiredOutputs,
+                                        from,
+                                        to,
+                                        learning);
+                            }
+                        });
+            }
+        }
+
+        OmrExecutors.invokeAll(tasks);
+    }
+
     //---------//
     // sigmoid //
     //---------//
@@ -862,6 +1176,124 @@ public class NeuralNetwork
         return 1.0d / (1.0d + Math.exp(-val));
     }
 
+    //----------------//
+    // trainByBatches //
+    //----------------//
+    /**
+     * Train the network by mini-batches.
+     * The patterns of each mini-batch are split among workers running in
+     * parallel, each worker summing the gradients of its own patterns.
+     * The sums are then reduced and averaged into a single update of the
+     * weights, with the usual momentum.
+     *
+     * @param inputs         the provided patterns of values for input cells
+     * @param desiredOutputs the corresponding desired values for output cells
+     * @param monitor        a monitor interface to be kept informed (or null)
+     * @param startTime      training start time
+     * @return mse, the final mean square error
+     */
+    private double trainByBatches (double[][] inputs,
+                                   double[][] desiredOutputs,
+                                   Monitor monitor,
+                                   long startTime)
+    {
+        final int patternNb = inputs.length;
+        final int size = batchSize;
+        final int workerNb = Math.max(
+                1,
+                Math.min(size, OmrExecutors.getForkJoinPool().getParallelism()));
+        final Worker[] workers = new Worker[workerNb];
+
+        for (int i = 0; i < workerNb; i++) {
+            workers[i] = new Worker();
+        }
+
+        double[][] hiddenDeltas = createMatrix(hiddenSize, inputSize + 1, 0);
+        double[][] outputDeltas = createMatrix(outputSize, hiddenSize + 1, 0);
+
+        // Mean Square Error
+        double mse = 0;
+
+        // Notify Monitor we are starting
+        if (monitor != null) {
+            mse = getMse(workers, inputs, desiredOutputs);
+            monitor.trainingStarted(0, mse);
+        }
+
+        int ie = 0;
+
+        for (; ie < epochs; ie++) {
+            // Have we been told to stop ?
+            if (stopping) {
+                logger.debug("Network stopped.");
+
+                break;
+            }
+
+            final long epochStart = System.currentTimeMillis();
+
+            for (int start = 0; start < patternNb; start += size) {
+                final int stop = Math.min(patternNb, start + size);
+                runWorkers(workers, inputs, desiredOutputs, start, stop, true);
+
+                // Reduce the gradients into the first worker
+                for (int i = 1; i < workerNb; i++) {
+                    workers[0].add(workers[i]);
+                }
+
+                applyGradients(
+                        workers[0],
+                        stop - start,
+                        hiddenDeltas,
+                        outputDeltas);
+            }
+
+            // Compute true current mse
+            mse = getMse(workers, inputs, desiredOutputs);
+
+            if (logger.isDebugEnabled()) {
+                long duration = Math.max(
+                        1,
+                        System.currentTimeMillis() - epochStart);
+                logger.debug(
+                        "Epoch {} mse:{} {} patterns/s",
+                        ie,
+                        mse,
+                        (patternNb * 1000L) / duration);
+            }
+
+            if (monitor != null) {
+                monitor.epochEnded(ie, mse);
+            }
+
+            if (mse <= maxError) {
+                logger.info(
+                        "Network exiting training, remaining error limit reached");
+                logger.info("Network remaining error was : {}", mse);
+
+                break;
+            }
+        }
+
+        // Weights have changed
+        flatWeights = null;
+
+        if (logger.isDebugEnabled()) {
+            long stopTime = System.currentTimeMillis();
+            logger.debug(
+                    String.format(
+                    "Duration  %,d seconds, %d epochs on %d patterns"
+                    + " by batches of %d on %d threads",
+                    (stopTime - startTime) / 1000,
+                    ie,
+                    patternNb,
+                    size,
+                    workerNb));
+        }
+
+        return mse;
+    }
+
     //~ Inner Interfaces -------------------------------------------------------
     //
     //---------//
@@ -926,4 +1358,167 @@ public class NeuralNetwork
             this.outputWeights = cloneMatrix(outputWeights);
         }
     }
+
+    //-------------//
+    // FlatWeights //
+    //-------------//
+    /**
+     * Immutable snapshot of the network weights, each matrix being
+     * flattened row after row into a single array.
+     */
+    private static class FlatWeights
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final double[] hidden;
+
+        private final double[] output;
+
+        //~ Constructors -------------------------------------------------------
+        private FlatWeights (double[] hidden,
+                             double[] output)
+        {
+            this.hidden = hidden;
+            this.output = output;
+        }
+    }
+
+    //--------//
+    // Worker //
+    //--------//
+    /**
+     * Training worker, which processes a slice of patterns with the
+     * current weights, accumulating its own gradients and squared errors.
+     */
+    private class Worker
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Hidden values of current pattern. */
+        private final double[] hiddens = new double[hiddenSize];
+
+        /** Output values of current pattern. */
+        private final double[] outputs = new double[outputSize];
+
+        /** Output error terms of current pattern. */
+        private final double[] outputGrads = new double[outputSize];
+
+        /** Sums of gradients for hidden weights (bias in column 0). */
+        private final double[][] hiddenSums = createMatrix(
+                hiddenSize,
+                inputSize + 1,
+                0);
+
+        /** Sums of gradients for output weights (bias in column 0). */
+        private final double[][] outputSums = createMatrix(
+                outputSize,
+                hiddenSize + 1,
+                0);
+
+        /** Sum of squared errors. */
+        private double sse;
+
+        //~ Methods ------------------------------------------------------------
+        /**
+         * Add the sums of another worker to this one.
+         *
+         * @param that the other worker
+         */
+        public void add (Worker that)
+        {
+            sse += that.sse;
+
+            for (int h = hiddenSize - 1; h >= 0; h--) {
+                for (int i = inputSize; i >= 0; i--) {
+                    hiddenSums[h][i] += that.hiddenSums[h][i];
+                }
+            }
+
+            for (int o = outputSize - 1; o >= 0; o--) {
+                for (int h = hiddenSize; h >= 0; h--) {
+                    outputSums[o][h] += that.outputSums[o][h];
+                }
+            }
+        }
+
+        /**
+         * Process a slice of patterns.
+         *
+         * @param inputs         the input patterns
+         * @param desiredOutputs the corresponding desired outputs
+         * @param from           index of first pattern
+         * @param to             index after last pattern
+         * @param learning       true to sum gradients, false to sum errors
+         *                       only
+         */
+        public void process (double[][] inputs,
+                             double[][] desiredOutputs,
+                             int from,
+                             int to,
+                             boolean learning)
+        {
+            for (int ip = from; ip < to; ip++) {
+                final double[] ins = inputs[ip];
+                run(ins, hiddens, outputs);
+
+                for (int o = outputSize - 1; o >= 0; o--) {
+                    double out = outputs[o];
+                    double dif = desiredOutputs[ip][o] - out;
+                    sse += (dif * dif);
+                    outputGrads[o] = dif * out * (1 - out);
+                }
+
+                if (!learning) {
+                    continue;
+                }
+
+                // Output layer
+                for (int o = outputSize - 1; o >= 0; o--) {
+                    final double grad = outputGrads[o];
+                    final double[] sums = outputSums[o];
+
+                    for (int h = hiddenSize - 1; h >= 0; h--) {
+                        sums[h + 1] += (grad * hiddens[h]);
+                    }
+
+                    sums[0] += grad;
+                }
+
+                // Hidden layer
+                for (int h = hiddenSize - 1; h >= 0; h--) {
+                    double sum = 0;
+                    double hid = hiddens[h];
+
+                    for (int o = outputSize - 1; o >= 0; o--) {
+                        sum += (outputGrads[o] * outputWeights[o][h + 1]);
+                    }
+
+                    final double grad = sum * hid * (1 - hid);
+                    final double[] sums = hiddenSums[h];
+
+                    for (int i = inputSize - 1; i >= 0; i--) {
+                        sums[i + 1] += (grad * ins[i]);
+                    }
+
+                    sums[0] += grad;
+                }
+            }
+        }
+
+        /**
+         * Reset all sums.
+         */
+        public void reset ()
+        {
+            sse = 0;
+
+            for (double[] row : hiddenSums) {
+                Arrays.fill(row, 0);
+            }
+
+            for (double[] row : outputSums) {
+                Arrays.fill(row, 0);
+            }
+        }
+    }
 }
@@ -31,11 +31,14 @@ public class BasicARTExtractor
     // Zernike basis function radius
     private static final int LUT_RADIUS = 50;
 
-    /** Real values of ARTMoments basis function */
-    private static final LUT[][] realLuts = new LUT[ANGULAR][RADIAL];
-
-    /** Imaginary values of ARTMoments basis function */
-    private static final LUT[][] imagLuts = new LUT[ANGULAR][RADIAL];
+    /**
+     * Real and imaginary values of ARTMoments basis functions.
+     * For (p,r) couple, real part is function 2*(p*RADIAL + r) and
+     * imaginary part is the next function.
+     */
+    private static final FusedLUT lut = new FusedLUT(
+            LUT_RADIUS,
+            2 * ANGULAR * RADIAL);
 
     static {
         initLUT();
@@ -63,14 +66,12 @@ public class BasicARTExtractor
     @Override
     protected void extractMoments ()
     {
-        final LUT anyLut = realLuts[0][0]; // Just for template
-        final int lutRadius = anyLut.getRadius();
+        final int lutRadius = lut.getRadius();
         final double centerX = center.getX();
         final double centerY = center.getY();
 
-        // Coefficients, real part & imaginary part
-        final double[][] coeffReal = new double[ANGULAR][RADIAL];
-        final double[][] coeffImag = new double[ANGULAR][RADIAL];
+        // Coefficients, real part & imaginary part, interleaved
+        final double[] sums = new double[lut.getCount()];
 
         for (int i = 0; i < mass; i++) {
             // Map image coordinate to LUT coordinates
@@ -79,22 +80,18 @@ public class BasicARTExtractor
             double lx = ((x * lutRadius) / radius) + lutRadius;
             double ly = ((y * lutRadius) / radius) + lutRadius;
 
-            // Summation of basis function
-            if (anyLut.contains(lx, ly)) {
-                for (int p = 0; p < ANGULAR; p++) {
-                    for (int r = 0; r < RADIAL; r++) {
-                        coeffReal[p][r] += realLuts[p][r].interpolate(lx, ly);
-                        coeffImag[p][r] -= imagLuts[p][r].interpolate(lx, ly);
-                    }
-                }
+            // Summation of basis functions
+            if (lut.contains(lx, ly)) {
+                lut.accumulate(lx, ly, sums);
             }
         }
 
-        // Save to descriptor
+        // Save to descriptor (imaginary part is conjugated)
         for (int p = 0; p < ANGULAR; p++) {
             for (int r = 0; r < RADIAL; r++) {
-                double real = coeffReal[p][r] / mass;
-                double imag = coeffImag[p][r] / mass;
+                int k = 2 * ((p * RADIAL) + r);
+                double real = sums[k] / mass;
+                double imag = -sums[k + 1] / mass;
                 descriptor.setMoment(p, r, Math.hypot(imag, real));
 
                 //                descriptor.setArgument(p, r, Math.atan2(imag, real));
@@ -112,17 +109,8 @@ public class BasicARTExtractor
      */
     private static void initLUT ()
     {
-        // Allocate LUT's
-        for (int p = 0; p < ANGULAR; p++) {
-            for (int r = 0; r < RADIAL; r++) {
-                realLuts[p][r] = new BasicLUT(LUT_RADIUS);
-                imagLuts[p][r] = new BasicLUT(LUT_RADIUS);
-            }
-        }
-
-        final LUT anyLut = realLuts[0][0]; // Just for template
-        final int lutSize = anyLut.getSize();
-        final int lutRadius = anyLut.getRadius();
+        final int lutSize = lut.getSize();
+        final int lutRadius = lut.getRadius();
 
         for (int x = 0; x < lutSize; x++) {
             double tx = (x - lutRadius) / (double) lutRadius; // [-1..+1]
@@ -137,26 +125,15 @@ public class BasicARTExtractor
 
                     for (int p = 0; p < ANGULAR; p++) {
                         for (int r = 0; r < RADIAL; r++) {
+                            int k = 2 * ((p * RADIAL) + r);
                             double temp = Math.cos(rad * Math.PI * r);
-                            realLuts[p][r].assign(
-                                    x,
-                                    y,
-                                    temp * Math.cos(angle * p));
-                            imagLuts[p][r].assign(
-                                    x,
-                                    y,
-                                    temp * Math.sin(angle * p));
-                        }
-                    }
-                } else {
-                    // We are on or outside circle
-                    for (int p = 0; p < ANGULAR; p++) {
-                        for (int r = 0; r < RADIAL; r++) {
-                            realLuts[p][r].assign(x, y, 0);
-                            imagLuts[p][r].assign(x, y, 0);
+                            lut.assign(x, y, k, temp * Math.cos(angle * p));
+                            lut.assign(x, y, k + 1, temp * Math.sin(angle * p));
                         }
                     }
                 }
+
+                // Values on or outside circle are left to zero
             }
         }
     }
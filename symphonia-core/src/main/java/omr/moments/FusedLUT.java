@@ -0,0 +1,222 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                              F u s e d L U T                               //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.moments;
+
+/**
+ * Class {@code FusedLUT} is a lookup table which handles several
+ * functions at once.
+ *
+ * <p>For each integer (x,y) location, the values of all functions are stored
+ * contiguously, so that interpolating all of them at a precise point costs a
+ * single computation of the interpolation weights, followed by one pass over
+ * adjacent values.
+ *
+ * <p>For a given function, the interpolated value is the same as the one
+ * provided by {@link BasicLUT#interpolate}.
+ *
+ * @author Hervé Bitteur
+ */
+public final class FusedLUT
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** LUT radius. */
+    private final int RADIUS;
+
+    /** LUT size (to implement arrays [-RADIUS, RADIUS]). */
+    private final int SIZE;
+
+    /** Number of functions. */
+    private final int COUNT;
+
+    /** The values, location after location, function after function. */
+    private final double[] table;
+
+    //~ Constructors -----------------------------------------------------------
+    /**
+     * Creates a new FusedLUT object.
+     *
+     * @param radius the desired LUT radius for a [-radius .. radius] table.
+     * @param count  the number of functions
+     */
+    public FusedLUT (int radius,
+                     int count)
+    {
+        if (radius <= 0) {
+            throw new IllegalArgumentException(
+                    "Cannot allocate LUT with radius " + radius);
+        }
+
+        if (count <= 0) {
+            throw new IllegalArgumentException(
+                    "Cannot allocate LUT with count " + count);
+        }
+
+        this.RADIUS = radius;
+        SIZE = 1 + (2 * radius);
+        COUNT = count;
+        table = new double[SIZE * SIZE * COUNT];
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //------------//
+    // accumulate //
+    //------------//
+    /**
+     * Add the values of all functions at precise point (px,py),
+     * interpolated from values defined for integer coordinates.
+     *
+     * @param px   precise abscissa
+     * @param py   precise ordinate
+     * @param sums the sums to increment, one per function
+     */
+    public void accumulate (double px,
+                            double py,
+                            double[] sums)
+    {
+        // Integer coordinates, by truncating precise coordinates
+        final int x = (int) px;
+        final int y = (int) py;
+
+        // Beware of point on LUT border
+        final int max = SIZE - 1;
+
+        // Offsets of values at [x,y], [x+1,y] and [x,y+1]
+        final int o00 = index(x, y);
+        final int o10 = o00 + (SIZE * COUNT);
+        final int o01 = o00 + COUNT;
+
+        if (x == max) {
+            if (y == max) {
+                for (int k = 0; k < COUNT; k++) {
+                    sums[k] += table[o00 + k]; // v[x,y]
+                }
+            } else {
+                final double iy = py - y;
+
+                for (int k = 0; k < COUNT; k++) {
+                    final double vxy = table[o00 + k];
+                    sums[k] += (vxy + (iy * (table[o01 + k] - vxy))); // v[x,py]
+                }
+            }
+        } else {
+            final double ix = px - x;
+
+            if (y == max) {
+                for (int k = 0; k < COUNT; k++) {
+                    final double vxy = table[o00 + k];
+                    sums[k] += (vxy + (ix * (table[o10 + k] - vxy))); // v[px,y]
+                }
+            } else {
+                final double iy = py - y;
+                final int o11 = o10 + COUNT;
+
+                for (int k = 0; k < COUNT; k++) {
+                    // Value at [px,y]
+                    final double vxy = table[o00 + k];
+                    final double vpxy = vxy + (ix * (table[o10 + k] - vxy));
+
+                    // Value at [px, y+1]
+                    final double vxy1 = table[o01 + k];
+                    final double vpxy1 = vxy1
+                                         + (ix * (table[o11 + k] - vxy1));
+
+                    sums[k] += (vpxy + (iy * (vpxy1 - vpxy))); // v[px,py]
+                }
+            }
+        }
+    }
+
+    //--------//
+    // assign //
+    //--------//
+    /**
+     * Set the value of a function for integer coordinates (x,y).
+     *
+     * @param x     integer abscissa
+     * @param y     integer ordinate
+     * @param k     function index
+     * @param value the known value for (x,y) point
+     */
+    public void assign (int x,
+                        int y,
+                        int k,
+                        double value)
+    {
+        table[index(x, y) + k] = value;
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Check whether the provided coordinates lies within the LUT
+     * range ([0, SIZE[).
+     *
+     * @param x provided abscissa
+     * @param y provided ordinate
+     * @return true if OK
+     */
+    public boolean contains (double x,
+                             double y)
+    {
+        return (x >= 0) && (x < SIZE) && (y >= 0) && (y < SIZE);
+    }
+
+    //----------//
+    // getCount //
+    //----------//
+    /**
+     * Report the number of functions.
+     *
+     * @return the count of functions
+     */
+    public int getCount ()
+    {
+        return COUNT;
+    }
+
+    //-----------//
+    // getRadius //
+    //-----------//
+    /**
+     * Report the LUT radius (LUT implements (-radius,+radius).
+     *
+     * @return the defined radius
+     */
+    public int getRadius ()
+    {
+        return RADIUS;
+    }
+
+    //---------//
+    // getSize //
+    //---------//
+    /**
+     * Report the LUT size (typically 2*radius +1).
+     *
+     * @return the LUT size
+     */
+    public int getSize ()
+    {
+        return SIZE;
+    }
+
+    //-------//
+    // index //
+    //-------//
+    private int index (int x,
+                       int y)
+    {
+        return ((x * SIZE) + y) * COUNT;
+    }
+}
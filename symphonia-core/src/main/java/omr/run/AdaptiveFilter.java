@@ -215,7 +215,12 @@ public class AdaptiveFilter
     //------------------//
     // getAdaptiveClass //
     //------------------//
-    static Class<?> getImplementationClass ()
+    /**
+     * Report the class currently chosen to implement the adaptive filter.
+     *
+     * @return the implementation class, or null if not found
+     */
+    public static Class<?> getImplementationClass ()
     {
         String name = constants.className.getValue();
 
@@ -231,8 +236,8 @@ public class AdaptiveFilter
     //--------------//
     // getThreshold //
     //--------------//
-    private double getThreshold (double mean,
-                                 double stdDev)
+    protected double getThreshold (double mean,
+                                   double stdDev)
     {
         // This is the key formula
         return (MEAN_COEFF * mean) + (STD_DEV_COEFF * stdDev);
@@ -290,6 +295,9 @@ public class AdaptiveFilter
         /** Circular buffer for integrals. */
         protected final long[][] sums;
 
+        /** Buffer for the pixels of one column. */
+        protected final int[] pixels;
+
         //~ Constructors -------------------------------------------------------
         /**
          * Create a tile instance.
@@ -308,6 +316,7 @@ public class AdaptiveFilter
 
             // Allocate buffer of integrals
             sums = new long[TILE_WIDTH][height];
+            pixels = new int[height];
 
             // Initialize the "previous" column
             Arrays.fill(sums[TILE_WIDTH - 1], 0);
@@ -378,10 +387,13 @@ public class AdaptiveFilter
             long top = 0;
             long topLeft = 0;
 
+            // Read the whole column at once
+            getColumn(x, 0, height - 1, pixels);
+
             for (int y = 0; y < height; y++) {
                 long left = prevColumn[y];
 
-                long pix = getPixel(x, y);
+                long pix = pixels[y];
 
                 if (squared) {
                     pix *= pix;
@@ -429,8 +441,9 @@ public class AdaptiveFilter
                 "Threshold formula coefficient for pixel standard deviation");
 
         Constant.String className = new Constant.String(
-                "omr.run.VerticalFilter",
-                "omr.run.VerticalFilter or omr.run.RandomFilter");
+                "omr.run.IntegralFilter",
+                "omr.run.IntegralFilter, omr.run.VerticalFilter"
+                + " or omr.run.RandomFilter");
 
     }
 }
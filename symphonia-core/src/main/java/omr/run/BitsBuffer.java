@@ -0,0 +1,373 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                            B i t s B u f f e r                             //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.run;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.awt.Dimension;
+
+/**
+ * Class {@code BitsBuffer} handles a rectangular binary buffer, with
+ * one bit per pixel.
+ *
+ * <p>Each row is stored as a sequence of 64-bit words, the pixel at abscissa x
+ * being bit (x % 64) of word (x / 64), a set bit meaning a foreground pixel.
+ * This is 16 times more compact than a {@link PixelsBuffer}, which uses one
+ * 16-bit char per pixel.
+ *
+ * <p>This class is not thread-safe: setting a pixel is a read-modify-write of
+ * the containing word. Since rows do not share any word, distinct rows can
+ * however be written concurrently by different threads.
+ *
+ * <p>Runs of foreground or background pixels are found a word at a time,
+ * see {@link #nextSetBit} and {@link #nextClearBit}.
+ *
+ * @author Hervé Bitteur
+ */
+@NotThreadSafe
+public class BitsBuffer
+        implements PixelFilter
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Number of bits per word. */
+    public static final int WORD_SIZE = Long.SIZE;
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Width of the table */
+    private final int width;
+
+    /** Height of the table */
+    private final int height;
+
+    /** Number of words per row */
+    private final int wordsPerRow;
+
+    /** Underlying buffer, row after row */
+    private final long[] words;
+
+    //~ Constructors -----------------------------------------------------------
+    //------------//
+    // BitsBuffer //
+    //------------//
+    /**
+     * Creates a new BitsBuffer object, with all pixels set to background.
+     *
+     * @param dimension the buffer dimension
+     */
+    public BitsBuffer (Dimension dimension)
+    {
+        width = dimension.width;
+        height = dimension.height;
+
+        wordsPerRow = (width + WORD_SIZE - 1) / WORD_SIZE;
+        words = new long[wordsPerRow * height];
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //------------//
+    // getContext //
+    //------------//
+    @Override
+    public Context getContext (int x,
+                               int y)
+    {
+        return new Context(BACKGROUND / 2);
+    }
+
+    //-----------//
+    // getColumn //
+    //-----------//
+    @Override
+    public void getColumn (int x,
+                           int yMin,
+                           int yMax,
+                           int[] pixels)
+    {
+        for (int y = yMin; y <= yMax; y++) {
+            pixels[y - yMin] = getPixel(x, y);
+        }
+    }
+
+    //-----------//
+    // getHeight //
+    //-----------//
+    @Override
+    public int getHeight ()
+    {
+        return height;
+    }
+
+    //----------//
+    // getPixel //
+    //----------//
+    /**
+     * {@inheritDoc}
+     *
+     * @return 0 (black) for a foreground pixel, BACKGROUND otherwise
+     */
+    @Override
+    public int getPixel (int x,
+                         int y)
+    {
+        return isFore(x, y) ? 0 : BACKGROUND;
+    }
+
+    //--------//
+    // getRow //
+    //--------//
+    @Override
+    public void getRow (int y,
+                        int xMin,
+                        int xMax,
+                        int[] pixels)
+    {
+        for (int x = xMin; x <= xMax; x++) {
+            pixels[x - xMin] = getPixel(x, y);
+        }
+    }
+
+    //----------//
+    // getWidth //
+    //----------//
+    @Override
+    public int getWidth ()
+    {
+        return width;
+    }
+
+    //---------//
+    // getWord //
+    //---------//
+    /**
+     * Report the word of 64 pixels at provided position in a row.
+     *
+     * @param y     the row ordinate
+     * @param index the word index within the row
+     * @return the pixels word
+     */
+    public long getWord (int y,
+                         int index)
+    {
+        return words[(y * wordsPerRow) + index];
+    }
+
+    //----------------//
+    // getWordsPerRow //
+    //----------------//
+    /**
+     * Report the number of words per row.
+     *
+     * @return the row length, counted in words
+     */
+    public int getWordsPerRow ()
+    {
+        return wordsPerRow;
+    }
+
+    //--------------//
+    // nextClearBit //
+    //--------------//
+    /**
+     * Report the abscissa of the first background pixel in the
+     * provided row portion.
+     *
+     * @param y    the row ordinate
+     * @param xMin the first abscissa to check
+     * @param xMax the last abscissa to check
+     * @return the abscissa found, or xMax + 1 if none
+     */
+    public int nextClearBit (int y,
+                             int xMin,
+                             int xMax)
+    {
+        return nextBit(y, xMin, xMax, -1L);
+    }
+
+    //------------//
+    // nextSetBit //
+    //------------//
+    /**
+     * Report the abscissa of the first foreground pixel in the
+     * provided row portion.
+     *
+     * @param y    the row ordinate
+     * @param xMin the first abscissa to check
+     * @param xMax the last abscissa to check
+     * @return the abscissa found, or xMax + 1 if none
+     */
+    public int nextSetBit (int y,
+                           int xMin,
+                           int xMax)
+    {
+        return nextBit(y, xMin, xMax, 0);
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    @Override
+    public boolean isFore (int x,
+                           int y)
+    {
+        long word = words[(y * wordsPerRow) + (x / WORD_SIZE)];
+
+        return (word & (1L << (x % WORD_SIZE))) != 0;
+    }
+
+    //---------//
+    // setFore //
+    //---------//
+    /**
+     * Set the pixel at provided location to foreground.
+     * Since this modifies a whole word, it must not be called concurrently
+     * on the same row.
+     *
+     * @param x pixel abscissa
+     * @param y pixel ordinate
+     */
+    public void setFore (int x,
+                         int y)
+    {
+        words[(y * wordsPerRow) + (x / WORD_SIZE)] |= (1L << (x % WORD_SIZE));
+    }
+
+    //--------//
+    // setRun //
+    //--------//
+    /**
+     * Set all pixels of a row portion to foreground.
+     *
+     * @param y    the row ordinate
+     * @param xMin the first abscissa
+     * @param xMax the last abscissa
+     */
+    public void setRun (int y,
+                        int xMin,
+                        int xMax)
+    {
+        final int base = y * wordsPerRow;
+        final int first = xMin / WORD_SIZE;
+        final int last = xMax / WORD_SIZE;
+
+        // Shift distances are taken modulo 64
+        final long firstMask = -1L << xMin;
+        final long lastMask = -1L >>> (WORD_SIZE - 1 - (xMax % WORD_SIZE));
+
+        if (first == last) {
+            words[base + first] |= (firstMask & lastMask);
+        } else {
+            words[base + first] |= firstMask;
+
+            for (int index = first + 1; index < last; index++) {
+                words[base + index] = -1L;
+            }
+
+            words[base + last] |= lastMask;
+        }
+    }
+
+    //---------//
+    // setWord //
+    //---------//
+    /**
+     * Assign the word of 64 pixels at provided position in a row.
+     * Bits beyond image width must be left to zero.
+     *
+     * @param y     the row ordinate
+     * @param index the word index within the row
+     * @param word  the pixels word
+     */
+    public void setWord (int y,
+                         int index,
+                         long word)
+    {
+        words[(y * wordsPerRow) + index] = word;
+    }
+
+    //-----------//
+    // transpose //
+    //-----------//
+    /**
+     * Build the transposed buffer, where each row of the new buffer
+     * corresponds to a column of this buffer.
+     * This allows to scan columns as efficiently as rows.
+     *
+     * @return the transposed buffer
+     */
+    public BitsBuffer transpose ()
+    {
+        final BitsBuffer transposed = new BitsBuffer(
+                new Dimension(height, width));
+
+        for (int y = 0; y < height; y++) {
+            final int base = y * wordsPerRow;
+
+            for (int index = 0; index < wordsPerRow; index++) {
+                long word = words[base + index];
+
+                // Browse only the set bits
+                while (word != 0) {
+                    int x = (index * WORD_SIZE)
+                            + Long.numberOfTrailingZeros(word);
+                    transposed.setFore(y, x);
+                    word &= (word - 1);
+                }
+            }
+        }
+
+        return transposed;
+    }
+
+    //---------//
+    // nextBit //
+    //---------//
+    /**
+     * Report the abscissa of the first bit different from the provided
+     * background in the provided row portion.
+     *
+     * @param y    the row ordinate
+     * @param xMin the first abscissa to check
+     * @param xMax the last abscissa to check
+     * @param flip 0 to look for a set bit, -1 to look for a clear bit
+     * @return the abscissa found, or xMax + 1 if none
+     */
+    private int nextBit (int y,
+                         int xMin,
+                         int xMax,
+                         long flip)
+    {
+        if (xMin > xMax) {
+            return xMax + 1;
+        }
+
+        final int base = y * wordsPerRow;
+        final int last = xMax / WORD_SIZE;
+        int index = xMin / WORD_SIZE;
+
+        // Ignore the bits before xMin
+        long word = (words[base + index] ^ flip) & (-1L << xMin);
+
+        while (word == 0) {
+            if (++index > last) {
+                return xMax + 1;
+            }
+
+            word = words[base + index] ^ flip;
+        }
+
+        int x = (index * WORD_SIZE) + Long.numberOfTrailingZeros(word);
+
+        return Math.min(x, xMax + 1);
+    }
+}
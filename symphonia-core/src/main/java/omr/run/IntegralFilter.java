@@ -0,0 +1,293 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        I n t e g r a l F i l t e r                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.run;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.util.OmrExecutors;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class {@code IntegralFilter} is a specialization of
+ * {@link AdaptiveFilter} which binarizes the whole image at once,
+ * using tables of integrals.
+ *
+ * <p>The image is split into horizontal bands of rows, processed in parallel
+ * on the OMR fork/join pool.
+ * For each band, the integrals of plain values and of squared values are
+ * populated in a single pass over the source rows (the band rows, plus
+ * HALF_WINDOW_SIZE rows above and below).
+ * Then, for each pixel of the band, mean and standard deviation values
+ * are read from these integrals, and the resulting foreground bit is
+ * written into a {@link BitsBuffer}.
+ *
+ * <p>This implementation is meant to be functionally equivalent to
+ * {@link VerticalFilter} and {@link RandomFilter}.
+ * Once the image is binarized (which happens on the first call to
+ * {@link #isFore}), this filter is ThreadSafe and reading a foreground
+ * information is a mere bit test.
+ * The integrals are allocated per band, so memory needs remain limited to
+ * the bits buffer plus one couple of band tables per working thread.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class IntegralFilter
+        extends AdaptiveFilter
+        implements PixelFilter
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            IntegralFilter.class);
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Binarized image, lazily computed. */
+    private volatile BitsBuffer bits;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //----------------//
+    // IntegralFilter //
+    //----------------//
+    /**
+     * Create an adaptive wrapper on a raw pixel source.
+     *
+     * @param source      the underlying source of raw pixels
+     * @param meanCoeff   the coefficient for mean value
+     * @param stdDevCoeff the coefficient for standard deviation value
+     */
+    public IntegralFilter (PixelSource source,
+                           double meanCoeff,
+                           double stdDevCoeff)
+    {
+        super(source, meanCoeff, stdDevCoeff);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //---------//
+    // getBits //
+    //---------//
+    /**
+     * Report the binarized image, computing it if not yet done.
+     *
+     * @return the buffer of foreground bits
+     */
+    public BitsBuffer getBits ()
+    {
+        BitsBuffer result = bits;
+
+        if (result == null) {
+            synchronized (this) {
+                result = bits;
+
+                if (result == null) {
+                    bits = result = binarize();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    //----------------------//
+    // getDefaultDescriptor //
+    //----------------------//
+    public static FilterDescriptor getDefaultDescriptor ()
+    {
+        return AdaptiveDescriptor.getDefault();
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    @Override
+    public boolean isFore (int x,
+                           int y)
+    {
+        return getBits().isFore(x, y);
+    }
+
+    //----------//
+    // binarize //
+    //----------//
+    /**
+     * Binarize the whole source image, band after band.
+     *
+     * @return the populated bits buffer
+     */
+    private BitsBuffer binarize ()
+    {
+        final long start = System.currentTimeMillis();
+        final int height = source.getHeight();
+        final int bandHeight = Math.max(1, constants.bandHeight.getValue());
+        final BitsBuffer buffer = new BitsBuffer(
+                new Dimension(source.getWidth(), height));
+        final List<RecursiveAction> tasks = new ArrayList<>();
+
+        for (int y = 0; y < height; y += bandHeight) {
+            final int yMin = y;
+            final int yMax = Math.min(height, y + bandHeight) - 1;
+            tasks.add(
+                    new RecursiveAction()
+                    {
+                        @Override
+                        protected void compute ()
+                        {
+                            processBand(buffer, yMin, yMax);
+                        }
+                    });
+        }
+
+        OmrExecutors.invokeAll(tasks);
+
+        logger.debug(
+                "Binarization {}x{} in {} ms",
+                buffer.getWidth(),
+                height,
+                System.currentTimeMillis() - start);
+
+        return buffer;
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Binarize the provided band of rows.
+     *
+     * @param buffer the buffer to populate
+     * @param yMin   first row of the band
+     * @param yMax   last row of the band
+     */
+    private void processBand (BitsBuffer buffer,
+                              int yMin,
+                              int yMax)
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int half = HALF_WINDOW_SIZE;
+
+        // Rows involved in the band windows
+        final int rowMin = Math.max(0, yMin - half);
+        final int rowMax = Math.min(height - 1, yMax + half);
+
+        // Integrals, with a leading row and a leading column of zeros:
+        // cell (i+1, x+1) contains the integral of rows rowMin..rowMin+i and
+        // columns 0..x
+        final int stride = width + 1;
+        final int rows = rowMax - rowMin + 1;
+        final long[] sums = new long[(rows + 1) * stride];
+        final long[] sqrSums = new long[(rows + 1) * stride];
+        final int[] pixels = new int[width];
+
+        for (int i = 0; i < rows; i++) {
+            final int y = rowMin + i;
+            final int prev = i * stride;
+            final int cur = prev + stride;
+            long rowSum = 0;
+            long rowSqrSum = 0;
+
+            source.getRow(y, 0, width - 1, pixels);
+
+            for (int x = 0; x < width; x++) {
+                long pix = pixels[x];
+                rowSum += pix;
+                rowSqrSum += (pix * pix);
+                sums[cur + x + 1] = sums[prev + x + 1] + rowSum;
+                sqrSums[cur + x + 1] = sqrSums[prev + x + 1] + rowSqrSum;
+            }
+        }
+
+        // Thresholding
+        final int wordsPerRow = buffer.getWordsPerRow();
+
+        for (int y = yMin; y <= yMax; y++) {
+            // Window rows, as indices in integrals
+            final int winMin = Math.max(0, y - half) - rowMin;
+            final int winMax = Math.min(height - 1, y + half) - rowMin;
+            final int winHeight = winMax - winMin + 1;
+            final int top = winMin * stride;
+            final int bottom = (winMax + 1) * stride;
+
+            // Pixel row, as index in integrals
+            final int pixTop = (y - rowMin) * stride;
+            final int pixBottom = pixTop + stride;
+
+            for (int index = 0; index < wordsPerRow; index++) {
+                final int xMin = index * BitsBuffer.WORD_SIZE;
+                final int xMax = Math.min(
+                        width,
+                        xMin + BitsBuffer.WORD_SIZE) - 1;
+                long word = 0;
+
+                for (int x = xMin; x <= xMax; x++) {
+                    final int left = Math.max(0, x - half);
+                    final int right = Math.min(width - 1, x + half) + 1;
+                    final int area = winHeight * (right - left);
+
+                    double sum = (sums[top + left] + sums[bottom + right])
+                                 - sums[top + right] - sums[bottom + left];
+                    double sqrSum = (sqrSums[top + left]
+                                     + sqrSums[bottom + right])
+                                    - sqrSums[top + right]
+                                    - sqrSums[bottom + left];
+                    double mean = sum / area;
+                    double sqrMean = sqrSum / area;
+                    double stdDev = Math.sqrt(
+                            Math.abs(sqrMean - (mean * mean)));
+                    double threshold = getThreshold(mean, stdDev);
+
+                    long pix = (sums[pixTop + x] + sums[pixBottom + x + 1])
+                               - sums[pixTop + x + 1] - sums[pixBottom + x];
+
+                    if (pix <= threshold) {
+                        word |= (1L << (x - xMin));
+                    }
+                }
+
+                buffer.setWord(y, index, word);
+            }
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Integer bandHeight = new Constant.Integer(
+                "Pixels",
+                64,
+                "Height of each band of rows binarized as a whole");
+
+    }
+}
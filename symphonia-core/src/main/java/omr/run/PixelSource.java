@@ -28,6 +28,23 @@ public interface PixelSource
     public static final int BACKGROUND = 255;
 
     //~ Methods ----------------------------------------------------------------
+    /**
+     * Copy the pixel elements of a column portion into the provided
+     * array.
+     * This is meant for the processing of large amounts of pixels, and thus
+     * must not allocate any memory.
+     *
+     * @param x      abscissa value of the column
+     * @param yMin   first ordinate value
+     * @param yMax   last ordinate value
+     * @param pixels the array to populate, pixel at y being stored at index
+     *               (y - yMin)
+     */
+    void getColumn (int x,
+                    int yMin,
+                    int yMax,
+                    int[] pixels);
+
     /**
      * Report the height of the rectangular source
      *
@@ -48,6 +65,22 @@ public interface PixelSource
     int getPixel (int x,
                   int y);
 
+    /**
+     * Copy the pixel elements of a row portion into the provided array.
+     * This is meant for the processing of large amounts of pixels, and thus
+     * must not allocate any memory.
+     *
+     * @param y      ordinate value of the row
+     * @param xMin   first abscissa value
+     * @param xMax   last abscissa value
+     * @param pixels the array to populate, pixel at x being stored at index
+     *               (x - xMin)
+     */
+    void getRow (int y,
+                 int xMin,
+                 int xMax,
+                 int[] pixels);
+
     /**
      * Report the width of the rectangular source.
      *
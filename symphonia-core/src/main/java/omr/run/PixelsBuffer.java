@@ -71,6 +71,20 @@ public class PixelsBuffer
         return new Context(BACKGROUND / 2);
     }
 
+    //-----------//
+    // getColumn //
+    //-----------//
+    @Override
+    public void getColumn (int x,
+                           int yMin,
+                           int yMax,
+                           int[] pixels)
+    {
+        for (int y = yMin, i = (yMin * width) + x; y <= yMax; y++, i += width) {
+            pixels[y - yMin] = buffer[i];
+        }
+    }
+
     //-----------//
     // getHeight //
     //-----------//
@@ -90,6 +104,22 @@ public class PixelsBuffer
         return buffer[(y * width) + x];
     }
 
+    //--------//
+    // getRow //
+    //--------//
+    @Override
+    public void getRow (int y,
+                        int xMin,
+                        int xMax,
+                        int[] pixels)
+    {
+        final int offset = (y * width) - xMin;
+
+        for (int x = xMin; x <= xMax; x++) {
+            pixels[x - xMin] = buffer[offset + x];
+        }
+    }
+
     //----------//
     // getWidth //
     //----------//
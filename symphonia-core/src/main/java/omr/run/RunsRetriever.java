@@ -22,7 +22,7 @@ import org.slf4j.LoggerFactory;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class {@code RunsRetriever} is in charge of reading a source of 
@@ -30,6 +30,10 @@ import java.util.concurrent.Callable;
  * What is done with the retrieved runs is essentially the purpose of the
  * provided adapter.
  *
+ * <p>If the adapter provides the foreground pixels as a {@link BitsBuffer},
+ * run boundaries are found a whole word of pixels at a time, otherwise each
+ * pixel is checked by the adapter.
+ *
  * @author Hervé Bitteur
  */
 public class RunsRetriever
@@ -47,6 +51,9 @@ public class RunsRetriever
     /** The adapter for pixel access and call-backs at run level */
     private final Adapter adapter;
 
+    /** The packed foreground pixels, if any, one row per position */
+    private BitsBuffer bits;
+
     //~ Constructors -----------------------------------------------------------
     //
     //---------------//
@@ -86,6 +93,7 @@ public class RunsRetriever
         final int pMin = rect.y;
         final int pMax = (rect.y + rect.height) - 1;
 
+        bits = adapter.getBits();
         rowBasedRetrieval(pMin, pMax, cMin, cMax);
         adapter.terminate();
     }
@@ -97,14 +105,26 @@ public class RunsRetriever
      * Process the pixels in position 'p' between coordinates 'cMin'
      * and 'cMax'
      *
-     * @param p    the position in the pixels array (x for vertical)
-     * @param cMin the starting coordinate (y for vertical)
-     * @param cMax the ending coordinate
+     * @param p      the position in the pixels array (x for vertical)
+     * @param cMin   the starting coordinate (y for vertical)
+     * @param cMax   the ending coordinate
+     * @param levels a buffer large enough for the gray levels of all pixels
+     *               between cMin and cMax
      */
     private void processPosition (int p,
                                   int cMin,
-                                  int cMax)
+                                  int cMax,
+                                  int[] levels)
     {
+        // Read all gray levels at once
+        adapter.getLevels(p, cMin, cMax, levels);
+
+        if (bits != null) {
+            processWords(p, cMin, cMax, levels);
+
+            return;
+        }
+
         // Current run is FOREGROUND or BACKGROUND
         boolean isFore = false;
 
@@ -116,7 +136,7 @@ public class RunsRetriever
 
         // Browse other dimension
         for (int c = cMin; c <= cMax; c++) {
-            final int level = adapter.getLevel(c, p);
+            final int level = levels[c - cMin];
 
             ///logger.info("p:" + p + " c:" + c + " level:" + level);
             if (adapter.isFore(c, p)) {
@@ -160,13 +180,57 @@ public class RunsRetriever
         }
     }
 
+    //--------------//
+    // processWords //
+    //--------------//
+    /**
+     * Process the pixels in position 'p' between coordinates 'cMin'
+     * and 'cMax', using the packed foreground pixels.
+     *
+     * @param p      the position in the pixels array (x for vertical)
+     * @param cMin   the starting coordinate (y for vertical)
+     * @param cMax   the ending coordinate
+     * @param levels the gray levels of pixels between cMin and cMax
+     */
+    private void processWords (int p,
+                               int cMin,
+                               int cMax,
+                               int[] levels)
+    {
+        int c = cMin;
+
+        while (c <= cMax) {
+            // Background run, if any
+            final int start = bits.nextSetBit(p, c, cMax);
+
+            if (start > c) {
+                adapter.backRun(start, p, start - c);
+            }
+
+            if (start > cMax) {
+                break;
+            }
+
+            // Foreground run
+            final int stop = bits.nextClearBit(p, start, cMax);
+            int cumul = 0;
+
+            for (int i = start - cMin, iBreak = stop - cMin; i < iBreak; i++) {
+                cumul += levels[i];
+            }
+
+            adapter.foreRun(stop, p, stop - start, cumul);
+            c = stop;
+        }
+    }
+
     //-------------------//
     // rowBasedRetrieval //
     //-------------------//
     /**
      * Retrieve runs row by row.
      * This method handles the pixels run either in a parallel or a serial way,
-     * according to the possibilities of the high OMR executor.
+     * according to the possibilities of the OMR fork/join pool.
      */
     private void rowBasedRetrieval (int pMin,
                                     int pMax,
@@ -176,38 +240,37 @@ public class RunsRetriever
         if (OmrExecutors.defaultParallelism.getSpecific() == false
             || !adapter.isThreadSafe()) {
             // Sequential
+            final int[] levels = new int[cMax - cMin + 1];
+
             for (int p = pMin; p <= pMax; p++) {
-                processPosition(p, cMin, cMax);
+                processPosition(p, cMin, cMax, levels);
             }
         } else {
-            // Parallel (TODO: should use Java 7 fork/join someday...)
+            // Parallel, using fork/join
             try {
                 // Browse one dimension
-                List<Callable<Void>> tasks = new ArrayList<>(
+                List<RecursiveAction> tasks = new ArrayList<>(
                         pMax - pMin + 1);
 
                 for (int p = pMin; p <= pMax; p++) {
                     final int pp = p;
                     tasks.add(
-                            new Callable<Void>()
+                            new RecursiveAction()
                     {
                         @Override
-                        public Void call ()
-                                throws Exception
+                        protected void compute ()
                         {
-                            processPosition(pp, cMin, cMax);
-
-                            return null;
+                            processPosition(
+                                    pp,
+                                    cMin,
+                                    cMax,
+                                    new int[cMax - cMin + 1]);
                         }
                     });
                 }
 
                 // Launch the tasks and wait for their completion
-                OmrExecutors.getHighExecutor()
-                        .invokeAll(tasks);
-            } catch (InterruptedException ex) {
-                logger.warn("ParallelRuns got interrupted");
-                throw new ProcessingCancellationException(ex);
+                OmrExecutors.invokeAll(tasks);
             } catch (ProcessingCancellationException pce) {
                 throw pce;
             } catch (Throwable ex) {
@@ -261,6 +324,19 @@ public class RunsRetriever
                       int length,
                       int cumul);
 
+        //---------//
+        // getBits //
+        //---------//
+        /**
+         * Report the foreground pixels as a packed buffer, with one row
+         * per position (hence transposed for vertical runs), so that runs
+         * can be retrieved word by word.
+         *
+         * @return the packed buffer, or null if pixels must be checked one by
+         *         one through {@link #isFore}
+         */
+        BitsBuffer getBits ();
+
         //----------//
         // getLevel //
         //----------//
@@ -276,6 +352,24 @@ public class RunsRetriever
         int getLevel (int coord,
                       int pos);
 
+        //-----------//
+        // getLevels //
+        //-----------//
+        /**
+         * This method is used to report the gray levels of all pixels
+         * read at position pos, from coordinate cMin to cMax.
+         *
+         * @param pos    y for horizontal runs, x for vertical runs
+         * @param cMin   first coordinate
+         * @param cMax   last coordinate
+         * @param levels the array to populate, level at coord being stored at
+         *               index (coord - cMin)
+         */
+        void getLevels (int pos,
+                        int cMin,
+                        int cMax,
+                        int[] levels);
+
         //--------//
         // isFore //
         //--------//
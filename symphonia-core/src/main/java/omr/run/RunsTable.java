@@ -27,14 +27,38 @@ import org.slf4j.LoggerFactory;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class {@code RunsTable} handles a rectangular assembly of oriented
  * runs.
  *
+ * <p>To save memory, the runs of a sequence are first stored in a packed
+ * form, as a mere array of int values, with no {@link Run} instance. Run
+ * instances are created only on demand: a sequence is expanded into a list
+ * of Run instances when it is accessed through {@link #getSequence(int)},
+ * typically to build sections on top of the runs. Other accesses, such as
+ * {@link #getPixel(int, int)}, {@link #getBuffer()} or
+ * {@link #purge(Predicate, RunsTable)}, work directly on the packed form.</p>
+ *
+ * <p>Sequences may be expanded concurrently, for example by system tasks
+ * building their lags while the user interface reads runs: an expanded
+ * sequence is published atomically, and only then is its packed form
+ * dropped, so that memory is not held twice. A reader which finds neither
+ * the expanded sequence nor the packed form synchronizes with the expansion
+ * to get the expanded sequence. Modifications of the table (addRun, include,
+ * purge, ...) are not meant to run concurrently with other accesses.</p>
+ *
+ * <p>A table can be saved to and restored from a binary stream, see
+ * {@link #write(DataOutput)} and {@link #read(DataInput)}.</p>
+ *
  * @author Hervé Bitteur
  */
 public class RunsTable
@@ -54,6 +78,18 @@ public class RunsTable
     /** Events observed on location service */
     public static final Class<?>[] eventsRead = new Class<?>[]{LocationEvent.class};
 
+    /** Initial number of runs allocated for a packed sequence */
+    private static final int INITIAL_RUNS = 4;
+
+    /** Number of int values per packed run */
+    private static final int INTS_PER_RUN = 2;
+
+    /** Number of bits for level in a packed run */
+    private static final int LEVEL_BITS = 8;
+
+    /** Mask for level in a packed run */
+    private static final int LEVEL_MASK = (1 << LEVEL_BITS) - 1;
+
     //~ Instance fields --------------------------------------------------------
     /** (Debugging) name of this runs table */
     private final String name;
@@ -64,8 +100,22 @@ public class RunsTable
     /** Absolute dimension of the table */
     private final Dimension dimension;
 
-    /** List of Runs found in each row. This is a list of lists of Runs */
-    private final List<List<Run>> runs;
+    /**
+     * List of Runs found in each row, for the sequences expanded so far.
+     * This is an array of lists of Runs, with a null list for a sequence not
+     * (yet) expanded.
+     */
+    private final AtomicReferenceArray<List<Run>> runs;
+
+    /**
+     * Packed runs found in each row, for the sequences not expanded.
+     * For each run: its start, then its length and level combined.
+     * The packed form of a sequence is dropped (null) once it is expanded.
+     */
+    private final int[][] packed;
+
+    /** Number of packed runs in each row */
+    private final int[] counts;
 
     /** Hosted event service for UI events related to this table (Runs) */
     private final SelectionService runService;
@@ -97,22 +147,64 @@ public class RunsTable
         Rectangle rect = orientation.oriented(
                 new Rectangle(0, 0, dimension.width, dimension.height));
 
-        // Prepare the collections of runs, one collection per pos value
-        runs = new ArrayList<>(rect.height);
+        // Prepare the sequences of runs, one sequence per pos value
+        // (all of them empty and packed)
+        runs = new AtomicReferenceArray<>(rect.height);
+        packed = new int[rect.height][];
+        counts = new int[rect.height];
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //--------//
+    // addRun //
+    //--------//
+    /**
+     * Append a run at the end of the sequence at given index.
+     * Runs must be appended in increasing start order.
+     * Unless the sequence has already been expanded, no Run instance is
+     * created.
+     *
+     * @param index  the sequence index
+     * @param start  the start coordinate of the run
+     * @param length the length of the run in pixels
+     * @param level  the average level of gray in the run
+     */
+    public final void addRun (int index,
+                              int start,
+                              int length,
+                              int level)
+    {
+        List<Run> seq = runs.get(index);
+
+        if (seq != null) {
+            seq.add(new Run(start, length, level));
+
+            return;
+        }
+
+        int[] data = packed[index];
+        int count = counts[index];
 
-        for (int i = 0; i < rect.height; i++) {
-            runs.add(new ArrayList<Run>());
+        if (data == null) {
+            data = packed[index] = new int[INITIAL_RUNS * INTS_PER_RUN];
+        } else if ((count * INTS_PER_RUN) == data.length) {
+            data = packed[index] = Arrays.copyOf(data, 2 * data.length);
         }
+
+        data[count * INTS_PER_RUN] = start;
+        data[(count * INTS_PER_RUN) + 1] = (length << LEVEL_BITS)
+                                           | (level & LEVEL_MASK);
+        counts[index] = count + 1;
     }
 
-    //~ Methods ----------------------------------------------------------------
     //------//
     // copy //
     //------//
     /**
-     * Make a copy of the table, but sharing the run instances
+     * Make a copy of the table.
      *
-     * @return another table on the same run instances
+     * @return another table with the same runs
+     * @see #copy(String)
      */
     public RunsTable copy ()
     {
@@ -123,21 +215,27 @@ public class RunsTable
     // copy //
     //-------//
     /**
-     * Make a copy of the table, but sharing the run instances
+     * Make a copy of the table.
+     * Packed sequences are duplicated, while expanded sequences are copied
+     * into new lists which share the same Run instances.
      *
      * @param name a new name for the copy
-     * @return another table on the same run instances
+     * @return another table with the same runs
      */
     public RunsTable copy (String name)
     {
         RunsTable clone = new RunsTable(name, orientation, dimension);
 
         for (int i = 0; i < getSize(); i++) {
-            List<Run> seq = getSequence(i);
-            List<Run> cloneSeq = clone.getSequence(i);
-
-            for (Run run : seq) {
-                cloneSeq.add(run);
+            List<Run> seq = runs.get(i);
+
+            if (seq != null) {
+                clone.runs.set(i, new ArrayList<>(seq));
+            } else if (counts[i] > 0) {
+                clone.packed[i] = Arrays.copyOf(
+                        packed[i],
+                        counts[i] * INTS_PER_RUN);
+                clone.counts[i] = counts[i];
             }
         }
 
@@ -209,9 +307,65 @@ public class RunsTable
     public final int getPixel (int x,
                                int y)
     {
-        Run run = getRunAt(x, y);
+        Point oPt = orientation.oriented(new Point(x, y));
+        int i = indexOf(oPt.y, oPt.x);
+
+        return (i != -1) ? getRunLevel(oPt.y, i) : BACKGROUND;
+    }
+
+    //-----------//
+    // getColumn //
+    //-----------//
+    @Override
+    public void getColumn (int x,
+                           int yMin,
+                           int yMax,
+                           int[] pixels)
+    {
+        for (int y = yMin; y <= yMax; y++) {
+            pixels[y - yMin] = getPixel(x, y);
+        }
+    }
 
-        return (run != null) ? run.getLevel() : BACKGROUND;
+    //--------//
+    // getRow //
+    //--------//
+    @Override
+    public void getRow (int y,
+                        int xMin,
+                        int xMax,
+                        int[] pixels)
+    {
+        for (int x = xMin; x <= xMax; x++) {
+            pixels[x - xMin] = getPixel(x, y);
+        }
+    }
+
+    //--------//
+    // getRun //
+    //--------//
+    /**
+     * Report the run at given position in the sequence at given index.
+     * If the sequence has not been expanded, a new Run instance is created
+     * on each call.
+     *
+     * @param index the sequence index
+     * @param i     the run position within the sequence
+     * @return the run
+     */
+    public final Run getRun (int index,
+                             int i)
+    {
+        List<Run> seq = runs.get(index);
+
+        if (seq != null) {
+            return seq.get(i);
+        }
+
+        return new Run(
+                getRunStart(index, i),
+                getRunLength(index, i),
+                getRunLevel(index, i));
     }
 
     //----------//
@@ -228,25 +382,69 @@ public class RunsTable
                                int y)
     {
         Point oPt = orientation.oriented(new Point(x, y));
+        int i = indexOf(oPt.y, oPt.x);
 
-        // Protection
-        if ((oPt.y < 0) || (oPt.y >= runs.size())) {
-            return null;
-        }
+        return (i != -1) ? getRun(oPt.y, i) : null;
+    }
+
+    //--------------//
+    // getRunLength //
+    //--------------//
+    /**
+     * Report the length of the run at given position in the sequence at
+     * given index, without creating any Run instance.
+     *
+     * @param index the sequence index
+     * @param i     the run position within the sequence
+     * @return the run length
+     */
+    public final int getRunLength (int index,
+                                   int i)
+    {
+        List<Run> seq = runs.get(index);
 
-        List<Run> seq = getSequence(oPt.y);
+        if (seq == null) {
+            final int[] data = packed[index];
 
-        for (Run run : seq) {
-            if (run.getStart() > oPt.x) {
-                return null;
+            if (data != null) {
+                return data[(i * INTS_PER_RUN) + 1] >>> LEVEL_BITS;
             }
 
-            if (run.getStop() >= oPt.x) {
-                return run;
+            // Expanded meanwhile, and packed form dropped
+            seq = getSequence(index);
+        }
+
+        return seq.get(i).getLength();
+    }
+
+    //-------------//
+    // getRunStart //
+    //-------------//
+    /**
+     * Report the start of the run at given position in the sequence at
+     * given index, without creating any Run instance.
+     *
+     * @param index the sequence index
+     * @param i     the run position within the sequence
+     * @return the run start coordinate
+     */
+    public final int getRunStart (int index,
+                                  int i)
+    {
+        List<Run> seq = runs.get(index);
+
+        if (seq == null) {
+            final int[] data = packed[index];
+
+            if (data != null) {
+                return data[i * INTS_PER_RUN];
             }
+
+            // Expanded meanwhile, and packed form dropped
+            seq = getSequence(index);
         }
 
-        return null;
+        return seq.get(i).getStart();
     }
 
     //-----------//
@@ -266,10 +464,11 @@ public class RunsTable
         case HORIZONTAL:
 
             for (int row = 0; row < getSize(); row++) {
-                List<Run> seq = getSequence(row);
+                for (int i = 0, iMax = getSequenceSize(row); i < iMax; i++) {
+                    int start = getRunStart(row, i);
+                    int stop = (start + getRunLength(row, i)) - 1;
 
-                for (Run run : seq) {
-                    for (int c = run.getStart(); c <= run.getStop(); c++) {
+                    for (int c = start; c <= stop; c++) {
                         buffer.setPixel(c, row, (char) 0);
                     }
                 }
@@ -280,11 +479,11 @@ public class RunsTable
         case VERTICAL:
 
             for (int row = 0; row < getSize(); row++) {
-                List<Run> seq = getSequence(row);
+                for (int i = 0, iMax = getSequenceSize(row); i < iMax; i++) {
+                    int start = getRunStart(row, i);
+                    int stop = (start + getRunLength(row, i)) - 1;
 
-                for (Run run : seq) {
-                    for (int col = run.getStart(); col <= run.getStop();
-                            col++) {
+                    for (int col = start; col <= stop; col++) {
                         buffer.setPixel(row, col, (char) 0);
                     }
                 }
@@ -296,18 +495,97 @@ public class RunsTable
         return buffer;
     }
 
+    //---------//
+    // getBits //
+    //---------//
+    /**
+     * Fill a rectangular binary buffer with the runs.
+     * This is the packed equivalent of {@link #getBuffer()}, using one bit
+     * per pixel.
+     *
+     * @return the filled bits buffer
+     */
+    public BitsBuffer getBits ()
+    {
+        // Fill the buffer along the runs orientation
+        final boolean vertical = orientation.isVertical();
+        BitsBuffer bits = new BitsBuffer(
+                vertical ? new Dimension(dimension.height, dimension.width)
+                : dimension);
+
+        for (int index = 0; index < getSize(); index++) {
+            for (int i = 0, iMax = getSequenceSize(index); i < iMax; i++) {
+                int start = getRunStart(index, i);
+                int stop = (start + getRunLength(index, i)) - 1;
+                bits.setRun(index, start, stop);
+            }
+        }
+
+        return vertical ? bits.transpose() : bits;
+    }
+
     //-------------//
     // getSequence //
     //-------------//
     /**
-     * Report the sequence of runs at a given index
+     * Report the sequence of runs at a given index.
+     * If not yet done, the sequence is expanded into Run instances, which
+     * replace the packed form from then on. For read-only accesses, prefer
+     * {@link #getSequenceSize(int)} and the getRunXXX() methods.
+     * Expansion is thread-safe with respect to concurrent readers.
      *
      * @param index the desired index
      * @return the MODIFIABLE sequence of rows
      */
     public final List<Run> getSequence (int index)
     {
-        return runs.get(index);
+        List<Run> seq = runs.get(index);
+
+        if (seq != null) {
+            return seq;
+        }
+
+        synchronized (this) {
+            seq = runs.get(index);
+
+            if (seq == null) {
+                final int[] data = packed[index];
+                final int count = counts[index];
+                seq = new ArrayList<>(count);
+
+                for (int i = 0; i < count; i++) {
+                    final int val = data[(i * INTS_PER_RUN) + 1];
+                    seq.add(
+                            new Run(
+                            data[i * INTS_PER_RUN],
+                            val >>> LEVEL_BITS,
+                            val & LEVEL_MASK));
+                }
+
+                // Publish the expanded form, before dropping the packed one
+                runs.set(index, seq);
+                packed[index] = null;
+            }
+
+            return seq;
+        }
+    }
+
+    //-----------------//
+    // getSequenceSize //
+    //-----------------//
+    /**
+     * Report the number of runs in the sequence at given index, without
+     * expanding the sequence.
+     *
+     * @param index the desired index
+     * @return the number of runs in the sequence
+     */
+    public final int getSequenceSize (int index)
+    {
+        List<Run> seq = runs.get(index);
+
+        return (seq != null) ? seq.size() : counts[index];
     }
 
     //---------//
@@ -320,7 +598,7 @@ public class RunsTable
      */
     public final int getSize ()
     {
-        return runs.size();
+        return runs.length();
     }
 
     //--------------//
@@ -381,9 +659,9 @@ public class RunsTable
     {
         int runCount = 0;
 
-        for (List<Run> seq : runs) {
-            for (Run run : seq) {
-                runCount += run.getLength();
+        for (int index = 0; index < getSize(); index++) {
+            for (int i = 0, iMax = getSequenceSize(index); i < iMax; i++) {
+                runCount += getRunLength(index, i);
             }
         }
 
@@ -438,10 +716,23 @@ public class RunsTable
         }
 
         for (int row = 0; row < getSize(); row++) {
+            final int thatSize = that.getSequenceSize(row);
+
+            if (thatSize == 0) {
+                continue;
+            }
+
+            if ((this.runs.get(row) == null) && (that.runs.get(row) == null)) {
+                // Both sequences are packed, merge them as such
+                includePacked(row, that);
+
+                continue;
+            }
+
             List<Run> thisSeq = this.getSequence(row);
-            List<Run> thatSeq = that.getSequence(row);
 
-            for (Run thatRun : thatSeq) {
+            for (int i = 0; i < thatSize; i++) {
+                Run thatRun = that.getRun(row, i);
                 int start = thatRun.getStart();
                 int iRun = 0;
 
@@ -478,16 +769,15 @@ public class RunsTable
             && this.dimension.equals(that.dimension)) {
             // Check runs
             for (int row = 0; row < getSize(); row++) {
-                List<Run> thisSeq = getSequence(row);
-                List<Run> thatSeq = that.getSequence(row);
+                final int size = getSequenceSize(row);
 
-                if (thisSeq.size() != thatSeq.size()) {
+                if (size != that.getSequenceSize(row)) {
                     return false;
                 }
 
-                for (int iRun = 0; iRun < thisSeq.size(); iRun++) {
-                    Run thisRun = thisSeq.get(iRun);
-                    Run thatRun = thatSeq.get(iRun);
+                for (int iRun = 0; iRun < size; iRun++) {
+                    Run thisRun = getRun(row, iRun);
+                    Run thatRun = that.getRun(row, iRun);
 
                     if (!thisRun.isIdentical(thatRun)) {
                         return false;
@@ -512,23 +802,7 @@ public class RunsTable
      */
     public Run lookupRun (Point point)
     {
-        Point oPt = orientation.oriented(point);
-
-        if ((oPt.y < 0) || (oPt.y >= getSize())) {
-            return null;
-        }
-
-        for (Run run : getSequence(oPt.y)) {
-            if (run.getStart() > oPt.x) {
-                return null;
-            }
-
-            if (run.getStop() >= oPt.x) {
-                return run;
-            }
-        }
-
-        return null;
+        return getRunAt(point.x, point.y);
     }
 
     //---------//
@@ -601,7 +875,13 @@ public class RunsTable
         }
 
         for (int i = 0; i < getSize(); i++) {
-            List<Run> seq = getSequence(i);
+            List<Run> seq = runs.get(i);
+
+            if (seq == null) {
+                purgePacked(i, predicate, removed);
+
+                continue;
+            }
 
             for (Iterator<Run> it = seq.iterator(); it.hasNext();) {
                 Run run = it.next();
@@ -619,6 +899,47 @@ public class RunsTable
         return this;
     }
 
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a runs table, as written by {@link #write(DataOutput)}.
+     * The runs are read in packed form.
+     *
+     * @param in the input to read from
+     * @return the table read
+     * @throws IOException if reading failed
+     */
+    public static RunsTable read (DataInput in)
+            throws IOException
+    {
+        String name = in.readUTF();
+        Orientation orientation = Orientation.valueOf(in.readUTF());
+        int width = in.readInt();
+        int height = in.readInt();
+        RunsTable table = new RunsTable(
+                name,
+                orientation,
+                new Dimension(width, height));
+
+        for (int index = 0; index < table.packed.length; index++) {
+            int count = in.readInt();
+
+            if (count > 0) {
+                int[] data = new int[count * INTS_PER_RUN];
+
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = in.readInt();
+                }
+
+                table.packed[index] = data;
+                table.counts[index] = count;
+            }
+        }
+
+        return table;
+    }
+
     //-----------//
     // removeRun //
     //-----------//
@@ -659,6 +980,26 @@ public class RunsTable
         }
     }
 
+    //------//
+    // trim //
+    //------//
+    /**
+     * Release the unused capacity of the packed sequences, typically
+     * once the table has been populated.
+     */
+    public void trim ()
+    {
+        for (int i = 0; i < getSize(); i++) {
+            int[] data = packed[i];
+
+            if ((data != null) && (data.length > (counts[i] * INTS_PER_RUN))) {
+                packed[i] = (counts[i] > 0)
+                            ? Arrays.copyOf(data, counts[i] * INTS_PER_RUN)
+                            : null;
+            }
+        }
+    }
+
     //----------//
     // toString //
     //----------//
@@ -678,8 +1019,8 @@ public class RunsTable
         // Debug
         if (false) {
             int count = 0;
-            for (List<Run> seq : runs) {
-                count += seq.size();
+            for (int i = 0; i < getSize(); i++) {
+                count += getSequenceSize(i);
             }
             sb.append(" count:").append(count);
         }
@@ -689,6 +1030,63 @@ public class RunsTable
         return sb.toString();
     }
 
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write this runs table to a binary output, the runs being written
+     * in packed form.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing failed
+     */
+    public void write (DataOutput out)
+            throws IOException
+    {
+        out.writeUTF(name);
+        out.writeUTF(orientation.name());
+        out.writeInt(dimension.width);
+        out.writeInt(dimension.height);
+
+        for (int index = 0; index < packed.length; index++) {
+            final int count = getSequenceSize(index);
+            out.writeInt(count);
+
+            for (int i = 0; i < count; i++) {
+                out.writeInt(getRunStart(index, i));
+                out.writeInt(
+                        (getRunLength(index, i) << LEVEL_BITS)
+                        | (getRunLevel(index, i) & LEVEL_MASK));
+            }
+        }
+    }
+
+    //-------------//
+    // getRunLevel //
+    //-------------//
+    /**
+     * Report the level of the run at given position in the sequence at
+     * given index, without creating any Run instance.
+     */
+    private int getRunLevel (int index,
+                             int i)
+    {
+        List<Run> seq = runs.get(index);
+
+        if (seq == null) {
+            final int[] data = packed[index];
+
+            if (data != null) {
+                return data[(i * INTS_PER_RUN) + 1] & LEVEL_MASK;
+            }
+
+            // Expanded meanwhile, and packed form dropped
+            seq = getSequence(index);
+        }
+
+        return seq.get(i).getLevel();
+    }
+
     //-------------//
     // handleEvent //
     //-------------//
@@ -720,4 +1118,118 @@ public class RunsTable
             runService.publish(new RunEvent(this, hint, movement, run));
         }
     }
+
+    //---------------//
+    // includePacked //
+    //---------------//
+    /**
+     * Merge the packed sequence of the other table into the packed
+     * sequence of this table, at the same index.
+     */
+    private void includePacked (int index,
+                                RunsTable that)
+    {
+        final int thisCount = counts[index];
+        final int thatCount = that.counts[index];
+        final int[] thisData = packed[index];
+        final int[] thatData = that.packed[index];
+        final int[] data = new int[(thisCount + thatCount) * INTS_PER_RUN];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+
+        while ((i < thisCount) || (j < thatCount)) {
+            // On equal starts, runs of this table come first
+            final boolean takeThis = (j == thatCount)
+                                     || ((i < thisCount)
+                                         && (thisData[i * INTS_PER_RUN]
+                                             <= thatData[j * INTS_PER_RUN]));
+
+            if (takeThis) {
+                System.arraycopy(
+                        thisData, i++ * INTS_PER_RUN, data, k, INTS_PER_RUN);
+            } else {
+                System.arraycopy(
+                        thatData, j++ * INTS_PER_RUN, data, k, INTS_PER_RUN);
+            }
+
+            k += INTS_PER_RUN;
+        }
+
+        packed[index] = data;
+        counts[index] = thisCount + thatCount;
+    }
+
+    //---------//
+    // indexOf //
+    //---------//
+    /**
+     * Report the position, within the sequence at given index, of the run
+     * that contains the provided coordinate.
+     *
+     * @return the run position, or -1 if none
+     */
+    private int indexOf (int index,
+                         int coord)
+    {
+        // Protection
+        if ((index < 0) || (index >= getSize())) {
+            return -1;
+        }
+
+        for (int i = 0, iMax = getSequenceSize(index); i < iMax; i++) {
+            int start = getRunStart(index, i);
+
+            if (start > coord) {
+                return -1;
+            }
+
+            if ((start + getRunLength(index, i)) > coord) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    //-------------//
+    // purgePacked //
+    //-------------//
+    /**
+     * Purge the packed sequence at given index, in place.
+     * The predicate is evaluated on transient Run instances.
+     */
+    private void purgePacked (int index,
+                              Predicate<Run> predicate,
+                              RunsTable removed)
+    {
+        final int count = counts[index];
+        final int[] data = packed[index];
+        int kept = 0;
+
+        for (int i = 0; i < count; i++) {
+            final int start = data[i * INTS_PER_RUN];
+            final int value = data[(i * INTS_PER_RUN) + 1];
+            final Run run = new Run(
+                    start,
+                    value >>> LEVEL_BITS,
+                    value & LEVEL_MASK);
+
+            if (predicate.check(run)) {
+                if (removed != null) {
+                    removed.addRun(
+                            index,
+                            start,
+                            run.getLength(),
+                            run.getLevel());
+                }
+            } else {
+                data[kept * INTS_PER_RUN] = start;
+                data[(kept * INTS_PER_RUN) + 1] = value;
+                kept++;
+            }
+        }
+
+        counts[index] = kept;
+    }
 }
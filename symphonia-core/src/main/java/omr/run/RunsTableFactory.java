@@ -11,6 +11,8 @@
 // </editor-fold>
 package omr.run;
 
+import omr.util.OmrExecutors;
+
 import net.jcip.annotations.NotThreadSafe;
 import net.jcip.annotations.ThreadSafe;
 
@@ -19,12 +21,19 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class {@code RunsTableFactory} retrieves the runs structure out of
  * a given pixel source and builds the related {@link RunsTable} 
  * structure.
  *
+ * <p>The foreground pixels of the source are first packed into a
+ * {@link BitsBuffer}, unless the source already provides one, so that runs
+ * are retrieved a whole word of pixels at a time.
+ *
  * @author Hervé Bitteur
  */
 public class RunsTableFactory
@@ -52,6 +61,9 @@ public class RunsTableFactory
     /** The created RunsTable */
     private RunsTable table;
 
+    /** The packed foreground pixels, one row per position */
+    private BitsBuffer bits;
+
     //~ Constructors -----------------------------------------------------------
     //
     // ------------------//
@@ -96,16 +108,143 @@ public class RunsTableFactory
                 orientation,
                 new Dimension(source.getWidth(), source.getHeight()));
 
+        bits = getBits();
+
         RunsRetriever retriever = new RunsRetriever(
                 orientation,
                 new MyAdapter());
 
         retriever.retrieveRuns(
                 new Rectangle(0, 0, source.getWidth(), source.getHeight()));
+        bits = null;
 
         return table;
     }
 
+    //---------//
+    // getBits //
+    //---------//
+    /**
+     * Report the foreground pixels of the source, packed with one row
+     * per position.
+     * If the source cannot provide them directly, they are read pixel by
+     * pixel, in parallel if the source is thread safe, otherwise column after
+     * column since some filters can only move forward in abscissa.
+     *
+     * @return the packed foreground pixels
+     */
+    private BitsBuffer getBits ()
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final BitsBuffer packed;
+
+        if (source instanceof BitsBuffer) {
+            packed = (BitsBuffer) source;
+        } else if (source instanceof IntegralFilter) {
+            packed = ((IntegralFilter) source).getBits();
+        } else if (isThreadSafe()) {
+            packed = new BitsBuffer(new Dimension(width, height));
+
+            List<RecursiveAction> tasks = new ArrayList<>(height);
+
+            for (int y = 0; y < height; y++) {
+                final int yy = y;
+                tasks.add(
+                        new RecursiveAction()
+                {
+                    @Override
+                    protected void compute ()
+                    {
+                        packRow(packed, yy);
+                    }
+                });
+            }
+
+            OmrExecutors.invokeAll(tasks);
+        } else {
+            // Build directly the buffer with one row per position
+            packed = new BitsBuffer(
+                    swapNeeded ? new Dimension(height, width)
+                    : new Dimension(width, height));
+
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (source.isFore(x, y)) {
+                        if (swapNeeded) {
+                            packed.setFore(y, x);
+                        } else {
+                            packed.setFore(x, y);
+                        }
+                    }
+                }
+            }
+
+            return packed;
+        }
+
+        return swapNeeded ? packed.transpose() : packed;
+    }
+
+    //--------------//
+    // isThreadSafe //
+    //--------------//
+    /**
+     * Report whether the source can be accessed concurrently.
+     *
+     * @return true if safe, false otherwise
+     */
+    private boolean isThreadSafe ()
+    {
+        Class<?> classe = source.getClass();
+
+        // Check for @ThreadSafe annotation
+        ThreadSafe safe = classe.getAnnotation(ThreadSafe.class);
+
+        if (safe != null) {
+            return true;
+        }
+
+        // Check for @NonThreadSafe annotation
+        NotThreadSafe notSafe = classe.getAnnotation(NotThreadSafe.class);
+
+        if (notSafe != null) {
+            return false;
+        }
+
+        // No annotation: it's safer to assume no thread safety
+        return false;
+    }
+
+    //---------//
+    // packRow //
+    //---------//
+    /**
+     * Pack the foreground pixels of one source row.
+     *
+     * @param packed the buffer to populate
+     * @param y      the row ordinate
+     */
+    private void packRow (BitsBuffer packed,
+                          int y)
+    {
+        final int width = source.getWidth();
+
+        for (int index = 0; index < packed.getWordsPerRow(); index++) {
+            final int xMin = index * BitsBuffer.WORD_SIZE;
+            final int xMax = Math.min(width, xMin + BitsBuffer.WORD_SIZE) - 1;
+            long word = 0;
+
+            for (int x = xMin; x <= xMax; x++) {
+                if (source.isFore(x, y)) {
+                    word |= (1L << (x - xMin));
+                }
+            }
+
+            packed.setWord(y, index, word);
+        }
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //
     // -----------//
@@ -139,11 +278,19 @@ public class RunsTableFactory
             // We consider only runs that are longer than minLength
             if (length >= minLength) {
                 final int level = ((2 * cumul) + length) / (2 * length);
-                table.getSequence(pos)
-                        .add(new Run(coord - length, length, level));
+                table.addRun(pos, coord - length, length, level);
             }
         }
 
+        // --------//
+        // getBits //
+        // --------//
+        @Override
+        public final BitsBuffer getBits ()
+        {
+            return bits;
+        }
+
         // ---------//
         // getLevel //
         // ---------//
@@ -158,6 +305,22 @@ public class RunsTableFactory
             }
         }
 
+        // ----------//
+        // getLevels //
+        // ----------//
+        @Override
+        public final void getLevels (int pos,
+                                     int cMin,
+                                     int cMax,
+                                     int[] levels)
+        {
+            if (swapNeeded) {
+                source.getColumn(pos, cMin, cMax, levels);
+            } else {
+                source.getRow(pos, cMin, cMax, levels);
+            }
+        }
+
         // -------//
         // isFore //
         // -------//
@@ -178,6 +341,7 @@ public class RunsTableFactory
         @Override
         public final void terminate ()
         {
+            table.trim();
             logger.debug("{} Retrieved runs: {}", table, table.getRunCount());
         }
 
@@ -193,24 +357,7 @@ public class RunsTableFactory
         @Override
         public boolean isThreadSafe ()
         {
-            Class<?> classe = source.getClass();
-
-            // Check for @ThreadSafe annotation
-            ThreadSafe safe = classe.getAnnotation(ThreadSafe.class);
-
-            if (safe != null) {
-                return true;
-            }
-
-            // Check for @NonThreadSafe annotation
-            NotThreadSafe notSafe = classe.getAnnotation(NotThreadSafe.class);
-
-            if (notSafe != null) {
-                return false;
-            }
-
-            // No annotation: it's safer to assume no thread safety
-            return false;
+            return RunsTableFactory.this.isThreadSafe();
         }
     }
 }
@@ -27,7 +27,6 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.List;
 
 /**
  * Class {@code RunsTableView} displays a view on an underlying runs
@@ -148,9 +147,9 @@ public class RunsTableView
                          - 1;
 
             for (int row = minRow; row <= maxRow; row++) {
-                List<Run> seq = table.getSequence(row);
-
-                for (Run run : seq) {
+                for (int i = 0, iMax = table.getSequenceSize(row); i < iMax;
+                        i++) {
+                    Run run = table.getRun(row, i);
                     g.setColor(runColor(run));
                     g.fillRect(run.getStart(), row, run.getLength(), 1);
                 }
@@ -164,9 +163,9 @@ public class RunsTableView
             int maxRow = Math.min((clip.x + clip.width), table.getWidth()) - 1;
 
             for (int row = minRow; row <= maxRow; row++) {
-                List<Run> seq = table.getSequence(row);
-
-                for (Run run : seq) {
+                for (int i = 0, iMax = table.getSequenceSize(row); i < iMax;
+                        i++) {
+                    Run run = table.getRun(row, i);
                     g.setColor(runColor(run));
                     g.fillRect(row, run.getStart(), 1, run.getLength());
                 }
@@ -37,6 +37,18 @@ public class SourceWrapper
 
     //~ Methods ----------------------------------------------------------------
     //
+    //-----------//
+    // getColumn //
+    //-----------//
+    @Override
+    public void getColumn (int x,
+                           int yMin,
+                           int yMax,
+                           int[] pixels)
+    {
+        source.getColumn(x, yMin, yMax, pixels);
+    }
+
     //-----------//
     // getHeight //
     //-----------//
@@ -56,6 +68,18 @@ public class SourceWrapper
         return source.getPixel(x, y);
     }
 
+    //--------//
+    // getRow //
+    //--------//
+    @Override
+    public void getRow (int y,
+                        int xMin,
+                        int xMax,
+                        int[] pixels)
+    {
+        source.getRow(y, xMin, xMax, pixels);
+    }
+
     //----------//
     // getWidth //
     //----------//
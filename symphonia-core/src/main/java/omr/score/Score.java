@@ -124,6 +124,9 @@ public class Score
     /** The script of user actions on this score */
     private Script script;
 
+    /** Pages whose removal is deferred, or null if removals are immediate */
+    private List<Page> deferredRemovals;
+
     /** Handling of binarization filter parameter. */
     private final Param<FilterDescriptor> filterParam =
             new Param<>(FilterDescriptor.defaultFilter);
@@ -223,33 +226,7 @@ public class Score
                 pages);
 
         if (images != null) {
-            Page firstPage = null;
-            setMultiPage(images.size() > 1); // Several images in the file
-
-            for (Entry<Integer, RenderedImage> entry : images.entrySet()) {
-                int index = entry.getKey();
-                RenderedImage image = entry.getValue();
-                Page page = null;
-
-                try {
-                    page = new Page(this, index, image);
-
-                    if (firstPage == null) {
-                        firstPage = page;
-
-                        // Let the UI focus on first page
-                        if (Main.getGui() != null) {
-                            SheetsController.getInstance().showAssembly(firstPage.
-                                    getSheet());
-                        }
-                    }
-                } catch (StepException ex) {
-                    // Remove page from score, if already included
-                    if ((page != null) && getPages().remove(page)) {
-                        logger.info("Page #{} removed", index);
-                    }
-                }
-            }
+            createPagesFromImages(images);
 
             // Remember (even across runs) the parent directory
             ScoresManager.getInstance().setDefaultInputDirectory(getImageFile().
@@ -263,6 +240,47 @@ public class Score
         }
     }
 
+    //-----------------------//
+    // createPagesFromImages //
+    //-----------------------//
+    /**
+     * Create as many pages (and related sheets) as there are provided
+     * images, which may have been loaded from elsewhere than the score
+     * image file (typically from a stream).
+     *
+     * @param images the sorted map of images, page ids counted from 1
+     */
+    public void createPagesFromImages (SortedMap<Integer, RenderedImage> images)
+    {
+        Page firstPage = null;
+        setMultiPage(images.size() > 1); // Several images in the file
+
+        for (Entry<Integer, RenderedImage> entry : images.entrySet()) {
+            int index = entry.getKey();
+            RenderedImage image = entry.getValue();
+            Page page = null;
+
+            try {
+                page = new Page(this, index, image);
+
+                if (firstPage == null) {
+                    firstPage = page;
+
+                    // Let the UI focus on first page
+                    if (Main.getGui() != null) {
+                        SheetsController.getInstance().showAssembly(firstPage.
+                                getSheet());
+                    }
+                }
+            } catch (StepException ex) {
+                // Remove page from score, if already included
+                if ((page != null) && getPages().remove(page)) {
+                    logger.info("Page #{} removed", index);
+                }
+            }
+        }
+    }
+
     //------//
     // dump //
     //------//
@@ -750,10 +768,30 @@ public class Score
     // remove //
     //--------//
     /**
-     * Remove a page
+     * Remove a page.
+     * If removals are currently deferred, the page is removed only when
+     * deferral is switched off.
+     *
+     * @param page the page to remove
+     * @see #setRemovalsDeferred(boolean)
      */
     public void remove (Page page)
     {
+        synchronized (this) {
+            if (deferredRemovals != null) {
+                deferredRemovals.add(page);
+
+                return;
+            }
+        }
+
+        // The following page, if any, will have to be merged again
+        Page next = (Page) page.getNextSibling();
+
+        if (next != null) {
+            next.setMerged(false);
+        }
+
         getPages().remove(page);
         setMultiPage(getPages().size() > 1);
     }
@@ -850,6 +888,47 @@ public class Score
         this.printFile = sheetPdfFile;
     }
 
+    //---------------------//
+    // setRemovalsDeferred //
+    //---------------------//
+    /**
+     * Defer (or stop deferring) the removal of pages.
+     * While pages are processed in parallel, the list of pages must remain
+     * stable for the merging of completed pages, hence the removal of
+     * failed pages is deferred until all pages are processed.
+     * When deferral is switched off, the pending removals are performed and
+     * the score is closed if no page is left.
+     *
+     * @param deferred true to defer removals, false to perform them
+     */
+    public void setRemovalsDeferred (boolean deferred)
+    {
+        final List<Page> removals;
+
+        synchronized (this) {
+            if (deferred) {
+                if (deferredRemovals == null) {
+                    deferredRemovals = new ArrayList<>();
+                }
+
+                return;
+            }
+
+            removals = deferredRemovals;
+            deferredRemovals = null;
+        }
+
+        if ((removals != null) && !removals.isEmpty()) {
+            for (Page page : removals) {
+                remove(page);
+            }
+
+            if (getPages().isEmpty()) {
+                close();
+            }
+        }
+    }
+
     //---------------//
     // setScriptFile //
     //---------------//
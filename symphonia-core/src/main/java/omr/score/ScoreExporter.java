@@ -148,7 +148,11 @@ import com.audiveris.proxymusic.WedgeType;
 import com.audiveris.proxymusic.Work;
 import com.audiveris.proxymusic.YesNo;
 
+import com.audiveris.proxymusic.mxl.Mxl;
+import com.audiveris.proxymusic.mxl.RootFile;
 import com.audiveris.proxymusic.util.Marshalling;
+import com.audiveris.proxymusic.util.Marshalling.MarshallingException;
+import com.audiveris.proxymusic.util.Marshalling.PartwiseWriter;
 
 import java.awt.Font;
 import java.awt.Point;
@@ -179,6 +183,10 @@ import javax.xml.bind.JAXBException;
  * Class {@code ScoreExporter} visits the score hierarchy to export
  * the score to a MusicXML file, stream or DOM.
  *
+ * <p>Via {@link #exportStreamed} and {@link #exportMxl}, the score can also
+ * be written part by part and measure by measure, each measure being
+ * marshalled and then discarded as soon as it has been built.
+ *
  * @author Hervé Bitteur
  */
 public class ScoreExporter
@@ -245,6 +253,12 @@ public class ScoreExporter
     /** Factory for proxymusic entities */
     private final com.audiveris.proxymusic.ObjectFactory factory = new com.audiveris.proxymusic.ObjectFactory();
 
+    /** Writer of measures, when streaming (null otherwise) */
+    private PartwiseWriter partwiseWriter;
+
+    /** First failure in writing a measure, which aborts streaming */
+    private MarshallingException writeFailure;
+
     //~ Constructors -----------------------------------------------------------
     //---------------//
     // ScoreExporter //
@@ -347,6 +361,105 @@ public class ScoreExporter
         }
     }
 
+    //-----------//
+    // exportMxl //
+    //-----------//
+    /**
+     * Export the score to a compressed MusicXML (.mxl) stream, writing
+     * measure by measure.
+     *
+     * @param os              the output stream (closed by this method, since
+     *                        the zip container must be completed)
+     * @param injectSignature should we inject our signature?
+     * @throws Exception
+     */
+    public void exportMxl (OutputStream os,
+                           boolean injectSignature)
+            throws Exception
+    {
+        Mxl.Output mof = new Mxl.Output(os);
+
+        try {
+            mof.addEntry(
+                    new RootFile(
+                    score.getRadix() + ScoresManager.SCORE_EXTENSION,
+                    RootFile.MUSICXML_MEDIA_TYPE));
+            exportStreamed(mof.getOutputStream(), injectSignature);
+        } finally {
+            mof.close();
+        }
+    }
+
+    //----------------//
+    // exportStreamed //
+    //----------------//
+    /**
+     * Export the score to an output stream, part by part and measure by
+     * measure.
+     * Only the score header is kept in memory, each measure is written as
+     * soon as it is built, so that data starts flowing immediately.
+     *
+     * @param os              the output stream where XML data is written
+     *                        (cannot be null, not closed by this method)
+     * @param injectSignature should we inject our signature?
+     * @throws Exception if export failed, notably if some measure could not
+     *                   be written to the output stream
+     */
+    public void exportStreamed (OutputStream os,
+                                boolean injectSignature)
+            throws Exception
+    {
+        if (os == null) {
+            throw new IllegalArgumentException(
+                    "Trying to export a score to a null output stream");
+        }
+
+        partwiseWriter = new PartwiseWriter(os, 2);
+        writeFailure = null;
+
+        try {
+            // Score header, without browsing the parts
+            score.accept(this);
+
+            if (score.getPartList() == null) {
+                partwiseWriter.writeHeader(scorePartwise, injectSignature);
+                partwiseWriter.finish();
+
+                return;
+            }
+
+            // Credits & identification need all the texts beforehand
+            for (ScorePart p : score.getPartList()) {
+                visitTexts(p);
+            }
+
+            partwiseWriter.writeHeader(scorePartwise, injectSignature);
+
+            // Parts, written measure after measure
+            List<Object> pmScoreParts = scorePartwise.getPartList()
+                    .getPartGroupOrScorePart();
+            isFirst.scorePart = true;
+
+            for (int i = 0; i < pmScoreParts.size(); i++) {
+                com.audiveris.proxymusic.ScorePart pmScorePart =
+                        (com.audiveris.proxymusic.ScorePart) pmScoreParts.get(i);
+                partwiseWriter.startPart(pmScorePart);
+                exportPart(score.getPartList().get(i), pmScorePart);
+
+                if (writeFailure != null) {
+                    throw writeFailure;
+                }
+
+                partwiseWriter.endPart();
+                isFirst.scorePart = false;
+            }
+
+            partwiseWriter.finish();
+        } finally {
+            partwiseWriter = null;
+        }
+    }
+
     //---------//
     // preload //
     //---------//
@@ -880,6 +993,13 @@ public class ScoreExporter
     @Override
     public boolean visit (Measure measure)
     {
+        // Once output is broken, there is no point in going on
+        if (writeFailure != null) {
+            return false;
+        }
+
+        boolean built = false;
+
         try {
             logger.debug("Visiting {}", measure);
 
@@ -1059,11 +1179,24 @@ public class ScoreExporter
             clefIters.push(null, null);
 
             // Everything is now OK
-            current.pmPart.getMeasure().add(current.pmMeasure);
+            if (partwiseWriter == null) {
+                current.pmPart.getMeasure().add(current.pmMeasure);
+            }
+
+            built = true;
         } catch (Exception ex) {
             logger.warn("Error visiting " + measure + " in " + current.page, ex);
         }
 
+        // A failure in writing is not a measure failure, it aborts the export
+        if (built && (partwiseWriter != null)) {
+            try {
+                partwiseWriter.writeMeasure(current.pmMeasure);
+            } catch (MarshallingException ex) {
+                writeFailure = ex;
+            }
+        }
+
         // Safer...
         current.endMeasure();
         tupletNumbers.clear();
@@ -1510,7 +1643,15 @@ public class ScoreExporter
                 isFirst.scorePart = true;
 
                 for (ScorePart p : score.getPartList()) {
-                    partList.getPartGroupOrScorePart().add(getScorePart(p));
+                    com.audiveris.proxymusic.ScorePart pmScorePart = getScorePart(
+                            p);
+
+                    // When streaming, parts are exported later
+                    if (partwiseWriter == null) {
+                        exportPart(p, pmScorePart);
+                    }
+
+                    partList.getPartGroupOrScorePart().add(pmScorePart);
                     isFirst.scorePart = false;
                 }
             }
@@ -1759,9 +1900,11 @@ public class ScoreExporter
         try {
             logger.debug("Visiting {}", systemPart);
 
-            // Delegate to texts
-            for (TreeNode node : systemPart.getTexts()) {
-                ((Text) node).accept(this);
+            // Delegate to texts (already done for the header, when streaming)
+            if (partwiseWriter == null) {
+                for (TreeNode node : systemPart.getTexts()) {
+                    ((Text) node).accept(this);
+                }
             }
 
             // Delegate to measures
@@ -2334,6 +2477,38 @@ public class ScoreExporter
         return scorePartwise;
     }
 
+    //------------//
+    // exportPart //
+    //------------//
+    /**
+     * Browse the whole score hierarchy, to export the measures of the
+     * provided part.
+     *
+     * @param scorePart   the part to export
+     * @param pmScorePart the related proxymusic ScorePart instance
+     */
+    private void exportPart (ScorePart scorePart,
+                             com.audiveris.proxymusic.ScorePart pmScorePart)
+    {
+        current.scorePart = scorePart;
+
+        // ScorePart in scorePartwise
+        current.pmPart = factory.createScorePartwisePart();
+        current.pmPart.setId(pmScorePart);
+
+        if (partwiseWriter == null) {
+            scorePartwise.getPart().add(current.pmPart);
+        }
+
+        // Delegate to children the filling of measures
+        logger.debug("Populating {}", current.scorePart);
+        isFirst.system = true;
+        slurNumbers.clear(); // Reset slur numbers
+
+        // Browse the whole score hierarchy for this score scorePart
+        score.acceptChildren(this);
+    }
+
     //--------------//
     // getScorePart //
     //--------------//
@@ -2346,8 +2521,6 @@ public class ScoreExporter
      */
     private com.audiveris.proxymusic.ScorePart getScorePart (ScorePart scorePart)
     {
-        current.scorePart = scorePart;
-
         ///logger.info("Processing " + scorePart);
 
         // Scorepart in partList
@@ -2381,19 +2554,6 @@ public class ScoreExporter
         midiInstrument.setMidiProgram(midiProgram);
         midiInstrument.setVolume(new BigDecimal(score.getVolume()));
 
-        // ScorePart in scorePartwise
-        current.pmPart = factory.createScorePartwisePart();
-        scorePartwise.getPart().add(current.pmPart);
-        current.pmPart.setId(pmScorePart);
-
-        // Delegate to children the filling of measures
-        logger.debug("Populating {}", current.scorePart);
-        isFirst.system = true;
-        slurNumbers.clear(); // Reset slur numbers
-
-        // Browse the whole score hierarchy for this score scorePart
-        score.acceptChildren(this);
-
         return pmScorePart;
     }
 
@@ -2590,6 +2750,37 @@ public class ScoreExporter
         return true; // Since no previous key found
     }
 
+    //------------//
+    // visitTexts //
+    //------------//
+    /**
+     * Visit all the texts of the provided part, page after page, to
+     * populate the score header (work, identification and credits).
+     *
+     * @param scorePart the part at hand
+     */
+    private void visitTexts (ScorePart scorePart)
+    {
+        for (TreeNode pn : score.getPages()) {
+            Page page = (Page) pn;
+            current.page = page;
+            current.scale = page.getScale();
+
+            for (TreeNode sn : page.getSystems()) {
+                ScoreSystem system = (ScoreSystem) sn;
+                SystemPart systemPart = system.getPart(scorePart.getId());
+
+                if (systemPart != null) {
+                    for (TreeNode node : systemPart.getTexts()) {
+                        ((Text) node).accept(this);
+                    }
+                }
+            }
+        }
+
+        current.page = null;
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //
     //---------//
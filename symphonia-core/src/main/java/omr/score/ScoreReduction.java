@@ -94,6 +94,34 @@ public class ScoreReduction
     }
 
     //~ Methods ----------------------------------------------------------------
+    //-----------//
+    // mergePage //
+    //-----------//
+    /**
+     * Merge one page with the preceding pages of the score, that is
+     * retrieve the actual measure durations and the measure ids.
+     *
+     * <p>This work needs to know which time sig governs any measure, and this
+     * time sig may be inherited from a previous page, therefore it cannot be
+     * performed on every page in isolation: all preceding pages must have been
+     * merged beforehand. This allows to merge pages one after the other, as
+     * soon as they are completed, rather than waiting for the whole score.</p>
+     *
+     * @param page the page to merge
+     */
+    public static void mergePage (Page page)
+    {
+        // - Retrieve the actual duration of every measure
+        page.accept(new DurationRetriever());
+
+        // - Check all voices timing, assign forward items if needed.
+        // - Detect special measures and assign proper measure ids
+        // If needed, we can trigger a reprocessing of this page
+        page.accept(new MeasureFixer());
+
+        page.setMerged(true);
+    }
+
     //--------//
     // reduce //
     //--------//
@@ -35,17 +35,26 @@ import com.audiveris.proxymusic.util.Marshalling.MarshallingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -55,7 +64,10 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
 
 /**
  * Class {@code ScoreXmlReduction} is the "reduce" part of a MapReduce
@@ -78,6 +90,11 @@ import javax.xml.bind.JAXBException;
  * </code>
  * </p>
  *
+ * <p>For large books, the fragments can rather be provided as files, and the
+ * global score written directly to an output stream, see
+ * {@link #reduce(OutputStream)}.
+ * Memory needs are then bounded by the size of one page.</p>
+ *
  * <p><b>Features not yet implemented:</b> <ul>
  * <li>Connection of slurs between pages</li>
  * <li>In part-list, handling of part-group beside score-part</li>
@@ -127,9 +144,12 @@ public class ScoreXmlReduction
     }
 
     //~ Instance fields --------------------------------------------------------
-    /** Map of XML fragments, one entry per page */
+    /** Map of XML fragments, one entry per page (or null) */
     private final Map<Integer, String> fragments;
 
+    /** Map of XML fragment files, one entry per page (or null) */
+    private final Map<Integer, File> files;
+
     /** Map of fragments final statuses, one status per page */
     private final Map<Integer, Status> statuses;
 
@@ -159,6 +179,24 @@ public class ScoreXmlReduction
     public ScoreXmlReduction (Map<Integer, String> fragments)
     {
         this.fragments = fragments;
+        this.files = null;
+
+        statuses = new TreeMap<>();
+    }
+
+    /**
+     * Creates a new ScoreXmlReduction object on fragment files.
+     * Each file is read only when needed, so that memory is not
+     * cluttered by the whole set of fragments.
+     *
+     * @param files a map of XML fragment files, the key being the page number
+     *              and the value being the file of MusicXML fragment produced
+     *              from the page.
+     */
+    public ScoreXmlReduction (SortedMap<Integer, File> files)
+    {
+        this.fragments = null;
+        this.files = files;
 
         statuses = new TreeMap<>();
     }
@@ -221,26 +259,15 @@ public class ScoreXmlReduction
             return;
         }
 
-        // Reading files without any checking
-        SortedMap<Integer, String> fragments = readFiles(files);
-
-        // Reduction
-        ScoreXmlReduction reduction = new ScoreXmlReduction(fragments);
-        String output = reduction.reduce();
-
-        logger.info("Output.length: {}", output.length());
-
-        //        if (logger.isDebugEnabled()) {
-        //            logger.debug("Output:\n" + output);
-        //        }
+        // Reduction, streamed to the output file
+        ScoreXmlReduction reduction = new ScoreXmlReduction(files);
+        File file = new File(dir, prefix + "global.xml");
+        watch.start("Reducing to output file");
 
-        // For debugging
-        watch.start("Writing output file");
+        try (OutputStream os = new FileOutputStream(file)) {
+            reduction.reduce(os);
+        }
 
-        File file = new File(dir, prefix + "global.xml");
-        FileOutputStream fos = new FileOutputStream(file);
-        fos.write(output.getBytes());
-        fos.close();
         logger.info("Output written to {}", file);
 
         watch.print();
@@ -279,13 +306,12 @@ public class ScoreXmlReduction
         Marshalling.getContext(ScoreXmlReduction.class);
 
         // Initialize statuses
-        for (Integer page : fragments.keySet()) {
+        for (Integer page : getPageNumbers()) {
             statuses.put(page, Status.OK);
         }
 
         // Unmarshall pages (MusicXML fragments -> ScorePartwise instances)
-        SortedMap<Integer, ScorePartwise> partwises = unmarshallPages(
-                fragments);
+        SortedMap<Integer, ScorePartwise> partwises = unmarshallPages();
 
         if (partwises.isEmpty()) {
             return "";
@@ -298,51 +324,169 @@ public class ScoreXmlReduction
         return buildOutput(globalPartwise);
     }
 
-    //-----------//
-    // readFiles //
-    //-----------//
+    //--------//
+    // reduce //
+    //--------//
     /**
-     * Simply read the files raw content into strings in memory
+     * Build a score output as the smart concatenation of the fragments
+     * produced from each page, and write it directly to the provided
+     * output stream.
      *
-     * @param files the collection of files to read
-     * @return the collection of raw XML fragments
+     * <p>Unlike {@link #reduce()}, no more than one page is kept in memory
+     * at any time:<ol>
+     * <li>A first pass reads the pages one after the other, keeping for
+     * each page only its header, its part-list and the first measure of each
+     * part. This is enough to connect the parts across pages and to build the
+     * global header. The other measures are skipped while parsing, without
+     * being unmarshalled.</li>
+     * <li>A second pass reads the pages again, one after the other. Each
+     * measure is renumbered, its instrument references are mapped, and it is
+     * appended to a temporary file dedicated to the global part.</li>
+     * <li>The output is finally written as the global header followed by the
+     * content of each part temporary file.</li></ol></p>
+     *
+     * <p>The final processing status for each fragment is made available
+     * through the {@link #getStatuses()} method.</p>
+     *
+     * @param os the output stream (not closed by this method)
+     * @throws MarshallingException
      */
-    private static SortedMap<Integer, String> readFiles (
-            SortedMap<Integer, File> files)
+    public void reduce (OutputStream os)
+            throws JAXBException, IOException, MarshallingException
     {
-        watch.start("Reading input files");
+        // Initialize statuses
+        for (Integer page : getPageNumbers()) {
+            statuses.put(page, Status.OK);
+        }
 
-        SortedMap<Integer, String> fragments = new TreeMap<>();
+        // First pass, to keep only page skeletons
+        SortedMap<Integer, ScorePartwise> skeletons = new TreeMap<>();
+        Map<ScorePart, String> partIds = new HashMap<>();
+        Map<ScoreInstrument, String> instIds = new HashMap<>();
 
-        for (Map.Entry<Integer, File> entry : files.entrySet()) {
-            BufferedReader input;
-            File file = entry.getValue();
-
-            try {
-                input = new BufferedReader(new FileReader(file));
-            } catch (FileNotFoundException ex) {
-                System.err.println(ex + " " + file);
+        for (int pageNumber : getPageNumbers()) {
+            ScorePartwise page = unmarshalPage(pageNumber, true);
 
+            if (page == null) {
                 continue;
             }
 
-            StringBuilder fragment = new StringBuilder();
-            String line;
+            // Remember original ids, since merge may modify them
+            for (ScorePart scorePart : getScoreParts(page)) {
+                partIds.put(scorePart, scorePart.getId());
 
-            try {
-                while ((line = input.readLine()) != null) {
-                    fragment.append(line).append("\n");
+                for (ScoreInstrument si : scorePart.getScoreInstrument()) {
+                    instIds.put(si, si.getId());
                 }
-            } catch (IOException ex) {
-                System.err.println(ex + " " + file);
+            }
 
-                continue;
+            skeletons.put(pageNumber, page);
+        }
+
+        if (skeletons.isEmpty()) {
+            return;
+        }
+
+        // Global header, global parts and mapping of page parts
+        ScorePartwise global = mergeHeaders(skeletons);
+        Map<ScorePart, PartSpool> spools = new LinkedHashMap<>();
+
+        for (Part part : global.getPart()) {
+            spools.put((ScorePart) part.getId(), null);
+        }
+
+        global.getPart()
+                .clear();
+
+        Map<Integer, Map<String, ScorePart>> partMaps = new HashMap<>();
+        Map<Integer, Map<String, ScoreInstrument>> instMaps = new HashMap<>();
+
+        for (Entry<Integer, ScorePartwise> entry : skeletons.entrySet()) {
+            Map<String, ScorePart> partMap = new HashMap<>();
+            Map<String, ScoreInstrument> instMap = new HashMap<>();
+
+            for (ScorePart old : getScoreParts(entry.getValue())) {
+                partMap.put(partIds.get(old), newParts.get(old));
+
+                for (ScoreInstrument si : old.getScoreInstrument()) {
+                    instMap.put(instIds.get(si), newInsts.get(si));
+                }
             }
 
-            fragments.put(entry.getKey(), fragment.toString());
+            partMaps.put(entry.getKey(), partMap);
+            instMaps.put(entry.getKey(), instMap);
         }
 
-        return fragments;
+        skeletons.clear();
+
+        // Second pass, to spool measures part per part
+        Marshaller marshaller = Marshalling.getContext(ScorePartwise.class)
+                .createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+
+        try {
+            for (Entry<ScorePart, PartSpool> entry : spools.entrySet()) {
+                entry.setValue(new PartSpool(marshaller));
+            }
+
+            int midOffset = 0; // Page offset on measure id
+            boolean isFirstPage = true; // First page?
+
+            for (int pageNumber : partMaps.keySet()) {
+                ScorePartwise page = unmarshalPage(pageNumber, false);
+
+                if (page == null) {
+                    continue;
+                }
+
+                Map<String, ScorePart> partMap = partMaps.get(pageNumber);
+                Map<String, ScoreInstrument> instMap = instMaps.get(
+                        pageNumber);
+                Map<ScoreInstrument, ScoreInstrument> insts = new HashMap<>();
+
+                for (ScorePart scorePart : getScoreParts(page)) {
+                    for (ScoreInstrument si : scorePart.getScoreInstrument()) {
+                        insts.put(si, instMap.get(si.getId()));
+                    }
+                }
+
+                int mid = 0; // Measure id (in this page)
+
+                for (Part part : page.getPart()) {
+                    String oldId = ((ScorePart) part.getId()).getId();
+                    PartSpool spool = spools.get(partMap.get(oldId));
+
+                    if (spool == null) {
+                        logger.warn("page:{} no global part for {}",
+                                pageNumber, oldId);
+
+                        continue;
+                    }
+
+                    boolean isFirstMeasure = true; // First measure? (in page)
+
+                    for (Measure measure : part.getMeasure()) {
+                        mid = updateMeasure(measure, insts, midOffset,
+                                !isFirstPage && isFirstMeasure);
+                        spool.append(measure);
+                        isFirstMeasure = false;
+                    }
+                }
+
+                midOffset += mid;
+                isFirstPage = false;
+            }
+
+            // Final output
+            writeOutput(global, spools, os);
+        } finally {
+            for (PartSpool spool : spools.values()) {
+                if (spool != null) {
+                    spool.delete();
+                }
+            }
+        }
     }
 
     //-------------//
@@ -559,32 +703,10 @@ public class ScoreXmlReduction
                             oldScorePart.getId(),
                             measure.getNumber());
 
-                    // New page?
-                    if (!isFirstPage && isFirstMeasure) {
-                        // Insert/Update print element
-                        getPrint(measure.getNoteOrBackupOrForward()).setNewPage(
-                                YesNo.YES);
-                    }
-
-                    // Shift measure number
-                    mid = Integer.decode(measure.getNumber());
-                    measure.setNumber("" + (mid + midOffset));
+                    mid = updateMeasure(measure, newInsts, midOffset,
+                            !isFirstPage && isFirstMeasure);
                     globalPart.getMeasure().add(measure);
 
-                    // Instrument references, if any
-                    for (Object obj : measure.getNoteOrBackupOrForward()) {
-                        if (obj instanceof Note) {
-                            Note note = (Note) obj;
-                            Instrument inst = note.getInstrument();
-
-                            if (inst != null) {
-                                inst.setId(
-                                        newInsts.get(
-                                        (ScoreInstrument) inst.getId()));
-                            }
-                        }
-                    }
-
                     isFirstMeasure = false;
                 }
             }
@@ -729,6 +851,20 @@ public class ScoreXmlReduction
         }
     }
 
+    //----------------//
+    // getPageNumbers //
+    //----------------//
+    /**
+     * Report the sorted numbers of the pages to process.
+     *
+     * @return the page numbers
+     */
+    private SortedSet<Integer> getPageNumbers ()
+    {
+        return new TreeSet<>(
+                (fragments != null) ? fragments.keySet() : files.keySet());
+    }
+
     //----------//
     // getPrint //
     //----------//
@@ -754,6 +890,28 @@ public class ScoreXmlReduction
         return print;
     }
 
+    //---------------//
+    // getScoreParts //
+    //---------------//
+    /**
+     * Report the score-part elements of a page part-list.
+     *
+     * @param page the page partwise
+     * @return the list of score parts
+     */
+    private List<ScorePart> getScoreParts (ScorePartwise page)
+    {
+        List<ScorePart> scoreParts = new ArrayList<>();
+
+        for (Object obj : page.getPartList().getPartGroupOrScorePart()) {
+            if (obj instanceof ScorePart) {
+                scoreParts.add((ScorePart) obj);
+            }
+        }
+
+        return scoreParts;
+    }
+
     //-----------------//
     // insertPageIndex //
     //-----------------//
@@ -785,6 +943,32 @@ public class ScoreXmlReduction
     {
         watch.start("Merge");
 
+        // Header, parts connection and global parts
+        ScorePartwise global = mergeHeaders(pages);
+
+        // parts data, inserting page breaks, re-numbering measures
+        addPartsData(pages);
+
+        // Handle cross-page slurs
+        // TBD
+
+        // The end
+        return global;
+    }
+
+    //--------------//
+    // mergeHeaders //
+    //--------------//
+    /**
+     * Build the global score header and part-list, by connecting the
+     * parts of individual pages.
+     * Global parts are created, but not populated with measures.
+     *
+     * @param pages the individual pages, indexed by their page number
+     * @return the resulting global score partwise, with empty parts
+     */
+    private ScorePartwise mergeHeaders (SortedMap<Integer, ScorePartwise> pages)
+    {
         // Resulting data
         ScorePartwise global = new ScorePartwise();
 
@@ -809,13 +993,6 @@ public class ScoreXmlReduction
         // Debug: List all candidates per result
         dumpResultMapping();
 
-        // parts data, inserting page breaks, re-numbering measures
-        addPartsData(pages);
-
-        // Handle cross-page slurs
-        // TBD
-
-        // The end
         return global;
     }
 
@@ -850,69 +1027,169 @@ public class ScoreXmlReduction
         return sb.toString();
     }
 
+    //---------------//
+    // unmarshalPage //
+    //---------------//
+    /**
+     * Retrieve the partwise instance of one page, by unmarshalling its
+     * MusicXML fragment.
+     * Page status is updated accordingly.
+     *
+     * @param pageNumber the page number
+     * @param skeleton   true to keep only the first measure of each part
+     * @return the page partwise instance, or null if failed
+     */
+    private ScorePartwise unmarshalPage (int pageNumber,
+                                         boolean skeleton)
+    {
+        try {
+            String rawFragment = (fragments != null)
+                    ? fragments.get(pageNumber)
+                    : new String(
+                    Files.readAllBytes(files.get(pageNumber).toPath()),
+                    StandardCharsets.UTF_8);
+
+            // Filter out invalid XML characters if any
+            WrappedBoolean stripped = new WrappedBoolean(false);
+            String fragment = XmlUtil.stripNonValidXMLCharacters(
+                    rawFragment,
+                    stripped);
+
+            if (stripped.isSet()) {
+                logger.warn("Illegal XML characters found in fragment #{}",
+                        pageNumber);
+                statuses.put(pageNumber, Status.CHARACTERS_SKIPPED);
+            }
+
+            ByteArrayInputStream is = new ByteArrayInputStream(
+                    fragment.getBytes(StandardCharsets.UTF_8));
+
+            return skeleton ? Marshalling.unmarshalSkeleton(is)
+                    : (ScorePartwise) Marshalling.unmarshal(is);
+        } catch (Exception ex) {
+            logger.warn("Could not unmarshall fragment #{} {}",
+                    pageNumber, ex);
+            statuses.put(pageNumber, Status.FRAGMENT_FAILED);
+
+            return null;
+        }
+    }
+
     //-----------------//
     // unmarshallPages //
     //-----------------//
     /**
      * Retrieve individual page partwise instances, by unmarshalling MusicXML
-     * data from the page string fragments
+     * data from the page fragments
      *
-     * @param pageFragments the sequence of input fragments (one string per
-     *                      page)
      * @return the related sequence of partwise instances (one instance per
      *         page)
-     * @throws JAXBException
      */
-    private SortedMap<Integer, ScorePartwise> unmarshallPages (
-            Map<Integer, String> pageFragments)
-            throws JAXBException
+    private SortedMap<Integer, ScorePartwise> unmarshallPages ()
     {
         ///watch.start("Unmarshalling pages");
 
         // Access the page fragments in the right order
-        SortedSet<Integer> pageNumbers = new TreeSet<>(
-                pageFragments.keySet());
+        SortedSet<Integer> pageNumbers = getPageNumbers();
         logger.info("About to read fragments {}", pageNumbers);
 
-        /** For user feedback */
-        String range = " of [" + pageNumbers.first() + ".."
-                       + pageNumbers.last() + "]...";
-
         /* Load pages content */
         SortedMap<Integer, ScorePartwise> pages = new TreeMap<>();
 
         for (int pageNumber : pageNumbers) {
             watch.start("Unmarshalling page #" + pageNumber);
 
-            ///logger.info("Unmarshalling fragment " + pageNumber + range);
-            String rawFragment = pageFragments.get(pageNumber);
+            ScorePartwise partwise = unmarshalPage(pageNumber, false);
 
-            // Filter out invalid XML characters if any
-            WrappedBoolean stripped = new WrappedBoolean(false);
-            String fragment = XmlUtil.stripNonValidXMLCharacters(
-                    rawFragment,
-                    stripped);
-
-            if (stripped.isSet()) {
-                logger.warn("Illegal XML characters found in fragment #{}",
-                        pageNumber);
-                statuses.put(pageNumber, Status.CHARACTERS_SKIPPED);
+            if (partwise != null) {
+                pages.put(pageNumber, partwise);
             }
+        }
 
-            ByteArrayInputStream is = new ByteArrayInputStream(
-                    fragment.getBytes());
+        return pages;
+    }
 
-            try {
-                ScorePartwise partwise = (ScorePartwise) Marshalling.unmarshal(is);
-                pages.put(pageNumber, partwise);
-            } catch (Exception ex) {
-                logger.warn("Could not unmarshall fragment #{} {}",
-                        pageNumber, ex);
-                statuses.put(pageNumber, Status.FRAGMENT_FAILED);
+    //---------------//
+    // updateMeasure //
+    //---------------//
+    /**
+     * Update a page measure in situ, for its insertion into the global
+     * score: page break, measure number and instrument references.
+     *
+     * @param measure   the measure to update
+     * @param insts     the mapping of page instruments to global instruments
+     * @param midOffset the page offset on measure id
+     * @param newPage   true if the measure starts a new page
+     * @return the measure id, relative to its page
+     */
+    private int updateMeasure (Measure measure,
+                               Map<ScoreInstrument, ScoreInstrument> insts,
+                               int midOffset,
+                               boolean newPage)
+    {
+        // New page?
+        if (newPage) {
+            // Insert/Update print element
+            getPrint(measure.getNoteOrBackupOrForward()).setNewPage(YesNo.YES);
+        }
+
+        // Shift measure number
+        int mid = Integer.decode(measure.getNumber());
+        measure.setNumber("" + (mid + midOffset));
+
+        // Instrument references, if any
+        for (Object obj : measure.getNoteOrBackupOrForward()) {
+            if (obj instanceof Note) {
+                Note note = (Note) obj;
+                Instrument inst = note.getInstrument();
+
+                if (inst != null) {
+                    inst.setId(insts.get((ScoreInstrument) inst.getId()));
+                }
             }
         }
 
-        return pages;
+        return mid;
+    }
+
+    //-------------//
+    // writeOutput //
+    //-------------//
+    /**
+     * Write the global score, made of the global header followed by the
+     * spooled content of each part.
+     *
+     * @param global the global partwise, with no part data
+     * @param spools the spool of each global part, in part-list order
+     * @param os     the output stream
+     */
+    private void writeOutput (ScorePartwise global,
+                              Map<ScorePart, PartSpool> spools,
+                              OutputStream os)
+            throws JAXBException, IOException, MarshallingException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Marshalling.marshal(global, buffer, true, 2);
+
+        String header = buffer.toString("UTF-8");
+        int end = header.lastIndexOf("</score-partwise>");
+
+        if (end == -1) {
+            throw new IOException("No score-partwise end in global header");
+        }
+
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        writer.write(header, 0, end);
+
+        for (Entry<ScorePart, PartSpool> entry : spools.entrySet()) {
+            writer.write("  <part id=\"" + entry.getKey().getId() + "\">\n");
+            entry.getValue().copyTo(writer);
+            writer.write("  </part>\n");
+        }
+
+        writer.write(header.substring(end));
+        writer.flush();
     }
 
     //~ Inner Classes ----------------------------------------------------------
@@ -985,4 +1262,91 @@ public class ScoreXmlReduction
             }
         }
     }
+
+    //-----------//
+    // PartSpool //
+    //-----------//
+    /**
+     * Temporary file where the measures of one global part are
+     * appended, page after page.
+     */
+    private static class PartSpool
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** Marshaller for measure elements */
+        private final Marshaller marshaller;
+
+        /** The temporary file */
+        private final File file;
+
+        /** Writer on the temporary file */
+        private final Writer writer;
+
+        //~ Constructors -------------------------------------------------------
+        public PartSpool (Marshaller marshaller)
+                throws IOException
+        {
+            this.marshaller = marshaller;
+            file = File.createTempFile("part-", ".xml");
+            writer = new BufferedWriter(
+                    new OutputStreamWriter(
+                    new FileOutputStream(file),
+                    StandardCharsets.UTF_8));
+        }
+
+        //~ Methods ------------------------------------------------------------
+        /**
+         * Append a measure element to the part content.
+         *
+         * @param measure the (updated) measure
+         */
+        public void append (Measure measure)
+                throws JAXBException, IOException
+        {
+            marshaller.marshal(
+                    new JAXBElement<>(new QName("measure"), Measure.class,
+                    measure),
+                    writer);
+            writer.write("\n");
+        }
+
+        /**
+         * Copy the whole part content to the provided writer.
+         *
+         * @param out the output writer
+         */
+        public void copyTo (Writer out)
+                throws IOException
+        {
+            writer.close();
+
+            try (Reader reader = new InputStreamReader(
+                    new FileInputStream(file),
+                    StandardCharsets.UTF_8)) {
+                char[] chars = new char[8192];
+                int count;
+
+                while ((count = reader.read(chars)) != -1) {
+                    out.write(chars, 0, count);
+                }
+            }
+        }
+
+        /**
+         * Release the temporary file.
+         */
+        public void delete ()
+        {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                logger.warn("Error closing " + file, ex);
+            }
+
+            if (!file.delete()) {
+                logger.warn("Could not delete {}", file);
+            }
+        }
+    }
 }
@@ -250,7 +250,11 @@ public class ScoresManager
     public static ScoresManager getInstance ()
     {
         if (INSTANCE == null) {
-            INSTANCE = new ScoresManager();
+            synchronized (ScoresManager.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ScoresManager();
+                }
+            }
         }
 
         return INSTANCE;
@@ -70,6 +70,9 @@ public class Page
     /** Progression of measure id within this page. */
     private Integer deltaMeasureId;
 
+    /** True if durations and measure ids have been merged with the score. */
+    private volatile boolean merged;
+
     /** Param for pixel filter. */
     private final LiveParam<FilterDescriptor> filterContext;
 
@@ -384,6 +387,20 @@ public class Page
         return getChildren();
     }
 
+    //----------//
+    // isMerged //
+    //----------//
+    /**
+     * Report whether this page has already been merged with the
+     * preceding pages of the score.
+     *
+     * @return true if merged
+     */
+    public boolean isMerged ()
+    {
+        return merged;
+    }
+
     //--------------//
     // resetSystems //
     //--------------//
@@ -415,6 +432,19 @@ public class Page
         this.deltaMeasureId = deltaMeasureId;
     }
 
+    //-----------//
+    // setMerged //
+    //-----------//
+    /**
+     * Flag this page as merged (or not) with the preceding pages.
+     *
+     * @param merged true if merged
+     */
+    public void setMerged (boolean merged)
+    {
+        this.merged = merged;
+    }
+
     //-------------//
     // setPartList //
     //-------------//
@@ -11,6 +11,7 @@
 // </editor-fold>
 package omr.score.entity;
 
+import omr.math.HungarianSolver;
 import omr.math.InjectionSolver;
 import omr.math.Population;
 import omr.math.Rational;
@@ -201,7 +202,7 @@ public class Slot
 
         // Try to map some ending voices to some rookies
         if (!endings.isEmpty()) {
-            InjectionSolver solver = new InjectionSolver(
+            HungarianSolver solver = new HungarianSolver(
                     rookies.size(),
                     endings.size() + rookies.size(),
                     new MyDistance(rookies, endings));
@@ -11,15 +11,24 @@
 // </editor-fold>
 package omr.score.ui;
 
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
 import omr.score.Score;
 import omr.score.ScoresManager;
 import omr.score.entity.Page;
 
+import omr.ui.symbol.OmrFont;
+
+import omr.util.OmrExecutors;
 import omr.util.TreeNode;
 
 import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Rectangle;
 import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfImportedPage;
+import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfWriter;
 
 import org.slf4j.Logger;
@@ -28,14 +37,27 @@ import org.slf4j.LoggerFactory;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class {@code SheetPdfOutput} produces a physical PDF output of a
- * score.
+ * score, with one PDF page per score page.
+ *
+ * <p>Pages are processed by windows of consecutive pages. Within a window,
+ * each page is painted (in parallel, unless disabled) into its own small
+ * in-memory PDF document. These documents are then imported in order into
+ * the target document, each as a page template, and the completed pages are
+ * flushed to the output stream. Hence memory needs are bounded by the window
+ * size, whatever the number of pages.
  *
- * <p>TODO: Implement a PDF with multiple output pages
+ * <p>Within a page, the music symbols are painted by a {@link SymbolStamper},
+ * so that all occurrences of a symbol share the same PDF form XObject.
  *
  * @author Hervé Bitteur
  */
@@ -43,6 +65,9 @@ public class SheetPdfOutput
 {
     //~ Static fields/initializers ---------------------------------------------
 
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
     /** Usual logger utility */
     private static final Logger logger = LoggerFactory.getLogger(
             ScoresManager.class);
@@ -51,9 +76,12 @@ public class SheetPdfOutput
     /** The related score */
     private final Score score;
 
-    /** The file to print to */
+    /** The file to print to, if any */
     private final File file;
 
+    /** The stream to print to, if no file */
+    private final OutputStream stream;
+
     //~ Constructors -----------------------------------------------------------
     /**
      * Creates a new SheetPdfOutput object.
@@ -66,35 +94,68 @@ public class SheetPdfOutput
     {
         this.score = score;
         this.file = file;
+        this.stream = null;
+    }
+
+    /**
+     * Creates a new SheetPdfOutput object, writing to a stream.
+     * Each page is flushed to the stream as soon as it has been painted.
+     *
+     * @param score  the score to print
+     * @param stream the target output stream (not closed by this class)
+     */
+    public SheetPdfOutput (Score score,
+                           OutputStream stream)
+    {
+        this.score = score;
+        this.file = null;
+        this.stream = stream;
     }
 
     //~ Methods ----------------------------------------------------------------
     public void write ()
             throws Exception
     {
-        FileOutputStream fos = new FileOutputStream(file);
-        Document document = null;
-        PdfWriter writer = null;
+        if (stream != null) {
+            write(stream, false);
+        } else {
+            FileOutputStream fos = new FileOutputStream(file);
 
-        try {
-            for (TreeNode pn : score.getPages()) {
-                Page page = (Page) pn;
-                Dimension dim = page.getDimension();
-
-                if (document == null) {
-                    document = new Document(
-                            new Rectangle(dim.width, dim.height));
-                    writer = PdfWriter.getInstance(document, fos);
-                    document.open();
-                } else {
-                    document.setPageSize(new Rectangle(dim.width, dim.height));
-                    document.newPage();
-                }
+            try {
+                write(fos, true);
+            } finally {
+                fos.close();
+            }
+        }
+    }
 
-                PdfContentByte cb = writer.getDirectContent();
-                Graphics2D g2 = cb.createGraphics(dim.width, dim.height);
-                g2.scale(1, 1);
+    //-----------//
+    // paintPage //
+    //-----------//
+    /**
+     * Paint the provided page as a stand-alone PDF document.
+     *
+     * @param page the page to paint
+     * @return the bytes of the one-page PDF document
+     */
+    private byte[] paintPage (Page page)
+            throws DocumentException
+    {
+        Dimension dim = page.getDimension();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Document document = new Document(new Rectangle(dim.width, dim.height));
+        PdfWriter writer = PdfWriter.getInstance(document, bos);
+        document.open();
+
+        try {
+            PdfContentByte cb = writer.getDirectContent();
+            SymbolStamper stamper = constants.sharedSymbols.isSet()
+                                    ? new SymbolStamper(cb, dim) : null;
+            Graphics2D g2 = cb.createGraphics(dim.width, dim.height);
+            g2.scale(1, 1);
+            OmrFont.setLayoutPainter(stamper);
 
+            try {
                 // Painting
                 PagePhysicalPainter painter = new PagePhysicalPainter(
                         g2,
@@ -103,10 +164,124 @@ public class SheetPdfOutput
                         true, // Paint staff lines
                         false); // No annotations
                 page.accept(painter);
+            } finally {
+                OmrFont.setLayoutPainter(null);
 
                 // This is the end...
                 g2.dispose();
             }
+
+            if (stamper != null) {
+                cb.addTemplate(stamper.getLayer(), 0, 0);
+                logger.debug("{} {}", page, stamper);
+            }
+        } finally {
+            document.close();
+        }
+
+        return bos.toByteArray();
+    }
+
+    //------------//
+    // paintPages //
+    //------------//
+    /**
+     * Paint the provided pages, in parallel if allowed.
+     *
+     * @param pages the sequence of pages to paint
+     * @return the PDF bytes of each page, in the same order
+     */
+    private byte[][] paintPages (final List<TreeNode> pages)
+            throws DocumentException
+    {
+        final byte[][] pdfs = new byte[pages.size()][];
+
+        if (pages.size() == 1) {
+            pdfs[0] = paintPage((Page) pages.get(0));
+
+            return pdfs;
+        }
+
+        List<RecursiveAction> tasks = new ArrayList<>(pages.size());
+
+        for (int i = 0; i < pages.size(); i++) {
+            final int index = i;
+            tasks.add(
+                    new RecursiveAction()
+                    {
+                        @Override
+                        protected void compute ()
+                        {
+                            try {
+                                pdfs[index] = paintPage(
+                                        (Page) pages.get(index));
+                            } catch (DocumentException ex) {
+                                throw new RuntimeException(ex);
+                            }
+                        }
+                    });
+        }
+
+        OmrExecutors.invokeAll(tasks);
+
+        return pdfs;
+    }
+
+    //-------//
+    // write //
+    //-------//
+    private void write (OutputStream os,
+                        boolean closeStream)
+            throws Exception
+    {
+        final List<TreeNode> pages = score.getPages();
+        final int window = constants.parallelPages.isSet()
+                           ? OmrExecutors.getForkJoinPool().getParallelism()
+                           : 1;
+        Document document = null;
+        PdfWriter writer = null;
+
+        try {
+            for (int first = 0; first < pages.size(); first += window) {
+                List<TreeNode> batch = pages.subList(
+                        first,
+                        Math.min(pages.size(), first + window));
+                byte[][] pdfs = paintPages(batch);
+
+                for (int i = 0; i < pdfs.length; i++) {
+                    Page page = (Page) batch.get(i);
+                    Dimension dim = page.getDimension();
+
+                    if (document == null) {
+                        document = new Document(
+                                new Rectangle(dim.width, dim.height));
+                        writer = PdfWriter.getInstance(document, os);
+                        writer.setCloseStream(closeStream);
+                        document.open();
+                    } else {
+                        document.setPageSize(
+                                new Rectangle(dim.width, dim.height));
+                        document.newPage();
+
+                        // Previous page content has been written, push it out
+                        os.flush();
+                    }
+
+                    // Import the painted page as a template
+                    PdfReader reader = new PdfReader(pdfs[i]);
+                    pdfs[i] = null;
+
+                    PdfImportedPage imported = writer.getImportedPage(
+                            reader,
+                            1);
+                    writer.getDirectContent()
+                            .addTemplate(imported, 0, 0);
+
+                    // Write the template and release the reader
+                    writer.freeReader(reader);
+                    reader.close();
+                }
+            }
         } catch (Exception ex) {
             logger.warn("Error printing " + score.getRadix(), ex);
             throw ex;
@@ -116,6 +291,25 @@ public class SheetPdfOutput
             }
         }
 
-        fos.close();
+        os.flush();
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Boolean parallelPages = new Constant.Boolean(
+                true,
+                "Should pages be painted in parallel for PDF output?");
+
+        Constant.Boolean sharedSymbols = new Constant.Boolean(
+                true,
+                "Should music symbols be shared as PDF XObjects?");
+
     }
 }
@@ -0,0 +1,371 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                         S y m b o l S t a m p e r                          //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.score.ui;
+
+import omr.ui.symbol.OmrFont;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfTemplate;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class {@code SymbolStamper} paints music symbols into a PDF page as
+ * shared form XObjects, rather than as fresh vector paths for each
+ * occurrence.
+ *
+ * <p>The outline of each distinct symbol (same characters, same size, same
+ * color) is written once in a {@link PdfTemplate}, which is then simply
+ * referenced by each occurrence.
+ * All occurrences are stamped in a dedicated layer, to be added on top of the
+ * page content once painting is over. Since symbols are painted with
+ * opaque colors only, this does not modify the page appearance.
+ *
+ * @author Hervé Bitteur
+ */
+class SymbolStamper
+        implements OmrFont.LayoutPainter
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** The layer which receives all stamps. */
+    private final PdfTemplate layer;
+
+    /** Page height, to flip ordinates. */
+    private final float pageHeight;
+
+    /** Templates already written, per symbol outline. */
+    private final Map<Outline, PdfTemplate> templates = new HashMap<>();
+
+    /** Number of stamps. */
+    private int stampCount;
+
+    //~ Constructors -----------------------------------------------------------
+    //---------------//
+    // SymbolStamper //
+    //---------------//
+    /**
+     * Creates a new SymbolStamper object.
+     *
+     * @param cb  the page direct content
+     * @param dim the page dimension
+     */
+    SymbolStamper (PdfContentByte cb,
+                   Dimension dim)
+    {
+        layer = cb.createTemplate(dim.width, dim.height);
+        pageHeight = dim.height;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //----------//
+    // getLayer //
+    //----------//
+    /**
+     * Report the layer of stamps, to be added to the page at (0, 0).
+     *
+     * @return the layer template
+     */
+    public PdfTemplate getLayer ()
+    {
+        return layer;
+    }
+
+    //-------//
+    // paint //
+    //-------//
+    @Override
+    public boolean paint (Graphics2D g,
+                          TextLayout layout,
+                          Point2D origin)
+    {
+        if (!isStampable(g)) {
+            return false;
+        }
+
+        final Shape outline = layout.getOutline(null);
+        final Rectangle2D bounds = outline.getBounds2D();
+
+        if (bounds.isEmpty()) {
+            return true; // Nothing to paint
+        }
+
+        // Stamps ignore clipping, so check symbol is not clipped
+        final Shape clip = g.getClip();
+
+        if ((clip != null)
+            && !clip.contains(
+                origin.getX() + bounds.getX(),
+                origin.getY() + bounds.getY(),
+                bounds.getWidth(),
+                bounds.getHeight())) {
+            return false;
+        }
+
+        final Color color = g.getColor();
+        final Outline key = new Outline(outline, color);
+        PdfTemplate template = templates.get(key);
+
+        if (template == null) {
+            template = createTemplate(outline, bounds, color);
+            templates.put(key, template);
+        }
+
+        // From template space to PDF page space, via graphics user space
+        AffineTransform at = new AffineTransform(1, 0, 0, -1, 0, pageHeight);
+        at.concatenate(g.getTransform());
+        at.translate(
+                origin.getX() + bounds.getX(),
+                origin.getY() + bounds.getMaxY());
+        at.scale(1, -1);
+
+        double[] m = new double[6];
+        at.getMatrix(m);
+        layer.addTemplate(
+                template,
+                (float) m[0],
+                (float) m[1],
+                (float) m[2],
+                (float) m[3],
+                (float) m[4],
+                (float) m[5]);
+        stampCount++;
+
+        return true;
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "{SymbolStamper stamps:" + stampCount + " templates:"
+               + templates.size() + "}";
+    }
+
+    //----------------//
+    // createTemplate //
+    //----------------//
+    /**
+     * Write the symbol outline into a new template.
+     *
+     * @param outline the symbol outline, relative to layout origin
+     * @param bounds  the outline bounds
+     * @param color   the fill color
+     * @return the template, whose origin is the bottom left corner of bounds
+     */
+    private PdfTemplate createTemplate (Shape outline,
+                                        Rectangle2D bounds,
+                                        Color color)
+    {
+        final PdfTemplate template = layer.createTemplate(
+                (float) bounds.getWidth(),
+                (float) bounds.getHeight());
+        template.setColorFill(
+                new BaseColor(
+                color.getRed(),
+                color.getGreen(),
+                color.getBlue()));
+
+        // Translate and flip the outline into template space
+        final AffineTransform at = new AffineTransform(
+                1,
+                0,
+                0,
+                -1,
+                -bounds.getX(),
+                bounds.getMaxY());
+        final PathIterator it = outline.getPathIterator(at);
+        final float[] c = new float[6];
+        float x = 0; // Current point
+        float y = 0;
+        float xStart = 0; // Start of current sub-path
+        float yStart = 0;
+
+        for (; !it.isDone(); it.next()) {
+            switch (it.currentSegment(c)) {
+            case PathIterator.SEG_MOVETO:
+                template.moveTo(c[0], c[1]);
+                x = xStart = c[0];
+                y = yStart = c[1];
+
+                break;
+
+            case PathIterator.SEG_LINETO:
+                template.lineTo(c[0], c[1]);
+                x = c[0];
+                y = c[1];
+
+                break;
+
+            case PathIterator.SEG_QUADTO:
+                // PDF has no quadratic curve, use the equivalent cubic one
+                template.curveTo(
+                        x + ((2 * (c[0] - x)) / 3),
+                        y + ((2 * (c[1] - y)) / 3),
+                        c[2] + ((2 * (c[0] - c[2])) / 3),
+                        c[3] + ((2 * (c[1] - c[3])) / 3),
+                        c[2],
+                        c[3]);
+                x = c[2];
+                y = c[3];
+
+                break;
+
+            case PathIterator.SEG_CUBICTO:
+                template.curveTo(c[0], c[1], c[2], c[3], c[4], c[5]);
+                x = c[4];
+                y = c[5];
+
+                break;
+
+            case PathIterator.SEG_CLOSE:
+                template.closePath();
+                x = xStart;
+                y = yStart;
+
+                break;
+            }
+        }
+
+        if (it.getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+            template.eoFill();
+        } else {
+            template.fill();
+        }
+
+        return template;
+    }
+
+    //-------------//
+    // isStampable //
+    //-------------//
+    /**
+     * Check whether the current graphics state paints with an opaque
+     * plain color, which is all a stamp can render.
+     */
+    private boolean isStampable (Graphics2D g)
+    {
+        if (!(g.getPaint() instanceof Color)
+            || (g.getColor().getAlpha() != 255)) {
+            return false;
+        }
+
+        final Composite composite = g.getComposite();
+
+        if (!(composite instanceof AlphaComposite)) {
+            return false;
+        }
+
+        final AlphaComposite ac = (AlphaComposite) composite;
+
+        return (ac.getRule() == AlphaComposite.SRC_OVER)
+               && (ac.getAlpha() == 1f);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //---------//
+    // Outline //
+    //---------//
+    /**
+     * Key of a symbol, made of its outline path and its color.
+     */
+    private static class Outline
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final int rgb;
+
+        private final int[] types;
+
+        private final float[] coords;
+
+        private final int hash;
+
+        //~ Constructors -------------------------------------------------------
+        public Outline (Shape outline,
+                        Color color)
+        {
+            final float[] c = new float[6];
+            int[] typeArray = new int[16];
+            float[] coordArray = new float[96];
+            int typeCount = 0;
+            int coordCount = 0;
+
+            for (PathIterator it = outline.getPathIterator(null); !it.isDone();
+                    it.next()) {
+                final int type = it.currentSegment(c);
+
+                if (typeCount == typeArray.length) {
+                    typeArray = Arrays.copyOf(typeArray, 2 * typeCount);
+                }
+
+                typeArray[typeCount++] = type;
+
+                final int n = (type == PathIterator.SEG_CLOSE) ? 0
+                        : ((type == PathIterator.SEG_QUADTO) ? 4
+                        : ((type == PathIterator.SEG_CUBICTO) ? 6 : 2));
+
+                if ((coordCount + n) > coordArray.length) {
+                    coordArray = Arrays.copyOf(
+                            coordArray,
+                            2 * (coordCount + n));
+                }
+
+                System.arraycopy(c, 0, coordArray, coordCount, n);
+                coordCount += n;
+            }
+
+            rgb = color.getRGB();
+            types = Arrays.copyOf(typeArray, typeCount);
+            coords = Arrays.copyOf(coordArray, coordCount);
+            hash = (31 * ((31 * rgb) + Arrays.hashCode(types)))
+                   + Arrays.hashCode(coords);
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (!(obj instanceof Outline)) {
+                return false;
+            }
+
+            final Outline that = (Outline) obj;
+
+            return (rgb == that.rgb) && Arrays.equals(types, that.types)
+                   && Arrays.equals(coords, that.coords);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return hash;
+        }
+    }
+}
@@ -23,7 +23,6 @@ import omr.math.Histogram.PeakEntry;
 
 import omr.run.FilterDescriptor;
 import omr.run.Orientation;
-import omr.run.Run;
 import omr.run.RunsTable;
 import omr.run.RunsTableFactory;
 
@@ -187,22 +186,32 @@ public class ScaleBuilder
         logger.info("{}{} {}", sheet.getLogPrefix(), "Binarization", desc);
         sheet.getPage().getFilterParam().setActual(desc);
 
-        StopWatch watch = new StopWatch("Binarization "
-                                        + sheet.getPage().getId() + " " + desc);
-        watch.start("Vertical runs");
-
-        RunsTableFactory factory = new RunsTableFactory(
-                Orientation.VERTICAL,
-                desc.getFilter(picture),
-                0);
-        RunsTable wholeVertTable = factory.createTable("whole");
-        sheet.setWholeVerticalTable(wholeVertTable);
-        factory = null; // To allow garbage collection ASAP
+        // Reuse a previous binarization if possible (the picture itself is
+        // still needed by the following steps)
+        RunsTable wholeVertTable = SheetCheckpoint.restoreRuns(sheet, desc);
+
+        if (wholeVertTable == null) {
+            StopWatch watch = new StopWatch("Binarization "
+                                            + sheet.getPage().getId() + " "
+                                            + desc);
+            watch.start("Vertical runs");
+
+            RunsTableFactory factory = new RunsTableFactory(
+                    Orientation.VERTICAL,
+                    desc.getFilter(picture),
+                    0);
+            wholeVertTable = factory.createTable("whole");
+            factory = null; // To allow garbage collection ASAP
+
+            if (constants.printWatch.isSet()) {
+                watch.print();
+            }
 
-        if (constants.printWatch.isSet()) {
-            watch.print();
+            SheetCheckpoint.storeRuns(sheet, desc, wholeVertTable);
         }
 
+        sheet.setWholeVerticalTable(wholeVertTable);
+
         // Build the two histograms
         histoKeeper.buildHistograms(
                 wholeVertTable,
@@ -612,12 +621,12 @@ public class ScaleBuilder
             final int maxFore = height / 16;
 
             for (int x = 0; x < width; x++) {
-                List<Run> runSeq = wholeVertTable.getSequence(x);
                 // Ordinate of first pixel not yet processed
                 int yLast = 0;
 
-                for (Run run : runSeq) {
-                    int y = run.getStart();
+                for (int i = 0, iMax = wholeVertTable.getSequenceSize(x);
+                        i < iMax; i++) {
+                    int y = wholeVertTable.getRunStart(x, i);
 
                     if (y > yLast) {
                         // Process the background run before this run
@@ -628,7 +637,7 @@ public class ScaleBuilder
                     }
 
                     // Process this foreground run
-                    int foreLength = run.getLength();
+                    int foreLength = wholeVertTable.getRunLength(x, i);
                     if (foreLength <= maxFore) {
                         fore[foreLength]++;
                     }
@@ -47,6 +47,7 @@ import omr.selection.SelectionService;
 import omr.sheet.picture.ImageFormatException;
 import omr.sheet.picture.Picture;
 import omr.sheet.picture.PictureView;
+import omr.sheet.SheetMemory.Item;
 import omr.sheet.ui.BinarizationBoard;
 import omr.sheet.ui.BoundaryEditor;
 import omr.sheet.ui.PixelBoard;
@@ -67,6 +68,7 @@ import org.slf4j.LoggerFactory;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -126,11 +128,17 @@ public class Sheet
     /** Retrieved systems. */
     private final List<SystemInfo> systems = new ArrayList<>();
 
+    /** Memory held by intermediate structures. */
+    private final SheetMemory memory = new SheetMemory(this);
+
     //-- resettable members ----------------------------------------------------
     //
-    /** The related picture */
+    /** The related picture, null if evicted */
     private Picture picture;
 
+    /** The picture dimension */
+    private Dimension dimension;
+
     /** All steps already done on this sheet */
     private Set<Step> doneSteps = new HashSet<>();
 
@@ -140,7 +148,7 @@ public class Sheet
     /** Global scale for this sheet */
     private Scale scale;
 
-    /** Table of all vertical (foreground) runs */
+    /** Table of all vertical (foreground) runs, null if evicted */
     private RunsTable wholeVerticalTable;
 
     /** Initial skew value */
@@ -278,6 +286,8 @@ public class Sheet
         if (step.isMandatory()) {
             doneSteps.add(step);
         }
+
+        evictIntermediates(step);
     }
 
     //----------//
@@ -460,7 +470,7 @@ public class Sheet
      */
     public Dimension getDimension ()
     {
-        return picture.getDimension();
+        return new Dimension(dimension);
     }
 
     //-----------------//
@@ -481,7 +491,7 @@ public class Sheet
      */
     public int getHeight ()
     {
-        return picture.getHeight();
+        return dimension.height;
     }
 
     //------------------//
@@ -578,6 +588,19 @@ public class Sheet
         return lastLongHSectionId;
     }
 
+    //-----------//
+    // getMemory //
+    //-----------//
+    /**
+     * Report the memory accounting of this sheet.
+     *
+     * @return the sheet memory
+     */
+    public SheetMemory getMemory ()
+    {
+        return memory;
+    }
+
     //---------//
     // getNest //
     //---------//
@@ -614,11 +637,20 @@ public class Sheet
     //------------//
     /**
      * Report the picture of this sheet, that is the image to be processed.
+     * The picture is reloaded if it has been evicted.
      *
      * @return the related picture
      */
-    public Picture getPicture ()
+    public synchronized Picture getPicture ()
     {
+        if ((picture == null) && memory.isEvicted(Item.PICTURE)) {
+            picture = memory.reloadPicture();
+
+            if (picture != null) {
+                locationService.subscribeStrongly(LocationEvent.class, picture);
+            }
+        }
+
         return picture;
     }
 
@@ -1018,7 +1050,22 @@ public class Sheet
      */
     public int getWidth ()
     {
-        return picture.getWidth();
+        return dimension.width;
+    }
+
+    //------------//
+    // hasPicture //
+    //------------//
+    /**
+     * Report whether the sheet picture has been loaded, even if it has
+     * been evicted since. Unlike {@link #getPicture}, this never triggers
+     * a reload.
+     *
+     * @return true if picture (and thus dimension) is known
+     */
+    public boolean hasPicture ()
+    {
+        return dimension != null;
     }
 
     //---------------------//
@@ -1080,7 +1127,13 @@ public class Sheet
             assembly.close();
         }
 
-        picture.close();
+        if (picture != null) {
+            picture.close();
+        }
+
+        for (Item item : Item.values()) {
+            memory.remove(item);
+        }
 
         // If no sheet is left, force score closing
         if (!closing) {
@@ -1178,6 +1231,8 @@ public class Sheet
 
         try {
             picture = new Picture(image, locationService);
+            dimension = picture.getDimension();
+            memory.hold(Item.PICTURE, SheetMemory.sizeOf(picture));
             setPicture(picture);
             getBench().recordImageDimension(picture.getWidth(), picture.
                     getHeight());
@@ -1423,6 +1478,7 @@ public class Sheet
 
         case Steps.LOAD:
             picture = null;
+            memory.remove(Item.PICTURE);
             doneSteps = new HashSet<>();
             currentStep = null;
 
@@ -1430,6 +1486,7 @@ public class Sheet
             scaleBuilder = null;
             scale = null;
             wholeVerticalTable = null;
+            memory.remove(Item.VERTICAL_RUNS);
 
         case Steps.GRID:
             if (nest != null) {
@@ -1462,6 +1519,42 @@ public class Sheet
         }
     }
 
+    //--------------------//
+    // evictIntermediates //
+    //--------------------//
+    /**
+     * Evict the intermediate structures no longer needed by the steps
+     * that follow the provided one.
+     *
+     * @param step the step just done
+     */
+    private synchronized void evictIntermediates (Step step)
+    {
+        for (Item item : memory.getEvictables(step)) {
+            switch (item) {
+            case PICTURE:
+                locationService.unsubscribe(LocationEvent.class, picture);
+                picture = null;
+                memory.evicted(item, null);
+
+                break;
+
+            case VERTICAL_RUNS:
+
+                File spill = memory.spillRuns(wholeVerticalTable);
+
+                if (spill != null) {
+                    wholeVerticalTable = null;
+                    memory.evicted(item, spill);
+                }
+
+                break;
+            }
+        }
+
+        logger.debug("{}{} {}", getLogPrefix(), step, memory);
+    }
+
     //------------//
     // setPicture //
     //------------//
@@ -1494,10 +1587,17 @@ public class Sheet
     /**
      * Get access to the whole table of vertical runs.
      *
+     * The table is reloaded if it has been evicted.
+     *
      * @return the wholeVerticalTable
      */
-    public RunsTable getWholeVerticalTable ()
+    public synchronized RunsTable getWholeVerticalTable ()
     {
+        if ((wholeVerticalTable == null)
+            && memory.isEvicted(Item.VERTICAL_RUNS)) {
+            wholeVerticalTable = memory.reloadRuns();
+        }
+
         return wholeVerticalTable;
     }
 
@@ -1507,11 +1607,19 @@ public class Sheet
     /**
      * Remember the whole table of vertical runs.
      *
-     * @param wholeVerticalTable the wholeVerticalTable to set
+     * @param table the wholeVerticalTable to set, or null
      */
-    public void setWholeVerticalTable (RunsTable wholeVerticalTable)
+    public synchronized void setWholeVerticalTable (RunsTable table)
     {
-        this.wholeVerticalTable = wholeVerticalTable;
+        this.wholeVerticalTable = table;
+
+        if (table != null) {
+            memory.hold(
+                    Item.VERTICAL_RUNS,
+                    SheetMemory.sizeOf(table));
+        } else {
+            memory.remove(Item.VERTICAL_RUNS);
+        }
     }
 
     //~ Inner Classes ----------------------------------------------------------
@@ -0,0 +1,292 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                       S h e e t C h e c k p o i n t                        //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.sheet;
+
+import omr.WellKnowns;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.run.AdaptiveFilter;
+import omr.run.FilterDescriptor;
+import omr.run.FilterKind;
+import omr.run.RunsTable;
+
+import omr.score.Score;
+
+import omr.step.Steps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class {@code SheetCheckpoint} saves on disk, and restores, the
+ * binarization of a sheet, so that a later run on the same image can skip
+ * it.
+ *
+ * <p>This is a binarization cache, not a general step checkpoint: a later
+ * run still performs every step.
+ * LOAD still decodes the image, since the picture is needed by GRID and
+ * by the displays. SCALE only spares the binarization, and still computes
+ * its histograms and scale values from the restored runs.
+ * GRID, SYSTEMS and SYMBOLS are not checkpointed, because their results
+ * (lags, nest, staves, systems, glyphs) form a linked object graph wired
+ * to selection services, for which this tree has no persistence.
+ *
+ * <p>When the SCALE step has binarized the sheet image, the whole table of
+ * vertical foreground runs is written to a checkpoint file
+ * (see {@link #storeRuns}). When resuming is enabled, the SCALE step first
+ * looks for a matching checkpoint (see {@link #restoreRuns}) and, if found,
+ * skips the binarization.
+ *
+ * <p>A checkpoint matches only if it was written for the same image file
+ * (path, length and modification date), the same page and the same
+ * binarization filter, including the class implementing it. Otherwise it is
+ * ignored, and later overwritten.
+ *
+ * <p>File layout (GZIP compressed): MAGIC, VERSION, name of the step, key,
+ * then the runs table as written by {@link RunsTable#write}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetCheckpoint
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            SheetCheckpoint.class);
+
+    /** Folder for checkpoint files. */
+    private static final File CHECKPOINTS_FOLDER = new File(
+            WellKnowns.TEMP_FOLDER,
+            "checkpoints");
+
+    /** File marker. */
+    private static final int MAGIC = 0x53434B50; // "SCKP"
+
+    /** Format version, to be incremented on any layout change. */
+    private static final int VERSION = 1;
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //-----------------//
+    // SheetCheckpoint //
+    //-----------------//
+    /** Not meant to be instantiated. */
+    private SheetCheckpoint ()
+    {
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //-------------//
+    // restoreRuns //
+    //-------------//
+    /**
+     * Restore the table of vertical runs from the sheet checkpoint,
+     * if resuming is enabled and a matching checkpoint exists.
+     *
+     * @param sheet the sheet at hand
+     * @param desc  the binarization filter to be used
+     * @return the restored table, or null
+     */
+    public static RunsTable restoreRuns (Sheet sheet,
+                                         FilterDescriptor desc)
+    {
+        if (!constants.resumeFromCheckpoints.isSet()) {
+            return null;
+        }
+
+        String key = getKey(sheet, desc);
+
+        if (key == null) {
+            return null;
+        }
+
+        File file = getFile(sheet);
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+                logger.info("{}Ignoring obsolete checkpoint {}",
+                        sheet.getLogPrefix(), file);
+
+                return null;
+            }
+
+            String step = in.readUTF();
+
+            if (!in.readUTF()
+                    .equals(key)) {
+                logger.debug("{}Checkpoint {} does not match",
+                        sheet.getLogPrefix(), file);
+
+                return null;
+            }
+
+            RunsTable table = RunsTable.read(in);
+            logger.info("{}Binarization restored from {} checkpoint",
+                    sheet.getLogPrefix(), step);
+
+            return table;
+        } catch (Exception ex) {
+            logger.warn("Could not read checkpoint " + file, ex);
+
+            return null;
+        }
+    }
+
+    //-----------//
+    // storeRuns //
+    //-----------//
+    /**
+     * Write the table of vertical runs to the sheet checkpoint, if
+     * checkpoints are enabled.
+     *
+     * @param sheet the sheet at hand
+     * @param desc  the binarization filter used
+     * @param table the resulting table of vertical runs
+     */
+    public static void storeRuns (Sheet sheet,
+                                  FilterDescriptor desc,
+                                  RunsTable table)
+    {
+        if (!constants.writeCheckpoints.isSet()) {
+            return;
+        }
+
+        String key = getKey(sheet, desc);
+
+        if (key == null) {
+            return;
+        }
+
+        File file = getFile(sheet);
+        File tmp = new File(file.getPath() + ".tmp");
+
+        try {
+            Files.createDirectories(CHECKPOINTS_FOLDER.toPath());
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(tmp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(Steps.SCALE);
+                out.writeUTF(key);
+                table.write(out);
+            }
+
+            Files.move(
+                    tmp.toPath(),
+                    file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("{}Checkpoint written to {}",
+                    sheet.getLogPrefix(), file);
+        } catch (IOException ex) {
+            logger.warn("Could not write checkpoint " + file, ex);
+
+            if (tmp.exists() && !tmp.delete()) {
+                logger.warn("Could not delete {}", tmp);
+            }
+        }
+    }
+
+    //---------//
+    // getFile //
+    //---------//
+    /**
+     * Report the checkpoint file for the provided sheet.
+     */
+    private static File getFile (Sheet sheet)
+    {
+        Score score = sheet.getScore();
+        String path = score.getImageFile()
+                .getAbsolutePath();
+
+        return new File(
+                CHECKPOINTS_FOLDER,
+                score.getRadix() + "-" + Integer.toHexString(path.hashCode())
+                + "-p" + sheet.getPage().getId() + ".ckpt");
+    }
+
+    //--------//
+    // getKey //
+    //--------//
+    /**
+     * Report the key which identifies the sheet input data.
+     *
+     * @return the key, or null if the image does not come from a file
+     */
+    private static String getKey (Sheet sheet,
+                                  FilterDescriptor desc)
+    {
+        File image = sheet.getScore()
+                .getImageFile();
+
+        if (!image.isFile()) {
+            return null; // Image decoded from a stream
+        }
+
+        // The adaptive filter implementation is chosen by a constant
+        Class<?> filterClass = (desc.getKind() == FilterKind.ADAPTIVE)
+                ? AdaptiveFilter.getImplementationClass()
+                : desc.getKind().classe;
+
+        return image.getAbsolutePath() + "|" + image.length() + "|"
+               + image.lastModified() + "|" + sheet.getPage().getId() + "|"
+               + sheet.getWidth() + "x" + sheet.getHeight() + "|" + desc + "|"
+               + ((filterClass != null) ? filterClass.getName() : null);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        final Constant.Boolean writeCheckpoints = new Constant.Boolean(
+                false,
+                "Should we write a checkpoint after sheet binarization?"
+                + " (files are never purged)");
+
+        final Constant.Boolean resumeFromCheckpoints = new Constant.Boolean(
+                false,
+                "Should we reuse the binarization of a matching checkpoint?");
+
+    }
+}
@@ -0,0 +1,502 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                           S h e e t M e m o r y                            //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.sheet;
+
+import omr.Main;
+import omr.WellKnowns;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import omr.run.RunsTable;
+
+import omr.sheet.picture.Picture;
+import omr.sheet.picture.PictureLoader;
+
+import omr.step.Step;
+import omr.step.Steps;
+
+import omr.util.Memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.RenderedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class {@code SheetMemory} accounts for the memory held by the
+ * intermediate structures of a sheet, and decides when they can be
+ * evicted.
+ *
+ * <p>Each evictable {@link Item} is tied to the last step which needs it.
+ * Once this step is done on the sheet, the item is no longer needed by the
+ * following steps, and may be evicted: always in batch mode, and only when
+ * the global budget is exceeded in interactive mode.
+ * An evicted item is reloaded lazily by the sheet on next access, which is
+ * typically triggered by UI inspection or by processing the sheet again:
+ * <ul>
+ * <li>The picture is reloaded from the sheet image file. Hence a picture
+ * decoded from a stream is never evicted.</li>
+ * <li>The whole table of vertical runs is spilled to a temporary file.</li>
+ * </ul>
+ *
+ * <p>The horizontal and vertical lags are not handled here, since their
+ * sections are used by glyphs until the end of processing.
+ *
+ * <p>Sizes are estimated from the structures dimensions, and are summed over
+ * all sheets, to be compared with the budget, a ratio of the maximum heap
+ * size as reported by {@link Memory#max}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetMemory
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            SheetMemory.class);
+
+    /** Folder for spill files. */
+    private static final File SPILL_FOLDER = new File(
+            WellKnowns.TEMP_FOLDER,
+            "spill");
+
+    /** Bytes held by all sheets. */
+    private static final AtomicLong totalBytes = new AtomicLong();
+
+    //~ Enumerations -----------------------------------------------------------
+    /**
+     * The evictable intermediate structures of a sheet.
+     */
+    public static enum Item
+    {
+        //~ Enumeration constant initializers ----------------------------------
+
+        /** The sheet picture, with its raster. */
+        PICTURE(Steps.GRID),
+        /** The whole table of vertical runs. */
+        VERTICAL_RUNS(Steps.GRID);
+
+        //~ Instance fields ----------------------------------------------------
+        /** Name of the last step which needs this item. */
+        private final String lastStep;
+
+        //~ Constructors -------------------------------------------------------
+        Item (String lastStep)
+        {
+            this.lastStep = lastStep;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        /**
+         * Report whether this item is needed by the steps that follow
+         * the provided one.
+         *
+         * @param step the step just done
+         * @return true if still needed
+         */
+        public boolean isNeededAfter (Step step)
+        {
+            return Steps.compare(step, Steps.valueOf(lastStep)) < 0;
+        }
+    }
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Related sheet. */
+    private final Sheet sheet;
+
+    /** Estimated size of each item currently held in memory. */
+    private final Map<Item, Long> held = new EnumMap<>(Item.class);
+
+    /** Items evicted, with their spill file if any. */
+    private final Map<Item, File> evicted = new EnumMap<>(Item.class);
+
+    //~ Constructors -----------------------------------------------------------
+    //-------------//
+    // SheetMemory //
+    //-------------//
+    /**
+     * Creates a new SheetMemory object.
+     *
+     * @param sheet the related sheet
+     */
+    public SheetMemory (Sheet sheet)
+    {
+        this.sheet = sheet;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //-----------//
+    // getBudget //
+    //-----------//
+    /**
+     * Report the number of bytes that all sheets may hold in
+     * intermediate structures before eviction becomes mandatory.
+     *
+     * @return the budget in bytes
+     */
+    public static long getBudget ()
+    {
+        return (long) (Memory.max() * constants.budgetRatio.getValue());
+    }
+
+    //--------------//
+    // getHeldBytes //
+    //--------------//
+    /**
+     * Report the estimated number of bytes held by this sheet.
+     *
+     * @return the bytes held
+     */
+    public synchronized long getHeldBytes ()
+    {
+        long bytes = 0;
+
+        for (long size : held.values()) {
+            bytes += size;
+        }
+
+        return bytes;
+    }
+
+    //---------------//
+    // getTotalBytes //
+    //---------------//
+    /**
+     * Report the estimated number of bytes held by all sheets.
+     *
+     * @return the bytes held
+     */
+    public static long getTotalBytes ()
+    {
+        return totalBytes.get();
+    }
+
+    //-----------//
+    // isEvicted //
+    //-----------//
+    /**
+     * Report whether the provided item has been evicted.
+     *
+     * @param item the item at hand
+     * @return true if evicted, and thus to be reloaded
+     */
+    public synchronized boolean isEvicted (Item item)
+    {
+        return evicted.containsKey(item);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return "{SheetMemory held:" + held + " evicted:" + evicted.keySet()
+               + " total:" + String.format("%,d", getTotalBytes()) + "/"
+               + String.format("%,d", getBudget()) + "}";
+    }
+
+    //---------//
+    // evicted //
+    //---------//
+    /**
+     * Record that the provided item has been evicted.
+     *
+     * @param item  the evicted item
+     * @param spill the spill file, if any
+     */
+    synchronized void evicted (Item item,
+                               File spill)
+    {
+        release(item);
+        evicted.put(item, spill);
+    }
+
+    //---------------//
+    // getEvictables //
+    //---------------//
+    /**
+     * Report the items that should be evicted, now that the provided
+     * step has been done.
+     *
+     * @param step the step just done
+     * @return the items to evict, perhaps empty
+     */
+    synchronized List<Item> getEvictables (Step step)
+    {
+        if (!constants.evictIntermediates.isSet()
+            || ((Main.getGui() != null) && (getTotalBytes() <= getBudget()))) {
+            return Collections.emptyList();
+        }
+
+        List<Item> items = new ArrayList<>();
+
+        for (Item item : held.keySet()) {
+            if (!item.isNeededAfter(step)
+                && ((item != Item.PICTURE) || getImageFile().isFile())) {
+                items.add(item);
+            }
+        }
+
+        return items;
+    }
+
+    //------//
+    // hold //
+    //------//
+    /**
+     * Record that the provided item is now held in memory.
+     *
+     * @param item  the item at hand
+     * @param bytes its estimated size
+     */
+    synchronized void hold (Item item,
+                            long bytes)
+    {
+        release(item);
+        forget(item);
+        held.put(item, bytes);
+        totalBytes.addAndGet(bytes);
+    }
+
+    //---------------//
+    // reloadPicture //
+    //---------------//
+    /**
+     * Reload the evicted picture from the sheet image file.
+     *
+     * @return the reloaded picture, or null if failed
+     */
+    Picture reloadPicture ()
+    {
+        final int id = sheet.getPage()
+                .getIndex();
+
+        try {
+            RenderedImage image = PictureLoader.loadImages(
+                    getImageFile(),
+                    new TreeSet<>(Collections.singleton(id)))
+                    .get(id);
+            Picture picture = new Picture(image, sheet.getLocationService());
+            hold(Item.PICTURE, sizeOf(picture));
+            logger.debug("{}Picture reloaded", sheet.getLogPrefix());
+
+            return picture;
+        } catch (Exception ex) {
+            logger.warn("Could not reload picture of " + sheet, ex);
+
+            return null;
+        }
+    }
+
+    //------------//
+    // reloadRuns //
+    //------------//
+    /**
+     * Reload the evicted table of vertical runs from its spill file.
+     *
+     * @return the reloaded table, or null if failed
+     */
+    RunsTable reloadRuns ()
+    {
+        final File file;
+
+        synchronized (this) {
+            file = evicted.get(Item.VERTICAL_RUNS);
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            RunsTable table = RunsTable.read(in);
+            hold(Item.VERTICAL_RUNS, sizeOf(table));
+            logger.debug("{}Vertical runs reloaded", sheet.getLogPrefix());
+
+            return table;
+        } catch (Exception ex) {
+            logger.warn("Could not reload runs of " + sheet, ex);
+
+            return null;
+        }
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Forget the provided item, which the sheet no longer refers to.
+     *
+     * @param item the item at hand
+     */
+    synchronized void remove (Item item)
+    {
+        release(item);
+        forget(item);
+    }
+
+    //--------//
+    // sizeOf //
+    //--------//
+    /**
+     * Estimate the memory size of a picture, at one byte per pixel.
+     *
+     * @param picture the picture
+     * @return the estimated size in bytes
+     */
+    static long sizeOf (Picture picture)
+    {
+        return (long) picture.getWidth() * picture.getHeight();
+    }
+
+    //--------//
+    // sizeOf //
+    //--------//
+    /**
+     * Estimate the memory size of a runs table, in packed form.
+     *
+     * @param table the runs table
+     * @return the estimated size in bytes
+     */
+    static long sizeOf (RunsTable table)
+    {
+        long runs = 0;
+
+        for (int index = 0; index < table.getSize(); index++) {
+            runs += table.getSequenceSize(index);
+        }
+
+        // Two ints per run, plus an array header per sequence
+        return (8 * runs) + (16L * table.getSize());
+    }
+
+    //-----------//
+    // spillRuns //
+    //-----------//
+    /**
+     * Write the provided table of vertical runs to a spill file.
+     * The file is deleted when the item is forgotten, that is when the
+     * table is reloaded or the sheet removed.
+     *
+     * @param table the table to spill
+     * @return the spill file, or null if failed
+     */
+    File spillRuns (RunsTable table)
+    {
+        File file = null;
+
+        try {
+            Files.createDirectories(SPILL_FOLDER.toPath());
+            file = File.createTempFile(
+                    sheet.getScore().getRadix() + "-p"
+                    + sheet.getPage().getId() + "-",
+                    ".runs",
+                    SPILL_FOLDER);
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file)))) {
+                table.write(out);
+            }
+
+            logger.debug("{}Vertical runs spilled to {}",
+                    sheet.getLogPrefix(), file);
+
+            return file;
+        } catch (IOException ex) {
+            logger.warn("Could not spill runs of " + sheet, ex);
+
+            if ((file != null) && !file.delete()) {
+                logger.warn("Could not delete {}", file);
+            }
+
+            return null;
+        }
+    }
+
+    //--------//
+    // forget //
+    //--------//
+    /**
+     * Forget the eviction of provided item, deleting its spill file.
+     */
+    private void forget (Item item)
+    {
+        File spill = evicted.remove(item);
+
+        if ((spill != null) && !spill.delete()) {
+            logger.warn("Could not delete {}", spill);
+        }
+    }
+
+    //--------------//
+    // getImageFile //
+    //--------------//
+    private File getImageFile ()
+    {
+        return sheet.getScore()
+                .getImageFile();
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Stop accounting for the provided item.
+     */
+    private void release (Item item)
+    {
+        Long bytes = held.remove(item);
+
+        if (bytes != null) {
+            totalBytes.addAndGet(-bytes);
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        final Constant.Boolean evictIntermediates = new Constant.Boolean(
+                true,
+                "Should we evict sheet structures no longer needed?");
+
+        final Constant.Ratio budgetRatio = new Constant.Ratio(
+                0.5,
+                "Heap ratio allowed for sheet structures in interactive mode");
+
+    }
+}
@@ -34,6 +34,10 @@ import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
@@ -49,7 +53,8 @@ import javax.media.jai.PlanarImage;
  * Its current implementation is based on JAI (Java Advanced Imaging).
  *
  * <p> Operations allow : <ul>
- * <li> To <b>render</b> the (original) image in a graphic context </li>
+ * <li> To <b>render</b> the (original) image in a graphic context, using a
+ * reduced version of the image when the display is zoomed out</li>
  * <li> To report current image <b>dimension</b> parameters</li>
  * <li> To <b>read</b> a pixel knowing its location in the current image </li>
  * </ul> </p>
@@ -84,6 +89,13 @@ public class Picture
     /** Current image. */
     private PlanarImage image;
 
+    /**
+     * Pyramid of reduced images for display, lazily built.
+     * Level 0 is the image itself, each level being half the size of the
+     * previous one.
+     */
+    private PlanarImage[] levels;
+
     /** Service object where gray level of pixel is to be written to
      * when so asked for by the onEvent() method. */
     private final SelectionService levelService;
@@ -94,6 +106,30 @@ public class Picture
     /** The factor to apply to raw pixel value to get gray level on 0..255 */
     private int grayFactor = 1;
 
+    /**
+     * Direct access to pixel gray levels, one byte per pixel, or null if
+     * pixels must be read otherwise.
+     */
+    private byte[] pixels;
+
+    /**
+     * Direct access to packed pixel samples (such as bilevel pixels, 8 per
+     * byte), or null if pixels must be read otherwise.
+     */
+    private byte[] packedPixels;
+
+    /** Number of bits per packed pixel. */
+    private int pixelBits;
+
+    /** Index of the bit of packed pixel (0, 0) in its row. */
+    private int dataBitOffset;
+
+    /** Index in pixels (or packedPixels) array of the row at ordinate 0. */
+    private int pixelsOffset;
+
+    /** Distance in pixels (or packedPixels) array between two rows. */
+    private int scanlineStride;
+
     /**
      * The implicit (maximum) value for foreground pixels, as determined
      * by the picture itself, null if undetermined.
@@ -146,13 +182,13 @@ public class Picture
     public final int getPixel (int x,
                                int y)
     {
-        int[] pixel = raster.getPixel(x, y, (int[]) null); // Allocates pixel!
-
-        if (grayFactor == 1) {
+        if (pixels != null) {
             // Speed up the normal case
-            return pixel[0];
+            return pixels[pixelsOffset + (y * scanlineStride) + x] & 0xFF;
+        } else if (packedPixels != null) {
+            return toGray(getPackedSample(x, y));
         } else {
-            return (grayFactor / 2) + (grayFactor * pixel[0]);
+            return toGray(raster.getSample(x, y, 0));
         }
     }
 
@@ -165,6 +201,14 @@ public class Picture
      */
     public void close ()
     {
+        if (levels != null) {
+            for (int level = 1; level < levels.length; level++) {
+                if (levels[level] != null) {
+                    levels[level].dispose();
+                }
+            }
+        }
+
         if (image != null) {
             image.dispose();
         }
@@ -235,6 +279,32 @@ public class Picture
         logger.info(sb.toString());
     }
 
+    //-----------//
+    // getColumn //
+    //-----------//
+    @Override
+    public void getColumn (int x,
+                           int yMin,
+                           int yMax,
+                           int[] pixels)
+    {
+        if (this.pixels != null) {
+            for (int y = yMin, i = pixelsOffset + (yMin * scanlineStride) + x;
+                    y <= yMax; y++, i += scanlineStride) {
+                pixels[y - yMin] = this.pixels[i] & 0xFF;
+            }
+        } else if (packedPixels != null) {
+            for (int y = yMin; y <= yMax; y++) {
+                pixels[y - yMin] = getPackedSample(x, y);
+            }
+
+            toGray(pixels, yMax - yMin + 1);
+        } else {
+            raster.getSamples(x, yMin, 1, yMax - yMin + 1, 0, pixels);
+            toGray(pixels, yMax - yMin + 1);
+        }
+    }
+
     //--------------//
     // getDimension //
     //--------------//
@@ -296,6 +366,33 @@ public class Picture
         return "Picture";
     }
 
+    //--------//
+    // getRow //
+    //--------//
+    @Override
+    public void getRow (int y,
+                        int xMin,
+                        int xMax,
+                        int[] pixels)
+    {
+        if (this.pixels != null) {
+            final int offset = (pixelsOffset + (y * scanlineStride)) - xMin;
+
+            for (int x = xMin; x <= xMax; x++) {
+                pixels[x - xMin] = this.pixels[offset + x] & 0xFF;
+            }
+        } else if (packedPixels != null) {
+            for (int x = xMin; x <= xMax; x++) {
+                pixels[x - xMin] = getPackedSample(x, y);
+            }
+
+            toGray(pixels, xMax - xMin + 1);
+        } else {
+            raster.getSamples(xMin, y, xMax - xMin + 1, 1, 0, pixels);
+            toGray(pixels, xMax - xMin + 1);
+        }
+    }
+
     //----------//
     // getWidth //
     //----------//
@@ -359,13 +456,26 @@ public class Picture
     //--------//
     /**
      * Paint the picture image in the provided graphic context.
+     * If the context is zoomed out, the smallest reduced image whose
+     * resolution is not lower than the display resolution is painted instead.
      *
      * @param g the Graphics context
      */
     public void render (Graphics g)
     {
         Graphics2D g2 = (Graphics2D) g;
-        g2.drawRenderedImage(image, identity);
+        int level = getLevel(g2.getTransform().getScaleX());
+
+        if (level == 0) {
+            g2.drawRenderedImage(image, identity);
+        } else {
+            PlanarImage reduced = getReducedImage(level);
+            g2.drawRenderedImage(
+                    reduced,
+                    AffineTransform.getScaleInstance(
+                    (double) image.getWidth() / reduced.getWidth(),
+                    (double) image.getHeight() / reduced.getHeight()));
+        }
     }
 
     //----------//
@@ -498,6 +608,72 @@ public class Picture
         }
     }
 
+    //----------//
+    // getLevel //
+    //----------//
+    /**
+     * Report the pyramid level to use for the provided display ratio.
+     *
+     * @param ratio the display zoom ratio
+     * @return the highest level whose resolution is not lower than ratio
+     */
+    private int getLevel (double ratio)
+    {
+        int level = 0;
+
+        while ((level < (levels.length - 1))
+               && ((ratio * (1 << (level + 1))) <= 1)) {
+            level++;
+        }
+
+        return level;
+    }
+
+    //-----------------//
+    // getPackedSample //
+    //-----------------//
+    /**
+     * Read the raw sample of a packed pixel, the first pixel of a byte
+     * being in its most significant bits.
+     *
+     * @param x abscissa value
+     * @param y ordinate value
+     * @return the raw sample value
+     */
+    private int getPackedSample (int x,
+                                 int y)
+    {
+        final int bit = dataBitOffset + (x * pixelBits);
+        final int data = packedPixels[pixelsOffset + (y * scanlineStride)
+                                      + (bit >>> 3)] & 0xFF;
+
+        return (data >>> (8 - pixelBits - (bit & 7))) & ((1 << pixelBits) - 1);
+    }
+
+    //-----------------//
+    // getReducedImage //
+    //-----------------//
+    /**
+     * Report the reduced image at provided pyramid level, building it
+     * from the previous level if needed.
+     *
+     * @param level the pyramid level
+     * @return the image reduced by 2^level
+     */
+    private synchronized PlanarImage getReducedImage (int level)
+    {
+        if (levels[level] == null) {
+            ParameterBlock pb = new ParameterBlock();
+            pb.addSource(getReducedImage(level - 1));
+            pb.add(0.5);
+            pb.add(0.5);
+            levels[level] = JAI.create("SubsampleAverage", pb);
+            logger.debug("Pyramid level {} for {}", level, getName());
+        }
+
+        return levels[level];
+    }
+
     //-------------//
     // printBounds //
     //-------------//
@@ -520,6 +696,91 @@ public class Picture
         image = PlanarImage.wrapRenderedImage(renderedImage);
 
         checkImage();
+
+        int maxLevel = Math.max(0, constants.maxPyramidLevel.getValue());
+        levels = new PlanarImage[maxLevel + 1];
+        levels[0] = image;
+    }
+
+    //-----------//
+    // setPixels //
+    //-----------//
+    /**
+     * Set up the direct access to pixel gray levels, when possible.
+     * A raster of one 8-bit band is accessed in place, and so is a raster of
+     * packed pixels (typically a bilevel image, 8 pixels per byte), without
+     * any expansion. Any other raster is left to raster access.
+     */
+    private void setPixels ()
+    {
+        final SampleModel model = raster.getSampleModel();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        pixels = null;
+        packedPixels = null;
+
+        if ((grayFactor == 1)
+            && dataBuffer instanceof DataBufferByte
+            && model instanceof ComponentSampleModel
+            && (((ComponentSampleModel) model).getPixelStride() == 1)) {
+            // Direct access to the underlying bytes
+            ComponentSampleModel cModel = (ComponentSampleModel) model;
+            int bank = cModel.getBankIndices()[0];
+            pixels = ((DataBufferByte) dataBuffer).getData(bank);
+            pixelsOffset = dataBuffer.getOffsets()[bank]
+                           + cModel.getBandOffsets()[0];
+            scanlineStride = cModel.getScanlineStride();
+        } else if (dataBuffer instanceof DataBufferByte
+                   && model instanceof MultiPixelPackedSampleModel) {
+            // Direct access to the underlying packed bytes
+            MultiPixelPackedSampleModel mModel =
+                    (MultiPixelPackedSampleModel) model;
+            packedPixels = ((DataBufferByte) dataBuffer).getData();
+            pixelBits = mModel.getPixelBitStride();
+            dataBitOffset = mModel.getDataBitOffset();
+            pixelsOffset = dataBuffer.getOffset();
+            scanlineStride = mModel.getScanlineStride();
+        }
+
+        logger.debug(
+                "Direct pixel access: {}",
+                (pixels != null) || (packedPixels != null));
+    }
+
+    //--------//
+    // toGray //
+    //--------//
+    /**
+     * Convert a raw raster sample to a gray level.
+     *
+     * @param sample the raw sample value
+     * @return the gray level
+     */
+    private int toGray (int sample)
+    {
+        if (grayFactor == 1) {
+            return sample;
+        } else {
+            return (grayFactor / 2) + (grayFactor * sample);
+        }
+    }
+
+    //--------//
+    // toGray //
+    //--------//
+    /**
+     * Convert in place a sequence of raw raster samples to gray levels.
+     *
+     * @param samples the raw sample values
+     * @param count   the number of samples to convert
+     */
+    private void toGray (int[] samples,
+                         int count)
+    {
+        if (grayFactor != 1) {
+            for (int i = 0; i < count; i++) {
+                samples[i] = toGray(samples[i]);
+            }
+        }
     }
 
     //--------------//
@@ -554,6 +815,8 @@ public class Picture
         }
 
         logger.debug("grayFactor={}", grayFactor);
+
+        setPixels();
     }
 
     //~ Inner Classes ----------------------------------------------------------
@@ -569,5 +832,10 @@ public class Picture
                 true,
                 "Should we use max channel rather than standard luminance?");
 
+        Constant.Integer maxPyramidLevel = new Constant.Integer(
+                "Levels",
+                3,
+                "Maximum number of halvings of the image for display");
+
     }
 }
@@ -25,6 +25,7 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -37,6 +38,7 @@ import java.util.TreeMap;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 
 /**
  * Class {@code PictureLoader} gathers helper functions for {@link
@@ -118,6 +120,51 @@ public class PictureLoader
         return images;
     }
 
+    //------------//
+    // loadImages //
+    //------------//
+    /**
+     * Loads a sequence of RenderedImage instances from an input stream.
+     *
+     * Only ImageIO is used here, since PDF and JAI loaders need a file.
+     * The stream data is cached in memory only as long as the image reader
+     * may need to seek back, no temporary file is created.
+     *
+     * @param is    the input stream (not closed by this method)
+     * @param name  a name for the input, used only for logging
+     * @param pages if not null or empty, specifies (counted from 1) which
+     *              pages are desired. Otherwise all pages are loaded.
+     * @return a sorted map of RenderedImage's, id counted from 1, or null
+     *         if no image could be loaded
+     */
+    public static SortedMap<Integer, RenderedImage> loadImages (InputStream is,
+                                                                String name,
+                                                                SortedSet<Integer> pages)
+    {
+        logger.info("Loading {} ...", name);
+
+        ImageInputStream stream = new MemoryCacheImageInputStream(is);
+
+        try {
+            SortedMap<Integer, RenderedImage> images = loadImageIO(
+                    stream,
+                    name,
+                    pages,
+                    0);
+
+            if (images == null) {
+                logger.warn("Unable to load any image from {}", name);
+            }
+
+            return images;
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     //-------------//
     // loadImageIO //
     //-------------//
@@ -154,52 +201,72 @@ public class PictureLoader
         }
 
         try {
-            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            return loadImageIO(stream, imgFile.getName(), pages, offset);
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
 
-            if (!readers.hasNext()) {
-                logger.debug("No ImageIO reader");
+    //-------------//
+    // loadImageIO //
+    //-------------//
+    /**
+     * Try to load a sequence of images out of an ImageIO stream.
+     *
+     * @param stream the ImageIO input stream (not closed by this method)
+     * @param name   name of the input, for logging
+     * @param pages  if not null or empty, specifies (counted from 1) which
+     *               precise pages are desired. Otherwise all pages are loaded.
+     * @param offset specify offset on page ids.
+     * @return a map (id -> image), or null if failed to load
+     */
+    private static SortedMap<Integer, RenderedImage> loadImageIO (ImageInputStream stream,
+                                                                  String name,
+                                                                  SortedSet<Integer> pages,
+                                                                  int offset)
+    {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
 
-                return null;
-            }
+        if (!readers.hasNext()) {
+            logger.debug("No ImageIO reader");
+
+            return null;
+        }
 
-            ImageReader reader = readers.next();
+        ImageReader reader = readers.next();
 
-            try {
-                reader.setInput(stream, false);
+        try {
+            reader.setInput(stream, false);
 
-                int imageCount = reader.getNumImages(true);
+            int imageCount = reader.getNumImages(true);
 
-                if (imageCount > 1) {
-                    logger.info("{} contains {} images",
-                            imgFile.getName(), imageCount);
-                }
+            if (imageCount > 1) {
+                logger.info("{} contains {} images", name, imageCount);
+            }
+
+            SortedMap<Integer, RenderedImage> images = new TreeMap<>();
 
-                SortedMap<Integer, RenderedImage> images = new TreeMap<>();
-
-                for (int i = 1; i <= imageCount; i++) {
-                    int id = i + offset;
-                    if ((pages == null) || pages.isEmpty()
-                        || (pages.contains(id))) {
-                        BufferedImage img = reader.read(i - 1);
-                        images.put(id, img);
-                        logger.info("Loaded image #{} ({} x {})",
-                                id, img.getWidth(), img.getHeight());
-                    }
+            for (int i = 1; i <= imageCount; i++) {
+                int id = i + offset;
+                if ((pages == null) || pages.isEmpty()
+                    || (pages.contains(id))) {
+                    BufferedImage img = reader.read(i - 1);
+                    images.put(id, img);
+                    logger.info("Loaded image #{} ({} x {})",
+                            id, img.getWidth(), img.getHeight());
                 }
+            }
 
-                return images;
-            } catch (Exception ex) {
-                logger.warn("ImageIO failed", ex);
+            return images;
+        } catch (Exception ex) {
+            logger.warn("ImageIO failed", ex);
 
-                return null;
-            } finally {
-                reader.dispose();
-            }
+            return null;
         } finally {
-            try {
-                stream.close();
-            } catch (IOException ignored) {
-            }
+            reader.dispose();
         }
     }
 
@@ -35,6 +35,9 @@ import java.beans.PropertyChangeListener;
  * Class {@code PictureView} defines the view dedicated to the display of
  * the picture image of a music sheet.
  *
+ * <p>The picture image is the static layer of the view, cached in tiles,
+ * while the score entities are rendered on top of it at each repaint.
+ *
  * @author Hervé Bitteur
  */
 public class PictureView
@@ -87,7 +90,8 @@ public class PictureView
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
-        view.repaint();
+        // Input painting may have been switched on or off
+        view.invalidateTiles();
     }
 
     //~ Inner Classes ----------------------------------------------------------
@@ -97,6 +101,13 @@ public class PictureView
     private class MyView
             extends RubberPanel
     {
+        //~ Constructors -------------------------------------------------------
+
+        public MyView ()
+        {
+            setTiled(true);
+        }
+
         //~ Methods ------------------------------------------------------------
 
         //--------//
@@ -107,21 +118,6 @@ public class PictureView
         {
             PaintingParameters painting = PaintingParameters.getInstance();
 
-            // Render the picture image
-            if (painting.isInputPainting()) {
-                sheet.getPicture()
-                        .render(g);
-            } else {
-                // Use a white background
-                Color oldColor = g.getColor();
-                g.setColor(Color.WHITE);
-
-                Rectangle rect = g.getClipBounds();
-
-                g.fill(rect);
-                g.setColor(oldColor);
-            }
-
             // Render the recognized score entities?
             if (painting.isOutputPainting()) {
                 if (sheet.getTargetBuilder() != null) {
@@ -145,5 +141,28 @@ public class PictureView
                 }
             }
         }
+
+        //--------------//
+        // renderStatic //
+        //--------------//
+        @Override
+        protected void renderStatic (Graphics2D g)
+        {
+            // Render the picture image
+            if (PaintingParameters.getInstance()
+                    .isInputPainting()) {
+                sheet.getPicture()
+                        .render(g);
+            } else {
+                // Use a white background
+                Color oldColor = g.getColor();
+                g.setColor(Color.WHITE);
+
+                Rectangle rect = g.getClipBounds();
+
+                g.fill(rect);
+                g.setColor(oldColor);
+            }
+        }
     }
 }
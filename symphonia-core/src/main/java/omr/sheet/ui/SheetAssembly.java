@@ -486,7 +486,7 @@ public class SheetAssembly
             rubberPanel.setRubber(rubber);
 
             // Set the model size
-            if (sheet.getPicture() != null) {
+            if (sheet.hasPicture()) {
                 rubberPanel.setModelSize(sheet.getDimension());
             }
 
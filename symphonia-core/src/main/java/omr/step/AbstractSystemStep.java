@@ -23,7 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.Callable;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class {@code AbstractSystemStep} is a basis for any step working in
@@ -164,7 +164,9 @@ public abstract class AbstractSystemStep
     // doitPerSystem //
     //---------------//
     /**
-     * Launch the system processing in parallel, one task per system
+     * Launch the system processing in parallel, one task per system.
+     * The system tasks are forked from the current page task, if any, so
+     * that idle threads can steal them.
      *
      * @param systems the systems to process
      * @param sheet   the containing sheet
@@ -172,45 +174,44 @@ public abstract class AbstractSystemStep
     private void doitPerSystem (Collection<SystemInfo> systems,
                                 final Sheet sheet)
     {
-        try {
-            Collection<Callable<Void>> tasks = new ArrayList<>();
+        Collection<RecursiveAction> tasks = new ArrayList<>();
 
-            if (systems == null) {
-                systems = sheet.getSystems();
-            }
+        if (systems == null) {
+            systems = sheet.getSystems();
+        }
 
-            for (SystemInfo info : systems) {
-                final SystemInfo system = info;
-                tasks.add(
-                        new Callable<Void>()
+        for (SystemInfo info : systems) {
+            final SystemInfo system = info;
+            tasks.add(
+                    new RecursiveAction()
+            {
+                @Override
+                protected void compute ()
                 {
-                    @Override
-                    public Void call ()
-                            throws Exception
-                    {
-                        try {
-                            logger.debug("{} doSystem #{}",
-                                    AbstractSystemStep.this,
-                                    system.idString());
-
-                            doSystem(system);
-                        } catch (Exception ex) {
-                            logger.warn(sheet.getLogPrefix()
-                                        + "Interrupt on "
-                                        + system.idString(),
-                                    ex);
-                        }
-
-                        return null;
+                    try {
+                        logger.debug("{} doSystem #{}",
+                                AbstractSystemStep.this,
+                                system.idString());
+
+                        doSystem(system);
+                    } catch (ProcessingCancellationException ex) {
+                        throw ex;
+                    } catch (Exception ex) {
+                        logger.warn(sheet.getLogPrefix()
+                                    + "Interrupt on "
+                                    + system.idString(),
+                                ex);
                     }
-                });
-            }
+                }
+            });
+        }
 
-            // Launch all system tasks in parallel and wait for their completion
-            OmrExecutors.getLowExecutor().invokeAll(tasks);
-        } catch (InterruptedException ex) {
+        // Launch all system tasks in parallel and wait for their completion
+        try {
+            OmrExecutors.invokeAll(tasks);
+        } catch (ProcessingCancellationException ex) {
             logger.warn("doitPerSystem got interrupted");
-            throw new ProcessingCancellationException(ex);
+            throw ex;
         }
     }
 }
@@ -11,8 +11,6 @@
 // </editor-fold>
 package omr.step;
 
-import omr.score.DurationRetriever;
-import omr.score.MeasureFixer;
 import omr.score.Score;
 import omr.score.ScoreReduction;
 import omr.score.entity.Page;
@@ -105,20 +103,18 @@ public class ScoreStep
         ScoreReduction reduction = new ScoreReduction(score);
         reduction.reduce();
 
-        // This work needs to know which time sig governs any measure, and this
-        // time sig may be inherited from a previous page, therefore it cannot
-        // be performed on every page in isolation (except when the page starts
-        // with an explicit time sig).
+        // Pages are merged in sequence, each one depending on the preceding
+        // ones. Pages already merged during the processing of the sheets are
+        // skipped, unless a preceding page has had to be merged again.
+        boolean upToDate = true;
+
         for (TreeNode pn : score.getPages()) {
             Page page = (Page) pn;
 
-            // - Retrieve the actual duration of every measure
-            page.accept(new DurationRetriever());
-
-            // - Check all voices timing, assign forward items if needed.
-            // - Detect special measures and assign proper measure ids
-            // If needed, we can trigger a reprocessing of this page
-            page.accept(new MeasureFixer());
+            if (!upToDate || !page.isMerged()) {
+                upToDate = false;
+                ScoreReduction.mergePage(page);
+            }
 
             // Connect slurs across pages
             page.getFirstSystem()
@@ -0,0 +1,50 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                          S t e p L i s t e n e r                           //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.step;
+
+import omr.sheet.Sheet;
+
+/**
+ * Interface {@code StepListener} is meant to be notified of the
+ * progression of steps on sheets, independently of any user interface.
+ *
+ * <p>Notifications are made synchronously, on the thread that performs the
+ * step, so implementations must be quick and thread-safe.</p>
+ *
+ * @see Stepping#addListener(StepListener)
+ *
+ * @author Hervé Bitteur
+ */
+public interface StepListener
+{
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Notify that the provided step has started on the provided sheet.
+     *
+     * @param sheet the sheet concerned
+     * @param step  the step started
+     */
+    void stepStarted (Sheet sheet,
+                      Step step);
+
+    /**
+     * Notify that the provided step has stopped on the provided sheet.
+     * The step may have stopped without completing, which can be checked
+     * via {@link Step#isDone(Sheet)}.
+     *
+     * @param sheet the sheet concerned
+     * @param step  the step stopped
+     */
+    void stepStopped (Sheet sheet,
+                      Step step);
+}
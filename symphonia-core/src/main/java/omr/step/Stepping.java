@@ -11,7 +11,10 @@
 // </editor-fold>
 package omr.step;
 
+import omr.glyph.ui.SymbolsEditor;
+
 import omr.score.Score;
+import omr.score.ScoreReduction;
 import omr.score.entity.Page;
 import omr.score.ui.ScoreActions;
 
@@ -31,12 +34,19 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 
 import javax.swing.SwingUtilities;
@@ -58,6 +68,9 @@ public class Stepping
     /** Related progress monitor when used in interactive mode. */
     private static volatile StepMonitor monitor;
 
+    /** Listeners on step progression, whatever the mode. */
+    private static final List<StepListener> listeners = new CopyOnWriteArrayList<>();
+
     //~ Constructors -----------------------------------------------------------
     /**
      * Not meant to be instantiated.
@@ -68,6 +81,19 @@ public class Stepping
 
     //~ Methods ----------------------------------------------------------------
     //
+    //-------------//
+    // addListener //
+    //-------------//
+    /**
+     * Register a listener on step progression.
+     *
+     * @param listener the listener to add
+     */
+    public static void addListener (StepListener listener)
+    {
+        listeners.add(listener);
+    }
+
     //---------------//
     // createMonitor //
     //---------------//
@@ -100,6 +126,11 @@ public class Stepping
         long startTime = System.currentTimeMillis();
         logger.debug("{}{} starting", sheet.getLogPrefix(), step);
 
+        // Any new sheet-level processing invalidates a previous page merge
+        if (!step.isScoreLevel()) {
+            sheet.getPage().setMerged(false);
+        }
+
         // Standard processing on an existing sheet
         step.doStep(systems, sheet);
 
@@ -162,8 +193,8 @@ public class Stepping
     // notifyStep //
     //------------//
     /**
-     * Notify the UI part that the provided step has started or stopped
-     * in the provided sheet.
+     * Notify the registered listeners, as well as the UI part, that the
+     * provided step has started or stopped in the provided sheet.
      *
      * @param sheet the sheet concerned
      * @param step  the step notified
@@ -171,8 +202,21 @@ public class Stepping
     static void notifyStep (final Sheet sheet,
                             final Step step)
     {
+        final boolean finished = sheet.getCurrentStep() == null;
+
+        for (StepListener listener : listeners) {
+            try {
+                if (finished) {
+                    listener.stepStopped(sheet, step);
+                } else {
+                    listener.stepStarted(sheet, step);
+                }
+            } catch (Exception ex) {
+                logger.warn("Error notifying " + listener, ex);
+            }
+        }
+
         if (monitor != null) {
-            final boolean finished = sheet.getCurrentStep() == null;
             SwingUtilities.invokeLater(
                     new Runnable()
             {
@@ -183,6 +227,14 @@ public class Stepping
                     if (finished) {
                         step.displayUI(sheet);
                         sheet.getAssembly().selectViewTab(step);
+
+                        // The step may have purged sections or assigned
+                        // shapes, without any glyph event
+                        SymbolsEditor editor = sheet.getSymbolsEditor();
+
+                        if (editor != null) {
+                            editor.refresh();
+                        }
                     }
 
                     // Call attention to this sheet (only if displayed), 
@@ -213,6 +265,19 @@ public class Stepping
         }
     }
 
+    //----------------//
+    // removeListener //
+    //----------------//
+    /**
+     * Unregister a listener on step progression.
+     *
+     * @param listener the listener to remove
+     */
+    public static void removeListener (StepListener listener)
+    {
+        listeners.remove(listener);
+    }
+
     //--------------//
     // processScore //
     //--------------//
@@ -445,55 +510,98 @@ public class Stepping
      * <p>We can perform all the pages in parallel or in sequence, depending on
      * the value of constant 'pagesInParallel'.</p>
      *
+     * <p>Each page goes through the whole set of steps on its own, without
+     * waiting for the other pages. If so desired, pages are merged one after
+     * the other, as soon as all the preceding pages are completed, so that
+     * the final SCORE step has little left to do.</p>
+     *
      * @param stepSet the set of steps
      * @param score   the score to be processed
-     * @throws StepException
+     * @param merging true if completed pages are to be merged
      */
     private static void doScoreStepSet (final SortedSet<Step> stepSet,
-                                        final Score score)
+                                        final Score score,
+                                        boolean merging)
     {
+        final List<Page> pages = new ArrayList<>();
+
+        for (TreeNode pn : score.getPages()) {
+            pages.add((Page) pn);
+        }
+
+        final PageMerger merger = merging ? new PageMerger(pages) : null;
+
         if (score.isMultiPage()) {
             if (OmrExecutors.defaultParallelism.getTarget() == true) {
                 // Process all sheets in parallel
-                List<Callable<Void>> tasks = new ArrayList<>();
-
-                for (TreeNode pn : new ArrayList<>(score.getPages())) {
-                    final Page page = (Page) pn;
-
-                    tasks.add(
-                            new Callable<Void>()
+                // Each page task forks its system tasks in the same pool
+                CompletionService<Page> service = new ExecutorCompletionService<>(
+                        OmrExecutors.getForkJoinPool());
+                Map<Future<Page>, Page> futures = new HashMap<>();
+
+                // Keep the list of pages stable while merging completed pages
+                score.setRemovalsDeferred(true);
+
+                for (final Page page : pages) {
+                    futures.put(
+                            service.submit(
+                            new Callable<Page>()
                     {
                         @Override
-                        public Void call ()
+                        public Page call ()
                                 throws StepException
                         {
-                            doSheetStepSet(
-                                    stepSet,
-                                    page.getSheet(),
-                                    null);
+                            doSheetStepSet(stepSet, page.getSheet(), null);
 
-                            return null;
+                            return page;
                         }
-                    });
+                    }),
+                            page);
                 }
 
+                // Handle each page as soon as it is completed
                 try {
-                    List<Future<Void>> futures = OmrExecutors.
-                            getCachedLowExecutor().invokeAll(tasks);
+                    for (int i = 0; i < pages.size(); i++) {
+                        Future<Page> future = service.take();
+
+                        try {
+                            future.get();
+                        } catch (ExecutionException ex) {
+                            logger.warn("Error in parallel doScoreStepSet",
+                                    ex.getCause());
+                        }
+
+                        if (merger != null) {
+                            merger.pageCompleted(futures.get(future));
+                        }
+                    }
                 } catch (InterruptedException ex) {
                     logger.warn("Error in parallel doScoreStepSet", ex);
+
+                    for (Future<Page> future : futures.keySet()) {
+                        future.cancel(true);
+                    }
+                } finally {
+                    score.setRemovalsDeferred(false);
                 }
             } else {
                 // Process one sheet after the other
-                for (TreeNode pn : new ArrayList<>(score.getPages())) {
-                    Page page = (Page) pn;
-
+                for (Page page : pages) {
                     doSheetStepSet(stepSet, page.getSheet(), null);
+
+                    if (merger != null) {
+                        merger.pageCompleted(page);
+                    }
                 }
             }
         } else {
             // Process the single sheet
-            doSheetStepSet(stepSet, score.getFirstPage().getSheet(), null);
+            Page page = score.getFirstPage();
+            doSheetStepSet(stepSet, page.getSheet(), null);
+
+            if (merger != null) {
+                merger.pageCompleted(page);
+            }
         }
     }
 
@@ -598,24 +706,9 @@ public class Stepping
         notifyStart();
 
         try {
-            // SCALE step, if present, is always the first step
-            // We perform this step on all sheets, to allow early filtering
-            Step scaleStep = Steps.valueOf(Steps.SCALE);
-
-            if (stepSet.contains(scaleStep)) {
-                SortedSet<Step> single = new TreeSet<>(comparator);
-                single.add(scaleStep);
-                stepSet.remove(scaleStep);
-
-                doScoreStepSet(single, score);
-
-                if (!score.isMultiPage()
-                    && (score.getFirstPage().getSheet().getScale() == null)) {
-                    throw new StepException("No scale available");
-                }
-            }
-
-            // Perform the remaining steps at sheet level, if any
+            // Perform the steps at sheet level, if any, page per page.
+            // There is no barrier between steps: every page goes through all
+            // its steps, regardless of the progress of the other pages.
             SortedSet<Step> sheetSet = new TreeSet<>(comparator);
 
             for (Step step : stepSet) {
@@ -625,7 +718,19 @@ public class Stepping
             }
 
             stepSet.removeAll(sheetSet);
-            doScoreStepSet(sheetSet, score);
+
+            if (!sheetSet.isEmpty()) {
+                doScoreStepSet(
+                        sheetSet,
+                        score,
+                        stepSet.contains(Steps.valueOf(Steps.SCORE)));
+
+                if (sheetSet.contains(Steps.valueOf(Steps.SCALE))
+                    && !score.isMultiPage()
+                    && (score.getFirstPage().getSheet().getScale() == null)) {
+                    throw new StepException("No scale available");
+                }
+            }
 
             // Finally, perform steps that must be done at score level
             // SCORE step if present, must be done first, and in case of failure
@@ -653,4 +758,68 @@ public class Stepping
         long stopTime = System.currentTimeMillis();
         logger.debug("End of step set in {} ms.", (stopTime - startTime));
     }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //------------//
+    // PageMerger //
+    //------------//
+    /**
+     * Merges the completed pages, in page order, as soon as all their
+     * preceding pages are completed as well.
+     * Its methods are meant to be called from one thread only.
+     * It works on a snapshot of the score pages, and page removals are
+     * deferred while pages are being processed in parallel, so that the
+     * score pages do not change under the merging of a page.
+     */
+    private static class PageMerger
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        /** The pages to merge, in score order. */
+        private final List<Page> pages;
+
+        /** The pages completed so far. */
+        private final Set<Page> completed = new HashSet<>();
+
+        /** Index of the next page to merge. */
+        private int next;
+
+        //~ Constructors -------------------------------------------------------
+        public PageMerger (List<Page> pages)
+        {
+            this.pages = pages;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        //---------------//
+        // pageCompleted //
+        //---------------//
+        /**
+         * Record that the provided page has completed its steps, and
+         * merge all pages that can now be merged.
+         *
+         * @param page the completed page
+         */
+        public void pageCompleted (Page page)
+        {
+            completed.add(page);
+
+            final Step pagesStep = Steps.valueOf(Steps.PAGES);
+
+            while ((next < pages.size()) && completed.contains(pages.get(next))) {
+                Page ready = pages.get(next++);
+
+                // A page removed or stopped is left to the final SCORE step,
+                // which will merge it again with all the following pages.
+                if (ready.getSheet().isDone(pagesStep)) {
+                    try {
+                        ScoreReduction.mergePage(ready);
+                    } catch (Exception ex) {
+                        logger.warn("Error merging " + ready, ex);
+                        ready.setMerged(false);
+                    }
+                }
+            }
+        }
+    }
 }
@@ -21,6 +21,7 @@ import omr.text.BasicContent;
 import omr.text.OCR;
 import omr.text.TextLine;
 import omr.util.ClassUtil;
+import omr.util.OmrExecutors;
 //import tesseract.TessBridge.TessBaseAPI.SegmentationMode;
 //import static tesseract.TessBridge.*;
 
@@ -76,6 +77,10 @@ public class TesseractOCR
     /** To assign a serial number to each image processing order. */
     private final AtomicInteger serial = new AtomicInteger(0);
 
+    /** Pool of initialized engines, one per processor at most. */
+    private final TesseractPool pool = new TesseractPool(
+            OmrExecutors.getNumberOfCpus());
+
     //~ Constructors -----------------------------------------------------------
     //
     //--------------//
@@ -178,7 +183,8 @@ public class TesseractOCR
                 }
             }
 
-            order = new TesseractOrder(system,
+            order = new TesseractOrder(pool,
+                    system,
                     label + name,
                     serial.incrementAndGet(),
                     constants.keepImages.isSet(),
@@ -188,6 +194,7 @@ public class TesseractOCR
 
             // Process the order
             List<TextLine> lines = order.process();
+            logger.debug("{} {}", label, pool);
 
             if (lines != null) {
                 // Translate relative coordinates to absolute ones
@@ -32,20 +32,20 @@ import omr.text.TextWord;
 
 import org.bytedeco.javacpp.*;
 
-import static org.bytedeco.javacpp.lept.*;
 import static org.bytedeco.javacpp.tesseract.*;
 
-import org.bytedeco.javacpp.lept.PIX;
 import org.bytedeco.javacpp.tesseract.ResultIterator;
 import org.bytedeco.javacpp.tesseract.TessBaseAPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Graphics2D;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -81,6 +81,9 @@ public class TesseractOrder
 
     //~ Instance fields --------------------------------------------------------
     //
+    /** Pool of engines. */
+    private final TesseractPool pool;
+
     /** Containing system. */
     private final SystemInfo system;
 
@@ -99,11 +102,17 @@ public class TesseractOrder
     /** Desired handling of layout. */
     private final int segMode;
 
-    /** The dedicated API. */
+    /** The API leased from the pool. */
     private TessBaseAPI api;
 
-    /** The image being processed. */
-    private PIX image;
+    /** The raw 8-bit gray pixels being processed, in a direct buffer. */
+    private ByteBuffer pixels;
+
+    /** Width of the image being processed. */
+    private final int width;
+
+    /** Height of the image being processed. */
+    private final int height;
 
     //~ Constructors -----------------------------------------------------------
     //
@@ -113,6 +122,7 @@ public class TesseractOrder
     /**
      * Creates a new TesseractOrder object.
      *
+     * @param pool          The pool of engines
      * @param system        The containing system
      * @param label         A debugging label (such as glyph id)
      * @param serial        A unique id for this order instance
@@ -122,10 +132,10 @@ public class TesseractOrder
      * @param bufferedImage The image to process
      *
      * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
-     * @throws IOException          When temporary Tiff buffer failed
-     * @throws RuntimeException     When PIX image failed
+     * @throws IOException          When debug Tiff copy failed
      */
-    public TesseractOrder (SystemInfo system,
+    public TesseractOrder (TesseractPool pool,
+                           SystemInfo system,
                            String label,
                            int serial,
                            boolean keepImage,
@@ -134,6 +144,7 @@ public class TesseractOrder
                            BufferedImage bufferedImage)
             throws UnsatisfiedLinkError, IOException
     {
+        this.pool = pool;
         this.system = system;
         this.label = label;
         this.serial = serial;
@@ -141,12 +152,15 @@ public class TesseractOrder
         this.lang = lang;
         this.segMode = segMode;
 
-        // Build a PIX from the image provided
-        ByteBuffer buf = toTiffBuffer(bufferedImage);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
-        if (image == null) {
-            logger.warn("Invalid image {}", label);
-            throw new RuntimeException("Invalid image");
+        // Gray pixels, as handed to Tesseract
+        BufferedImage grayImage = toGray(bufferedImage);
+        width = grayImage.getWidth();
+        height = grayImage.getHeight();
+        pixels = toDirectBuffer(grayImage);
+
+        // Should we keep a local copy of this image on disk?
+        if (keepImage) {
+            writeTiff(grayImage);
         }
     }
 
@@ -156,26 +170,22 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Actually lease a Tesseract API and recognize the image.
      *
      * @return the sequence of lines found
      */
     public List<TextLine> process ()
     {
         try {
-            api = new TessBaseAPI();
-
-            // Init API with proper language
-            if (api.Init(WellKnowns.OCR_FOLDER.getAbsolutePath(), lang) < 0) {
-                logger.warn(
-                        "Could not initialize Tesseract with lang {}",
-                        lang);
+            // Lease an API initialized with proper language
+            api = pool.lease(lang);
 
+            if (api == null) {
                 return finish(null);
             }
 
-            // Set API image
-            api.SetImage(image);
+            // Set API image, as raw pixels: 1 byte per pixel, no padding
+            api.SetImage(pixels, width, height, 1, width);
             // Perform layout analysis according to segmentation mode
             api.SetPageSegMode(segMode);
             api.AnalyseLayout();
@@ -198,7 +208,20 @@ public class TesseractOrder
                 userWarned = true;
             }
 
+            if (api != null) {
+                pool.discard(api);
+                api = null;
+            }
+
             throw new RuntimeException(ex);
+        } catch (RuntimeException ex) {
+            // Do not recycle an engine in unknown state
+            if (api != null) {
+                pool.discard(api);
+                api = null;
+            }
+
+            throw ex;
         }
     }
 
@@ -214,12 +237,11 @@ public class TesseractOrder
      */
     private List<TextLine> finish (List<TextLine> lines)
     {
-        if (image != null) {
-        	pixDestroy(image);
-        }
+        pixels = null;
 
         if (api != null) {
-            api.End();
+            pool.release(lang, api);
+            api = null;
         }
 
         return lines;
@@ -336,49 +358,111 @@ public class TesseractOrder
         }
     }
 
-    //--------------//
-    // toTiffBuffer //
-    //--------------//
+    //----------------//
+    // toDirectBuffer //
+    //----------------//
     /**
-     * Convert the given image into a TIFF-formatted ByteBuffer for
-     * passing it directly to Tesseract.
-     * A copy of the tiff buffer can be saved on disk, if so desired.
+     * Copy the gray pixels of the given image into a direct buffer,
+     * row after row with no padding, for passing them directly to
+     * Tesseract.
+     *
+     * @param image the input image, of TYPE_BYTE_GRAY
+     * @return the direct buffer of raw pixels
+     */
+    private ByteBuffer toDirectBuffer (BufferedImage image)
+    {
+        final ByteBuffer buf = ByteBuffer.allocateDirect(width * height);
+        final Raster raster = image.getRaster();
+
+        if ((raster.getDataBuffer() instanceof DataBufferByte)
+            && (raster.getSampleModel() instanceof ComponentSampleModel)
+            && (((ComponentSampleModel) raster.getSampleModel()).
+                getPixelStride() == 1)) {
+            // Copy the backing array, row by row
+            final ComponentSampleModel model = (ComponentSampleModel) raster.
+                    getSampleModel();
+            final byte[] data = ((DataBufferByte) raster.getDataBuffer()).
+                    getData();
+            final int stride = model.getScanlineStride();
+            final int offset = model.getOffset(
+                    -raster.getSampleModelTranslateX(),
+                    -raster.getSampleModelTranslateY());
+
+            if (stride == width) {
+                buf.put(data, offset, width * height);
+            } else {
+                for (int y = 0; y < height; y++) {
+                    buf.put(data, offset + (y * stride), width);
+                }
+            }
+        } else {
+            final int[] row = new int[width];
+
+            for (int y = 0; y < height; y++) {
+                raster.getSamples(0, y, width, 1, 0, row);
+
+                for (int x = 0; x < width; x++) {
+                    buf.put((byte) row[x]);
+                }
+            }
+        }
+
+        buf.flip();
+
+        return buf;
+    }
+
+    //--------//
+    // toGray //
+    //--------//
+    /**
+     * Make sure the given image is an 8-bit gray image.
      *
      * @param image the input image
-     * @return a buffer in TIFF format
+     * @return the image itself if already gray, otherwise a gray copy
+     */
+    private BufferedImage toGray (BufferedImage image)
+    {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+
+        BufferedImage gray = new BufferedImage(
+                image.getWidth(),
+                image.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        return gray;
+    }
+
+    //-----------//
+    // writeTiff //
+    //-----------//
+    /**
+     * Save a TIFF copy of the given image on disk, for debugging.
+     *
+     * @param image the image sent to Tesseract
      */
-    private ByteBuffer toTiffBuffer (BufferedImage image)
+    private void writeTiff (BufferedImage image)
             throws IOException
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        String name = String.format("%03d-", serial) + ((label != null) ? label : "");
+        File file = new File(WellKnowns.TEMP_FOLDER, name + ".tif");
+
+        // Make sure the TEMP directory exists
+        if (!WellKnowns.TEMP_FOLDER.exists()) {
+            WellKnowns.TEMP_FOLDER.mkdir();
+        }
 
-        try (final ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+        try (final ImageOutputStream ios = ImageIO.createImageOutputStream(file)) {
             ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").
                     next();
             writer.setOutput(ios);
             writer.write(image);
         }
-
-        ByteBuffer buf = ByteBuffer.allocate(baos.size());
-        byte[] bytes = baos.toByteArray();
-        buf.put(bytes);
-
-        // Should we keep a local copy of this buffer on disk?
-        if (keepImage) {
-            String name = String.format("%03d-", serial) + ((label != null) ? label : "");
-            File file = new File(WellKnowns.TEMP_FOLDER, name + ".tif");
-
-            // Make sure the TEMP directory exists
-            if (!WellKnowns.TEMP_FOLDER.exists()) {
-                WellKnowns.TEMP_FOLDER.mkdir();
-            }
-            try (final FileOutputStream fos = new FileOutputStream(
-                    file.getAbsolutePath())) {
-                fos.write(bytes);
-            }
-        }
-
-        return buf;
     }
     
     public FontAttributes WordFontAttributes(ResultIterator it)
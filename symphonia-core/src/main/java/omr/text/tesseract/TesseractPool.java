@@ -0,0 +1,321 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                         T e s s e r a c t P o o l                          //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.text.tesseract;
+
+import omr.WellKnowns;
+
+import org.bytedeco.javacpp.tesseract.TessBaseAPI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class {@code TesseractPool} manages a pool of initialized Tesseract
+ * engines, to avoid loading the language data for each OCR order.
+ *
+ * <p>An engine is leased for the processing of one order, then recycled.
+ * Idle engines are kept per language specification.
+ * The total number of live engines is bounded: when the bound is reached,
+ * an idle engine initialized for another language is ended to make room,
+ * otherwise the caller waits for an engine to be recycled.
+ *
+ * <p>Since OCR orders are issued from system tasks running in the
+ * fork/join pool, the wait goes through a {@link ForkJoinPool.ManagedBlocker},
+ * so that the pool can compensate for the blocked worker.
+ *
+ * <p>Counters of hits (reuse of an idle engine), creations and waits are
+ * maintained, and reported by {@link #toString}.
+ *
+ * @author Hervé Bitteur
+ */
+public class TesseractPool
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            TesseractPool.class);
+
+    //~ Instance fields --------------------------------------------------------
+    //
+    /** Maximum number of live engines. */
+    private final int maxEngines;
+
+    /** Idle engines, per language specification. */
+    private final Map<String, Deque<TessBaseAPI>> idles = new HashMap<>();
+
+    /** Number of live engines, whether leased or idle. */
+    private int liveCount;
+
+    /** Number of leases served by an idle engine. */
+    private int hitCount;
+
+    /** Number of engines created. */
+    private int creationCount;
+
+    /** Number of leases that had to wait for an engine. */
+    private int waitCount;
+
+    /** Blocker used to wait for an engine to be recycled. */
+    private final Recycling recycling = new Recycling();
+
+    //~ Constructors -----------------------------------------------------------
+    //
+    //---------------//
+    // TesseractPool //
+    //---------------//
+    /**
+     * Creates a new TesseractPool object.
+     *
+     * @param maxEngines the maximum number of live engines
+     */
+    public TesseractPool (int maxEngines)
+    {
+        this.maxEngines = Math.max(1, maxEngines);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //---------//
+    // discard //
+    //---------//
+    /**
+     * End an engine which can no longer be used, for example after a
+     * processing error.
+     *
+     * @param api the leased engine
+     */
+    public void discard (TessBaseAPI api)
+    {
+        try {
+            api.End();
+        } finally {
+            synchronized (this) {
+                liveCount--;
+                notifyAll();
+            }
+        }
+    }
+
+    //-------//
+    // lease //
+    //-------//
+    /**
+     * Lease an engine initialized for the provided language, waiting
+     * if needed for an engine to become available.
+     *
+     * @param lang the language specification
+     * @return the engine, or null if initialization failed or the waiting
+     *         thread got interrupted
+     */
+    public TessBaseAPI lease (String lang)
+    {
+        TessBaseAPI victim = null;
+
+        synchronized (this) {
+            boolean waited = false;
+
+            while (true) {
+                // Reuse an idle engine?
+                Deque<TessBaseAPI> deque = idles.get(lang);
+
+                if ((deque != null) && !deque.isEmpty()) {
+                    hitCount++;
+
+                    return deque.pop();
+                }
+
+                // Room for a new engine?
+                if (liveCount < maxEngines) {
+                    break;
+                }
+
+                // Make room by ending an idle engine of another language?
+                victim = pickVictim();
+
+                if (victim != null) {
+                    liveCount--;
+
+                    break;
+                }
+
+                // Wait for an engine to be recycled
+                if (!waited) {
+                    waited = true;
+                    waitCount++;
+                }
+
+                try {
+                    ForkJoinPool.managedBlock(recycling);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread()
+                            .interrupt();
+
+                    return null;
+                }
+            }
+
+            // Reserve a slot for the new engine
+            liveCount++;
+            creationCount++;
+        }
+
+        // Engine handling is done outside the lock, since it is costly
+        if (victim != null) {
+            victim.End();
+        }
+
+        return create(lang);
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Give back a leased engine, for reuse with the same language.
+     * Recognition results and image data are cleared first.
+     *
+     * @param lang the language specification the engine was leased for
+     * @param api  the leased engine
+     */
+    public void release (String lang,
+                         TessBaseAPI api)
+    {
+        api.Clear();
+
+        synchronized (this) {
+            Deque<TessBaseAPI> deque = idles.get(lang);
+
+            if (deque == null) {
+                idles.put(lang, deque = new ArrayDeque<>());
+            }
+
+            deque.push(api);
+            notifyAll();
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return "{TesseractPool live:" + liveCount + "/" + maxEngines
+               + " hits:" + hitCount + " creations:" + creationCount
+               + " waits:" + waitCount + "}";
+    }
+
+    //--------//
+    // create //
+    //--------//
+    /**
+     * Allocate and initialize a new engine, for which a slot has been
+     * reserved.
+     *
+     * @param lang the language specification
+     * @return the engine, or null if initialization failed
+     */
+    private TessBaseAPI create (String lang)
+    {
+        TessBaseAPI api = null;
+        boolean ok = false;
+
+        try {
+            api = new TessBaseAPI();
+
+            // Init API with proper language
+            if (api.Init(WellKnowns.OCR_FOLDER.getAbsolutePath(), lang) < 0) {
+                logger.warn(
+                        "Could not initialize Tesseract with lang {}",
+                        lang);
+
+                return null;
+            }
+
+            ok = true;
+            logger.debug("New engine for {} {}", lang, this);
+
+            return api;
+        } finally {
+            if (!ok) {
+                if (api != null) {
+                    api.End();
+                }
+
+                synchronized (this) {
+                    liveCount--;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    //------------//
+    // pickVictim //
+    //------------//
+    /**
+     * Pick an idle engine, if any, to be ended.
+     *
+     * @return the engine removed from the idle ones, or null
+     */
+    private TessBaseAPI pickVictim ()
+    {
+        for (Deque<TessBaseAPI> deque : idles.values()) {
+            if (!deque.isEmpty()) {
+                // Pick the least recently used engine of this language
+                return deque.removeLast();
+            }
+        }
+
+        return null;
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //-----------//
+    // Recycling //
+    //-----------//
+    /**
+     * Waits on the pool monitor for an engine to be recycled or
+     * discarded.
+     * It is used only by a thread which already owns the pool monitor.
+     */
+    private class Recycling
+            implements ForkJoinPool.ManagedBlocker
+    {
+        //~ Methods ------------------------------------------------------------
+
+        @Override
+        public boolean block ()
+                throws InterruptedException
+        {
+            synchronized (TesseractPool.this) {
+                TesseractPool.this.wait();
+            }
+
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable ()
+        {
+            return false;
+        }
+    }
+}
@@ -183,7 +183,7 @@ public class MusicFont
      * @param interline the desired (zoomed) interline in pixels
      * @return the font with proper size
      */
-    public static MusicFont getFont (int interline)
+    public static synchronized MusicFont getFont (int interline)
     {
         MusicFont font = sizeMap.get(interline);
 
@@ -63,6 +63,10 @@ public abstract class OmrFont
     /** Cache for fonts. */
     private static final Map<String, Font> fontCache = new HashMap<>();
 
+    /** Painter of symbol layouts for the current thread, if any. */
+    private static final ThreadLocal<LayoutPainter> layoutPainters =
+            new ThreadLocal<>();
+
     //~ Constructors -----------------------------------------------------------
     //---------//
     // OmrFont //
@@ -86,9 +90,9 @@ public abstract class OmrFont
     //------------//
     // createFont //
     //------------//
-    private static Font createFont (String fontName,
-                                    int style,
-                                    int size)
+    private static synchronized Font createFont (String fontName,
+                                                 int style,
+                                                 int size)
     {
         Font font;
 
@@ -193,10 +197,59 @@ public abstract class OmrFont
                     location.y + toTextOrigin.getY());
 
             // Draw the symbol
-            layout.draw(g, (float) origin.getX(), (float) origin.getY());
+            LayoutPainter painter = layoutPainters.get();
+
+            if ((painter == null) || !painter.paint(g, layout, origin)) {
+                layout.draw(g, (float) origin.getX(), (float) origin.getY());
+            }
         } catch (ConcurrentModificationException ignored) {
         } catch (Exception ex) {
             logger.warn("Cannot paint at " + location, ex);
         }
     }
+
+    //------------------//
+    // setLayoutPainter //
+    //------------------//
+    /**
+     * Redirect the painting of symbol layouts performed by the current
+     * thread through {@link #paint}.
+     *
+     * @param painter the painter to use, or null to paint layouts directly
+     */
+    public static void setLayoutPainter (LayoutPainter painter)
+    {
+        if (painter != null) {
+            layoutPainters.set(painter);
+        } else {
+            layoutPainters.remove();
+        }
+    }
+
+    //~ Inner Interfaces -------------------------------------------------------
+    //
+    //---------------//
+    // LayoutPainter //
+    //---------------//
+    /**
+     * Interface {@code LayoutPainter} allows to take over the painting
+     * of symbol layouts, for example to reuse the same drawing for all
+     * occurrences of a symbol.
+     */
+    public static interface LayoutPainter
+    {
+        //~ Methods ------------------------------------------------------------
+
+        /**
+         * Paint the provided layout, if possible.
+         *
+         * @param g      the graphics environment
+         * @param layout the symbol layout
+         * @param origin the layout origin, in user space
+         * @return true if painted, false if the layout must be drawn as usual
+         */
+        boolean paint (Graphics2D g,
+                       TextLayout layout,
+                       Point2D origin);
+    }
 }
@@ -80,6 +80,20 @@ public class SymbolPicture
         return new Context(maxForeground);
     }
 
+    //-----------//
+    // getColumn //
+    //-----------//
+    @Override
+    public void getColumn (int x,
+                           int yMin,
+                           int yMax,
+                           int[] pixels)
+    {
+        for (int y = yMin; y <= yMax; y++) {
+            pixels[y - yMin] = getPixel(x, y);
+        }
+    }
+
     //-----------//
     // getHeight //
     //-----------//
@@ -105,6 +119,20 @@ public class SymbolPicture
         return 255 - (elem >>> 24);
     }
 
+    //--------//
+    // getRow //
+    //--------//
+    @Override
+    public void getRow (int y,
+                        int xMin,
+                        int xMax,
+                        int[] pixels)
+    {
+        for (int x = xMin; x <= xMax; x++) {
+            pixels[x - xMin] = getPixel(x, y);
+        }
+    }
+
     //----------//
     // getWidth //
     //----------//
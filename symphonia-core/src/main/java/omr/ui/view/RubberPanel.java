@@ -11,6 +11,7 @@
 // </editor-fold>
 package omr.ui.view;
 
+import omr.constant.Constant;
 import omr.constant.ConstantSet;
 
 import omr.selection.LocationEvent;
@@ -34,6 +35,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.ConcurrentModificationException;
 
 import javax.swing.JPanel;
@@ -50,6 +52,13 @@ import javax.swing.event.ChangeListener;
  * the end on top of any other stuff. Any specific rendering required by a
  * subclass is performed by overriding the {@link #render} method.
  *
+ * <p>The rendering is split in two layers: the static layer, provided by
+ * {@link #renderStatic}, which changes only on explicit invalidation, and the
+ * dynamic layer, provided by {@link #render}, drawn on top of it.
+ * A subclass can ask for its static layer to be cached in tiles (see
+ * {@link #setTiled}), in which case it must call {@link #invalidateTiles}
+ * whenever the content of this layer gets modified.
+ *
  * <p>The Zoom instance and the Rubber instance can be provided separately,
  * after this RubberPanel has been constructed. This is meant for cases
  * where the same Zoom and Rubber instances are shared by several views, as in
@@ -88,6 +97,9 @@ public class RubberPanel
     /** Location Service if any (for Location event) */
     protected SelectionService locationService;
 
+    /** Cache of static layer tiles, if any */
+    private TileCache tileCache;
+
     //~ Constructors -----------------------------------------------------------
     //-------------//
     // RubberPanel //
@@ -253,6 +265,46 @@ public class RubberPanel
         return zoom;
     }
 
+    //-----------------//
+    // invalidateTiles //
+    //-----------------//
+    /**
+     * Notify that the whole static layer must be rendered again.
+     */
+    public void invalidateTiles ()
+    {
+        if (tileCache != null) {
+            tileCache.invalidate();
+        }
+
+        repaint();
+    }
+
+    //-----------------//
+    // invalidateTiles //
+    //-----------------//
+    /**
+     * Notify that the static layer must be rendered again within the
+     * provided rectangle.
+     *
+     * @param rect the modified rectangle, in model coordinates
+     */
+    public void invalidateTiles (Rectangle rect)
+    {
+        if (tileCache != null) {
+            tileCache.invalidate(rect);
+        }
+
+        if (zoom != null) {
+            int margin = constants.repaintMargin.getValue();
+            Rectangle r = zoom.scaled(rect);
+            r.grow(margin, margin);
+            repaint(r);
+        } else {
+            repaint();
+        }
+    }
+
     //---------//
     // onEvent //
     //---------//
@@ -571,6 +623,13 @@ public class RubberPanel
             g.scale(zoom.getRatio(), zoom.getRatio());
 
             try {
+                // Static layer, from cached tiles if any
+                if (tileCache != null) {
+                    paintTiles((Graphics2D) initialGraphics);
+                } else {
+                    renderStatic(g);
+                }
+
                 // Then, drawing specific to the view (to be provided in subclass)
                 render(g);
             } catch (ConcurrentModificationException ex) {
@@ -606,6 +665,23 @@ public class RubberPanel
         // Empty by default
     }
 
+    //--------------//
+    // renderStatic //
+    //--------------//
+    /**
+     * Render the static layer, which is drawn before the {@link #render}
+     * output and may be cached in tiles.
+     * The rendering must depend only on the model content and on the zoom
+     * ratio, since the same tile may be displayed again later.
+     *
+     * @param g the graphic context, already scaled, whose clip may be limited
+     *          to one tile
+     */
+    protected void renderStatic (Graphics2D g)
+    {
+        // Empty by default
+    }
+
     //------------------//
     // setFocusLocation //
     //------------------//
@@ -632,6 +708,102 @@ public class RubberPanel
         }
     }
 
+    //----------//
+    // setTiled //
+    //----------//
+    /**
+     * Set whether the static layer is to be cached in tiles.
+     *
+     * @param tiled true for tiled rendering of the static layer
+     */
+    protected void setTiled (boolean tiled)
+    {
+        if (tiled && constants.tiledRendering.isSet()) {
+            if (tileCache == null) {
+                tileCache = new TileCache();
+            }
+        } else {
+            tileCache = null;
+        }
+    }
+
+    //------------//
+    // createTile //
+    //------------//
+    /**
+     * Render the static layer within the provided tile.
+     *
+     * @param ratio the zoom ratio
+     * @param col   the tile column
+     * @param row   the tile row
+     * @return the rendered tile
+     */
+    private BufferedImage createTile (double ratio,
+                                      int col,
+                                      int row)
+    {
+        final int size = tileCache.getTileSize();
+        final BufferedImage tile = new BufferedImage(
+                size,
+                size,
+                BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = tile.createGraphics();
+
+        try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, size, size);
+            g.setColor(getForeground());
+            g.setFont(getFont());
+
+            g.translate(-col * size, -row * size);
+            g.clipRect(col * size, row * size, size, size);
+            g.scale(ratio, ratio);
+
+            renderStatic(g);
+        } finally {
+            g.dispose();
+        }
+
+        return tile;
+    }
+
+    //------------//
+    // paintTiles //
+    //------------//
+    /**
+     * Paint the static layer, using the cached tiles where possible.
+     *
+     * @param g the (unscaled) graphic context
+     */
+    private void paintTiles (Graphics2D g)
+    {
+        final TileCache cache = tileCache;
+        final double ratio = zoom.getRatio();
+        final int size = cache.getTileSize();
+        final long stamp = cache.getStamp();
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null) {
+            clip = getVisibleRect();
+        }
+
+        final int colMax = (clip.x + clip.width - 1) / size;
+        final int rowMax = (clip.y + clip.height - 1) / size;
+
+        for (int row = Math.max(0, clip.y) / size; row <= rowMax; row++) {
+            for (int col = Math.max(0, clip.x) / size; col <= colMax; col++) {
+                BufferedImage tile = cache.get(ratio, col, row);
+
+                if (tile == null) {
+                    tile = createTile(ratio, col, row);
+                    cache.put(ratio, col, row, tile, stamp);
+                }
+
+                g.drawImage(tile, col * size, row * size, null);
+            }
+        }
+    }
+
     //~ Inner Classes ----------------------------------------------------------
     //-----------//
     // Constants //
@@ -645,5 +817,14 @@ public class RubberPanel
                 20,
                 "Margin visible around a focus");
 
+        Constant.Boolean tiledRendering = new Constant.Boolean(
+                true,
+                "Should views cache their static layer in tiles?");
+
+        Constant.Integer repaintMargin = new Constant.Integer(
+                "Pixels",
+                2,
+                "Margin repainted around a modified area");
+
     }
 }
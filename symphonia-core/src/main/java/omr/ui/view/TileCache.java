@@ -0,0 +1,289 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                             T i l e C a c h e                              //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.ui.view;
+
+import omr.constant.Constant;
+import omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class {@code TileCache} keeps the latest rendered tiles of a
+ * {@link RubberPanel}, so that scrolling and zooming back do not need to
+ * render the panel content again.
+ *
+ * <p>A tile is a square image, in display coordinates, identified by the zoom
+ * ratio it was rendered at and by its column and row in the grid of tiles.
+ * Tiles of several zoom ratios can coexist, the least recently used tiles
+ * being discarded first when the cache is full.
+ *
+ * <p>When a portion of the model gets modified, {@link #invalidate(Rectangle)}
+ * discards just the tiles (of any zoom ratio) that intersect this portion.
+ * Since invalidation may be notified by non-GUI threads, a tile rendered while
+ * an invalidation was taking place is not cached, see {@link #getStamp}.
+ *
+ * @author Hervé Bitteur
+ */
+class TileCache
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Specific application parameters */
+    private static final Constants constants = new Constants();
+
+    /** Usual logger utility */
+    private static final Logger logger = LoggerFactory.getLogger(
+            TileCache.class);
+
+    //~ Instance fields --------------------------------------------------------
+
+    /** Side of each tile, in display pixels. */
+    private final int tileSize = constants.tileSize.getValue();
+
+    /** Cached tiles, in access order. */
+    private final Map<Key, BufferedImage> tiles = new TileMap();
+
+    /** Count of invalidations so far. */
+    private long stamp;
+
+    //~ Methods ----------------------------------------------------------------
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the cached tile, if any.
+     *
+     * @param ratio the zoom ratio
+     * @param col   the tile column
+     * @param row   the tile row
+     * @return the tile image, or null if not cached
+     */
+    synchronized BufferedImage get (double ratio,
+                                    int col,
+                                    int row)
+    {
+        return tiles.get(new Key(ratio, col, row));
+    }
+
+    //----------//
+    // getStamp //
+    //----------//
+    /**
+     * Report the current invalidation stamp, to be read before a tile
+     * is rendered and passed to {@link #put}.
+     *
+     * @return the current stamp
+     */
+    synchronized long getStamp ()
+    {
+        return stamp;
+    }
+
+    //-------------//
+    // getTileSize //
+    //-------------//
+    /**
+     * Report the side of each tile.
+     *
+     * @return the tile size, in display pixels
+     */
+    int getTileSize ()
+    {
+        return tileSize;
+    }
+
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Discard all cached tiles.
+     */
+    synchronized void invalidate ()
+    {
+        stamp++;
+        tiles.clear();
+    }
+
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Discard the cached tiles that intersect the provided model
+     * rectangle, whatever their zoom ratio.
+     *
+     * @param rect the modified rectangle, in model coordinates
+     */
+    synchronized void invalidate (Rectangle rect)
+    {
+        stamp++;
+
+        final int margin = constants.invalidationMargin.getValue();
+        int count = 0;
+
+        for (Iterator<Key> it = tiles.keySet()
+                .iterator(); it.hasNext();) {
+            Key key = it.next();
+
+            // Modified rectangle, in display coordinates at tile ratio
+            int xMin = (int) Math.floor(rect.x * key.ratio) - margin;
+            int yMin = (int) Math.floor(rect.y * key.ratio) - margin;
+            int xMax = (int) Math.ceil((rect.x + rect.width) * key.ratio)
+                       + margin;
+            int yMax = (int) Math.ceil((rect.y + rect.height) * key.ratio)
+                       + margin;
+
+            if (((key.col * tileSize) <= xMax)
+                && (((key.col + 1) * tileSize) > xMin)
+                && ((key.row * tileSize) <= yMax)
+                && (((key.row + 1) * tileSize) > yMin)) {
+                it.remove();
+                count++;
+            }
+        }
+
+        logger.debug("Invalidated {} tiles for {}", count, rect);
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Cache a freshly rendered tile, unless some invalidation occurred
+     * since its rendering began.
+     *
+     * @param ratio the zoom ratio
+     * @param col   the tile column
+     * @param row   the tile row
+     * @param tile  the tile image
+     * @param start the stamp read before rendering began
+     */
+    synchronized void put (double ratio,
+                           int col,
+                           int row,
+                           BufferedImage tile,
+                           long start)
+    {
+        if (start == stamp) {
+            tiles.put(new Key(ratio, col, row), tile);
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Identification of a tile.
+     */
+    private static final class Key
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        final double ratio;
+
+        final int col;
+
+        final int row;
+
+        //~ Constructors -------------------------------------------------------
+        Key (double ratio,
+             int col,
+             int row)
+        {
+            this.ratio = ratio;
+            this.col = col;
+            this.row = row;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) obj;
+
+            return (Double.compare(ratio, that.ratio) == 0) && (col == that.col)
+                   && (row == that.row);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            long bits = Double.doubleToLongBits(ratio);
+            int hash = (int) (bits ^ (bits >>> 32));
+            hash = (31 * hash) + col;
+            hash = (31 * hash) + row;
+
+            return hash;
+        }
+    }
+
+    //---------//
+    // TileMap //
+    //---------//
+    /**
+     * Map of tiles, which discards its least recently used entry
+     * when the maximum number of tiles is exceeded.
+     */
+    private static final class TileMap
+            extends LinkedHashMap<Key, BufferedImage>
+    {
+        //~ Constructors -------------------------------------------------------
+
+        TileMap ()
+        {
+            super(16, 0.75f, true);
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        protected boolean removeEldestEntry (Map.Entry<Key, BufferedImage> e)
+        {
+            return size() > constants.maxTiles.getValue();
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        Constant.Integer tileSize = new Constant.Integer(
+                "Pixels",
+                256,
+                "Side of each rendered tile");
+
+        Constant.Integer maxTiles = new Constant.Integer(
+                "Tiles",
+                100,
+                "Maximum number of tiles cached per view");
+
+        Constant.Integer invalidationMargin = new Constant.Integer(
+                "Pixels",
+                2,
+                "Margin around a modified area, for strokes and borders");
+
+    }
+}
@@ -0,0 +1,284 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                             G r i d I n d e x                              //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.util;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class {@code GridIndex} is a spatial index of entities, based on
+ * a uniform grid of square cells.
+ *
+ * <p>Each entity is linked to all the cells its bounding box touches, so
+ * that looking up the entities near a given rectangle only needs to browse
+ * the cells touched by this rectangle.
+ *
+ * <p>The index is updated incrementally: when an entity is added, modified
+ * or removed, its owner simply notifies the index via {@link #update} or
+ * {@link #remove}. The bounds of an updated entity are read again only when
+ * the index is next looked up, via the {@link #getBounds} method.
+ *
+ * <p>A lookup returns <b>candidates</b>, that is a superset of the entities
+ * whose bounds intersect (or touch) the provided rectangle, in no specific
+ * order. The caller is responsible for applying the precise test, and for
+ * sorting the result if needed.
+ *
+ * <p>All methods are synchronized, so that an index can be shared by the
+ * threads processing the various systems of a sheet.
+ *
+ * @param <E> the type of indexed entities
+ * @author Hervé Bitteur
+ */
+public abstract class GridIndex<E>
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** Side of each square cell. */
+    private final int cellSize;
+
+    /** Non-empty cells, indexed by their (column, row) key. */
+    private final Map<Long, Set<E>> cells = new HashMap<>();
+
+    /** Indexed bounds of each entity. */
+    private final Map<E, Rectangle> boxes = new HashMap<>();
+
+    /** Entities whose bounds must be read again. */
+    private final Set<E> dirties = new LinkedHashSet<>();
+
+    //~ Constructors -----------------------------------------------------------
+    //-----------//
+    // GridIndex //
+    //-----------//
+    /**
+     * Creates a new GridIndex object.
+     *
+     * @param cellSize the side of each square cell, in pixels
+     */
+    public GridIndex (int cellSize)
+    {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Illegal cell size " + cellSize);
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //--------//
+    // lookup //
+    //--------//
+    /**
+     * Report the candidate entities for the provided rectangle.
+     *
+     * @param rect the rectangle of interest
+     * @return the set of entities whose bounds may intersect the rectangle
+     */
+    public synchronized Set<E> lookup (Rectangle rect)
+    {
+        flush();
+
+        final Set<E> found = new LinkedHashSet<>();
+        final int colMin = toCell(rect.x);
+        final int colMax = toCell(rect.x + rect.width);
+        final int rowMin = toCell(rect.y);
+        final int rowMax = toCell(rect.y + rect.height);
+
+        if ((((long) (colMax - colMin + 1)) * (rowMax - rowMin + 1))
+            > cells.size()) {
+            // Large rectangle, browse all existing cells
+            for (Map.Entry<Long, Set<E>> entry : cells.entrySet()) {
+                long key = entry.getKey();
+                int col = (int) key;
+                int row = (int) (key >> 32);
+
+                if ((col >= colMin) && (col <= colMax) && (row >= rowMin)
+                    && (row <= rowMax)) {
+                    found.addAll(entry.getValue());
+                }
+            }
+        } else {
+            for (int row = rowMin; row <= rowMax; row++) {
+                for (int col = colMin; col <= colMax; col++) {
+                    Set<E> cell = cells.get(toKey(col, row));
+
+                    if (cell != null) {
+                        found.addAll(cell);
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove an entity from the index.
+     *
+     * @param entity the entity to remove
+     */
+    public synchronized void remove (E entity)
+    {
+        dirties.remove(entity);
+        unlink(entity);
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of entities currently indexed.
+     *
+     * @return the count of entities
+     */
+    public synchronized int size ()
+    {
+        flush();
+
+        return boxes.size();
+    }
+
+    //--------//
+    // update //
+    //--------//
+    /**
+     * Insert an entity in the index, or notify that its bounds may have
+     * changed.
+     *
+     * @param entity the new or modified entity
+     */
+    public synchronized void update (E entity)
+    {
+        dirties.add(entity);
+    }
+
+    //-----------//
+    // getBounds //
+    //-----------//
+    /**
+     * Report the current bounds of the provided entity.
+     *
+     * @param entity the entity at hand
+     * @return the entity bounds, or null if the entity must no longer be
+     *         indexed
+     */
+    protected abstract Rectangle getBounds (E entity);
+
+    //-------//
+    // flush //
+    //-------//
+    /**
+     * Re-index all the entities updated since last flush.
+     */
+    private void flush ()
+    {
+        if (dirties.isEmpty()) {
+            return;
+        }
+
+        List<E> entities = new ArrayList<>(dirties);
+        dirties.clear();
+
+        for (E entity : entities) {
+            unlink(entity);
+
+            Rectangle box = getBounds(entity);
+
+            if (box != null) {
+                link(entity, new Rectangle(box));
+            }
+        }
+    }
+
+    //------//
+    // link //
+    //------//
+    private void link (E entity,
+                       Rectangle box)
+    {
+        boxes.put(entity, box);
+
+        for (int row = toCell(box.y), rowMax = toCell(box.y + box.height);
+                row <= rowMax; row++) {
+            for (int col = toCell(box.x), colMax = toCell(box.x + box.width);
+                    col <= colMax; col++) {
+                Long key = toKey(col, row);
+                Set<E> cell = cells.get(key);
+
+                if (cell == null) {
+                    cells.put(key, cell = new HashSet<>());
+                }
+
+                cell.add(entity);
+            }
+        }
+    }
+
+    //--------//
+    // toCell //
+    //--------//
+    /**
+     * Report the index of the cell containing the provided coordinate.
+     * The rounding is done toward negative infinity.
+     */
+    private int toCell (int coord)
+    {
+        return (coord >= 0) ? (coord / cellSize)
+                : (((coord + 1) / cellSize) - 1);
+    }
+
+    //-------//
+    // toKey //
+    //-------//
+    private static Long toKey (int col,
+                               int row)
+    {
+        return (((long) row) << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    //--------//
+    // unlink //
+    //--------//
+    private void unlink (E entity)
+    {
+        Rectangle box = boxes.remove(entity);
+
+        if (box == null) {
+            return;
+        }
+
+        for (int row = toCell(box.y), rowMax = toCell(box.y + box.height);
+                row <= rowMax; row++) {
+            for (int col = toCell(box.x), colMax = toCell(box.x + box.width);
+                    col <= colMax; col++) {
+                Long key = toKey(col, row);
+                Set<E> cell = cells.get(key);
+
+                if (cell != null) {
+                    cell.remove(entity);
+
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -72,6 +72,19 @@ public class Memory
         return String.format("%,d", occupied());
     }
 
+    //-----//
+    // max //
+    //-----//
+    /**
+     * Get the maximum amount of memory the JVM will attempt to use.
+     *
+     * @return this maximum size
+     */
+    public static long max ()
+    {
+        return rt.maxMemory();
+    }
+
     //----------//
     // occupied //
     //----------//
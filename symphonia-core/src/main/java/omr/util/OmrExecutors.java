@@ -21,8 +21,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,6 +39,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>forkJoinPool: a work-stealing pool (#cpu) of threads with low
+ * priority, meant for the processing of steps, where page tasks fork system
+ * tasks</li>
  * </ul>
  *
  * @author Hervé Bitteur
@@ -71,9 +80,12 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    private static final Pool forks = new Forks();
+
     /** To handle all the pools as a whole */
     private static Collection<Pool> allPools = Arrays.asList(
             cachedLows,
+            forks,
             lows,
             highs);
 
@@ -102,6 +114,19 @@ public class OmrExecutors
         return cachedLows.getPool();
     }
 
+    //-----------------//
+    // getForkJoinPool //
+    //-----------------//
+    /**
+     * Return the (single) work-stealing pool of low priority threads
+     *
+     * @return the fork/join pool, allocated if needed
+     */
+    public static ForkJoinPool getForkJoinPool ()
+    {
+        return (ForkJoinPool) forks.getPool();
+    }
+
     //-----------------//
     // getHighExecutor //
     //-----------------//
@@ -141,6 +166,74 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //-----------//
+    // invokeAll //
+    //-----------//
+    /**
+     * Run the provided tasks on the fork/join pool, and wait for their
+     * completion.
+     * When called from a task already running in this pool, the tasks are
+     * forked from the current worker thread, which keeps working on them (or
+     * on tasks stolen from other workers) instead of blocking.
+     * Otherwise, the calling thread waits interruptibly for their completion.
+     *
+     * @param tasks the tasks to run
+     * @throws ProcessingCancellationException if the calling thread got
+     *                                         interrupted or the tasks got
+     *                                         cancelled
+     */
+    public static void invokeAll (final Collection<? extends ForkJoinTask<?>> tasks)
+    {
+        ForkJoinPool pool = getForkJoinPool();
+
+        if (ForkJoinTask.getPool() == pool) {
+            try {
+                ForkJoinTask.invokeAll(tasks);
+            } catch (CancellationException ex) {
+                throw new ProcessingCancellationException(ex);
+            }
+
+            if (Thread.interrupted()) {
+                throw new ProcessingCancellationException(
+                        new InterruptedException());
+            }
+        } else {
+            ForkJoinTask<?> root = pool.submit(
+                    new RecursiveAction()
+            {
+                @Override
+                protected void compute ()
+                {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+
+            try {
+                root.get();
+            } catch (InterruptedException ex) {
+                root.cancel(true);
+
+                for (ForkJoinTask<?> task : tasks) {
+                    task.cancel(true);
+                }
+
+                throw new ProcessingCancellationException(ex);
+            } catch (CancellationException ex) {
+                throw new ProcessingCancellationException(ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+    }
+
     //---------//
     // restart //
     //---------//
@@ -409,6 +502,73 @@ public class OmrExecutors
         }
     }
 
+    //-------//
+    // Forks //
+    //-------//
+    /** Work-stealing pool with low priority */
+    private static class Forks
+            extends Pool
+    {
+        //~ Methods ------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "fork";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return new ForkJoinPool(
+                    defaultParallelism.getTarget() ? cpuCount : 1,
+                    new ForkFactory(getName(), Thread.MIN_PRIORITY),
+                    null,
+                    false);
+        }
+    }
+
+    //-------------//
+    // ForkFactory //
+    //-------------//
+    private static class ForkFactory
+            implements ForkJoinPool.ForkJoinWorkerThreadFactory
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final String threadPrefix;
+
+        private final int threadPriority;
+
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        //~ Constructors -------------------------------------------------------
+        ForkFactory (String threadPrefix,
+                     int threadPriority)
+        {
+            this.threadPrefix = threadPrefix;
+            this.threadPriority = threadPriority;
+        }
+
+        //~ Methods ------------------------------------------------------------
+        @Override
+        public ForkJoinWorkerThread newThread (ForkJoinPool pool)
+        {
+            ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool)
+            {
+            };
+
+            t.setName(
+                    threadPrefix + "-thread-" + threadNumber.incrementAndGet());
+
+            if (t.getPriority() != threadPriority) {
+                t.setPriority(threadPriority);
+            }
+
+            return t;
+        }
+    }
+
     //-------//
     // Highs //
     //-------//
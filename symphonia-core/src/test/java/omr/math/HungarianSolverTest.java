@@ -0,0 +1,276 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                   H u n g a r i a n S o l v e r T e s t                    //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.math;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unitary tests of {@link HungarianSolver}, checked against the
+ * brute force {@link InjectionSolver}.
+ *
+ * <p>The {@link #main} method runs a simple timing comparison of both
+ * solvers on random square matrices, up to 12x12.
+ *
+ * @author Hervé Bitteur
+ */
+public class HungarianSolverTest
+{
+    //~ Methods ----------------------------------------------------------------
+    //
+    //------//
+    // main //
+    //------//
+    /**
+     * Time both solvers on random matrices of increasing sizes.
+     *
+     * @param args unused
+     */
+    public static void main (String... args)
+    {
+        final Random random = new Random(123);
+        final int runs = 5;
+
+        for (int size = 2; size <= 12; size++) {
+            long bruteNanos = 0;
+            long hungarianNanos = 0;
+
+            for (int run = 0; run < runs; run++) {
+                MatrixDistance dist = new MatrixDistance(
+                        random,
+                        size,
+                        size,
+                        100);
+
+                long start = System.nanoTime();
+                int[] brute = new InjectionSolver(size, size, dist).solve();
+                bruteNanos += (System.nanoTime() - start);
+
+                start = System.nanoTime();
+                int[] hung = new HungarianSolver(size, size, dist).solve();
+                hungarianNanos += (System.nanoTime() - start);
+
+                if (dist.cost(brute) != dist.cost(hung)) {
+                    System.out.println("Cost mismatch for size " + size);
+                }
+            }
+
+            System.out.printf(
+                    "%2dx%-2d brute: %12d us  hungarian: %6d us%n",
+                    size,
+                    size,
+                    bruteNanos / runs / 1000,
+                    hungarianNanos / runs / 1000);
+        }
+    }
+
+    //---------------//
+    // testRandomAll //
+    //---------------//
+    @Test
+    public void testRandomAll ()
+    {
+        final Random random = new Random(456);
+
+        for (int domain = 1; domain <= 6; domain++) {
+            for (int range = domain; range <= 9; range++) {
+                for (int run = 0; run < 10; run++) {
+                    MatrixDistance dist = new MatrixDistance(
+                            random,
+                            domain,
+                            range,
+                            100);
+                    int[] brute = new InjectionSolver(domain, range, dist).
+                            solve();
+                    int[] hung = new HungarianSolver(domain, range, dist).
+                            solve();
+
+                    assertInjection(hung, range);
+                    assertEquals(
+                            domain + "x" + range,
+                            dist.cost(brute),
+                            dist.cost(hung));
+                    assertArrayEquals(brute, hung);
+                }
+            }
+        }
+    }
+
+    //---------------//
+    // testRandomTies //
+    //---------------//
+    @Test
+    public void testRandomTies ()
+    {
+        // Few distinct values, hence many mappings of equal cost
+        final Random random = new Random(789);
+
+        for (int domain = 1; domain <= 6; domain++) {
+            for (int range = domain; range <= 9; range++) {
+                for (int run = 0; run < 10; run++) {
+                    MatrixDistance dist = new MatrixDistance(
+                            random,
+                            domain,
+                            range,
+                            3);
+                    int[] brute = new InjectionSolver(domain, range, dist).
+                            solve();
+                    int[] hung = new HungarianSolver(domain, range, dist).
+                            solve();
+
+                    assertArrayEquals(domain + "x" + range, brute, hung);
+                }
+            }
+        }
+    }
+
+    //-----------//
+    // testSolve //
+    //-----------//
+    @Test
+    public void testSolve ()
+    {
+        MatrixDistance dist = new MatrixDistance(
+                new int[][]{
+                    {4, 1, 3},
+                    {2, 0, 5},
+                    {3, 2, 2}
+                });
+
+        int[] result = new HungarianSolver(3, 3, dist).solve();
+        assertArrayEquals(new int[]{1, 0, 2}, result);
+        assertEquals(5, dist.cost(result));
+    }
+
+    //----------------//
+    // testTallMatrix //
+    //----------------//
+    @Test
+    public void testTallMatrix ()
+    {
+        // More domain elements than range elements: one is left unmapped
+        MatrixDistance dist = new MatrixDistance(
+                new int[][]{
+                    {7, 9},
+                    {1, 8},
+                    {6, 2}
+                });
+
+        int[] result = new HungarianSolver(3, 2, dist).solve();
+        assertArrayEquals(
+                new int[]{HungarianSolver.NO_MAPPING, 0, 1},
+                result);
+    }
+
+    //----------//
+    // testTies //
+    //----------//
+    @Test
+    public void testTies ()
+    {
+        // Same layout as voice mapping in Slot: one ending chord, then
+        // one "no link" column per new chord, all at the same cost
+        MatrixDistance dist = new MatrixDistance(
+                new int[][]{
+                    {20, 20, 20},
+                    {20, 20, 20}
+                });
+
+        int[] result = new HungarianSolver(2, 3, dist).solve();
+        assertArrayEquals(new int[]{0, 1}, result);
+    }
+
+    //----------------//
+    // testWideMatrix //
+    //----------------//
+    @Test
+    public void testWideMatrix ()
+    {
+        MatrixDistance dist = new MatrixDistance(
+                new int[][]{
+                    {5, 9, 1, 7},
+                    {4, 3, 1, 8}
+                });
+
+        int[] result = new HungarianSolver(2, 4, dist).solve();
+        assertArrayEquals(new int[]{2, 1}, result);
+    }
+
+    //-----------------//
+    // assertInjection //
+    //-----------------//
+    private static void assertInjection (int[] mapping,
+                                         int range)
+    {
+        boolean[] taken = new boolean[range];
+
+        for (int ir : mapping) {
+            assertTrue((ir >= 0) && (ir < range));
+            assertFalse("Range element mapped twice", taken[ir]);
+            taken[ir] = true;
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+    //
+    //----------------//
+    // MatrixDistance //
+    //----------------//
+    private static class MatrixDistance
+            implements InjectionSolver.Distance
+    {
+        //~ Instance fields ----------------------------------------------------
+
+        private final int[][] matrix;
+
+        //~ Constructors -------------------------------------------------------
+        public MatrixDistance (int[][] matrix)
+        {
+            this.matrix = matrix;
+        }
+
+        public MatrixDistance (Random random,
+                               int domain,
+                               int range,
+                               int bound)
+        {
+            matrix = new int[domain][range];
+
+            for (int id = 0; id < domain; id++) {
+                for (int ir = 0; ir < range; ir++) {
+                    matrix[id][ir] = random.nextInt(bound);
+                }
+            }
+        }
+
+        //~ Methods ------------------------------------------------------------
+        public int cost (int[] mapping)
+        {
+            int cost = 0;
+
+            for (int id = 0; id < mapping.length; id++) {
+                cost += matrix[id][mapping[id]];
+            }
+
+            return cost;
+        }
+
+        @Override
+        public int getDistance (int id,
+                                int ir)
+        {
+            return matrix[id][ir];
+        }
+    }
+}
@@ -16,12 +16,15 @@ import omr.Main;
 import omr.util.BaseTestCaseClass;
 import static junit.framework.Assert.*;
 
+import org.junit.Test;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 
 //import org.testng.annotations.*;
 import java.io.FileOutputStream;
+import java.util.Random;
 
 import javax.xml.bind.*;
 
@@ -120,6 +123,40 @@ public class NeuralNetworkTest
                 0.1d);
     }
 
+    //--------------//
+    // testBatchRun //
+    //--------------//
+    @Test
+    public void testBatchRun ()
+    {
+        final int count = 37; // Not a multiple of block size
+        final Random random = new Random(123);
+        NeuralNetwork pp = createNetwork(5, 7, 3);
+        double[] inputs = new double[count * 5];
+
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextDouble();
+        }
+
+        double[] outputs = pp.run(inputs, count, null);
+        assertEquals(count * 3, outputs.length);
+
+        for (int p = 0; p < count; p++) {
+            double[] ins = new double[5];
+            System.arraycopy(inputs, p * 5, ins, 0, 5);
+
+            double[] outs = pp.run(ins, null, null);
+
+            for (int o = 0; o < 3; o++) {
+                assertEquals(
+                        "pattern " + p + " output " + o,
+                        outs[o],
+                        outputs[(p * 3) + o],
+                        0d);
+            }
+        }
+    }
+
     //-----------------//
     // testMarshalling //
     //-----------------//
@@ -270,6 +307,62 @@ public class NeuralNetworkTest
                 0.1d);
     }
 
+    //------------------//
+    // testXOrByBatches //
+    //------------------//
+    @Test
+    public void testXOrByBatches ()
+    {
+        final double maxError = 0.05;
+        // Replicate the 4 basic patterns, to get several mini-batches
+        double[][] inputs = new double[400][];
+        double[][] desiredOutputs = new double[400][];
+
+        for (int i = 0; i < inputs.length; i++) {
+            int a = i % 2;
+            int b = (i / 2) % 2;
+            inputs[i] = new double[]{a, b};
+            desiredOutputs[i] = new double[]{a ^ b};
+        }
+
+        // Initial weights are random, so allow a few (bounded) attempts
+        double mse = Double.MAX_VALUE;
+
+        for (int attempt = 0; (attempt < 5) && (mse > maxError); attempt++) {
+            nn = new NeuralNetwork(2, 4, 1, 0.5, null, null, 2.0, 0.5,
+                    maxError, 3000);
+            nn.setBatchSize(8); // Several workers per mini-batch
+            mse = nn.train(inputs, desiredOutputs, null);
+        }
+
+        assertTrue("Batch training did not converge, mse:" + mse,
+                mse <= maxError);
+
+        assertNears(
+                "0 xor 0 should be 0",
+                0d,
+                nn.run(new double[]{0, 0}, null, null)[0],
+                0.1d);
+
+        assertNears(
+                "1 xor 0 should be 1",
+                1d,
+                nn.run(new double[]{1, 0}, null, null)[0],
+                0.1d);
+
+        assertNears(
+                "0 xor 1 should be 1",
+                1d,
+                nn.run(new double[]{0, 1}, null, null)[0],
+                0.1d);
+
+        assertNears(
+                "1 xor 1 should be 0",
+                0d,
+                nn.run(new double[]{1, 1}, null, null)[0],
+                0.1d);
+    }
+
     //---------------//
     // createNetwork //
     //---------------//
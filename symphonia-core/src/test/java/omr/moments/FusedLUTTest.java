@@ -0,0 +1,134 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                          F u s e d L U T T e s t                           //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.moments;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unitary tests of {@link FusedLUT}, checked against {@link BasicLUT}:
+ * for each function, the interpolated values must be exactly the same.
+ *
+ * @author Hervé Bitteur
+ */
+public class FusedLUTTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final int RADIUS = 20;
+
+    private static final int COUNT = 7;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final Random random = new Random(789);
+
+    private final BasicLUT[] basics = new BasicLUT[COUNT];
+
+    private final FusedLUT fused = new FusedLUT(RADIUS, COUNT);
+
+    //~ Constructors -----------------------------------------------------------
+    public FusedLUTTest ()
+    {
+        final int size = (2 * RADIUS) + 1;
+
+        for (int k = 0; k < COUNT; k++) {
+            basics[k] = new BasicLUT(RADIUS);
+        }
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int k = 0; k < COUNT; k++) {
+                    double value = (2 * random.nextDouble()) - 1;
+                    basics[k].assign(x, y, value);
+                    fused.assign(x, y, k, value);
+                }
+            }
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //----------------//
+    // testAccumulate //
+    //----------------//
+    @Test
+    public void testAccumulate ()
+    {
+        final int size = (2 * RADIUS) + 1;
+
+        for (int i = 0; i < 100000; i++) {
+            check(random.nextDouble() * size, random.nextDouble() * size);
+        }
+    }
+
+    //------------//
+    // testBorder //
+    //------------//
+    @Test
+    public void testBorder ()
+    {
+        // Points whose integer part lies on the last row and/or column
+        final int max = 2 * RADIUS;
+
+        for (int i = 0; i < 1000; i++) {
+            double inside = random.nextDouble() * max;
+            double border = max + random.nextDouble();
+
+            check(border, inside);
+            check(inside, border);
+            check(border, border);
+            check(max, inside);
+            check(inside, max);
+        }
+
+        check(max, max);
+    }
+
+    //--------------//
+    // testIntegers //
+    //--------------//
+    @Test
+    public void testIntegers ()
+    {
+        final int size = (2 * RADIUS) + 1;
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                check(x, y);
+            }
+        }
+    }
+
+    //-------//
+    // check //
+    //-------//
+    private void check (double px,
+                        double py)
+    {
+        assertTrue(fused.contains(px, py));
+
+        double[] sums = new double[COUNT];
+        fused.accumulate(px, py, sums);
+
+        for (int k = 0; k < COUNT; k++) {
+            double expected = basics[k].interpolate(px, py);
+
+            assertTrue(
+                    "function " + k + " at (" + px + "," + py + "): "
+                    + expected + " vs " + sums[k],
+                    expected == sums[k]);
+        }
+    }
+}
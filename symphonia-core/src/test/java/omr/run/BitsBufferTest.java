@@ -0,0 +1,111 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                        B i t s B u f f e r T e s t                         //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.run;
+
+import static omr.run.PixelSource.BACKGROUND;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Dimension;
+
+/**
+ * Unitary tests of {@link BitsBuffer}.
+ *
+ * @author Hervé Bitteur
+ */
+public class BitsBufferTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Width that spans several words, the last one being partial. */
+    private static final Dimension dim = new Dimension(200, 3);
+
+    //~ Methods ----------------------------------------------------------------
+    //--------------//
+    // testNextBits //
+    //--------------//
+    @Test
+    public void testNextBits ()
+    {
+        BitsBuffer instance = createInstance();
+
+        assertEquals(3, instance.nextSetBit(0, 0, 199));
+        assertEquals(151, instance.nextClearBit(0, 3, 199));
+        assertEquals(151, instance.nextSetBit(0, 151, 150));
+
+        assertEquals(64, instance.nextSetBit(1, 0, 199));
+        assertEquals(128, instance.nextClearBit(1, 64, 199));
+        assertEquals(199, instance.nextSetBit(1, 128, 198));
+        assertEquals(199, instance.nextSetBit(1, 128, 199));
+        assertEquals(200, instance.nextClearBit(1, 199, 199));
+
+        assertEquals(200, instance.nextSetBit(2, 0, 199));
+        assertEquals(0, instance.nextClearBit(2, 0, 199));
+    }
+
+    //------------//
+    // testSetRun //
+    //------------//
+    @Test
+    public void testSetRun ()
+    {
+        BitsBuffer instance = createInstance();
+
+        for (int x = 0; x < dim.width; x++) {
+            assertEquals(
+                    "row 0, x " + x,
+                    (x >= 3) && (x <= 150),
+                    instance.isFore(x, 0));
+            assertEquals(
+                    "row 1, x " + x,
+                    ((x >= 64) && (x <= 127)) || (x == 199),
+                    instance.isFore(x, 1));
+            assertFalse("row 2, x " + x, instance.isFore(x, 2));
+        }
+
+        assertEquals(0, instance.getPixel(3, 0));
+        assertEquals(BACKGROUND, instance.getPixel(2, 0));
+    }
+
+    //---------------//
+    // testTranspose //
+    //---------------//
+    @Test
+    public void testTranspose ()
+    {
+        BitsBuffer instance = createInstance();
+        BitsBuffer transposed = instance.transpose();
+
+        assertEquals(dim.height, transposed.getWidth());
+        assertEquals(dim.width, transposed.getHeight());
+
+        for (int x = 0; x < dim.width; x++) {
+            for (int y = 0; y < dim.height; y++) {
+                assertEquals(instance.isFore(x, y), transposed.isFore(y, x));
+            }
+        }
+    }
+
+    //----------------//
+    // createInstance //
+    //----------------//
+    private BitsBuffer createInstance ()
+    {
+        BitsBuffer instance = new BitsBuffer(dim);
+        instance.setRun(0, 3, 150);
+        instance.setRun(1, 64, 127);
+        instance.setFore(199, 1);
+
+        return instance;
+    }
+}
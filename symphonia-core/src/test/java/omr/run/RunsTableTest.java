@@ -12,11 +12,18 @@
 package omr.run;
 
 import static omr.run.Orientation.*;
+import static omr.run.PixelSource.BACKGROUND;
+
+import omr.util.Predicate;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
 
 import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -207,6 +214,52 @@ public class RunsTableTest
         assertEquals(expResult, result);
     }
 
+    //------------//
+    // testPacked //
+    //------------//
+    /**
+     * Test of packed sequences (addRun, purge, include), of class
+     * RunsTable.
+     */
+    @Test
+    public void testPacked ()
+    {
+        System.out.println("packed");
+
+        RunsTable expanded = createHorizontalInstance();
+        RunsTable instance = createPackedInstance();
+        assertTrue(instance.isIdentical(expanded));
+        assertEquals(level, instance.getPixel(6, 0));
+        assertEquals(BACKGROUND, instance.getPixel(4, 0));
+        assertEquals(8, instance.getRunAt(9, 3).getStart());
+
+        Predicate<Run> predicate = new Predicate<Run>()
+        {
+            @Override
+            public boolean check (Run run)
+            {
+                return run.getLength() > 2;
+            }
+        };
+
+        RunsTable removed = new RunsTable("removed", HORIZONTAL, dim);
+        RunsTable purged = instance.copy()
+                .purge(predicate, removed);
+        assertEquals(3, purged.getSequenceSize(3));
+        assertEquals(1, purged.getSequenceSize(0));
+        assertEquals(1, removed.getSequenceSize(0));
+        assertTrue(instance.isIdentical(expanded));
+
+        purged.include(removed);
+        assertTrue(purged.isIdentical(expanded));
+
+        // Expansion on demand
+        List<Run> seq = instance.getSequence(3);
+        assertEquals(3, seq.size());
+        assertSame(seq.get(2), instance.getRunAt(9, 3));
+        assertTrue(instance.isIdentical(expanded));
+    }
+
     //    /**
     //     * Test of setMaxForeground method, of class RunsTable.
     //     */
@@ -299,6 +352,37 @@ public class RunsTableTest
         assertEquals(expResult, result);
     }
 
+    //---------------//
+    // testWriteRead //
+    //---------------//
+    /**
+     * Test of write and read methods, of class RunsTable.
+     */
+    @Test
+    public void testWriteRead ()
+            throws Exception
+    {
+        System.out.println("writeRead");
+
+        for (RunsTable instance : new RunsTable[]{
+                    createHorizontalInstance(), createPackedInstance(),
+                    createVerticalInstance()
+                }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            instance.write(new DataOutputStream(bytes));
+
+            RunsTable result = RunsTable.read(
+                    new DataInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertEquals(instance.toString(), result.toString());
+
+            if (!instance.isIdentical(result)) {
+                fail("Read table not identical to written one");
+            }
+        }
+    }
+
     //--------------------------//
     // createHorizontalInstance //
     //--------------------------//
@@ -332,6 +416,33 @@ public class RunsTableTest
         return instance;
     }
 
+    //----------------------//
+    // createPackedInstance //
+    //----------------------//
+    private RunsTable createPackedInstance ()
+    {
+        RunsTable instance = new RunsTable("packed", HORIZONTAL, dim);
+
+        instance.addRun(0, 1, 2, level);
+        instance.addRun(0, 5, 3, level);
+
+        instance.addRun(1, 0, 1, level);
+        instance.addRun(1, 4, 2, level);
+
+        instance.addRun(2, 3, 1, level);
+        instance.addRun(2, 5, 4, level);
+
+        instance.addRun(3, 0, 2, level);
+        instance.addRun(3, 4, 1, level);
+        instance.addRun(3, 8, 2, level);
+
+        instance.addRun(4, 2, 2, level);
+        instance.addRun(4, 6, 4, level);
+        instance.trim();
+
+        return instance;
+    }
+
     //------------------------//
     // createVerticalInstance //
     //------------------------//
@@ -0,0 +1,161 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                         T i l e C a c h e T e s t                          //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.ui.view;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Unitary tests of {@link TileCache} invalidation geometry, for several
+ * zoom ratios and around the invalidation margin (assumed to be a few
+ * pixels, much smaller than a tile).
+ *
+ * @author Hervé Bitteur
+ */
+public class TileCacheTest
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /** Zoom ratios of the cached tiles. */
+    private static final double[] RATIOS = new double[]{0.5, 1, 1.5, 2};
+
+    /** Number of tile columns and rows cached per ratio. */
+    private static final int GRID = 4;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final TileCache cache = new TileCache();
+
+    private final int size = cache.getTileSize();
+
+    private final BufferedImage tile = new BufferedImage(
+            1,
+            1,
+            BufferedImage.TYPE_INT_ARGB);
+
+    //~ Constructors -----------------------------------------------------------
+    public TileCacheTest ()
+    {
+        for (double ratio : RATIOS) {
+            for (int col = 0; col < GRID; col++) {
+                for (int row = 0; row < GRID; row++) {
+                    cache.put(ratio, col, row, tile, cache.getStamp());
+                }
+            }
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+    //
+    //----------------//
+    // testInvalidate //
+    //----------------//
+    @Test
+    public void testInvalidate ()
+    {
+        cache.invalidate();
+
+        for (double ratio : RATIOS) {
+            checkRemoved(ratio, 0, GRID - 1, 0, GRID - 1);
+        }
+    }
+
+    //------------//
+    // testMargin //
+    //------------//
+    @Test
+    public void testMargin ()
+    {
+        // Ending 1 pixel before column 1, starting 1 pixel after row 0
+        cache.invalidate(new Rectangle(size - 21, size + 1, 20, 10));
+
+        checkRemoved(1, 0, 1, 0, 1);
+    }
+
+    //-----------------//
+    // testRatioSpread //
+    //-----------------//
+    @Test
+    public void testRatioSpread ()
+    {
+        // Model rectangle across model tiles (0,0) and (1,1)
+        cache.invalidate(
+                new Rectangle((size / 2) + 10, (size / 2) + 10, size, size));
+
+        checkRemoved(0.5, 0, 0, 0, 0); // Display [69..197]
+        checkRemoved(1, 0, 1, 0, 1); // Display [138..394]
+        checkRemoved(1.5, 0, 2, 0, 2); // Display [207..591]
+        checkRemoved(2, 1, 3, 1, 3); // Display [276..788]
+    }
+
+    //------------//
+    // testRatios //
+    //------------//
+    @Test
+    public void testRatios ()
+    {
+        // Model rectangle well inside model tile (1,1)
+        // (display ranges given for 256-pixel tiles)
+        cache.invalidate(new Rectangle(size + 10, size + 10, 20, 20));
+
+        checkRemoved(0.5, 0, 0, 0, 0); // Display [133..143]
+        checkRemoved(1, 1, 1, 1, 1); // Display [266..286]
+        checkRemoved(1.5, 1, 1, 1, 1); // Display [399..429]
+        checkRemoved(2, 2, 2, 2, 2); // Display [532..572]
+    }
+
+    //-----------//
+    // testStamp //
+    //-----------//
+    @Test
+    public void testStamp ()
+    {
+        long start = cache.getStamp();
+        cache.invalidate(new Rectangle(0, 0, 1, 1));
+        cache.put(1, 0, 0, tile, start);
+
+        // Tile rendered during the invalidation is not cached
+        assertNull(cache.get(1, 0, 0));
+    }
+
+    //--------------//
+    // checkRemoved //
+    //--------------//
+    /**
+     * Check that, at the provided ratio, exactly the tiles within the
+     * provided columns and rows are no longer cached.
+     */
+    private void checkRemoved (double ratio,
+                               int colMin,
+                               int colMax,
+                               int rowMin,
+                               int rowMax)
+    {
+        for (int col = 0; col < GRID; col++) {
+            for (int row = 0; row < GRID; row++) {
+                boolean removed = (col >= colMin) && (col <= colMax)
+                                  && (row >= rowMin) && (row <= rowMax);
+                String msg = "ratio " + ratio + " tile (" + col + "," + row
+                             + ")";
+
+                if (removed) {
+                    assertNull(msg, cache.get(ratio, col, row));
+                } else {
+                    assertNotNull(msg, cache.get(ratio, col, row));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+//----------------------------------------------------------------------------//
+//                                                                            //
+//                         G r i d I n d e x T e s t                          //
+//                                                                            //
+//----------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">                          //
+//  Copyright © Hervé Bitteur and others 2000-2013. All rights reserved.      //
+//  This software is released under the GNU General Public License.           //
+//  Goto http://kenai.com/projects/audiveris to report bugs or suggestions.   //
+//----------------------------------------------------------------------------//
+// </editor-fold>
+package omr.util;
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unitary tests of {@link GridIndex}.
+ *
+ * @author Hervé Bitteur
+ */
+public class GridIndexTest
+{
+    //~ Instance fields --------------------------------------------------------
+
+    /** Current bounds of the indexed entities. */
+    private final Map<String, Rectangle> bounds = new HashMap<>();
+
+    private GridIndex<String> instance;
+
+    //~ Methods ----------------------------------------------------------------
+    //-------//
+    // setUp //
+    //-------//
+    @Before
+    public void setUp ()
+    {
+        instance = new GridIndex<String>(10)
+        {
+            @Override
+            protected Rectangle getBounds (String entity)
+            {
+                return bounds.get(entity);
+            }
+        };
+
+        put("a", new Rectangle(2, 2, 5, 5));
+        put("b", new Rectangle(25, 2, 30, 4));
+        put("c", new Rectangle(-15, -15, 5, 5));
+    }
+
+    //------------//
+    // testLookup //
+    //------------//
+    @Test
+    public void testLookup ()
+    {
+        assertEquals(3, instance.size());
+
+        Set<String> found = instance.lookup(new Rectangle(0, 0, 8, 8));
+        assertTrue(found.contains("a"));
+        assertFalse(found.contains("b"));
+        assertFalse(found.contains("c"));
+
+        found = instance.lookup(new Rectangle(40, 0, 5, 5));
+        assertTrue(found.contains("b"));
+        assertFalse(found.contains("a"));
+
+        found = instance.lookup(new Rectangle(-12, -12, 2, 2));
+        assertTrue(found.contains("c"));
+        assertEquals(1, found.size());
+
+        // Large rectangle
+        found = instance.lookup(new Rectangle(-1000, -1000, 2000, 2000));
+        assertEquals(3, found.size());
+    }
+
+    //------------//
+    // testRemove //
+    //------------//
+    @Test
+    public void testRemove ()
+    {
+        instance.remove("b");
+        assertEquals(2, instance.size());
+        assertFalse(instance.lookup(new Rectangle(40, 0, 5, 5)).contains("b"));
+
+        // Null bounds also remove the entity
+        bounds.remove("a");
+        instance.update("a");
+        assertEquals(1, instance.size());
+        assertFalse(instance.lookup(new Rectangle(0, 0, 8, 8)).contains("a"));
+    }
+
+    //------------//
+    // testUpdate //
+    //------------//
+    @Test
+    public void testUpdate ()
+    {
+        put("a", new Rectangle(102, 102, 5, 5));
+
+        assertFalse(instance.lookup(new Rectangle(0, 0, 8, 8)).contains("a"));
+        assertTrue(
+                instance.lookup(new Rectangle(100, 100, 3, 3)).contains("a"));
+        assertEquals(3, instance.size());
+    }
+
+    //-----//
+    // put //
+    //-----//
+    private void put (String entity,
+                      Rectangle box)
+    {
+        bounds.put(entity, box);
+        instance.update(entity);
+    }
+}
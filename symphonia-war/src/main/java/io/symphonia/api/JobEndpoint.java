@@ -0,0 +1,272 @@
+package io.symphonia.api;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import omr.score.Score;
+
+import org.jboss.resteasy.logging.Logger;
+import org.jboss.resteasy.plugins.providers.multipart.InputPart;
+import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
+
+/**
+ * A JAX-RS 2.0 REST resource for asynchronous OMR jobs, handled by {@link JobManager}.
+ *
+ * A job is submitted with an image, and its id is returned right away. The job status (current step and
+ * percentage) can then be polled, and the results downloaded once the job is done.
+ *
+ * @author sbunciak
+ *
+ */
+@Path("/omr/jobs")
+@Api(value = "/omr/jobs")
+public class JobEndpoint {
+
+    @Inject
+    JobManager jobManager;
+
+    @Inject
+    OmrService omrService;
+
+    private static final Logger LOG = Logger.getLogger(JobEndpoint.class);
+
+    // Content-Disposition header name
+    private static final String CONTENT_DISPOSITION = "Content-Disposition";
+
+    // (html) form input field name
+    private static final String FILE_INPUT_FIELD = "attachment";
+
+    // Seconds before a rejected client should retry
+    private static final int RETRY_AFTER = 30;
+
+    /*
+     * Job submission
+     */
+    @POST
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(produces = MediaType.APPLICATION_JSON, consumes = MediaType.MULTIPART_FORM_DATA, value = "Submits given image for asynchronous OMR")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "attachment", value = "File to upload", required = true, dataType = "file", paramType = "form")
+    })
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "Job queued."),
+            @ApiResponse(code = 204, message = "No supported image provided."),
+            @ApiResponse(code = 500, message = "Error loading input image."),
+            @ApiResponse(code = 503, message = "Job queue is full, retry later.")
+    })
+    public Response submit(@ApiParam(value = "File input", hidden = true) MultipartFormDataInput input) {
+        Map<String, List<InputPart>> uploadForm = input.getFormDataMap();
+        List<InputPart> inputParts = uploadForm.get(FILE_INPUT_FIELD);
+
+        if (inputParts == null || inputParts.isEmpty()) {
+            return Response.noContent().build();
+        }
+
+        InputPart inputPart = inputParts.get(0);
+        String fileName = OmrEndpoint.getFileName(inputPart.getHeaders());
+
+        if (!OmrEndpoint.isSupported(fileName)) {
+            return Response.noContent().build();
+        }
+
+        try (InputStream inputStream = inputPart.getBody(InputStream.class, null)) {
+            OmrJob job = jobManager.submit(inputStream, fileName);
+            return Response.accepted(job.toJson()).location(URI.create("omr/jobs/" + job.getId())).build();
+        } catch (RejectedExecutionException e) {
+            return Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER).build();
+        } catch (IOException e) {
+            LOG.error("Error loading input image.", e);
+            return Response.serverError().build();
+        }
+    }
+
+    /*
+     * Queue status
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Reports the job queue status")
+    public Response getQueue() {
+        return Response.ok(jobManager.toJson()).build();
+    }
+
+    /*
+     * Job status
+     */
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Reports the job status, current step and percentage")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Job status."),
+            @ApiResponse(code = 404, message = "Unknown job.")
+    })
+    public Response getStatus(@PathParam("id") String id) {
+        OmrJob job = jobManager.getJob(id);
+
+        if (job == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+
+        return Response.ok(job.toJson()).build();
+    }
+
+    /*
+     * Job cancellation
+     */
+    @DELETE
+    @Path("/{id}")
+    @ApiOperation(value = "Cancels the job, or releases its results")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "Job removed."),
+            @ApiResponse(code = 404, message = "Unknown job.")
+    })
+    public Response delete(@PathParam("id") String id) {
+        if (jobManager.remove(id) == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+
+        return Response.noContent().build();
+    }
+
+    /*
+     * MusicXML output
+     */
+    @GET
+    @Path("/{id}/musicxml")
+    @Produces(MediaType.APPLICATION_XML)
+    @ApiOperation(value = "Downloads the job result as MusicXML")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "OMR successful."),
+            @ApiResponse(code = 404, message = "Unknown job."),
+            @ApiResponse(code = 409, message = "Job not done.")
+    })
+    public Response getMusicXML(@PathParam("id") String id) {
+        return download(id, Format.MUSICXML);
+    }
+
+    /*
+     * Compressed MusicXML output
+     */
+    @GET
+    @Path("/{id}/mxl")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @ApiOperation(value = "Downloads the job result as compressed MusicXML")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "OMR successful."),
+            @ApiResponse(code = 404, message = "Unknown job."),
+            @ApiResponse(code = 409, message = "Job not done.")
+    })
+    public Response getMxl(@PathParam("id") String id) {
+        return download(id, Format.MXL);
+    }
+
+    /*
+     * PDF output
+     */
+    @GET
+    @Path("/{id}/pdf")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @ApiOperation(value = "Downloads the job result as PDF")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "OMR successful."),
+            @ApiResponse(code = 404, message = "Unknown job."),
+            @ApiResponse(code = 409, message = "Job not done.")
+    })
+    public Response getPdf(@PathParam("id") String id) {
+        return download(id, Format.PDF);
+    }
+
+    /*
+     * Auxiliary methods
+     */
+
+    private Response download(String id, final Format format) {
+        OmrJob job = jobManager.getJob(id);
+
+        if (job == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+
+        if (job.getState() != OmrJob.State.DONE) {
+            return Response.status(Status.CONFLICT).entity(job.toJson()).type(MediaType.APPLICATION_JSON).build();
+        }
+
+        final OmrJob doneJob = job;
+        final Score score = job.getScore();
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream os) throws IOException {
+                // The job may have expired or been removed since the status check
+                if (!jobManager.lease(doneJob)) {
+                    throw new WebApplicationException(Status.NOT_FOUND);
+                }
+
+                try {
+                    switch (format) {
+                    case MUSICXML:
+                        omrService.writeMusicXml(score, os);
+                        break;
+                    case MXL:
+                        omrService.writeMxl(score, os);
+                        break;
+                    case PDF:
+                        omrService.writePdf(score, os);
+                        break;
+                    }
+                } finally {
+                    jobManager.unlease(doneJob);
+                }
+            }
+        };
+
+        Response.ResponseBuilder builder = Response.ok(output);
+
+        if (format != Format.MUSICXML) {
+            builder.header(CONTENT_DISPOSITION, "attachment; filename=output" + format.extension);
+        }
+
+        return builder.build();
+    }
+
+    /*
+     * Available result formats.
+     */
+    enum Format {
+        MUSICXML(".xml"), MXL(".mxl"), PDF(".pdf");
+
+        private final String extension;
+
+        private Format(String extension) {
+            this.extension = extension;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.symphonia.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.json.Json;
+
+import omr.score.Score;
+
+import org.jboss.resteasy.logging.Logger;
+
+/**
+ * Handles the asynchronous OMR jobs: admission into a bounded queue, execution by a fixed number of workers, and
+ * retention of the results until they are deleted or expired.
+ *
+ * Sizes can be tuned through system properties:
+ * <ul>
+ * <li>symphonia.jobs.workers: number of jobs processed concurrently (default: number of processors)</li>
+ * <li>symphonia.jobs.queue: number of jobs waiting for a worker (default: 16)</li>
+ * <li>symphonia.jobs.retention: minutes a finished job is kept (default: 30)</li>
+ * </ul>
+ *
+ * @author sbunciak
+ *
+ */
+@Singleton
+public class JobManager {
+
+    private static final Logger LOG = Logger.getLogger(JobManager.class);
+
+    private static final int WORKERS = Integer.getInteger("symphonia.jobs.workers", Runtime.getRuntime()
+            .availableProcessors());
+
+    private static final int QUEUE_CAPACITY = Integer.getInteger("symphonia.jobs.queue", 16);
+
+    private static final long RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(Integer.getInteger(
+            "symphonia.jobs.retention", 30));
+
+    @Inject
+    OmrService omrService;
+
+    private final Map<String, OmrJob> jobs = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Decodes the uploaded image and queues its processing. The engine processing slot is only taken by the worker,
+     * so that a queued job never blocks the request thread: the number of decoded scores is bounded by the queue
+     * capacity plus the number of workers.
+     *
+     * @param imageStream the uploaded image data
+     * @param fileName the uploaded file name
+     * @return the queued job
+     * @throws RejectedExecutionException if the queue is full
+     * @throws IOException if the image could not be decoded
+     */
+    public OmrJob submit(InputStream imageStream, String fileName) throws IOException {
+        purge();
+
+        // Reject early, before decoding the upload
+        if (isFull()) {
+            throw new RejectedExecutionException("Job queue is full");
+        }
+
+        Score score = omrService.loadImage(imageStream, fileName);
+        final OmrJob job = new OmrJob(fileName, score);
+
+        try {
+            jobs.put(job.getId(), job);
+            job.setFuture(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    runJob(job);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            omrService.close(score);
+            throw e;
+        }
+
+        LOG.info("Queued " + job);
+        return job;
+    }
+
+    /**
+     * @param id job id
+     * @return the job, or null if unknown
+     */
+    public OmrJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancels the job if still queued or running, and releases its resources. The score of a running job is closed
+     * by its worker when it stops, and the score of a job being downloaded is closed when the download completes.
+     *
+     * @param id job id
+     * @return the removed job, or null if unknown
+     */
+    public OmrJob remove(String id) {
+        OmrJob job = jobs.remove(id);
+
+        if (job != null) {
+            job.cancel();
+
+            if (job.getFuture() != null) {
+                job.getFuture().cancel(true);
+            }
+
+            release(job);
+        }
+
+        return job;
+    }
+
+    /**
+     * Gets a lease on the score of a done job, so that it cannot be closed while it is being exported.
+     *
+     * @param job the job at hand
+     * @return true if leased, false if the job is not done or has been removed
+     */
+    public boolean lease(OmrJob job) {
+        return job.lease();
+    }
+
+    /**
+     * Drops a lease obtained by {@link #lease(OmrJob)}, closing the score if the job has been removed meanwhile.
+     *
+     * @param job the job at hand
+     */
+    public void unlease(OmrJob job) {
+        if (job.unlease()) {
+            omrService.close(job.getScore());
+        }
+    }
+
+    /**
+     * @return a JSON summary of the queue
+     */
+    public String toJson() {
+        purge();
+
+        return Json.createObjectBuilder()
+                .add("workers", WORKERS)
+                .add("running", executor.getActiveCount())
+                .add("queued", executor.getQueue().size())
+                .add("capacity", QUEUE_CAPACITY)
+                .add("jobs", jobs.size())
+                .build().toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+
+        for (String id : jobs.keySet()) {
+            remove(id);
+        }
+    }
+
+    private boolean isFull() {
+        return executor.getQueue().remainingCapacity() == 0;
+    }
+
+    private void release(OmrJob job) {
+        if (job.release()) {
+            omrService.close(job.getScore());
+        }
+    }
+
+    private void runJob(OmrJob job) {
+        if (!job.start()) {
+            return; // Cancelled while queued
+        }
+
+        try {
+            omrService.process(job.getScore(), job);
+            job.succeeded();
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Error processing " + job, e);
+            job.failed(e.getMessage());
+        } finally {
+            // Closes the score if the job was removed while running
+            unlease(job);
+        }
+    }
+
+    /*
+     * Forget the jobs finished for too long.
+     */
+    private void purge() {
+        long limit = System.currentTimeMillis() - RETENTION_MILLIS;
+
+        for (Iterator<OmrJob> it = jobs.values().iterator(); it.hasNext();) {
+            OmrJob job = it.next();
+
+            if (job.isFinished() && job.getFinished() < limit) {
+                it.remove();
+                release(job);
+                LOG.info("Expired " + job);
+            }
+        }
+    }
+}
@@ -8,11 +8,9 @@ import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -21,14 +19,15 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
-import omr.WellKnowns;
+import omr.score.Score;
 import omr.util.FileUtil;
 
-import org.apache.commons.io.IOUtils;
 import org.jboss.resteasy.logging.Logger;
 import org.jboss.resteasy.plugins.providers.multipart.InputPart;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
@@ -73,28 +72,24 @@ public class OmrEndpoint {
             @ApiResponse(code = 500, message = "Error processing input image.")
     })
     public Response getMusicXML(@ApiParam(value = "File input", hidden = true) MultipartFormDataInput input) {
-        File imageFile = extractFileFromFormInput(input);
+        final Score score = processFormInput(input);
 
-        if (imageFile == null) {
+        if (score == null) {
             return Response.noContent().build();
         }
 
-        File xmlFile = null;
-        try {
-            xmlFile = omrService.getMusicXmlFromImage(imageFile);
-            String xml = IOUtils.toString(new FileInputStream(xmlFile));
-            return Response.ok(xml).build();
-        } catch (IOException e) {
-            LOG.error("Error processing input image.", e);
-        } finally {
-            // finally delete all files
-            imageFile.delete();
-            if (xmlFile != null) {
-                xmlFile.delete();
+        StreamingOutput xml = new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                try {
+                    omrService.writeMusicXml(score, output);
+                } finally {
+                    omrService.close(score);
+                }
             }
-        }
+        };
 
-        return Response.serverError().build();
+        return Response.ok(xml).build();
     }
 
     /*
@@ -114,69 +109,81 @@ public class OmrEndpoint {
             @ApiResponse(code = 500, message = "Error processing input image.")
     })
     public Response getPdf(@ApiParam(value = "Form data input", hidden = true) MultipartFormDataInput input) {
-        File imageFile = extractFileFromFormInput(input);
+        final Score score = processFormInput(input);
 
-        if (imageFile == null) {
+        if (score == null) {
             return Response.noContent().build();
         }
 
-        File pdfFile = null;
-        try {
-            pdfFile = omrService.getPdfFromImage(imageFile);
-            byte[] content = IOUtils.toByteArray(new FileInputStream(pdfFile));
-            return Response.ok(content).header(CONTENT_DISPOSITION, "attachment; filename=output.pdf").header("Content-Length", pdfFile.length()).build();
-        } catch (IOException e) {
-            LOG.error("Error processing input image.", e);
-        } finally {
-            // finally delete all files
-            imageFile.delete();
-            if (pdfFile != null) {
-                pdfFile.delete();
+        StreamingOutput pdf = new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                try {
+                    omrService.writePdf(score, output);
+                } finally {
+                    omrService.close(score);
+                }
             }
-        }
+        };
 
-        return Response.serverError().build();
+        return Response.ok(pdf).header(CONTENT_DISPOSITION, "attachment; filename=output.pdf").build();
     }
 
     /*
      * Auxiliary methods
      */
 
-    private File extractFileFromFormInput(MultipartFormDataInput input) {
+    /**
+     * Runs OMR directly on the uploaded stream, no temporary file is written.
+     *
+     * @return the processed score, or null if no supported image was provided
+     * @throws WebApplicationException (500) if the image could not be processed
+     */
+    private Score processFormInput(MultipartFormDataInput input) {
         Map<String, List<InputPart>> uploadForm = input.getFormDataMap();
-        // Get file data to save
+        // Get file data to process
         List<InputPart> inputParts = uploadForm.get(FILE_INPUT_FIELD);
 
-        for (InputPart inputPart : inputParts) {
-            try {
-
-                // get file name
-                String fileName = getFileName(inputPart.getHeaders());
-                String ext = FileUtil.getExtension(fileName);
-
-                // proceed only if extension is supported 
-                if (SupportedImage.valueOf(ext.toUpperCase().substring(1)) == null) {
-                    return null;
-                }
+        if (inputParts == null) {
+            return null;
+        }
 
-                // convert the uploaded file to an Input Stream
-                InputStream inputStream = inputPart.getBody(InputStream.class, null);
+        for (InputPart inputPart : inputParts) {
+            // get file name
+            String fileName = getFileName(inputPart.getHeaders());
 
-                // constructs uploaded file path
-                File image = File.createTempFile(fileName, ext, WellKnowns.DATA_FOLDER);
+            // proceed only if extension is supported
+            if (!isSupported(fileName)) {
+                return null;
+            }
 
-                // convert image to byte array and write to file
-                byte[] bytes = IOUtils.toByteArray(inputStream);
-                return writeFile(bytes, image.getAbsolutePath());
+            try (InputStream inputStream = inputPart.getBody(InputStream.class, null)) {
+                return omrService.processImage(inputStream, fileName);
             } catch (IOException e) {
-                LOG.error("Error saving input file for local procesing.", e);
+                LOG.error("Error processing input image.", e);
+                throw new WebApplicationException(e, Response.serverError().build());
             }
         }
 
         return null;
     }
 
-    private String getFileName(MultivaluedMap<String, String> header) {
+    static boolean isSupported(String fileName) {
+        String ext = FileUtil.getExtension(fileName);
+
+        if (ext.length() < 2) {
+            return false;
+        }
+
+        try {
+            SupportedImage.valueOf(ext.toUpperCase().substring(1));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static String getFileName(MultivaluedMap<String, String> header) {
         String[] contentDisposition = header.getFirst(CONTENT_DISPOSITION).split(";");
 
         for (String filename : contentDisposition) {
@@ -191,20 +198,6 @@ public class OmrEndpoint {
         return "unknown";
     }
 
-    private File writeFile(byte[] content, String filename) throws IOException {
-        File file = new File(filename);
-        if (!file.exists()) {
-            LOG.error("File doesn not exist: " + file.getAbsolutePath());
-            file.createNewFile();
-        }
-        FileOutputStream fop = new FileOutputStream(file);
-        fop.write(content);
-        fop.flush();
-        fop.close();
-
-        return file;
-    }
-
     /*
      * We support BMP, GIF, JPEG, PNG, TIFF.
      */
@@ -0,0 +1,293 @@
+package io.symphonia.api;
+
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+
+import omr.score.Score;
+import omr.sheet.Sheet;
+import omr.step.Step;
+import omr.step.StepListener;
+import omr.step.Steps;
+
+/**
+ * An asynchronous OMR job, handled by {@link JobManager}.
+ *
+ * The job progress is fed by the core {@link StepListener} notifications: the percentage is the ratio of steps
+ * completed so far, over all the steps (sheet-level steps on each page, plus the final score-level step) needed to
+ * reach the SCORE step.
+ *
+ * All state transitions are atomic (synchronized on the job). The score is shared by the worker that processes it
+ * and by the downloads that export it, each of them holding a lease on the job. Once the job is released by its
+ * manager, the score is closed by whoever drops the last lease, so that it is never closed while still in use.
+ *
+ * @author sbunciak
+ *
+ */
+public class OmrJob implements StepListener {
+
+    /**
+     * Life cycle of a job.
+     */
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+    }
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final String fileName;
+
+    private final Score score;
+
+    private final long submitted = System.currentTimeMillis();
+
+    private final int totalSteps;
+
+    private final AtomicInteger doneSteps = new AtomicInteger(0);
+
+    private volatile State state = State.QUEUED;
+
+    private volatile Step currentStep;
+
+    private volatile String error;
+
+    private volatile long finished;
+
+    private volatile Future<?> future;
+
+    /** Number of current users of the score (worker or downloads). */
+    private int leases;
+
+    /** True once the manager has dropped the job. */
+    private boolean released;
+
+    /** True once the score has been (or is being) closed. */
+    private boolean closed;
+
+    public OmrJob(String fileName, Score score) {
+        this.fileName = fileName;
+        this.score = score;
+        this.totalSteps = countSteps(score.getPages().size());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Score getScore() {
+        return score;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Step getCurrentStep() {
+        return currentStep;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the progress, from 0 to 100
+     */
+    public int getPercent() {
+        if (state == State.DONE) {
+            return 100;
+        }
+
+        // Never report 100% before the job is actually done
+        return Math.min(99, (100 * doneSteps.get()) / totalSteps);
+    }
+
+    /**
+     * @return true if the job is no longer queued or running
+     */
+    public boolean isFinished() {
+        return finished != 0;
+    }
+
+    /**
+     * @return time of completion, or 0 if not yet finished
+     */
+    public long getFinished() {
+        return finished;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    /**
+     * Move from QUEUED to RUNNING, the worker getting a lease on the score.
+     *
+     * @return false if the job is no longer queued (cancelled meanwhile)
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED || released) {
+            return false;
+        }
+
+        state = State.RUNNING;
+        leases++;
+        return true;
+    }
+
+    /**
+     * Move from RUNNING to DONE, unless the job has been cancelled meanwhile.
+     */
+    synchronized void succeeded() {
+        if (state == State.RUNNING) {
+            currentStep = null;
+            finish(State.DONE);
+        }
+    }
+
+    /**
+     * Move from RUNNING to FAILED, unless the job has been cancelled meanwhile.
+     */
+    synchronized void failed(String error) {
+        if (state == State.RUNNING) {
+            this.error = error;
+            finish(State.FAILED);
+        }
+    }
+
+    /**
+     * Move from QUEUED or RUNNING to CANCELLED. A running worker keeps its lease until it stops.
+     */
+    synchronized void cancel() {
+        if (state == State.QUEUED || state == State.RUNNING) {
+            finish(State.CANCELLED);
+        }
+    }
+
+    /**
+     * Get a lease on the score of a DONE job, for a download.
+     *
+     * @return false if the job is not done or already released
+     */
+    synchronized boolean lease() {
+        if (state != State.DONE || released) {
+            return false;
+        }
+
+        leases++;
+        return true;
+    }
+
+    /**
+     * Drop a lease on the score.
+     *
+     * @return true if the caller must now close the score
+     */
+    synchronized boolean unlease() {
+        leases--;
+        return mustClose();
+    }
+
+    /**
+     * Drop the job on the manager side.
+     *
+     * @return true if the caller must now close the score
+     */
+    synchronized boolean release() {
+        released = true;
+        return mustClose();
+    }
+
+    @Override
+    public void stepStarted(Sheet sheet, Step step) {
+        currentStep = step;
+    }
+
+    @Override
+    public void stepStopped(Sheet sheet, Step step) {
+        if (step.isDone(sheet)) {
+            doneSteps.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return a JSON representation of the job status
+     */
+    public String toJson() {
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("id", id)
+                .add("fileName", fileName)
+                .add("state", state.name())
+                .add("percent", getPercent())
+                .add("submitted", submitted);
+
+        Step step = currentStep;
+        if (step != null) {
+            builder.add("step", step.getName());
+        }
+
+        if (error != null) {
+            builder.add("error", error);
+        }
+
+        return builder.build().toString();
+    }
+
+    @Override
+    public String toString() {
+        return "{OmrJob " + id + " " + fileName + " " + state + "}";
+    }
+
+    private void finish(State state) {
+        if (finished == 0) {
+            this.state = state;
+            finished = System.currentTimeMillis();
+        }
+    }
+
+    /*
+     * The score is closed once, when the job is released and no lease is left.
+     */
+    private boolean mustClose() {
+        if (released && leases == 0 && !closed) {
+            closed = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    /*
+     * Number of steps to perform: all sheet-level mandatory steps (except LOAD, already done) on each page, plus the
+     * score-level mandatory steps.
+     */
+    private static int countSteps(int pageCount) {
+        int sheetSteps = 0;
+        int scoreSteps = 0;
+
+        for (Step step : Steps.values()) {
+            if (!step.isMandatory() || step == Steps.valueOf(Steps.LOAD)) {
+                continue;
+            }
+
+            if (step.isScoreLevel()) {
+                scoreSteps++;
+            } else {
+                sheetSteps++;
+            }
+        }
+
+        return Math.max(1, (pageCount * sheetSteps) + scoreSteps);
+    }
+}
@@ -1,59 +1,152 @@
 package io.symphonia.api;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import javax.inject.Singleton;
 
+import omr.OmrEngine;
 import omr.WellKnowns;
+import omr.score.Score;
+import omr.step.Step;
+import omr.step.StepException;
+import omr.step.StepListener;
+import omr.step.Steps;
 
 /**
  * Service to provide a 'bridge' to the OMR core services.
- * 
+ *
+ * All requests share the same in-process {@link OmrEngine}, which is initialized once and kept warm.
+ * Images are decoded straight from the uploaded stream, and outputs are written straight to the response
+ * stream, so that no temporary file and no full copy of the payload is needed.
+ *
  * @author sbunciak
  *
  */
 @Singleton
 public class OmrService {
 
+    private final OmrEngine engine;
+
     public OmrService() {
-        // We need class WellKnowns to be elaborated before class Main
+        // We need class WellKnowns to be elaborated before the engine
         WellKnowns.ensureLoaded();
+        engine = OmrEngine.getInstance();
     }
 
     /**
-     * Methods performs OMR and returns MusicXML v3 String representation.
-     * 
-     * @param {@link java.io.File}
-     * @return {@link java.io.File} xml
+     * Methods performs OMR on the uploaded image, up to the SCORE step.
+     * The returned score must be released via {@link #close(Score)}.
+     *
+     * @param imageStream the uploaded image data
+     * @param fileName the uploaded file name
+     * @return the processed {@link Score}
      * @throws IOException
      */
-    public File getMusicXmlFromImage(File imageFile) throws IOException {
-        File tmpOutput = File.createTempFile("musicXmlOutput", ".xml", WellKnowns.DATA_FOLDER);
-        
-        String[] args = {"-batch", "-input", imageFile.getAbsolutePath(), "-export", tmpOutput.getAbsolutePath()};
+    public Score processImage(InputStream imageStream, String fileName) throws IOException {
+        Step target = Steps.valueOf(Steps.SCORE);
 
-        // Then we call Main...
-        omr.Main.doMain(args);
+        try {
+            return engine.process(imageStream, fileName, null, target);
+        } catch (StepException e) {
+            throw new IOException("Error processing " + fileName, e);
+        }
+    }
 
-        return tmpOutput;
+    /**
+     * Methods decodes the uploaded image, without processing it further.
+     * The returned score must be processed via {@link #process(Score, StepListener)} and released via
+     * {@link #close(Score)}.
+     *
+     * @param imageStream the uploaded image data
+     * @param fileName the uploaded file name
+     * @return the loaded {@link Score}
+     * @throws IOException
+     */
+    public Score loadImage(InputStream imageStream, String fileName) throws IOException {
+        try {
+            return engine.load(imageStream, fileName, null);
+        } catch (StepException e) {
+            throw new IOException("Error loading " + fileName, e);
+        }
     }
 
     /**
-     * Methods performs OMR and returns a PDF file.
-     * 
-     * @param {@link java.io.File}
-     * @return {@link java.io.File} pdf
+     * Methods performs OMR on a loaded score, up to the SCORE step.
+     * The score is not closed on failure, it must still be released by the caller via {@link #close(Score)}.
+     *
+     * @param score the loaded score
+     * @param listener the listener on step progression, or null
      * @throws IOException
      */
-    public File getPdfFromImage(File imageFile) throws IOException {
-        File tmpOutput = File.createTempFile("pdfOutput", ".pdf", WellKnowns.DATA_FOLDER);
-        
-        String[] args = {"-batch", "-input", imageFile.getAbsolutePath(), "-print", tmpOutput.getAbsolutePath()};
+    public void process(Score score, StepListener listener) throws IOException {
+        Step target = Steps.valueOf(Steps.SCORE);
 
-        // Then we call Main...
-        omr.Main.doMain(args);
+        try {
+            engine.process(score, target, listener);
+        } catch (StepException e) {
+            throw new IOException("Error processing " + score.getRadix(), e);
+        }
+    }
+
+    /**
+     * Methods writes MusicXML v3 representation of the score to the provided stream.
+     *
+     * @param score the processed score
+     * @param os the output stream
+     * @throws IOException
+     */
+    public void writeMusicXml(Score score, OutputStream os) throws IOException {
+        try {
+            engine.export(score, os);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error exporting score " + score.getRadix(), e);
+        }
+    }
 
-        return tmpOutput;
+    /**
+     * Methods writes compressed MusicXML (.mxl) representation of the score to the provided stream.
+     *
+     * @param score the processed score
+     * @param os the output stream
+     * @throws IOException
+     */
+    public void writeMxl(Score score, OutputStream os) throws IOException {
+        try {
+            engine.exportMxl(score, os);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error exporting score " + score.getRadix(), e);
+        }
+    }
+
+    /**
+     * Methods writes PDF representation of the score to the provided stream, page after page.
+     *
+     * @param score the processed score
+     * @param os the output stream
+     * @throws IOException
+     */
+    public void writePdf(Score score, OutputStream os) throws IOException {
+        try {
+            engine.print(score, os);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error printing score " + score.getRadix(), e);
+        }
+    }
+
+    /**
+     * Methods releases the processed score.
+     *
+     * @param score the score to release
+     */
+    public void close(Score score) {
+        engine.close(score);
     }
 }